@@ -15,13 +15,16 @@ import javafx.scene.text.Text;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import javafx.concurrent.Task;
 import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.network.NetworkManager;
+import com.reliefnet.network.PeerDiscoveryManager;
 import com.reliefnet.util.ThemeManager;
-import com.reliefnet.util.MemoryManager;
+import com.reliefnet.util.MemoryGovernor;
 import com.reliefnet.util.DataMigrationManager;
 import com.reliefnet.view.AuthenticationView;
 
+import java.lang.management.ManagementFactory;
+
 /**
  * ReliefNet - Disaster Relief System for Bangladesh
  * Main Application Class with Splash Screen
@@ -32,37 +35,50 @@ public class ReliefNetApp extends Application {
 
     @Override
     public void start(Stage primaryStage) {
-        // Initialize memory manager first
-        MemoryManager memoryManager = MemoryManager.getInstance();
+        // Start watching heap pressure first
+        MemoryGovernor memoryGovernor = MemoryGovernor.getInstance();
         
         // Add shutdown hook for cleanup
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("Shutting down ReliefNet...");
-            memoryManager.shutdown();
+            memoryGovernor.shutdown();
             DatabaseManager.getInstance().closeConnection();
         }));
         
-        // Initialize database
-        try {
-            DatabaseManager.getInstance().initializeDatabase();
-            System.out.println("Database initialized successfully");
-            
-            // Start data migration in background to sync existing data with Firebase
-            startDataMigration();
-            
-        } catch (Exception e) {
-            System.err.println("Failed to initialize database: " + e.getMessage());
-            showErrorDialog("Database Error", e);
-            return;
-        }
+        // Show splash screen right away; it stays up only until the login screen is ready
+        Stage splashStage = showSplashScreen();
         
-        // Print initial memory usage
-        memoryManager.printMemoryUsage();
+        // Independent startup phases run in parallel off the FX thread
+        StartupOrchestrator startup = new StartupOrchestrator()
+            .phase("database", () -> DatabaseManager.getInstance().initializeDatabase())
+            .phase("cloud-migration", this::startDataMigration, "database")
+            .phase("mdns", PeerDiscoveryManager::prewarm)
+            .phase("network", NetworkManager::getInstance, "mdns")
+            .phase("theme-assets", ThemeManager::preloadAssets);
+        startup.start();
         
-        // Show splash screen first, then authentication
-        showSplashScreen(primaryStage, () -> showAuthenticationScreen(primaryStage));
+        // The login screen needs the database (and the logo); network and sync keep going behind it
+        startup.whenDone("database", "theme-assets").whenComplete((ignored, error) -> Platform.runLater(() -> {
+            splashStage.close();
+            if (error != null) {
+                Throwable cause = StartupOrchestrator.rootCause(error);
+                System.err.println("Failed to initialize database: " + cause.getMessage());
+                showErrorDialog("Database Error", cause);
+                return;
+            }
+            System.out.println("Database initialized successfully");
+            showAuthenticationScreen(primaryStage);
+            startup.markMilestone("auth-screen");
+        }));
+        
+        startup.whenAllSettled().thenRun(() -> {
+            System.out.println(startup.getTimingReport());
+            System.out.println("JVM start to now: " + (System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime()) + " ms");
+            // Print initial memory usage
+            memoryGovernor.printMemoryUsage();
+        });
     }
-      private void showSplashScreen(Stage primaryStage, Runnable onComplete) {
+      private Stage showSplashScreen() {
         Stage splashStage = new Stage();
         splashStage.initStyle(StageStyle.UNDECORATED);
         
@@ -77,32 +93,14 @@ public class ReliefNetApp extends Application {
         splashStage.setTitle(APP_TITLE);
         
         // Set splash screen icon
-        try {
-            splashStage.getIcons().add(new Image(getClass().getResourceAsStream("/images/logo.png")));
-        } catch (Exception e) {
-            System.out.println("Could not load splash screen icon: " + e.getMessage());
+        Image logo = ThemeManager.getLogoImage();
+        if (logo != null) {
+            splashStage.getIcons().add(logo);
         }
         
         splashStage.centerOnScreen();
         splashStage.show();
-        
-        // Simple timer - show splash for 2.5 seconds then close
-        Task<Void> splashTimer = new Task<Void>() {
-            @Override
-            protected Void call() throws Exception {
-                Thread.sleep(2500); // 2.5 seconds
-                return null;
-            }
-        };
-        
-        splashTimer.setOnSucceeded(e -> {
-            splashStage.close();
-            onComplete.run();
-        });
-        
-        Thread timerThread = new Thread(splashTimer);
-        timerThread.setDaemon(true);
-        timerThread.start();
+        return splashStage;
     }private VBox createSplashScreen() {
         // Try to load splash.png as the full splash screen
         try {
@@ -154,10 +152,9 @@ public class ReliefNetApp extends Application {
             primaryStage.centerOnScreen();
             primaryStage.show();
               // Set application icon
-            try {
-                primaryStage.getIcons().add(new Image(getClass().getResourceAsStream("/images/logo.png")));
-            } catch (Exception e) {
-                System.out.println("Could not load application icon: " + e.getMessage());
+            Image logo = ThemeManager.getLogoImage();
+            if (logo != null) {
+                primaryStage.getIcons().add(logo);
             }
               } catch (Exception e) {
             showErrorDialog("Failed to start authentication", e);
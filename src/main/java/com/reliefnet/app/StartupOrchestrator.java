@@ -0,0 +1,183 @@
+package com.reliefnet.app;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StartupOrchestrator - Runs the application's startup phases off the JavaFX thread
+ *
+ * Each phase names the phases it depends on; independent phases run in parallel on a small pool
+ * of daemon threads. A failed phase completes exceptionally and every phase depending on it is
+ * skipped. Callers wait on the phases they actually need with {@link #whenDone(String...)}, and
+ * {@link #getTimingReport()} lists when each phase started and how long it took.
+ */
+public class StartupOrchestrator {
+
+    /**
+     * Work done by one startup phase
+     */
+    public interface PhaseTask {
+        void run() throws Exception;
+    }
+
+    private static class Phase {
+        final String name;
+        final PhaseTask task;
+        final String[] dependsOn;
+        CompletableFuture<Void> future;
+        volatile long startNanos;
+        volatile long endNanos;
+        volatile String threadName;
+        volatile String status = "PENDING";
+
+        Phase(String name, PhaseTask task, String[] dependsOn) {
+            this.name = name;
+            this.task = task;
+            this.dependsOn = dependsOn;
+        }
+    }
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final Map<String, Long> milestones = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final long originNanos = System.nanoTime();
+    private ExecutorService executor;
+
+    /**
+     * Add a phase. Dependencies must be added before the phases that use them.
+     */
+    public StartupOrchestrator phase(String name, PhaseTask task, String... dependsOn) {
+        if (executor != null) {
+            throw new IllegalStateException("Startup already running");
+        }
+        for (String dependency : dependsOn) {
+            if (!phases.containsKey(dependency)) {
+                throw new IllegalArgumentException("Phase " + name + " depends on unknown phase " + dependency);
+            }
+        }
+        phases.put(name, new Phase(name, task, dependsOn));
+        return this;
+    }
+
+    /**
+     * Start every phase as soon as its dependencies have completed
+     */
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, Math.min(4, phases.size())), r -> {
+            Thread thread = new Thread(r, "Startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Phase phase : phases.values()) {
+            CompletableFuture<?>[] dependencies = Arrays.stream(phase.dependsOn)
+                    .map(dependency -> phases.get(dependency).future)
+                    .toArray(CompletableFuture[]::new);
+
+            phase.future = CompletableFuture.allOf(dependencies)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            phase.status = "SKIPPED";
+                        }
+                    })
+                    .thenRunAsync(() -> runPhase(phase), executor);
+        }
+
+        whenDone(phases.keySet().toArray(new String[0])).whenComplete((ignored, error) -> executor.shutdown());
+    }
+
+    /**
+     * Future completing when all named phases have finished; exceptional if any of them failed
+     */
+    public CompletableFuture<Void> whenDone(String... names) {
+        CompletableFuture<?>[] futures = Arrays.stream(names)
+                .map(name -> {
+                    Phase phase = phases.get(name);
+                    if (phase == null || phase.future == null) {
+                        throw new IllegalArgumentException("Unknown or unstarted phase " + name);
+                    }
+                    return phase.future;
+                })
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Future for every phase, completing normally even when some phases failed
+     */
+    public CompletableFuture<Void> whenAllSettled() {
+        return whenDone(phases.keySet().toArray(new String[0])).handle((ignored, error) -> null);
+    }
+
+    /**
+     * Record a point in time outside the phases (e.g. "auth-screen-shown") for the report
+     */
+    public void markMilestone(String name) {
+        milestones.put(name, System.nanoTime());
+    }
+
+    /**
+     * Unwrap the cause of a failed {@link #whenDone(String...)} future
+     */
+    public static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Per-phase start offset, duration, thread and outcome, plus recorded milestones
+     */
+    public String getTimingReport() {
+        StringBuilder report = new StringBuilder("=== Startup Timing ===\n");
+        long lastEnd = 0;
+        long busyTotal = 0;
+        for (Phase phase : phases.values()) {
+            if (phase.startNanos == 0) {
+                report.append(String.format("%-16s %s%n", phase.name, phase.status));
+                continue;
+            }
+            long startMs = toMillis(phase.startNanos - originNanos);
+            long durationMs = toMillis(phase.endNanos - phase.startNanos);
+            report.append(String.format("%-16s +%5d ms  %6d ms  %-10s %s%n",
+                    phase.name, startMs, durationMs, phase.status, phase.threadName));
+            lastEnd = Math.max(lastEnd, phase.endNanos - originNanos);
+            busyTotal += phase.endNanos - phase.startNanos;
+        }
+
+        synchronized (milestones) {
+            for (Map.Entry<String, Long> milestone : milestones.entrySet()) {
+                report.append(String.format("%-16s +%5d ms%n", milestone.getKey(), toMillis(milestone.getValue() - originNanos)));
+            }
+        }
+        report.append(String.format("Phases finished at +%d ms (%d ms of work, run in parallel)%n", toMillis(lastEnd), toMillis(busyTotal)));
+        report.append("======================");
+        return report.toString();
+    }
+
+    private void runPhase(Phase phase) {
+        phase.threadName = Thread.currentThread().getName();
+        phase.startNanos = System.nanoTime();
+        phase.status = "RUNNING";
+        try {
+            phase.task.run();
+            phase.status = "OK";
+        } catch (Exception e) {
+            phase.status = "FAILED";
+            System.err.println("Startup phase " + phase.name + " failed: " + e.getMessage());
+            throw new CompletionException(e);
+        } finally {
+            phase.endNanos = System.nanoTime();
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -17,15 +17,19 @@ import javafx.stage.Stage;
 import java.util.*;
 import java.util.List;
 import java.util.ArrayList;
-import java.sql.ResultSet;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import com.reliefnet.util.MemoryGovernor;
+import com.reliefnet.util.RefreshScheduler;
 import com.reliefnet.util.ThemeManager;
+import com.reliefnet.util.TriageQueue;
+import com.reliefnet.util.VolunteerMatcher;
 import com.reliefnet.util.DataSyncManager;
 import com.reliefnet.view.*;
 import com.reliefnet.model.User;
 import com.reliefnet.model.EmergencyRequest;
 import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.database.LocationKeys;
 import com.reliefnet.network.NetworkManager;
 
 /**
@@ -49,14 +53,10 @@ public class MainController implements DataSyncManager.DataChangeListener {
     private OfflineNetworkView offlineNetworkView;
     
     private String currentView = "dashboard";
-      // Cache created view nodes to avoid recreation
+      // Constructed views are cached and kept warm by the lifecycle manager
+    private final ViewLifecycleManager viewCache = new ViewLifecycleManager();
     private VBox dashboardNode;
-    private VBox emergencyNode;
-    private VBox resourceNode;
-    private VBox volunteerNode;
-    private VBox communicationNode;
-    private VBox settingsNode;
-    private VBox offlineNetworkNode;
+    private VBox volunteerDashboard; // Built once, refilled in place
       // Constructor
     public MainController(User authenticatedUser) {
         this.currentUser = authenticatedUser;
@@ -101,6 +101,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
         
         // Initialize views
         initializeViews();
+        registerCachedViews();
           // Show dashboard by default
         showDashboard();
         
@@ -344,9 +345,54 @@ public class MainController implements DataSyncManager.DataChangeListener {
         communicationView = new CommunicationView();
         settingsView = new SettingsView();
     }
+    /**
+     * Register the views that survive navigation. Role-specific pages stay uncached.
+     */
+    private void registerCachedViews() {
+        User.UserType userType = currentUser.getUserType();
+        boolean approvedVolunteer = userType == User.UserType.VOLUNTEER && isVolunteerApproved(currentUser);
+
+        // Registration order doubles as the default prefetch order (sidebar order)
+        if (userType != User.UserType.VOLUNTEER && userType != User.UserType.SURVIVOR) {
+            viewCache.register("dashboard", dashboardView::createView, dashboardView::refreshDashboard);
+        }
+        if (approvedVolunteer) {
+            viewCache.register("emergency", volunteerEmergencyView::createView, volunteerEmergencyView::refreshData);
+        } else if (userType != User.UserType.SURVIVOR) {
+            // Warming brings the triage and matcher indexes up to date without touching the view
+            viewCache.register("emergency", emergencyView::createView, emergencyView::refreshData, () -> {
+                TriageQueue.getInstance().size();
+                VolunteerMatcher.getInstance().size();
+            });
+        }
+        if (userType != User.UserType.SURVIVOR) {
+            viewCache.register("resources", () -> resourceView.createResourceView(currentUser), resourceView::refreshData);
+        }
+        viewCache.register("volunteers", volunteerView::createView, volunteerView::refreshData);
+        viewCache.register("communication", () -> {
+            // Create dummy user if currentUser is null
+            User userForComm = currentUser;
+            if (userForComm == null) {
+                userForComm = new User("guest", "Guest User", "guest@local", User.UserType.SURVIVOR);
+            }
+            return communicationView.createCommunicationView(userForComm);
+        }, null);
+        viewCache.register("offline-network", offlineNetworkView::createOfflineNetworkView, null);
+        viewCache.register("settings", settingsView::createSettingsView, null);
+
+        // Pending volunteers are redirected to the pending page, so there is nothing to warm up
+        viewCache.setPrefetchEnabled(userType == User.UserType.AUTHORITY || approvedVolunteer);
+
+        MemoryGovernor.getInstance().register(viewCache);
+    }
+    
       private void switchView(String viewName) {
         contentArea.getChildren().clear();
         
+        if (!viewCache.isRegistered(viewName)) {
+            viewCache.showUncached(viewName);
+        }
+        
         switch (viewName) {
             case "dashboard":
                 showDashboard();
@@ -402,44 +448,24 @@ public class MainController implements DataSyncManager.DataChangeListener {
                 // Create survivor-specific dashboard - Always recreate to show latest data
                 dashboardNode = createSurvivorDashboard();
             } else {
-                // Authority dashboard - Always recreate to show latest data
-                dashboardNode = dashboardView.createView();
+                // Authority dashboard - cached, refreshed on every visit
+                dashboardNode = viewCache.show("dashboard");
             }
             
             switchToScrollableView(dashboardNode, "Dashboard");
             currentView = "dashboard";
             updateSidebarSelection("dashboard");
-            
-            // Refresh dashboard to ensure timeline and activities are up to date
-            if (currentUser.getUserType() != User.UserType.VOLUNTEER && currentUser.getUserType() != User.UserType.SURVIVOR) {
-                dashboardView.refreshDashboard();
-            }
         } catch (Exception e) {
             System.err.println("Error showing dashboard: " + e.getMessage());
             e.printStackTrace();
             showErrorView("Dashboard", e.getMessage());
         }
     }private void showEmergencyView() {
-        try {            // Create role-specific emergency view
+        try {            // Role-specific emergency view (registered in registerCachedViews)
             switch (currentUser.getUserType()) {
-                case AUTHORITY:
-                    // Full emergency management for authorities
-                    if (emergencyNode == null) {
-                        emergencyNode = emergencyView.createView();
-                    } else {
-                        // Always refresh the emergency data to show latest counts
-                        emergencyView.refreshData();
-                    }
-                    break;                case VOLUNTEER:
+                case VOLUNTEER:
                     // Emergency response view for volunteers
-                    if (isVolunteerApproved(currentUser)) {
-                        if (emergencyNode == null) {
-                            emergencyNode = volunteerEmergencyView.createView();
-                        } else {
-                            // Always refresh the volunteer emergency data
-                            volunteerEmergencyView.refreshData();
-                        }
-                    } else {
+                    if (!isVolunteerApproved(currentUser)) {
                         showVolunteerPendingView();
                         return;
                     }
@@ -449,11 +475,11 @@ public class MainController implements DataSyncManager.DataChangeListener {
                     showRequestHelpView();
                     return;
                 default:
-                    if (emergencyNode == null) {
-                        emergencyNode = emergencyView.createView();
-                    }
+                    break;
             }
             
+            // Cached view refreshes its emergency data to show latest counts
+            VBox emergencyNode = viewCache.show("emergency");
             switchToScrollableView(emergencyNode, "Emergency Response");
             currentView = "emergency";
             updateSidebarSelection("emergency");
@@ -465,26 +491,23 @@ public class MainController implements DataSyncManager.DataChangeListener {
     }private void showResourceView() {
         try {
             // Create role-specific resource view
+            VBox resourceNode;
             switch (currentUser.getUserType()) {
-                case AUTHORITY:
-                    // Full resource management for authorities
-                    resourceNode = resourceView.createResourceView(currentUser);
-                    break;
                 case VOLUNTEER:
                     // Limited resource view for volunteers (distribute only)
-                    if (isVolunteerApproved(currentUser)) {
-                        resourceNode = resourceView.createResourceView(currentUser);
-                    } else {
+                    if (!isVolunteerApproved(currentUser)) {
                         showVolunteerPendingView();
                         return;
                     }
+                    resourceNode = viewCache.show("resources");
                     break;
                 case SURVIVOR:
                     // Read-only resource view for survivors
                     resourceNode = createSurvivorResourceView();
                     break;
                 default:
-                    resourceNode = resourceView.createResourceView(currentUser);
+                    // Full resource management for authorities
+                    resourceNode = viewCache.show("resources");
             }
             
             switchToScrollableView(resourceNode, "Resource Management");
@@ -506,10 +529,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
             }
         }
         
-        if (volunteerNode == null) {
-            volunteerNode = volunteerView.createView();
-        }
-        switchToScrollableView(volunteerNode, "Volunteer Coordination");
+        switchToScrollableView(viewCache.show("volunteers"), "Volunteer Coordination");
         currentView = "volunteers";
         updateSidebarSelection("volunteers");
     }    /**
@@ -522,7 +542,8 @@ public class MainController implements DataSyncManager.DataChangeListener {
             // Check the current user's status in the database
             String sql = "SELECT status, location, location_name FROM users WHERE user_id = ? AND user_type = 'VOLUNTEER'";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, volunteer.getUserId())) {
+            boolean[] result = {false};
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 if (rs.next()) {
                     String status = rs.getString("status");
                     String location = rs.getString("location");
@@ -539,9 +560,10 @@ public class MainController implements DataSyncManager.DataChangeListener {
                                      " (ID: " + volunteer.getUserId() + "):");
                     System.out.println("  Status: " + status + ", Has Location: " + hasLocation + ", Approved: " + approved);
                     
-                    return approved;
+                    result[0] = approved;
                 }
-            }
+            }, volunteer.getUserId());
+            return result[0];
         } catch (Exception e) {
             System.err.println("Error checking volunteer approval: " + e.getMessage());
             e.printStackTrace();
@@ -638,7 +660,8 @@ public class MainController implements DataSyncManager.DataChangeListener {
             DatabaseManager dbManager = DatabaseManager.getInstance();
             String sql = "SELECT status, location, location_name FROM users WHERE user_id = ?";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, currentUser.getUserId())) {
+            String[] result = {"UNKNOWN"};
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 if (rs.next()) {
                     String status = rs.getString("status");
                     String location = rs.getString("location");
@@ -648,14 +671,15 @@ public class MainController implements DataSyncManager.DataChangeListener {
                                         (locationName != null && !locationName.trim().isEmpty());
                     
                     if ("PENDING".equals(status) && !hasLocation) {
-                        return "PENDING";
+                        result[0] = "PENDING";
                     } else if ("PENDING".equals(status) && hasLocation) {
-                        return "AWAITING_APPROVAL";
+                        result[0] = "AWAITING_APPROVAL";
                     } else {
-                        return status;
+                        result[0] = status;
                     }
                 }
-            }
+            }, currentUser.getUserId());
+            return result[0];
         } catch (Exception e) {
             System.err.println("Error getting volunteer status: " + e.getMessage());
         }
@@ -719,15 +743,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
             return;
         }
         
-        if (communicationNode == null) {
-            // Create dummy user if currentUser is null
-            User userForComm = currentUser;
-            if (userForComm == null) {
-                userForComm = new User("guest", "Guest User", "guest@local", User.UserType.SURVIVOR);
-            }
-            communicationNode = communicationView.createCommunicationView(userForComm);
-        }
-        switchToScrollableView(communicationNode, "Communication Hub");
+        switchToScrollableView(viewCache.show("communication"), "Communication Hub");
         currentView = "communication";
         updateSidebarSelection("communication");
     }    private void showSettingsView() {
@@ -740,10 +756,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
             
             // Set the current user before creating the settings view
             settingsView.setCurrentUser(currentUser);
-            if (settingsNode == null) {
-                settingsNode = settingsView.createSettingsView();
-            }
-            switchToScrollableView(settingsNode, "Settings");
+            switchToScrollableView(viewCache.show("settings"), "Settings");
             currentView = "settings";
             updateSidebarSelection("settings");
         } catch (Exception e) {
@@ -755,10 +768,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
 
     private void showOfflineNetworkView() {
         try {
-            if (offlineNetworkNode == null) {
-                offlineNetworkNode = offlineNetworkView.createOfflineNetworkView();
-            }
-            switchToScrollableView(offlineNetworkNode, "Network Connection");
+            switchToScrollableView(viewCache.show("offline-network"), "Network Connection");
             currentView = "offline-network";
             updateSidebarSelection("offline-network");
         } catch (Exception e) {
@@ -1055,7 +1065,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
     private ImageView createLogoImageView() {
         try {
             // Try to load logo.png from resources
-            Image logoImage = new Image(getClass().getResourceAsStream("/images/logo.png"));
+            Image logoImage = ThemeManager.getLogoImage();
             if (logoImage != null && !logoImage.isError()) {
                 ImageView imageView = new ImageView(logoImage);
                 imageView.setFitWidth(40);
@@ -1145,19 +1155,19 @@ public class MainController implements DataSyncManager.DataChangeListener {
             // Clear cached nodes and retry
             switch (viewName.toLowerCase()) {
                 case "emergency response":
-                    emergencyNode = null;
+                    viewCache.invalidate("emergency");
                     showEmergencyView();
                     break;
                 case "resource management":
-                    resourceNode = null;
+                    viewCache.invalidate("resources");
                     showResourceView();
                     break;
                 case "dashboard":
-                    dashboardNode = null;
+                    viewCache.invalidate("dashboard");
                     showDashboard();
                     break;
                 case "settings":
-                    settingsNode = null;
+                    viewCache.invalidate("settings");
                     showSettingsView();
                     break;
                 default:
@@ -1178,30 +1188,18 @@ public class MainController implements DataSyncManager.DataChangeListener {
     }
       @Override
     public void onEmergencyDataChanged() {
-        // Refresh dashboard when emergency data changes
-        if (dashboardView != null && "dashboard".equals(currentView)) {
-            javafx.application.Platform.runLater(() -> dashboardView.refreshDashboard());
-        }
+        // Dashboard refresh is scheduled by DashboardView through RefreshScheduler
     }    @Override
     public void onUserDataChanged() {
-        // Refresh dashboard since user data affects dashboard metrics
-        if (dashboardView != null && "dashboard".equals(currentView)) {
-            javafx.application.Platform.runLater(() -> dashboardView.refreshDashboard());
-        }
+        // Dashboard refresh is scheduled by DashboardView through RefreshScheduler
     }
       @Override
     public void onDashboardDataChanged() {
-        // Refresh dashboard when general data changes
-        if (dashboardView != null && "dashboard".equals(currentView)) {
-            javafx.application.Platform.runLater(() -> dashboardView.refreshDashboard());
-        }
+        // Dashboard refresh is scheduled by DashboardView through RefreshScheduler
     }
       @Override
     public void onVolunteerDataChanged() {
-        // Refresh dashboard when volunteer/assignment data changes (includes SOS)
-        if (dashboardView != null && "dashboard".equals(currentView)) {
-            javafx.application.Platform.runLater(() -> dashboardView.refreshDashboard());
-        }
+        // Dashboard refresh is scheduled by DashboardView through RefreshScheduler
     }
     
     @Override
@@ -2080,11 +2078,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                         "  END " +
                         "LIMIT 1";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, 
-                    volunteerName, volunteerEmail, 
-                    volunteerName, volunteerEmail, 
-                    volunteerName, volunteerEmail)) {
-                
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 if (rs.next()) {
                     syncedData[0] = rs.getString("phone");
                     syncedData[1] = rs.getString("location");
@@ -2094,7 +2088,9 @@ public class MainController implements DataSyncManager.DataChangeListener {
                 } else {
                     System.out.println("ℹ No matching authority record found for: " + volunteerName);
                 }
-            }
+            }, volunteerName, volunteerEmail,
+               volunteerName, volunteerEmail,
+               volunteerName, volunteerEmail);
             
         } catch (Exception e) {
             System.err.println("Error syncing volunteer data: " + e.getMessage());
@@ -2257,6 +2253,8 @@ public class MainController implements DataSyncManager.DataChangeListener {
                     request.getPeopleCount(),
                     request.getStatus().toString()
                 );
+                NetworkManager.getInstance().broadcastEmergency(request);
+                DataSyncManager.getInstance().notifyEmergencyDataChanged();
                   showAlert("Success", "Emergency request submitted successfully! Authorities have been notified and volunteers will be assigned.", Alert.AlertType.INFORMATION);
                 
                 // Clear form
@@ -2380,7 +2378,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
             DatabaseManager dbManager = DatabaseManager.getInstance();
             String sql = "SELECT name, category, quantity, location FROM resources WHERE quantity > 0 ORDER BY name";
             
-            try (ResultSet rs = dbManager.executeQuery(sql)) {
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 while (rs.next()) {
                     HBox resourceCard = createSurvivorResourceCard(
                         rs.getString("name"),
@@ -2390,7 +2388,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                     );
                     resourceList.getChildren().add(resourceCard);
                 }
-            }
+            });
         } catch (Exception e) {
             Label errorLabel = new Label("Error loading resources: " + e.getMessage());
             errorLabel.setTextFill(Color.web("#e74c3c"));
@@ -2473,7 +2471,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
             DatabaseManager dbManager = DatabaseManager.getInstance();
             String sql = "SELECT * FROM emergency_requests WHERE status = 'PENDING' ORDER BY created_at DESC LIMIT 10";
             
-            try (ResultSet rs = dbManager.executeQuery(sql)) {
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 boolean hasEmergencies = false;
                 while (rs.next()) {
                     hasEmergencies = true;
@@ -2495,7 +2493,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                     noEmergencyLabel.setTextFill(Color.web("#666666"));
                     emergencyList.getChildren().add(noEmergencyLabel);
                 }
-            }
+            });
         } catch (Exception e) {
             Label errorLabel = new Label("Error loading emergencies: " + e.getMessage());
             errorLabel.setTextFill(Color.web("#e74c3c"));
@@ -2584,9 +2582,25 @@ public class MainController implements DataSyncManager.DataChangeListener {
     }
     
     private VBox createVolunteerDashboard() {
-        VBox mainContainer = new VBox(20);
-        mainContainer.setPadding(new Insets(20));
-        
+        if (volunteerDashboard == null) {
+            volunteerDashboard = new VBox(20);
+            volunteerDashboard.setPadding(new Insets(20));
+            
+            // Registered once: the task refills this same container when assignments or emergencies change
+            RefreshScheduler.getInstance().register("volunteer-dashboard", volunteerDashboard, 0, () -> {
+                System.out.println("Auto-refreshing volunteer dashboard...");
+                try {
+                    populateVolunteerDashboard(volunteerDashboard);
+                } catch (Exception ex) {
+                    System.err.println("Error refreshing volunteer dashboard: " + ex.getMessage());
+                }
+            }, RefreshScheduler.DataKind.EMERGENCY, RefreshScheduler.DataKind.VOLUNTEER);
+        }
+        populateVolunteerDashboard(volunteerDashboard);
+        return volunteerDashboard;
+    }
+    
+    private void populateVolunteerDashboard(VBox mainContainer) {
         // Header
         VBox header = createVolunteerDashboardHeader();
           // Three main sections for volunteers (stacked vertically)
@@ -2601,38 +2615,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
         VBox divisionEmergenciesSection = createDivisionEmergenciesSection();
           sectionsColumn.getChildren().addAll(personalActivitySection, assignedTasksSection, divisionEmergenciesSection);
         
-        mainContainer.getChildren().addAll(header, sectionsColumn);
-        
-        // Setup automatic refresh every 15 seconds for volunteer dashboard
-        javafx.animation.Timeline autoRefresh = new javafx.animation.Timeline(
-            new javafx.animation.KeyFrame(javafx.util.Duration.seconds(15), e -> {
-                System.out.println("Auto-refreshing volunteer dashboard...");
-                try {
-                    // Refresh the volunteer dashboard by recreating it
-                    javafx.application.Platform.runLater(() -> {
-                        try {
-                            VBox refreshedDashboard = createVolunteerDashboard();
-                            // Replace the current content with refreshed content
-                            if (mainContainer.getParent() instanceof javafx.scene.layout.VBox) {
-                                VBox parent = (VBox) mainContainer.getParent();
-                                int index = parent.getChildren().indexOf(mainContainer);
-                                if (index >= 0) {
-                                    parent.getChildren().set(index, refreshedDashboard);
-                                }
-                            }
-                        } catch (Exception ex) {
-                            System.err.println("Error refreshing volunteer dashboard: " + ex.getMessage());
-                        }
-                    });
-                } catch (Exception ex) {
-                    System.err.println("Error in auto-refresh: " + ex.getMessage());
-                }
-            })
-        );
-        autoRefresh.setCycleCount(javafx.animation.Timeline.INDEFINITE);
-        autoRefresh.play();
-        
-        return mainContainer;
+        mainContainer.getChildren().setAll(header, sectionsColumn);
     }
     
     private VBox createVolunteerDashboardHeader() {
@@ -2689,7 +2672,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                                   "WHERE va.volunteer_id = ? AND va.status = 'COMPLETED' " +
                                   "ORDER BY va.completed_at DESC";
             
-            try (ResultSet rs = dbManager.executeQuery(completedQuery, currentUser.getUserId())) {
+            dbManager.executeQueryWithCallback(completedQuery, rs -> {
                 boolean hasCompletedTasks = false;
                 while (rs.next()) {
                     hasCompletedTasks = true;
@@ -2737,7 +2720,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                     noActivity.setFill(Color.web("#95a5a6"));
                     contentArea.getChildren().add(noActivity);
                 }
-            }
+            }, currentUser.getUserId());
             
         } catch (Exception e) {
             Text errorText = new Text("Error loading activity data: " + e.getMessage());
@@ -2780,7 +2763,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                                  "WHERE va.volunteer_id = ? AND va.status IN ('ASSIGNED', 'IN_PROGRESS') " +
                                  "ORDER BY va.assigned_at DESC";
             
-            try (ResultSet rs = dbManager.executeQuery(assignedQuery, currentUser.getUserId())) {
+            dbManager.executeQueryWithCallback(assignedQuery, rs -> {
                 boolean hasAssignedTasks = false;
                 while (rs.next()) {
                     hasAssignedTasks = true;
@@ -2829,7 +2812,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                     noTasks.setFill(Color.web("#95a5a6"));
                     contentArea.getChildren().add(noTasks);
                 }
-            }
+            }, currentUser.getUserId());
             
         } catch (Exception e) {
             Text errorText = new Text("Error loading assigned tasks");
@@ -2865,61 +2848,67 @@ public class MainController implements DataSyncManager.DataChangeListener {
         VBox contentArea = new VBox(10);        try {
             DatabaseManager dbManager = DatabaseManager.getInstance();            String volunteerLocationForQuery = getVolunteerLocation();
             
-            // Get emergencies in the volunteer's division/district and nearby areas
-            String emergencyQuery = buildLocationAwareEmergencyQuery(volunteerLocationForQuery);
-            String locationParam = "%" + volunteerLocationForQuery + "%";
-            
-            try (ResultSet rs = dbManager.executeQuery(emergencyQuery, currentUser.getUserId(), locationParam)) {
-                  boolean hasEmergencies = false;
-                while (rs.next()) {
-                    hasEmergencies = true;
-                    
-                    HBox emergencyItem = new HBox(10);
-                    emergencyItem.setAlignment(Pos.CENTER_LEFT);
-                    
-                    String priority = rs.getString("priority");
-                    Color priorityColor = switch (priority) {
-                        case "CRITICAL" -> Color.web("#e74c3c");
-                        case "HIGH" -> Color.web("#f39c12");
-                        case "MEDIUM" -> Color.web("#3498db");
-                        default -> Color.web("#95a5a6");
-                    };
-                    
-                    emergencyItem.setStyle("-fx-background-color: " + toRgbString(priorityColor.deriveColor(0, 1, 1, 0.1)) + "; -fx-background-radius: 6; -fx-padding: 8;");
-                    
-                    Circle priorityIcon = new Circle(4);
-                    priorityIcon.setFill(priorityColor);
-                    
-                    VBox details = new VBox(2);
-                    
-                    Text desc = new Text(rs.getString("description"));
-                    desc.setFont(Font.font("Arial", FontWeight.BOLD, 12));
-                    desc.setFill(Color.web("#2c3e50"));                    Text location = new Text("Location: " + rs.getString("location_name"));
-                    location.setFont(Font.font("Arial", 10));
-                    location.setFill(Color.web("#7f8c8d"));
-                    
-                    String prioritySymbol = switch (priority) {
-                        case "CRITICAL" -> "● ";
-                        case "HIGH" -> "● ";
-                        case "MEDIUM" -> "● ";
-                        default -> "● ";
-                    };
-                    
-                    Text priorityText = new Text(prioritySymbol + priority + " | " + rs.getString("status"));
-                    priorityText.setFont(Font.font("Arial", 10));
-                    priorityText.setFill(priorityColor);
-                    
-                    details.getChildren().addAll(desc, location, priorityText);
-                    emergencyItem.getChildren().addAll(priorityIcon, details);
-                    
-                    contentArea.getChildren().add(emergencyItem);                }
+            // Most urgent open emergencies in the volunteer's division from the shared triage queue,
+            // matching the exact location text instead when it names no known district
+            LocationKeys.Key volunteerArea = LocationKeys.resolve(volunteerLocationForQuery);
+            Set<String> completed = loadCompletedEmergencyIds(dbManager, currentUser.getUserId());
+            List<TriageQueue.Item> emergencies = TriageQueue.getInstance().top(10,
+                volunteerArea.isResolved() ? volunteerArea.getDivisionId() : null,
+                item -> item.getKind() == TriageQueue.Kind.EMERGENCY
+                        && ("PENDING".equals(item.getStatus()) || "ASSIGNED".equals(item.getStatus()))
+                        && !completed.contains(item.getRecordId())
+                        && (volunteerArea.isResolved() || volunteerLocationForQuery.equalsIgnoreCase(item.getLocationName())));
+            
+            boolean hasEmergencies = false;
+            for (TriageQueue.Item emergency : emergencies) {
+                hasEmergencies = true;
                 
-                if (!hasEmergencies) {
-                    Text noEmergencies = new Text("No active emergencies in your area");
-                    noEmergencies.setFont(Font.font("Arial", 12));
-                    noEmergencies.setFill(Color.web("#27ae60"));
-                    contentArea.getChildren().add(noEmergencies);
-                }
+                HBox emergencyItem = new HBox(10);
+                emergencyItem.setAlignment(Pos.CENTER_LEFT);
+                
+                String priority = emergency.getPriority();
+                Color priorityColor = switch (priority) {
+                    case "CRITICAL" -> Color.web("#e74c3c");
+                    case "HIGH" -> Color.web("#f39c12");
+                    case "MEDIUM" -> Color.web("#3498db");
+                    default -> Color.web("#95a5a6");
+                };
+                
+                emergencyItem.setStyle("-fx-background-color: " + toRgbString(priorityColor.deriveColor(0, 1, 1, 0.1)) + "; -fx-background-radius: 6; -fx-padding: 8;");
+                
+                Circle priorityIcon = new Circle(4);
+                priorityIcon.setFill(priorityColor);
+                
+                VBox details = new VBox(2);
+                
+                Text desc = new Text(emergency.getDescription());
+                desc.setFont(Font.font("Arial", FontWeight.BOLD, 12));
+                desc.setFill(Color.web("#2c3e50"));                    Text location = new Text("Location: " + emergency.getLocationName());
+                location.setFont(Font.font("Arial", 10));
+                location.setFill(Color.web("#7f8c8d"));
+                
+                String prioritySymbol = switch (priority) {
+                    case "CRITICAL" -> "● ";
+                    case "HIGH" -> "● ";
+                    case "MEDIUM" -> "● ";
+                    default -> "● ";
+                };
+                
+                Text priorityText = new Text(prioritySymbol + priority + " | " + emergency.getStatus());
+                priorityText.setFont(Font.font("Arial", 10));
+                priorityText.setFill(priorityColor);
+                
+                details.getChildren().addAll(desc, location, priorityText);
+                emergencyItem.getChildren().addAll(priorityIcon, details);
+                
+                contentArea.getChildren().add(emergencyItem);
+            }
+            
+            if (!hasEmergencies) {
+                Text noEmergencies = new Text("No active emergencies in your area");
+                noEmergencies.setFont(Font.font("Arial", 12));
+                noEmergencies.setFill(Color.web("#27ae60"));
+                contentArea.getChildren().add(noEmergencies);
             }
             
         } catch (Exception e) {
@@ -2935,102 +2924,44 @@ public class MainController implements DataSyncManager.DataChangeListener {
         try {
             DatabaseManager dbManager = DatabaseManager.getInstance();
             String locationQuery = "SELECT location, location_name FROM users WHERE user_id = ?";
-            try (ResultSet rs = dbManager.executeQuery(locationQuery, currentUser.getUserId())) {
+            String[] result = {"Unknown"};
+            dbManager.executeQueryWithCallback(locationQuery, rs -> {
                 if (rs.next()) {
                     String locationName = rs.getString("location_name");
                     if (locationName != null && !locationName.trim().isEmpty()) {
-                        return locationName;
+                        result[0] = locationName;
+                    } else {
+                        String location = rs.getString("location");
+                        result[0] = location != null ? location : "Unknown";
                     }
-                    String location = rs.getString("location");
-                    return location != null ? location : "Unknown";
                 }
-            }
+            }, currentUser.getUserId());
+            return result[0];
         } catch (Exception e) {
             System.err.println("Error getting volunteer location: " + e.getMessage());
         }
         return "Unknown";
     }
-      private String buildLocationAwareEmergencyQuery(String volunteerLocation) {        // Build a comprehensive query that includes both division and district emergencies
-        // but excludes emergencies that this volunteer has already completed
-        String baseQuery = "SELECT er.request_id, er.description, er.location_name, er.priority, er.status, er.created_at " +
-                          "FROM emergency_requests er " +
-                          "LEFT JOIN volunteer_assignments va ON er.request_id = va.request_id " +
-                          "    AND va.volunteer_id = ? AND va.assignment_type = 'EMERGENCY' AND va.status = 'COMPLETED' " +
-                          "WHERE er.status IN ('PENDING', 'ASSIGNED') " +
-                          "AND va.assignment_id IS NULL " + // Exclude completed by this volunteer
-                          "AND (";
-          // Start with the volunteer's exact location match
-        String locationConditions = "er.location_name LIKE ? ";
-        
-        // Get all related areas for this division
-        String[] relatedAreas = getAllRelatedAreas(volunteerLocation);
-        
-        // Add LIKE conditions for each related area
-        for (String area : relatedAreas) {
-            if (area != null && !area.trim().isEmpty()) {
-                locationConditions += "OR er.location_name LIKE '%" + area.trim() + "%' ";
-            }
+    /**
+     * Request IDs of the emergencies this volunteer has already completed
+     */
+    private Set<String> loadCompletedEmergencyIds(DatabaseManager dbManager, String volunteerId) {
+        Set<String> completed = new HashSet<>();
+        try {
+            dbManager.executeQueryWithCallback(
+                "SELECT request_id FROM volunteer_assignments " +
+                "WHERE volunteer_id = ? AND assignment_type = 'EMERGENCY' AND status = 'COMPLETED'",
+                rs -> {
+                    while (rs.next()) {
+                        completed.add(rs.getString("request_id"));
+                    }
+                }, volunteerId);
+        } catch (Exception e) {
+            System.err.println("Error loading completed emergencies: " + e.getMessage());
         }
-          // Complete the query
-        String completeQuery = baseQuery + locationConditions + 
-                              ") ORDER BY " +
-                              "CASE er.priority " +
-                              "WHEN 'CRITICAL' THEN 1 " +
-                              "WHEN 'HIGH' THEN 2 " +
-                              "WHEN 'MEDIUM' THEN 3 " +
-                              "ELSE 4 END, " +
-                              "er.created_at DESC " +
-                              "LIMIT 10";
-        
-        return completeQuery;
+        return completed;
     }
     
-    private String[] getAllRelatedAreas(String location) {
-        if (location == null) return new String[0];
-        
-        String lowerLocation = location.toLowerCase();
-        
-        // Dhaka division - include all major districts and areas
-        if (lowerLocation.contains("dhaka")) {
-            return new String[]{"dhaka", "tangail", "gazipur", "narayanganj", "faridpur", "gopalganj", 
-                               "kishoreganj", "madaripur", "manikganj", "munshiganj", "narsingdi", 
-                               "rajbari", "shariatpur"};
-        }
-        // Chittagong division
-        else if (lowerLocation.contains("chittagong") || lowerLocation.contains("chattogram")) {
-            return new String[]{"chittagong", "chattogram", "cox", "comilla", "feni", "brahmanbaria", 
-                               "rangamati", "noakhali", "lakshmipur", "chandpur", "bandarban", "khagrachhari"};
-        }
-        // Rajshahi division
-        else if (lowerLocation.contains("rajshahi")) {
-            return new String[]{"rajshahi", "bogra", "pabna", "naogaon", "sirajganj", "natore", 
-                               "joypurhat", "chapainawabganj"};
-        }
-        // Khulna division
-        else if (lowerLocation.contains("khulna")) {
-            return new String[]{"khulna", "jessore", "satkhira", "narail", "bagerhat", "chuadanga", 
-                               "kushtia", "magura", "meherpur"};
-        }
-        // Sylhet division
-        else if (lowerLocation.contains("sylhet")) {
-            return new String[]{"sylhet", "moulvibazar", "habiganj", "sunamganj"};
-        }
-        // Barisal division
-        else if (lowerLocation.contains("barisal") || lowerLocation.contains("barishal")) {
-            return new String[]{"barisal", "barishal", "barguna", "bhola", "jhalokati", "patuakhali", "pirojpur"};
-        }
-        // Rangpur division
-        else if (lowerLocation.contains("rangpur")) {
-            return new String[]{"rangpur", "dinajpur", "gaibandha", "kurigram", "lalmonirhat", 
-                               "nilphamari", "panchagarh", "thakurgaon"};
-        }
-        // Mymensingh division
-        else if (lowerLocation.contains("mymensingh")) {
-            return new String[]{"mymensingh", "jamalpur", "netrakona", "sherpur"};
-        }
-          // If no specific division match, just return the location itself
-        return new String[]{location};
-    }
       private String toRgbString(Color color) {
         return String.format("rgba(%.0f, %.0f, %.0f, %.2f)",
             color.getRed() * 255,
@@ -3102,7 +3033,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
             String sql = "SELECT request_id, emergency_type, priority, location_name, description, status, created_at " +
                         "FROM emergency_requests WHERE requester_id = ? ORDER BY created_at DESC";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, currentUser.getUserId())) {
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 boolean hasRequests = false;
                 while (rs.next()) {
                     hasRequests = true;
@@ -3124,7 +3055,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                     noRequestsLabel.setStyle("-fx-font-style: italic;");
                     requestsContent.getChildren().add(noRequestsLabel);
                 }
-            }
+            }, currentUser.getUserId());
         } catch (Exception e) {
             Label errorLabel = new Label("Error loading requests: " + e.getMessage());
             errorLabel.setTextFill(Color.web("#e74c3c"));
@@ -3172,7 +3103,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                         "WHERE er.requester_id = ? AND er.status IN ('RESOLVED', 'COMPLETED') " +
                         "ORDER BY er.created_at DESC";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, currentUser.getUserId())) {
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 boolean hasHelp = false;
                 while (rs.next()) {
                     hasHelp = true;
@@ -3194,7 +3125,7 @@ public class MainController implements DataSyncManager.DataChangeListener {
                     noHelpLabel.setStyle("-fx-font-style: italic;");
                     helpContent.getChildren().add(noHelpLabel);
                 }
-            }
+            }, currentUser.getUserId());
         } catch (Exception e) {
             Label errorLabel = new Label("Error loading help history: " + e.getMessage());
             errorLabel.setTextFill(Color.web("#e74c3c"));
@@ -0,0 +1,254 @@
+package com.reliefnet.controller;
+
+import com.reliefnet.util.MemoryGovernor;
+import javafx.animation.PauseTransition;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * ViewLifecycleManager - Caches constructed main views and keeps them warm between navigations
+ *
+ * The first visit to a view builds it through its factory; later visits reuse the cached node and
+ * run the view's (incremental) refresh instead of rebuilding the node graph and re-running every
+ * query. After each switch, the data behind the view the user most likely opens next - learned
+ * from past navigation, falling back to sidebar order - is warmed on a background thread. Warmers
+ * only read into in-memory indexes; view factories are never run ahead of time because they
+ * query on the calling thread and some write (assignment syncs, listener registration). Under
+ * memory pressure the least recently shown views are evicted (never the one on screen) and
+ * rebuilt on demand. All public methods run on the JavaFX application thread.
+ */
+public class ViewLifecycleManager implements MemoryGovernor.Evictable {
+
+    private static final Duration PREFETCH_DELAY = Duration.millis(400);
+
+    /**
+     * How to build and refresh one view
+     */
+    private static class ViewSpec {
+        final Supplier<VBox> factory;
+        final Runnable refresh;
+        final Runnable warmer;
+
+        ViewSpec(Supplier<VBox> factory, Runnable refresh, Runnable warmer) {
+            this.factory = factory;
+            this.refresh = refresh;
+            this.warmer = warmer;
+        }
+    }
+
+    private final Map<String, ViewSpec> specs = new HashMap<>();
+    private final LinkedHashMap<String, VBox> cache = new LinkedHashMap<>(16, 0.75f, true); // access order = LRU
+    private final Map<String, Map<String, Integer>> transitions = new HashMap<>();
+    private final List<String> defaultOrder = new ArrayList<>();
+    private final PauseTransition prefetchTimer = new PauseTransition(PREFETCH_DELAY);
+    private final ExecutorService warmExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ViewPrefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean warming = new AtomicBoolean(false);
+
+    private String currentKey;
+    private boolean prefetchEnabled = true;
+    private int hits = 0;
+    private int misses = 0;
+    private final AtomicInteger prefetches = new AtomicInteger();
+    private int evictions = 0;
+
+    public ViewLifecycleManager() {
+        prefetchTimer.setOnFinished(e -> prefetchLikelyNext());
+    }
+
+    /**
+     * Register a cacheable view
+     *
+     * @param key     view name as used by MainController.switchView
+     * @param factory builds the view's root node
+     * @param refresh brings a cached view up to date when it is shown again (may be null)
+     */
+    public void register(String key, Supplier<VBox> factory, Runnable refresh) {
+        register(key, factory, refresh, null);
+    }
+
+    /**
+     * Register a cacheable view whose data can be warmed before its first visit
+     *
+     * @param warmer loads the view's data into in-memory caches; runs off the FX thread, so it
+     *               must be thread-safe, touch no nodes and not write to the database (may be null)
+     */
+    public void register(String key, Supplier<VBox> factory, Runnable refresh, Runnable warmer) {
+        specs.put(key, new ViewSpec(factory, refresh, warmer));
+        defaultOrder.remove(key);
+        defaultOrder.add(key);
+    }
+
+    public boolean isRegistered(String key) {
+        return specs.containsKey(key);
+    }
+
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        this.prefetchEnabled = prefetchEnabled;
+        if (!prefetchEnabled) {
+            prefetchTimer.stop();
+        }
+    }
+
+    /**
+     * Return the view's node, building it on first use and refreshing it on later ones
+     */
+    public VBox show(String key) {
+        ViewSpec spec = specs.get(key);
+        if (spec == null) {
+            throw new IllegalArgumentException("No view registered for " + key);
+        }
+
+        recordTransition(currentKey, key);
+        currentKey = key;
+
+        VBox node = cache.get(key);
+        if (node == null) {
+            misses++;
+            node = spec.factory.get();
+            cache.put(key, node);
+        } else {
+            hits++;
+            if (spec.refresh != null) {
+                spec.refresh.run();
+            }
+        }
+
+        if (prefetchEnabled) {
+            prefetchTimer.playFromStart();
+        }
+        return node;
+    }
+
+    /**
+     * Note that a view outside the cache (e.g. a role-specific page) is now showing
+     */
+    public void showUncached(String key) {
+        recordTransition(currentKey, key);
+        currentKey = key;
+        prefetchTimer.stop();
+    }
+
+    /**
+     * Drop a cached view so the next visit rebuilds it
+     */
+    public void invalidate(String key) {
+        cache.remove(key);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    // MemoryGovernor.Evictable - views are the most expensive to rebuild, so they go last
+
+    @Override
+    public String getEvictionName() {
+        return "ViewLifecycleManager";
+    }
+
+    @Override
+    public int getEvictionPriority() {
+        return MemoryGovernor.PRIORITY_VIEW;
+    }
+
+    /**
+     * Evict the given fraction of cached views, least recently shown first, keeping the one on screen
+     */
+    @Override
+    public int evict(double fraction) {
+        int cold = cache.containsKey(currentKey) ? cache.size() - 1 : cache.size();
+        int target = (int) Math.ceil(cold * fraction);
+        int evicted = 0;
+        Iterator<String> keys = cache.keySet().iterator();
+        while (keys.hasNext() && evicted < target) {
+            if (!keys.next().equals(currentKey)) {
+                keys.remove();
+                evicted++;
+            }
+        }
+        evictions += evicted;
+        if (evicted > 0) {
+            System.out.println("ViewLifecycleManager: Evicted " + evicted + " cold views under memory pressure");
+        }
+        return evicted;
+    }
+
+    /**
+     * Most likely next view from the current one: the most frequent past transition,
+     * otherwise the next registered view in sidebar order
+     */
+    public String predictNext(String from) {
+        Map<String, Integer> counts = transitions.get(from);
+        if (counts != null && !counts.isEmpty()) {
+            String best = null;
+            int bestCount = 0;
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                if (entry.getValue() > bestCount && specs.containsKey(entry.getKey())) {
+                    best = entry.getKey();
+                    bestCount = entry.getValue();
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+
+        if (defaultOrder.isEmpty()) {
+            return null;
+        }
+        int index = defaultOrder.indexOf(from);
+        return defaultOrder.get((index + 1) % defaultOrder.size());
+    }
+
+    public Map<String, Integer> getStats() {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        stats.put("cached", cache.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("prefetches", prefetches.get());
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private void recordTransition(String from, String to) {
+        if (from == null || from.equals(to)) {
+            return;
+        }
+        transitions.computeIfAbsent(from, k -> new HashMap<>()).merge(to, 1, Integer::sum);
+    }
+
+    private void prefetchLikelyNext() {
+        String next = predictNext(currentKey);
+        if (next == null || next.equals(currentKey) || cache.containsKey(next)) {
+            return;
+        }
+        Runnable warmer = specs.get(next).warmer;
+        if (warmer == null || !warming.compareAndSet(false, true)) {
+            return;
+        }
+
+        warmExecutor.execute(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                warmer.run();
+                prefetches.incrementAndGet();
+                System.out.println("ViewLifecycleManager: Warmed " + next + " in " + (System.currentTimeMillis() - start) + "ms");
+            } catch (Exception e) {
+                System.err.println("ViewLifecycleManager: Prefetch of " + next + " failed: " + e.getMessage());
+            } finally {
+                warming.set(false);
+            }
+        });
+    }
+}
@@ -0,0 +1,325 @@
+package com.reliefnet.database;
+
+import com.reliefnet.util.LocationHierarchy;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * DailyRollups - Per-day aggregates for the dashboard charts, maintained by SQLite triggers
+ *
+ * The daily_rollups table holds one row per (day, source, metric, category, division) with a
+ * running total. Triggers on emergency_requests, sos_alerts and resources move a row's
+ * contribution between buckets as it is inserted, updated or deleted, so the charts read a few
+ * rows by primary key instead of grouping months of data by DATE(...). Point-in-time gauges
+ * (e.g. resources currently available) use the day value {@link #CURRENT_DAY}.
+ *
+ * The tables are backfilled from history once; they are rebuilt only when the rollup
+ * definitions below change.
+ */
+public class DailyRollups {
+
+    public static final String CURRENT_DAY = "current";
+
+    public static final String SOURCE_EMERGENCY = "emergency";
+    public static final String SOURCE_SOS = "sos";
+    public static final String SOURCE_RESOURCE = "resource";
+
+    public static final String METRIC_CREATED = "created";
+    public static final String METRIC_RESOLVED = "resolved";
+    public static final String METRIC_AVAILABLE = "available";
+
+    /**
+     * One rollup: which rows count ({row} stands for NEW/OLD) and which bucket they count in
+     */
+    private static class Rollup {
+        final String source;
+        final String metric;
+        final String table;
+        final String day;
+        final String category;
+        final String predicate;
+
+        Rollup(String source, String metric, String table, String day, String category, String predicate) {
+            this.source = source;
+            this.metric = metric;
+            this.table = table;
+            this.day = day;
+            this.category = category;
+            this.predicate = predicate;
+        }
+
+        String day(String row) {
+            return day.replace("{row}", row);
+        }
+
+        String category(String row) {
+            return "COALESCE(" + category.replace("{row}", row) + ", 'OTHER')";
+        }
+
+        String division(String row) {
+            return divisionOf(row + ".location_name");
+        }
+
+        String matches(String row) {
+            return predicate.replace("{row}", row);
+        }
+
+        String signature() {
+            return source + "|" + metric + "|" + table + "|" + day + "|" + category + "|" + predicate;
+        }
+    }
+
+    private static final String RESOLVED = "{row}.status IN ('COMPLETED', 'RESOLVED')";
+
+    private static final List<Rollup> ROLLUPS = List.of(
+        new Rollup(SOURCE_EMERGENCY, METRIC_CREATED, "emergency_requests", dayOf("{row}.created_at"), "{row}.emergency_type", "1"),
+        new Rollup(SOURCE_EMERGENCY, METRIC_RESOLVED, "emergency_requests", dayOf("{row}.updated_at"), "{row}.emergency_type", RESOLVED),
+        new Rollup(SOURCE_SOS, METRIC_CREATED, "sos_alerts", dayOf("{row}.created_at"), "{row}.urgency_level", "1"),
+        new Rollup(SOURCE_SOS, METRIC_RESOLVED, "sos_alerts", dayOf("COALESCE({row}.updated_at, {row}.resolved_at)"), "{row}.urgency_level", RESOLVED),
+        new Rollup(SOURCE_RESOURCE, METRIC_CREATED, "resources", dayOf("{row}.created_at"), "{row}.category", "1"),
+        new Rollup(SOURCE_RESOURCE, METRIC_AVAILABLE, "resources", "'" + CURRENT_DAY + "'", "{row}.category", "{row}.status = 'AVAILABLE'")
+    );
+
+    private DailyRollups() {
+    }
+
+    /**
+     * Calendar day of a timestamp column. Timestamps written through JDBC are stored as epoch
+     * milliseconds while SQLite defaults are text, so both forms are handled.
+     */
+    private static String dayOf(String column) {
+        return "COALESCE(CASE WHEN typeof(" + column + ") IN ('integer', 'real') " +
+               "THEN DATE(" + column + " / 1000, 'unixepoch', 'localtime') ELSE DATE(" + column + ") END, 'unknown')";
+    }
+
+    /**
+     * Division for a free-text location: exact district match first, then a district named inside it
+     */
+    private static String divisionOf(String location) {
+        return "COALESCE(" +
+               "(SELECT division FROM district_divisions WHERE district = lower(trim(" + location + ")))," +
+               "(SELECT division FROM district_divisions WHERE lower(" + location + ") LIKE '%' || district || '%' " +
+               "ORDER BY length(district) DESC LIMIT 1)," +
+               "'Unknown')";
+    }
+
+    /**
+     * Create the rollup tables and triggers; backfill when the table is new or the definitions changed.
+     * Called from DatabaseManager's migrations.
+     */
+    static void install(Statement stmt) {
+        try {
+            stmt.execute("CREATE TABLE IF NOT EXISTS district_divisions (" +
+                        "district TEXT PRIMARY KEY," +
+                        "division TEXT NOT NULL" +
+                        ")");
+            stmt.execute("CREATE TABLE IF NOT EXISTS daily_rollups (" +
+                        "day TEXT NOT NULL," +
+                        "source TEXT NOT NULL," +
+                        "metric TEXT NOT NULL," +
+                        "category TEXT NOT NULL," +
+                        "division TEXT NOT NULL," +
+                        "total INTEGER NOT NULL DEFAULT 0," +
+                        "PRIMARY KEY (day, source, metric, category, division)" +
+                        ") WITHOUT ROWID");
+            stmt.execute("CREATE TABLE IF NOT EXISTS rollup_state (" +
+                        "state_key TEXT PRIMARY KEY," +
+                        "state_value TEXT" +
+                        ")");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create rollup tables: " + e.getMessage());
+            return;
+        }
+
+        seedDistrictDivisions(stmt);
+
+        Map<String, List<Rollup>> rollupsByTable = new LinkedHashMap<>();
+        for (Rollup rollup : ROLLUPS) {
+            rollupsByTable.computeIfAbsent(rollup.table, t -> new ArrayList<>()).add(rollup);
+        }
+        for (Map.Entry<String, List<Rollup>> entry : rollupsByTable.entrySet()) {
+            createTriggers(stmt, entry.getKey(), entry.getValue());
+        }
+
+        String signature = signature();
+        try {
+            String[] stored = new String[1];
+            try (java.sql.ResultSet rs = stmt.executeQuery("SELECT state_value FROM rollup_state WHERE state_key = 'definition'")) {
+                if (rs.next()) {
+                    stored[0] = rs.getString(1);
+                }
+            }
+            if (!signature.equals(stored[0])) {
+                long start = System.currentTimeMillis();
+                rebuild(stmt);
+                stmt.execute("INSERT OR REPLACE INTO rollup_state (state_key, state_value) VALUES ('definition', '" + signature + "')");
+                System.out.println("Daily rollups backfilled in " + (System.currentTimeMillis() - start) + "ms");
+            }
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not backfill daily rollups: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Totals per day for the given sources and metric from the given day (inclusive) onwards
+     */
+    public static Map<String, Integer> totalsByDay(String metric, LocalDate fromDay, String... sources) throws SQLException {
+        Map<String, Integer> totals = new HashMap<>();
+        String placeholders = String.join(", ", Collections.nCopies(sources.length, "?"));
+        Object[] params = new Object[sources.length + 2];
+        params[0] = fromDay.toString();
+        params[1] = metric;
+        System.arraycopy(sources, 0, params, 2, sources.length);
+
+        // day is the leading primary key column, so this is a range scan over the window only
+        DatabaseManager.getInstance().executeQueryWithCallback(
+            "SELECT day, SUM(total) AS total FROM daily_rollups " +
+            "WHERE day >= ? AND day != '" + CURRENT_DAY + "' AND day != 'unknown' AND metric = ? AND source IN (" + placeholders + ") " +
+            "GROUP BY day",
+            rs -> {
+                while (rs.next()) {
+                    totals.put(rs.getString("day"), rs.getInt("total"));
+                }
+            }, params);
+        return totals;
+    }
+
+    /**
+     * Current gauge totals per category for a source and metric (e.g. available resources)
+     */
+    public static Map<String, Integer> currentByCategory(String source, String metric) throws SQLException {
+        Map<String, Integer> totals = new HashMap<>();
+        DatabaseManager.getInstance().executeQueryWithCallback(
+            "SELECT category, SUM(total) AS total FROM daily_rollups " +
+            "WHERE day = ? AND source = ? AND metric = ? GROUP BY category HAVING SUM(total) > 0",
+            rs -> {
+                while (rs.next()) {
+                    totals.put(rs.getString("category"), rs.getInt("total"));
+                }
+            }, CURRENT_DAY, source, metric);
+        return totals;
+    }
+
+    /**
+     * Totals per division for a source and metric from the given day onwards
+     */
+    public static Map<String, Integer> totalsByDivision(String source, String metric, LocalDate fromDay) throws SQLException {
+        Map<String, Integer> totals = new HashMap<>();
+        DatabaseManager.getInstance().executeQueryWithCallback(
+            "SELECT division, SUM(total) AS total FROM daily_rollups " +
+            "WHERE day >= ? AND day != '" + CURRENT_DAY + "' AND day != 'unknown' AND source = ? AND metric = ? GROUP BY division",
+            rs -> {
+                while (rs.next()) {
+                    totals.put(rs.getString("division"), rs.getInt("total"));
+                }
+            }, fromDay.toString(), source, metric);
+        return totals;
+    }
+
+    /**
+     * Bring district_divisions in line with LocationHierarchy: new districts are added, moved ones
+     * updated and dropped ones removed. The map is part of signature(), so a change rebuilds the rollups.
+     */
+    private static void seedDistrictDivisions(Statement stmt) {
+        Map<String, String> divisions = districtDivisions();
+        try (PreparedStatement upsert = stmt.getConnection().prepareStatement(
+                "INSERT INTO district_divisions (district, division) VALUES (?, ?) " +
+                "ON CONFLICT(district) DO UPDATE SET division = excluded.division WHERE division != excluded.division")) {
+            for (Map.Entry<String, String> entry : divisions.entrySet()) {
+                upsert.setString(1, entry.getKey());
+                upsert.setString(2, entry.getValue());
+                upsert.addBatch();
+            }
+            upsert.executeBatch();
+            stmt.execute("DELETE FROM district_divisions WHERE district NOT IN ('" +
+                         String.join("', '", divisions.keySet().stream().map(d -> d.replace("'", "''")).toList()) + "')");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not seed district_divisions: " + e.getMessage());
+        }
+    }
+
+    private static Map<String, String> districtDivisions() {
+        Map<String, String> divisions = new TreeMap<>();
+        for (String district : LocationHierarchy.getAllDistricts()) {
+            divisions.put(district.toLowerCase(), LocationHierarchy.getDivisionForDistrict(district));
+        }
+        return divisions;
+    }
+
+    private static void rebuild(Statement stmt) throws SQLException {
+        stmt.execute("DELETE FROM daily_rollups");
+        for (Rollup rollup : ROLLUPS) {
+            String row = rollup.table;
+            stmt.execute("INSERT INTO daily_rollups (day, source, metric, category, division, total) " +
+                        "SELECT " + rollup.day(row) + " AS d, '" + rollup.source + "', '" + rollup.metric + "', " +
+                        rollup.category(row) + " AS c, " + rollup.division(row) + " AS v, COUNT(*) " +
+                        "FROM " + rollup.table + " WHERE " + rollup.matches(row) + " GROUP BY d, c, v");
+        }
+    }
+
+    private static void createTriggers(Statement stmt, String table, List<Rollup> rollups) {
+        StringBuilder insertBody = new StringBuilder();
+        StringBuilder updateBody = new StringBuilder();
+        StringBuilder deleteBody = new StringBuilder();
+        StringBuilder updateWhen = new StringBuilder();
+
+        for (Rollup rollup : rollups) {
+            insertBody.append(add(rollup, "NEW"));
+            // Take the old contribution out of its bucket before adding the new one
+            updateBody.append(subtract(rollup, "OLD")).append(add(rollup, "NEW"));
+            deleteBody.append(subtract(rollup, "OLD"));
+
+            if (updateWhen.length() > 0) {
+                updateWhen.append(" OR ");
+            }
+            updateWhen.append("(").append(rollup.matches("NEW")).append(") IS NOT (").append(rollup.matches("OLD")).append(")")
+                      .append(" OR ").append(rollup.day("NEW")).append(" IS NOT ").append(rollup.day("OLD"))
+                      .append(" OR ").append(rollup.category("NEW")).append(" IS NOT ").append(rollup.category("OLD"));
+        }
+        updateWhen.append(" OR NEW.location_name IS NOT OLD.location_name");
+
+        try {
+            for (String event : new String[] {"insert", "update", "delete"}) {
+                stmt.execute("DROP TRIGGER IF EXISTS trg_" + table + "_rollup_" + event);
+            }
+            stmt.execute("CREATE TRIGGER trg_" + table + "_rollup_insert AFTER INSERT ON " + table + " FOR EACH ROW " +
+                        "BEGIN " + insertBody + " END");
+            stmt.execute("CREATE TRIGGER trg_" + table + "_rollup_update AFTER UPDATE ON " + table + " FOR EACH ROW " +
+                        "WHEN " + updateWhen + " " +
+                        "BEGIN " + updateBody + " END");
+            stmt.execute("CREATE TRIGGER trg_" + table + "_rollup_delete AFTER DELETE ON " + table + " FOR EACH ROW " +
+                        "BEGIN " + deleteBody + " END");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create rollup triggers for " + table + ": " + e.getMessage());
+        }
+    }
+
+    private static String add(Rollup rollup, String row) {
+        return "INSERT INTO daily_rollups (day, source, metric, category, division, total) " +
+               "SELECT " + rollup.day(row) + ", '" + rollup.source + "', '" + rollup.metric + "', " +
+               rollup.category(row) + ", " + rollup.division(row) + ", 1 " +
+               "WHERE " + rollup.matches(row) + " " +
+               "ON CONFLICT (day, source, metric, category, division) DO UPDATE SET total = total + 1; ";
+    }
+
+    private static String subtract(Rollup rollup, String row) {
+        return "UPDATE daily_rollups SET total = total - 1 " +
+               "WHERE day = " + rollup.day(row) + " AND source = '" + rollup.source + "' AND metric = '" + rollup.metric + "' " +
+               "AND category = " + rollup.category(row) + " AND division = " + rollup.division(row) + " " +
+               "AND " + rollup.matches(row) + "; ";
+    }
+
+    private static String signature() {
+        StringBuilder all = new StringBuilder();
+        for (Rollup rollup : ROLLUPS) {
+            all.append(rollup.signature()).append('\n');
+        }
+        // Rows are bucketed by division through the district map, so moving a district changes them too
+        all.append(districtDivisions());
+        return Integer.toHexString(all.toString().hashCode());
+    }
+}
@@ -0,0 +1,255 @@
+package com.reliefnet.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * DashboardCounters - Dashboard metrics kept up to date by SQLite triggers
+ *
+ * Each counter lives in one row of the dashboard_counters table. Triggers on the source tables
+ * add or subtract a row's contribution whenever it is inserted, updated or deleted, in the same
+ * transaction as the change, so the dashboard reads a handful of primary-key rows instead of
+ * re-running aggregate queries. Every change also bumps the snapshot_version counter, letting
+ * readers skip work when nothing moved. Counters are recomputed from scratch at startup.
+ */
+public class DashboardCounters {
+
+    public static final String EMERGENCY_ACTIVE = "emergency_active";
+    public static final String EMERGENCY_CRITICAL = "emergency_critical";
+    public static final String SOS_ACTIVE = "sos_active";
+    public static final String SOS_CRITICAL = "sos_critical";
+    public static final String RESOURCES_AVAILABLE = "resources_available";
+    public static final String VOLUNTEERS_APPROVED = "volunteers_approved";
+    public static final String VOLUNTEERS_ON_DUTY = "volunteers_on_duty";
+    public static final String DISTRICTS_COVERED = "districts_covered";
+    public static final String SNAPSHOT_VERSION = "snapshot_version";
+
+    /**
+     * A counter maintained per row: table plus predicate, with {row} standing for NEW/OLD
+     */
+    private static class RowCounter {
+        final String key;
+        final String table;
+        final String predicate;
+
+        RowCounter(String key, String table, String predicate) {
+            this.key = key;
+            this.table = table;
+            this.predicate = predicate;
+        }
+
+        String matches(String row) {
+            return "(CASE WHEN " + predicate.replace("{row}", row) + " THEN 1 ELSE 0 END)";
+        }
+    }
+
+    private static final String ACTIVE_EMERGENCY = "{row}.status IN ('PENDING', 'IN_PROGRESS')";
+    private static final String ACTIVE_SOS = "{row}.status IN ('ACTIVE', 'RESPONDED')";
+    // Must match VolunteerView's approved-volunteer rule
+    private static final String APPROVED_VOLUNTEER = "{row}.user_type = 'VOLUNTEER' AND {row}.status IN ('ACTIVE', 'INACTIVE', 'ASSIGNED') " +
+            "AND (({row}.location IS NOT NULL AND {row}.location != '') OR ({row}.location_name IS NOT NULL AND {row}.location_name != ''))";
+
+    private static final List<RowCounter> ROW_COUNTERS = List.of(
+        new RowCounter(EMERGENCY_ACTIVE, "emergency_requests", ACTIVE_EMERGENCY),
+        new RowCounter(EMERGENCY_CRITICAL, "emergency_requests", ACTIVE_EMERGENCY + " AND {row}.priority = 'CRITICAL'"),
+        new RowCounter(SOS_ACTIVE, "sos_alerts", ACTIVE_SOS),
+        new RowCounter(SOS_CRITICAL, "sos_alerts", ACTIVE_SOS + " AND {row}.urgency_level = 'CRITICAL'"),
+        new RowCounter(RESOURCES_AVAILABLE, "resources", "{row}.status = 'AVAILABLE'"),
+        new RowCounter(VOLUNTEERS_APPROVED, "users", APPROVED_VOLUNTEER),
+        new RowCounter(VOLUNTEERS_ON_DUTY, "users", APPROVED_VOLUNTEER + " AND {row}.status = 'ACTIVE'")
+    );
+
+    // COUNT(DISTINCT) cannot be maintained by +/-1; population_data is small, so recount it
+    private static final String DISTRICT_COUNT = "(SELECT COUNT(DISTINCT district) FROM population_data)";
+
+    /**
+     * Consistent, timestamped view of all counters, read in one statement
+     */
+    public static class Snapshot {
+        private final Map<String, Long> values;
+        private final String lastChanged;
+        private final LocalDateTime takenAt;
+
+        Snapshot(Map<String, Long> values, String lastChanged) {
+            this.values = Collections.unmodifiableMap(values);
+            this.lastChanged = lastChanged;
+            this.takenAt = LocalDateTime.now();
+        }
+
+        public long get(String key) {
+            return values.getOrDefault(key, 0L);
+        }
+
+        public int getInt(String key) {
+            return (int) get(key);
+        }
+
+        /**
+         * Increases with every change to a counted table
+         */
+        public long getVersion() {
+            return get(SNAPSHOT_VERSION);
+        }
+
+        /**
+         * When a counter last changed (SQLite CURRENT_TIMESTAMP, UTC)
+         */
+        public String getLastChanged() {
+            return lastChanged;
+        }
+
+        public LocalDateTime getTakenAt() {
+            return takenAt;
+        }
+    }
+
+    private DashboardCounters() {
+    }
+
+    /**
+     * Create the counters table and triggers, then recompute every counter.
+     * Called from DatabaseManager's migrations; triggers are recreated so definition changes apply.
+     */
+    static void install(Statement stmt) {
+        try {
+            stmt.execute("CREATE TABLE IF NOT EXISTS dashboard_counters (" +
+                        "counter_key TEXT PRIMARY KEY," +
+                        "value INTEGER NOT NULL DEFAULT 0," +
+                        "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                        ")");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create dashboard_counters table: " + e.getMessage());
+            return;
+        }
+
+        // The approved-volunteer rule reads users.location, which older databases may lack
+        try {
+            stmt.execute("ALTER TABLE users ADD COLUMN location TEXT");
+            System.out.println("Added location column to users table");
+        } catch (SQLException e) {
+            if (!e.getMessage().contains("duplicate column")) {
+                System.err.println("Warning: Could not add location column to users: " + e.getMessage());
+            }
+        }
+
+        Map<String, List<RowCounter>> countersByTable = new LinkedHashMap<>();
+        for (RowCounter counter : ROW_COUNTERS) {
+            countersByTable.computeIfAbsent(counter.table, t -> new ArrayList<>()).add(counter);
+        }
+
+        for (Map.Entry<String, List<RowCounter>> entry : countersByTable.entrySet()) {
+            createRowCounterTriggers(stmt, entry.getKey(), entry.getValue());
+        }
+        createDistrictTriggers(stmt);
+
+        try {
+            recompute(stmt);
+            System.out.println("Dashboard counters initialized");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not compute dashboard counters: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recount every counter from the source tables
+     */
+    public static void recompute() throws SQLException {
+        DatabaseManager.getInstance().executeUpdate(buildRecomputeSql());
+    }
+
+    private static void recompute(Statement stmt) throws SQLException {
+        stmt.execute(buildRecomputeSql());
+    }
+
+    /**
+     * Read all counters at once
+     */
+    public static Snapshot read() throws SQLException {
+        Map<String, Long> values = new HashMap<>();
+        String[] lastChanged = new String[1];
+        DatabaseManager.getInstance().executeQueryWithCallback(
+            "SELECT counter_key, value, updated_at FROM dashboard_counters",
+            rs -> {
+                while (rs.next()) {
+                    values.put(rs.getString("counter_key"), rs.getLong("value"));
+                    String updatedAt = rs.getString("updated_at");
+                    if (updatedAt != null && (lastChanged[0] == null || updatedAt.compareTo(lastChanged[0]) > 0)) {
+                        lastChanged[0] = updatedAt;
+                    }
+                }
+            });
+        return new Snapshot(values, lastChanged[0]);
+    }
+
+    private static String buildRecomputeSql() {
+        StringBuilder sql = new StringBuilder("INSERT OR REPLACE INTO dashboard_counters (counter_key, value, updated_at) ");
+        for (RowCounter counter : ROW_COUNTERS) {
+            sql.append("SELECT '").append(counter.key).append("', COALESCE(SUM(").append(counter.matches(counter.table))
+               .append("), 0), CURRENT_TIMESTAMP FROM ").append(counter.table).append(" UNION ALL ");
+        }
+        sql.append("SELECT '").append(DISTRICTS_COVERED).append("', ").append(DISTRICT_COUNT).append(", CURRENT_TIMESTAMP UNION ALL ");
+        sql.append("SELECT '").append(SNAPSHOT_VERSION).append("', COALESCE((SELECT value FROM dashboard_counters WHERE counter_key = '")
+           .append(SNAPSHOT_VERSION).append("'), 0) + 1, CURRENT_TIMESTAMP");
+        return sql.toString();
+    }
+
+    private static void createRowCounterTriggers(Statement stmt, String table, List<RowCounter> counters) {
+        StringBuilder insertBody = new StringBuilder();
+        StringBuilder updateBody = new StringBuilder();
+        StringBuilder deleteBody = new StringBuilder();
+        StringBuilder updateWhen = new StringBuilder();
+
+        for (RowCounter counter : counters) {
+            insertBody.append(adjust(counter.key, "+ " + counter.matches("NEW")));
+            updateBody.append(adjust(counter.key, "+ " + counter.matches("NEW") + " - " + counter.matches("OLD")));
+            deleteBody.append(adjust(counter.key, "- " + counter.matches("OLD")));
+            if (updateWhen.length() > 0) {
+                updateWhen.append(" OR ");
+            }
+            updateWhen.append(counter.matches("NEW")).append(" != ").append(counter.matches("OLD"));
+        }
+
+        try {
+            for (String event : new String[] {"insert", "update", "delete"}) {
+                stmt.execute("DROP TRIGGER IF EXISTS trg_" + table + "_dashboard_" + event);
+            }
+            stmt.execute("CREATE TRIGGER trg_" + table + "_dashboard_insert AFTER INSERT ON " + table + " FOR EACH ROW " +
+                        "BEGIN " + insertBody + bumpVersion() + " END");
+            // Only updates that move a row in or out of a counter touch the table
+            stmt.execute("CREATE TRIGGER trg_" + table + "_dashboard_update AFTER UPDATE ON " + table + " FOR EACH ROW " +
+                        "WHEN " + updateWhen + " " +
+                        "BEGIN " + updateBody + bumpVersion() + " END");
+            stmt.execute("CREATE TRIGGER trg_" + table + "_dashboard_delete AFTER DELETE ON " + table + " FOR EACH ROW " +
+                        "BEGIN " + deleteBody + bumpVersion() + " END");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create dashboard triggers for " + table + ": " + e.getMessage());
+        }
+    }
+
+    private static void createDistrictTriggers(Statement stmt) {
+        String body = "BEGIN UPDATE dashboard_counters SET value = " + DISTRICT_COUNT + ", updated_at = CURRENT_TIMESTAMP " +
+                      "WHERE counter_key = '" + DISTRICTS_COVERED + "'; " + bumpVersion() + " END";
+        try {
+            for (String event : new String[] {"insert", "update", "delete"}) {
+                stmt.execute("DROP TRIGGER IF EXISTS trg_population_data_dashboard_" + event);
+            }
+            stmt.execute("CREATE TRIGGER trg_population_data_dashboard_insert AFTER INSERT ON population_data FOR EACH ROW " + body);
+            stmt.execute("CREATE TRIGGER trg_population_data_dashboard_update AFTER UPDATE OF district ON population_data FOR EACH ROW " + body);
+            stmt.execute("CREATE TRIGGER trg_population_data_dashboard_delete AFTER DELETE ON population_data FOR EACH ROW " + body);
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create dashboard triggers for population_data: " + e.getMessage());
+        }
+    }
+
+    private static String adjust(String key, String delta) {
+        return "UPDATE dashboard_counters SET value = value " + delta + ", updated_at = CURRENT_TIMESTAMP " +
+               "WHERE counter_key = '" + key + "'; ";
+    }
+
+    private static String bumpVersion() {
+        return "UPDATE dashboard_counters SET value = value + 1, updated_at = CURRENT_TIMESTAMP " +
+               "WHERE counter_key = '" + SNAPSHOT_VERSION + "';";
+    }
+}
@@ -27,7 +27,7 @@ public class DatabaseManager {
             instance = new DatabaseManager();
         }
         return instance;
-    }    public void initializeDatabase() throws SQLException {
+    }    public synchronized void initializeDatabase() throws SQLException {
         System.out.println("Initializing database...");
         
         // Load SQLite JDBC driver explicitly
@@ -75,6 +75,9 @@ public class DatabaseManager {
             throw new SQLException("Failed to establish database connection after " + maxRetries + " attempts");
         }
         
+        // The location key triggers call these functions; SQLite only knows them on connections they are registered on
+        LocationKeys.registerFunctions(connection);
+        
         // Configure SQLite for better performance and reduced locking
         try (Statement stmt = connection.createStatement()) {
             stmt.execute("PRAGMA journal_mode=WAL;");  // Write-Ahead Logging reduces locks
@@ -412,7 +415,36 @@ public class DatabaseManager {
                 System.err.println("Warning: Could not add sync_status column to resources: " + e.getMessage());
             }
         }
-        
+
+        createChangeTrackingTriggers(stmt);
+
+        // Trigger-maintained counters read by the dashboard
+        DashboardCounters.install(stmt);
+
+        // Trigger-maintained per-day aggregates read by the dashboard charts
+        DailyRollups.install(stmt);
+
+        // Canonical district/division keys resolved from free-text locations
+        LocationKeys.install(stmt);
+
+        // R*Tree point indexes and distance_km() for radius and nearest-neighbour queries
+        SpatialIndex.install(stmt);
+
+        // Last known position per user, fed by triggers, for impossible-travel checks
+        PositionStore.install(stmt);
+
+        // Composite indexes backing keyset pagination (timestamp, id) in the table and chat views
+        try {
+            // Chat pages and appends by arrival id within a channel
+            stmt.execute("DROP INDEX IF EXISTS idx_messages_channel_page");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_messages_channel_id_page ON messages(channel_id, message_type, id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_emergency_requests_page ON emergency_requests(created_at, id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_resources_status_page ON resources(status, updated_at, id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_volunteer_assignments_page ON volunteer_assignments(assigned_at, id)");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create paging indexes: " + e.getMessage());
+        }
+
         // Migrate settings table to support user-specific settings
         try {
             stmt.execute("ALTER TABLE settings ADD COLUMN user_id TEXT");
@@ -454,6 +486,85 @@ public class DatabaseManager {
         stmt.close();
     }
     
+    /**
+     * Give each row a per-table change sequence (row_version) that is bumped by triggers on every
+     * insert and update, so table views can load just the rows changed since their last refresh.
+     * A counter is used instead of updated_at because that column holds a mix of SQLite text
+     * timestamps and JDBC epoch values written from local time, which do not compare reliably.
+     *
+     * The sequence comes from a counter row per table in row_versions, which only ever goes up,
+     * so deleting the newest row never lets a version be handed out twice. The same row counts
+     * deletions, which row_version cannot show; readers compare it to notice rows removed outright.
+     */
+    private void createChangeTrackingTriggers(Statement stmt) {
+        String[] tables = {"emergency_requests", "sos_alerts", "resources", "users"};
+
+        try {
+            stmt.execute("CREATE TABLE IF NOT EXISTS row_versions (" +
+                        "table_name TEXT PRIMARY KEY," +
+                        "version INTEGER NOT NULL DEFAULT 0," +
+                        "deletions INTEGER NOT NULL DEFAULT 0" +
+                        ")");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create row_versions table: " + e.getMessage());
+            return;
+        }
+
+        for (String table : tables) {
+            try {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN row_version INTEGER");
+                stmt.execute("UPDATE " + table + " SET row_version = id WHERE row_version IS NULL");
+                System.out.println("Added row_version column to " + table + " table");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column")) {
+                    System.err.println("Warning: Could not add row_version column to " + table + ": " + e.getMessage());
+                    continue;
+                }
+            }
+
+            String counterRow = " WHERE table_name = '" + table + "'";
+            try {
+                // Start the counter at (or move it up to) the highest version already handed out
+                stmt.execute("INSERT INTO row_versions (table_name, version) " +
+                            "SELECT '" + table + "', COALESCE(MAX(row_version), 0) FROM " + table + " WHERE true " +
+                            "ON CONFLICT(table_name) DO UPDATE SET version = MAX(version, excluded.version)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_row_version ON " + table + "(row_version)");
+
+                String bump = "UPDATE row_versions SET version = version + 1" + counterRow + "; " +
+                              "UPDATE " + table + " SET row_version = (SELECT version FROM row_versions" + counterRow + ") WHERE id = NEW.id; ";
+                for (String trigger : new String[] {"version_insert", "version_update", "version_delete"}) {
+                    stmt.execute("DROP TRIGGER IF EXISTS trg_" + table + "_" + trigger);
+                }
+                stmt.execute("CREATE TRIGGER trg_" + table + "_version_insert " +
+                            "AFTER INSERT ON " + table + " FOR EACH ROW " +
+                            "BEGIN " + bump + "END");
+                stmt.execute("CREATE TRIGGER trg_" + table + "_version_update " +
+                            "AFTER UPDATE ON " + table + " FOR EACH ROW " +
+                            "WHEN NEW.row_version IS OLD.row_version " +
+                            "BEGIN " + bump + "END");
+                stmt.execute("CREATE TRIGGER trg_" + table + "_version_delete " +
+                            "AFTER DELETE ON " + table + " FOR EACH ROW " +
+                            "BEGIN UPDATE row_versions SET deletions = deletions + 1" + counterRow + "; END");
+            } catch (SQLException e) {
+                System.err.println("Warning: Could not create change tracking triggers for " + table + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Number of rows ever deleted from a change-tracked table; a reader that sees it move since
+     * its last look has rows to drop that no row_version delta will report
+     */
+    public long getDeletionCount(String table) throws SQLException {
+        long[] deletions = {0};
+        executeQueryWithCallback("SELECT deletions FROM row_versions WHERE table_name = ?", rs -> {
+            if (rs.next()) {
+                deletions[0] = rs.getLong(1);
+            }
+        }, table);
+        return deletions[0];
+    }
+
     private void insertDefaultData() throws SQLException {
         // Insert default settings
         insertDefaultSettings();
@@ -505,25 +616,7 @@ public class DatabaseManager {
     }
     
     // Utility methods for common operations
-    @Deprecated
-    public ResultSet executeQuery(String sql, Object... params) throws SQLException {
-        // WARNING: This method can cause memory leaks. Use executeQueryWithCallback instead.
-        // Ensure connection is available
-        if (connection == null || connection.isClosed()) {
-            System.err.println("Database connection is not available, attempting to reconnect...");
-            initializeDatabase();
-        }
-        
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        for (int i = 0; i < params.length; i++) {
-            pstmt.setObject(i + 1, params[i]);
-        }
-        // Note: ResultSet and PreparedStatement should be closed by the caller
-        // using try-with-resources or explicit close()
-        return pstmt.executeQuery();
-    }
-    
-    public int executeUpdate(String sql, Object... params) throws SQLException {
+    public synchronized int executeUpdate(String sql, Object... params) throws SQLException {
         // Ensure connection is available
         if (connection == null || connection.isClosed()) {
             System.err.println("Database connection is not available, attempting to reconnect...");
@@ -544,7 +637,7 @@ public class DatabaseManager {
         } catch (SQLException e) {
             return false;
         }
-    }      public void closeConnection() {
+    }      public synchronized void closeConnection() {
         try {
             if (connection != null && !connection.isClosed()) {
                 // Ensure all pending transactions are committed
@@ -571,7 +664,7 @@ public class DatabaseManager {
     }
     
     // Method to check database health
-    public boolean testConnection() {
+    public synchronized boolean testConnection() {
         try {
             if (connection == null || connection.isClosed()) {
                 return false;
@@ -591,7 +684,7 @@ public class DatabaseManager {
       /**
      * Authenticate user with username/email and password
      */
-    public User authenticateUser(String usernameOrEmail, String password) {
+    public synchronized User authenticateUser(String usernameOrEmail, String password) {
         try {
             // First check against database stored users
             String sql = "SELECT * FROM users WHERE (user_id = ? OR email = ?) AND password = ?";
@@ -628,7 +721,7 @@ public class DatabaseManager {
     }    /**
      * Check if user exists with given username (emails can be reused for multiple roles)
      */
-    public boolean userExists(String username, String email) {
+    public synchronized boolean userExists(String username, String email) {
         System.out.println("Checking if username exists: " + username);
           if (connection == null) {
             System.err.println("Database connection is null during userExists check!");            // Return false for proper user registration
@@ -665,7 +758,7 @@ public class DatabaseManager {
     /**
      * Register a new user with optional authority code
      */
-    public boolean registerUser(User user, String password, String authCode) {
+    public synchronized boolean registerUser(User user, String password, String authCode) {
         System.out.println("Attempting to register user: " + user.getFullName() + " with username: " + user.getUserId());
         
         if (connection == null) {
@@ -738,7 +831,7 @@ public class DatabaseManager {
      * Helper method to safely execute queries with proper resource cleanup
      * Use this when you need to process ResultSet and close resources immediately
      */
-    public void executeQueryWithCallback(String sql, ResultSetCallback callback, Object... params) throws SQLException {
+    public synchronized void executeQueryWithCallback(String sql, ResultSetCallback callback, Object... params) throws SQLException {
         // Ensure connection is available
         if (connection == null || connection.isClosed()) {
             System.err.println("Database connection is not available, attempting to reconnect...");
@@ -762,11 +855,42 @@ public class DatabaseManager {
     public interface ResultSetCallback {
         void process(ResultSet rs) throws SQLException;
     }
+
+    /**
+     * Run several statements as one transaction: either all of them are committed, or none are
+     * if the work throws. Every method that uses the connection takes the same lock, so other
+     * threads wait for the transaction instead of landing inside it.
+     */
+    public synchronized void executeInTransaction(TransactionWork work) throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            System.err.println("Database connection is not available, attempting to reconnect...");
+            initializeDatabase();
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Functional interface for work done inside executeInTransaction
+     */
+    @FunctionalInterface
+    public interface TransactionWork {
+        void run() throws SQLException;
+    }
     
     /**
      * Check if user needs first-time password setup (user synced from another device)
      */
-    public boolean userNeedsFirstTimeSetup(String usernameOrEmail) {
+    public synchronized boolean userNeedsFirstTimeSetup(String usernameOrEmail) {
         try {
             String sql = "SELECT password FROM users WHERE (user_id = ? OR email = ?) AND password = 'NEEDS_FIRST_TIME_SETUP'";
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -788,7 +912,7 @@ public class DatabaseManager {
     /**
      * Set password for user who needs first-time setup
      */
-    public boolean setFirstTimePassword(String usernameOrEmail, String newPassword) {
+    public synchronized boolean setFirstTimePassword(String usernameOrEmail, String newPassword) {
         try {
             String sql = "UPDATE users SET password = ? WHERE (user_id = ? OR email = ?) AND password = 'NEEDS_FIRST_TIME_SETUP'";
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -815,7 +939,7 @@ public class DatabaseManager {
     /**
      * Get user information for first-time setup (without authentication)
      */
-    public User getUserForFirstTimeSetup(String usernameOrEmail) {
+    public synchronized User getUserForFirstTimeSetup(String usernameOrEmail) {
         try {
             String sql = "SELECT * FROM users WHERE (user_id = ? OR email = ?) AND password = 'NEEDS_FIRST_TIME_SETUP'";
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -849,7 +973,7 @@ public class DatabaseManager {
     /**
      * Store verification code for email verification
      */
-    public boolean storeVerificationCode(String email, String code, String purpose) {
+    public synchronized boolean storeVerificationCode(String email, String code, String purpose) {
         try {
             // Clean up any existing codes for this email and purpose
             String cleanupSql = "DELETE FROM verification_codes WHERE email = ? AND purpose = ?";
@@ -880,7 +1004,7 @@ public class DatabaseManager {
     /**
      * Verify email verification code
      */
-    public boolean verifyEmailCode(String email, String code, String purpose) {
+    public synchronized boolean verifyEmailCode(String email, String code, String purpose) {
         try {
             String sql = "SELECT * FROM verification_codes WHERE email = ? AND code = ? AND purpose = ? AND used = 0 AND expires_at > datetime('now')";
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -926,7 +1050,7 @@ public class DatabaseManager {
     /**
      * Check if email verification is required for user
      */
-    public boolean isEmailVerificationRequired(String email) {
+    public synchronized boolean isEmailVerificationRequired(String email) {
         try {
             String sql = "SELECT COUNT(*) FROM users WHERE email = ? AND verified = 0";
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -948,7 +1072,7 @@ public class DatabaseManager {
     /**
      * Mark email as verified
      */
-    public boolean markEmailAsVerified(String email) {
+    public synchronized boolean markEmailAsVerified(String email) {
         try {
             String sql = "UPDATE users SET verified = 1 WHERE email = ?";
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -971,7 +1095,7 @@ public class DatabaseManager {
     /**
      * Get user by email for password reset
      */
-    public User getUserByEmail(String email) {
+    public synchronized User getUserByEmail(String email) {
         try {
             String sql = "SELECT * FROM users WHERE email = ?";
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -1004,7 +1128,7 @@ public class DatabaseManager {
     /**
      * Reset user password using email verification
      */
-    public boolean resetPassword(String email, String newPassword) {
+    public synchronized boolean resetPassword(String email, String newPassword) {
         try {
             String sql = "UPDATE users SET password = ? WHERE email = ?";
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -1029,7 +1153,7 @@ public class DatabaseManager {
      * Get user by email and user type combination
      * This allows checking if a specific email + role combination already exists
      */
-    public User getUserByEmailAndType(String email, User.UserType userType) {
+    public synchronized User getUserByEmailAndType(String email, User.UserType userType) {
         try {
             String sql = "SELECT * FROM users WHERE email = ? AND user_type = ?";
             PreparedStatement stmt = connection.prepareStatement(sql);
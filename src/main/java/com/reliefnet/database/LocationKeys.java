@@ -0,0 +1,323 @@
+package com.reliefnet.database;
+
+import com.reliefnet.util.LocationGazetteer;
+import com.reliefnet.util.LocationHierarchy;
+import org.sqlite.Function;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * LocationKeys - Canonical district and division keys for free-text locations
+ *
+ * Locations are typed by users ("Mirpur, Dhaka", "Cox's Bazar", "Chattogram"), so filtering by
+ * area used to mean a pile of LIKE '%district%' clauses that scan whole tables. Instead, rows in
+ * the located tables carry integer district_id and division_id columns, resolved from the text by
+ * SQLite triggers whenever it is written. Area filters then become indexed equality checks on
+ * division_id or district_id.
+ *
+ * The triggers call location_district_id() and location_division_id(), SQL functions that resolve
+ * the text with LocationGazetteer, so the keys stored in SQL and the places resolved in Java always
+ * agree. SQLite keeps functions per connection, so DatabaseManager registers them on every
+ * connection it opens, before any table is touched; a trigger never runs without them even when
+ * this install step fails. The district and division tables are seeded from
+ * LocationHierarchy. Existing rows are backfilled when the columns are first added and again
+ * whenever the set of names changes.
+ */
+public class LocationKeys {
+
+    /**
+     * A located table and the SQL expression ({row} standing for NEW or the table) holding its location text
+     */
+    private static class LocatedTable {
+        final String table;
+        final String locationText;
+        final String[] locationColumns;
+
+        LocatedTable(String table, String locationText, String... locationColumns) {
+            this.table = table;
+            this.locationText = locationText;
+            this.locationColumns = locationColumns;
+        }
+
+        String text(String row) {
+            return locationText.replace("{row}", row);
+        }
+    }
+
+    private static final List<LocatedTable> LOCATED_TABLES = List.of(
+        new LocatedTable("emergency_requests", "{row}.location_name", "location_name"),
+        new LocatedTable("sos_alerts", "{row}.location_name", "location_name"),
+        new LocatedTable("resources", "{row}.location_name", "location_name"),
+        // Volunteers may have either column filled in (see VolunteerView)
+        new LocatedTable("users", "COALESCE({row}.location_name, '') || ' ' || COALESCE({row}.location, '')", "location_name", "location")
+    );
+
+    /**
+     * Resolved keys for a location; either may be null when the text names no known place
+     */
+    public static class Key {
+        private final Integer districtId;
+        private final Integer divisionId;
+
+        Key(Integer districtId, Integer divisionId) {
+            this.districtId = districtId;
+            this.divisionId = divisionId;
+        }
+
+        public Integer getDistrictId() { return districtId; }
+        public Integer getDivisionId() { return divisionId; }
+
+        public boolean isResolved() {
+            return divisionId != null;
+        }
+    }
+
+    // Lower-cased canonical names to ids, loaded from the key tables after seeding
+    private static final Map<String, Integer> DIVISION_IDS = new HashMap<>();
+    private static final Map<String, Integer> DISTRICT_IDS = new HashMap<>();
+
+    // Triggers ask for both keys of the same text one after the other; resolve it once
+    private static String lastText;
+    private static Key lastKey;
+
+    private LocationKeys() {
+    }
+
+    /**
+     * SQL expression resolving a location text to district_id or division_id
+     */
+    private static String keyOf(String text, String column) {
+        return "location_" + column + "(" + text + ")";
+    }
+
+    /**
+     * Create the key tables, columns, indexes and triggers; backfill when the names changed.
+     * Called from DatabaseManager's migrations.
+     */
+    static void install(Statement stmt) {
+        try {
+            stmt.execute("CREATE TABLE IF NOT EXISTS location_divisions (" +
+                        "division_id INTEGER PRIMARY KEY," +
+                        "name TEXT NOT NULL UNIQUE" +
+                        ")");
+            stmt.execute("CREATE TABLE IF NOT EXISTS location_districts (" +
+                        "district_id INTEGER PRIMARY KEY," +
+                        "name TEXT NOT NULL UNIQUE," +
+                        "division_id INTEGER NOT NULL REFERENCES location_divisions(division_id)" +
+                        ")");
+            stmt.execute("CREATE TABLE IF NOT EXISTS location_key_state (" +
+                        "state_key TEXT PRIMARY KEY," +
+                        "state_value TEXT" +
+                        ")");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create location key tables: " + e.getMessage());
+            return;
+        }
+
+        String signature;
+        try {
+            signature = seed(stmt);
+            loadIds();
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not seed location keys: " + e.getMessage());
+            return;
+        }
+
+        for (LocatedTable located : LOCATED_TABLES) {
+            addKeyColumns(stmt, located.table);
+            createTriggers(stmt, located);
+        }
+
+        try {
+            String stored = null;
+            try (java.sql.ResultSet rs = stmt.executeQuery("SELECT state_value FROM location_key_state WHERE state_key = 'names'")) {
+                if (rs.next()) {
+                    stored = rs.getString(1);
+                }
+            }
+            // Rows from before the triggers (or resolved with an older set of names) need their keys filled in
+            boolean namesChanged = !signature.equals(stored);
+            long start = System.currentTimeMillis();
+            int updated = 0;
+            for (LocatedTable located : LOCATED_TABLES) {
+                updated += stmt.executeUpdate("UPDATE " + located.table + " SET " +
+                        "district_id = " + keyOf(located.text(located.table), "district_id") + ", " +
+                        "division_id = " + keyOf(located.text(located.table), "division_id") +
+                        (namesChanged ? "" : " WHERE division_id IS NULL AND trim(" + located.text(located.table) + ") != ''"));
+            }
+            if (namesChanged) {
+                stmt.execute("INSERT OR REPLACE INTO location_key_state (state_key, state_value) VALUES ('names', '" + signature + "')");
+            }
+            if (updated > 0) {
+                System.out.println("Location keys backfilled for " + updated + " rows in " + (System.currentTimeMillis() - start) + "ms");
+            }
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not backfill location keys: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resolve free text to district and division keys, exactly as the triggers do
+     */
+    public static synchronized Key resolve(String location) {
+        if (location == null || location.trim().isEmpty()) {
+            return new Key(null, null);
+        }
+        if (location.equals(lastText)) {
+            return lastKey;
+        }
+        if (DIVISION_IDS.isEmpty()) {
+            try {
+                loadIds();
+            } catch (SQLException e) {
+                System.err.println("Error loading location keys: " + e.getMessage());
+            }
+        }
+
+        LocationGazetteer.Place place = LocationGazetteer.getInstance().resolve(location);
+        Key key;
+        if (place == null) {
+            key = new Key(null, null);
+        } else {
+            Integer districtId = place.getDistrict() != null ? DISTRICT_IDS.get(place.getDistrict().toLowerCase()) : null;
+            key = new Key(districtId, DIVISION_IDS.get(place.getDivision().toLowerCase()));
+        }
+        lastText = location;
+        lastKey = key;
+        return key;
+    }
+
+    /**
+     * Division key for free text, or null if it names no known place
+     */
+    public static Integer divisionIdOf(String location) {
+        return resolve(location).getDivisionId();
+    }
+
+    /**
+     * Insert divisions and districts that are not there yet (existing ids never change) and
+     * return a signature of every name the gazetteer resolves
+     */
+    private static String seed(Statement stmt) throws SQLException {
+        Set<String> divisions = new TreeSet<>(LocationHierarchy.getAllDivisions());
+        for (String division : divisions) {
+            stmt.execute("INSERT OR IGNORE INTO location_divisions (name) VALUES (" + quote(division) + ")");
+        }
+
+        Map<String, String> names = new TreeMap<>();
+        for (String district : new TreeSet<>(LocationHierarchy.getAllDistricts())) {
+            String division = LocationHierarchy.getDivisionForDistrict(district);
+            stmt.execute("INSERT OR IGNORE INTO location_districts (name, division_id) " +
+                        "SELECT " + quote(LocationHierarchy.getDistrictName(district)) + ", division_id " +
+                        "FROM location_divisions WHERE name = " + quote(division));
+            names.put(district, district + "/" + division);
+        }
+        names.putAll(LocationHierarchy.getAliases());
+        for (Map.Entry<String, String> upazila : LocationHierarchy.getUpazilas().entrySet()) {
+            names.putIfAbsent("upazila " + upazila.getKey().toLowerCase(), upazila.getValue());
+        }
+
+        // Keys are resolved by the gazetteer now; the old substring alias table is unused
+        stmt.execute("DROP TABLE IF EXISTS location_aliases");
+        return Integer.toHexString(("gazetteer" + names).hashCode());
+    }
+
+    private static synchronized void loadIds() throws SQLException {
+        DIVISION_IDS.clear();
+        DISTRICT_IDS.clear();
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        dbManager.executeQueryWithCallback("SELECT division_id, name FROM location_divisions", rs -> {
+            while (rs.next()) {
+                DIVISION_IDS.put(rs.getString("name").toLowerCase(), rs.getInt("division_id"));
+            }
+        });
+        dbManager.executeQueryWithCallback("SELECT district_id, name FROM location_districts", rs -> {
+            while (rs.next()) {
+                DISTRICT_IDS.put(rs.getString("name").toLowerCase(), rs.getInt("district_id"));
+            }
+        });
+        lastText = null;
+    }
+
+    /**
+     * Register the key functions the triggers call. Called by DatabaseManager for each new connection.
+     */
+    static void registerFunctions(Connection connection) throws SQLException {
+        Function.create(connection, "location_district_id", new Function() {
+            @Override
+            protected void xFunc() throws SQLException {
+                Integer id = args() == 1 ? resolve(value_text(0)).getDistrictId() : null;
+                if (id == null) {
+                    result();
+                } else {
+                    result(id);
+                }
+            }
+        }, 1, Function.FLAG_DETERMINISTIC);
+        Function.create(connection, "location_division_id", new Function() {
+            @Override
+            protected void xFunc() throws SQLException {
+                Integer id = args() == 1 ? resolve(value_text(0)).getDivisionId() : null;
+                if (id == null) {
+                    result();
+                } else {
+                    result(id);
+                }
+            }
+        }, 1, Function.FLAG_DETERMINISTIC);
+    }
+
+    private static void addKeyColumns(Statement stmt, String table) {
+        for (String column : new String[] {"district_id", "division_id"}) {
+            try {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " INTEGER");
+                System.out.println("Added " + column + " column to " + table + " table");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column")) {
+                    System.err.println("Warning: Could not add " + column + " column to " + table + ": " + e.getMessage());
+                }
+            }
+        }
+        try {
+            // Area filters are "same division"; district-level lookups use the second column of the index
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_location_keys ON " + table + "(division_id, district_id)");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create location key index on " + table + ": " + e.getMessage());
+        }
+    }
+
+    private static void createTriggers(Statement stmt, LocatedTable located) {
+        String table = located.table;
+        String assign = "BEGIN UPDATE " + table + " SET " +
+                        "district_id = " + keyOf(located.text("NEW"), "district_id") + ", " +
+                        "division_id = " + keyOf(located.text("NEW"), "division_id") + " " +
+                        "WHERE rowid = NEW.rowid; END";
+
+        StringBuilder changed = new StringBuilder();
+        for (String column : located.locationColumns) {
+            if (changed.length() > 0) {
+                changed.append(" OR ");
+            }
+            changed.append("NEW.").append(column).append(" IS NOT OLD.").append(column);
+        }
+
+        try {
+            stmt.execute("DROP TRIGGER IF EXISTS trg_" + table + "_location_keys_insert");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_" + table + "_location_keys_update");
+            stmt.execute("CREATE TRIGGER trg_" + table + "_location_keys_insert AFTER INSERT ON " + table + " FOR EACH ROW " + assign);
+            // The key update itself does not touch the location columns, so it does not re-fire this trigger
+            stmt.execute("CREATE TRIGGER trg_" + table + "_location_keys_update AFTER UPDATE OF " +
+                        String.join(", ", located.locationColumns) + " ON " + table + " FOR EACH ROW " +
+                        "WHEN " + changed + " " + assign);
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create location key triggers for " + table + ": " + e.getMessage());
+        }
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
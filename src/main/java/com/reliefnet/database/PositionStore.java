@@ -0,0 +1,314 @@
+package com.reliefnet.database;
+
+import com.reliefnet.util.DataSyncManager;
+import com.reliefnet.util.MemoryGovernor;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PositionStore - Last known position of each user, for travel-speed checks
+ *
+ * The user_positions table keeps one row per user with the latest reported point and the one
+ * before it. SQLite triggers fill it from emergency requests (by requester), SOS alerts (by the
+ * user whose phone matches the sender contact) and volunteer location updates, so it survives
+ * restarts and sees reports from every code path. Lookups go through an LRU cache of recent
+ * users, which is dropped when emergency or user data changes and trimmed under memory pressure.
+ *
+ * Keeping the previous point as well means a report can be measured against the position
+ * before it even when a trigger has already stored the report itself. The table is capped at
+ * MAX_ENTRIES users; when a new user pushes it over, the stalest positions are dropped.
+ */
+public class PositionStore implements DataSyncManager.DataChangeListener, MemoryGovernor.Evictable {
+
+    private static final int MAX_ENTRIES = 5000;
+
+    // Reports closer than this to the last position are treated as not having moved (GPS noise)
+    private static final double MIN_DISTANCE_KM = 1.0;
+    // Shortest interval a speed is measured over, so near-simultaneous reports do not divide by ~0
+    private static final long MIN_INTERVAL_MILLIS = 60 * 1000L;
+
+    private static final Position UNKNOWN = new Position(Double.NaN, Double.NaN, 0, Double.NaN, Double.NaN, 0);
+
+    /**
+     * A user's latest reported point and the one before it (NaN when there was none)
+     */
+    public static class Position {
+        private final double lat;
+        private final double lng;
+        private final long observedAtMillis;
+        private final double previousLat;
+        private final double previousLng;
+        private final long previousObservedAtMillis;
+
+        Position(double lat, double lng, long observedAtMillis, double previousLat, double previousLng, long previousObservedAtMillis) {
+            this.lat = lat;
+            this.lng = lng;
+            this.observedAtMillis = observedAtMillis;
+            this.previousLat = previousLat;
+            this.previousLng = previousLng;
+            this.previousObservedAtMillis = previousObservedAtMillis;
+        }
+
+        public double getLat() { return lat; }
+        public double getLng() { return lng; }
+        public long getObservedAtMillis() { return observedAtMillis; }
+
+        boolean hasPrevious() {
+            return !Double.isNaN(previousLat);
+        }
+    }
+
+    /**
+     * How far and how fast a user moved to reach a new report
+     */
+    public static class Movement {
+        private final double distanceKm;
+        private final long elapsedMillis;
+        private final double speedKmh;
+
+        Movement(double distanceKm, long elapsedMillis, double speedKmh) {
+            this.distanceKm = distanceKm;
+            this.elapsedMillis = elapsedMillis;
+            this.speedKmh = speedKmh;
+        }
+
+        public double getDistanceKm() { return distanceKm; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public double getSpeedKmh() { return speedKmh; }
+    }
+
+    private static PositionStore instance;
+
+    private final Map<String, Position> positions = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Position> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private PositionStore() {
+        DataSyncManager.getInstance().addListener(this);
+        MemoryGovernor.getInstance().register(this);
+    }
+
+    public static synchronized PositionStore getInstance() {
+        if (instance == null) {
+            instance = new PositionStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Create the table and the triggers feeding it. Called from DatabaseManager's migrations.
+     */
+    static void install(Statement stmt) {
+        try {
+            stmt.execute("CREATE TABLE IF NOT EXISTS user_positions (" +
+                        "user_id TEXT PRIMARY KEY," +
+                        "lat REAL NOT NULL," +
+                        "lng REAL NOT NULL," +
+                        "observed_at INTEGER NOT NULL," +
+                        "prev_lat REAL," +
+                        "prev_lng REAL," +
+                        "prev_observed_at INTEGER," +
+                        "source TEXT" +
+                        ") WITHOUT ROWID");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_user_positions_observed ON user_positions(observed_at)");
+
+            String requestTime = "COALESCE(CAST(strftime('%s', NEW.created_at) AS INTEGER), CAST(strftime('%s', 'now') AS INTEGER)) * 1000";
+            String now = "CAST(strftime('%s', 'now') AS INTEGER) * 1000";
+            String sosSender = "(SELECT user_id FROM users WHERE phone = NEW.sender_contact LIMIT 1)";
+
+            for (String trigger : new String[] {"emergency_requests_position", "sos_alerts_position",
+                                                "users_position_insert", "users_position_update", "user_positions_prune"}) {
+                stmt.execute("DROP TRIGGER IF EXISTS trg_" + trigger);
+            }
+            stmt.execute("CREATE TRIGGER trg_emergency_requests_position AFTER INSERT ON emergency_requests FOR EACH ROW " +
+                        "WHEN NEW.requester_id IS NOT NULL AND " + SpatialIndex.hasPoint("NEW") + " " +
+                        "BEGIN " + upsert("NEW.requester_id", "NEW.location_lat", "NEW.location_lng", requestTime, "'EMERGENCY'") + "; END");
+            stmt.execute("CREATE TRIGGER trg_sos_alerts_position AFTER INSERT ON sos_alerts FOR EACH ROW " +
+                        "WHEN COALESCE(NEW.sender_contact, '') != '' AND " + SpatialIndex.hasPoint("NEW") + " " +
+                        "AND " + sosSender + " IS NOT NULL " +
+                        "BEGIN " + upsert(sosSender, "NEW.location_lat", "NEW.location_lng", requestTime, "'SOS'") + "; END");
+            stmt.execute("CREATE TRIGGER trg_users_position_insert AFTER INSERT ON users FOR EACH ROW " +
+                        "WHEN " + SpatialIndex.hasPoint("NEW") + " " +
+                        "BEGIN " + upsert("NEW.user_id", "NEW.location_lat", "NEW.location_lng", now, "'USER'") + "; END");
+            stmt.execute("CREATE TRIGGER trg_users_position_update AFTER UPDATE OF location_lat, location_lng ON users FOR EACH ROW " +
+                        "WHEN " + SpatialIndex.hasPoint("NEW") + " " +
+                        "AND (NEW.location_lat IS NOT OLD.location_lat OR NEW.location_lng IS NOT OLD.location_lng) " +
+                        "BEGIN " + upsert("NEW.user_id", "NEW.location_lat", "NEW.location_lng", now, "'USER'") + "; END");
+
+            // Upserts that move a known user fire UPDATE, so only a new user can grow the table
+            String rowCount = "(SELECT COUNT(*) FROM user_positions)";
+            stmt.execute("CREATE TRIGGER trg_user_positions_prune AFTER INSERT ON user_positions FOR EACH ROW " +
+                        "WHEN " + rowCount + " > " + MAX_ENTRIES + " " +
+                        "BEGIN DELETE FROM user_positions WHERE user_id IN (SELECT user_id FROM user_positions " +
+                        "ORDER BY observed_at LIMIT " + rowCount + " - " + MAX_ENTRIES + "); END");
+            // Trim a table that grew before the cap existed
+            stmt.execute("DELETE FROM user_positions WHERE user_id IN (SELECT user_id FROM user_positions " +
+                        "ORDER BY observed_at LIMIT MAX(0, " + rowCount + " - " + MAX_ENTRIES + "))");
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not create user position store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Statement storing a point as the user's latest, shifting the stored one to previous;
+     * reports older than the stored one are ignored. Arguments are SQL expressions.
+     */
+    private static String upsert(String userId, String lat, String lng, String observedAt, String source) {
+        return "INSERT INTO user_positions (user_id, lat, lng, observed_at, source) " +
+               "VALUES (" + userId + ", " + lat + ", " + lng + ", " + observedAt + ", " + source + ") " +
+               "ON CONFLICT(user_id) DO UPDATE SET " +
+               "prev_lat = lat, prev_lng = lng, prev_observed_at = observed_at, " +
+               "lat = excluded.lat, lng = excluded.lng, observed_at = excluded.observed_at, source = excluded.source " +
+               // Row timestamps have whole seconds, so a report from the same second counts as newer
+               "WHERE excluded.observed_at / 1000 >= user_positions.observed_at / 1000";
+    }
+
+    /**
+     * Latest known position of a user, or null
+     */
+    public synchronized Position get(String userId) {
+        Position position = lookup(userId);
+        return position == UNKNOWN ? null : position;
+    }
+
+    /**
+     * Movement from the user's last known position to a new report, or null when there is no
+     * earlier position. If the report is already stored as the latest position, it is measured
+     * from the one before.
+     */
+    public synchronized Movement movementTo(String userId, double lat, double lng, long atMillis) {
+        Position position = lookup(userId);
+        if (position == UNKNOWN) {
+            return null;
+        }
+        double fromLat = position.lat;
+        double fromLng = position.lng;
+        long fromMillis = position.observedAtMillis;
+        if (fromLat == lat && fromLng == lng) {
+            if (!position.hasPrevious()) {
+                return null;
+            }
+            fromLat = position.previousLat;
+            fromLng = position.previousLng;
+            fromMillis = position.previousObservedAtMillis;
+        }
+
+        double distance = SpatialIndex.distanceKm(fromLat, fromLng, lat, lng);
+        long elapsed = Math.max(0, atMillis - fromMillis);
+        double speed = distance < MIN_DISTANCE_KM ? 0.0
+                     : distance / (Math.max(elapsed, MIN_INTERVAL_MILLIS) / 3600000.0);
+        return new Movement(distance, elapsed, speed);
+    }
+
+    /**
+     * Store a report as the user's latest position (no-op for reports older than the stored one)
+     */
+    public synchronized void record(String userId, double lat, double lng, long atMillis) {
+        if (userId == null) {
+            return;
+        }
+        try {
+            DatabaseManager.getInstance().executeUpdate(upsert("?", "?", "?", "?", "'REPORT'"), userId, lat, lng, atMillis);
+            positions.remove(userId);
+        } catch (SQLException e) {
+            System.err.println("Error recording position for " + userId + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void clear() {
+        positions.clear();
+    }
+
+    private Position lookup(String userId) {
+        if (userId == null) {
+            return UNKNOWN;
+        }
+        Position position = positions.get(userId);
+        if (position == null) {
+            Position[] found = {UNKNOWN};
+            try {
+                DatabaseManager.getInstance().executeQueryWithCallback(
+                    "SELECT lat, lng, observed_at, prev_lat, prev_lng, prev_observed_at FROM user_positions WHERE user_id = ?",
+                    rs -> {
+                        if (rs.next()) {
+                            double previousLat = rs.getDouble("prev_lat");
+                            boolean noPrevious = rs.wasNull();
+                            found[0] = new Position(rs.getDouble("lat"), rs.getDouble("lng"), rs.getLong("observed_at"),
+                                                    noPrevious ? Double.NaN : previousLat,
+                                                    noPrevious ? Double.NaN : rs.getDouble("prev_lng"),
+                                                    rs.getLong("prev_observed_at"));
+                        }
+                    }, userId);
+            } catch (SQLException e) {
+                System.err.println("Error loading position for " + userId + ": " + e.getMessage());
+                return UNKNOWN;
+            }
+            position = found[0];
+            positions.put(userId, position);
+        }
+        return position;
+    }
+
+    // MemoryGovernor.Evictable - drop the least recently used users first
+
+    @Override
+    public String getEvictionName() {
+        return "PositionStore";
+    }
+
+    @Override
+    public int getEvictionPriority() {
+        return MemoryGovernor.PRIORITY_LOOKUP_CACHE;
+    }
+
+    @Override
+    public synchronized int evict(double fraction) {
+        int count = (int) Math.ceil(positions.size() * fraction);
+        Iterator<String> keys = positions.keySet().iterator();
+        for (int i = 0; i < count && keys.hasNext(); i++) {
+            keys.next();
+            keys.remove();
+        }
+        return count;
+    }
+
+    // DataSyncManager.DataChangeListener - the triggers may have moved anyone who reported something
+
+    @Override
+    public void onEmergencyDataChanged() {
+        clear();
+    }
+
+    @Override
+    public void onUserDataChanged() {
+        clear();
+    }
+
+    @Override
+    public void onVolunteerDataChanged() {
+        clear();
+    }
+
+    @Override
+    public void onResourceDataChanged() {
+    }
+
+    @Override
+    public void onDashboardDataChanged() {
+    }
+
+    @Override
+    public void onCommunicationDataChanged() {
+    }
+
+    @Override
+    public void onSettingsDataChanged() {
+    }
+}
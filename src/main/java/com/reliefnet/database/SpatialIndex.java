@@ -0,0 +1,290 @@
+package com.reliefnet.database;
+
+import org.sqlite.Function;
+import org.sqlite.core.Codes;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SpatialIndex - SQLite R*Tree index over every table that stores location_lat/location_lng
+ *
+ * Each located table has a companion R*Tree (spatial_&lt;table&gt;) holding one point per row,
+ * keyed by the row id and kept in sync by triggers. Radius queries first select the rows whose
+ * point falls in the bounding box of the circle - an R*Tree range search - and then keep only
+ * those within the exact great-circle distance, computed by the distance_km() SQL function
+ * registered on the connection. Nearest-neighbour queries repeat the radius search with a
+ * doubling radius until enough rows are found, so they never scan a whole table.
+ *
+ * Rows without coordinates, or with the 0,0 placeholder some screens write, are not indexed.
+ */
+public class SpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double DEFAULT_ALERT_RADIUS_KM = 10.0;
+    private static final double NEAREST_START_KM = 1.0;
+    // Wider than Bangladesh end to end; nearest searches give up beyond this
+    private static final double NEAREST_MAX_KM = 1024.0;
+
+    /**
+     * An indexed table and the column that identifies its rows to callers
+     */
+    public enum Layer {
+        EMERGENCIES("emergency_requests", "request_id"),
+        SOS_ALERTS("sos_alerts", "sos_id"),
+        RESOURCES("resources", "resource_id"),
+        USERS("users", "user_id"),
+        POPULATION("population_data", "area_id");
+
+        private final String table;
+        private final String keyColumn;
+
+        Layer(String table, String keyColumn) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+        }
+
+        public String getTable() { return table; }
+
+        String indexTable() {
+            return "spatial_" + table;
+        }
+    }
+
+    /**
+     * One row found by a spatial query
+     */
+    public static class Hit {
+        private final String key;
+        private final double lat;
+        private final double lng;
+        private final double distanceKm;
+
+        Hit(String key, double lat, double lng, double distanceKm) {
+            this.key = key;
+            this.lat = lat;
+            this.lng = lng;
+            this.distanceKm = distanceKm;
+        }
+
+        /** Value of the layer's key column (request_id, user_id, ...) */
+        public String getKey() { return key; }
+        public double getLat() { return lat; }
+        public double getLng() { return lng; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+
+    private SpatialIndex() {
+    }
+
+    static String hasPoint(String row) {
+        return row + ".location_lat IS NOT NULL AND " + row + ".location_lng IS NOT NULL " +
+               "AND NOT (" + row + ".location_lat = 0 AND " + row + ".location_lng = 0) " +
+               "AND " + row + ".location_lat BETWEEN -90 AND 90 AND " + row + ".location_lng BETWEEN -180 AND 180";
+    }
+
+    private static String point(String row) {
+        return row + ".id, " + row + ".location_lat, " + row + ".location_lat, " + row + ".location_lng, " + row + ".location_lng";
+    }
+
+    /**
+     * Register distance_km(), create the R*Trees and triggers and index rows added before them.
+     * Called from DatabaseManager's migrations.
+     */
+    static void install(Statement stmt) {
+        try {
+            registerDistanceFunction(stmt.getConnection());
+        } catch (SQLException e) {
+            System.err.println("Warning: Could not register distance_km function: " + e.getMessage());
+            return;
+        }
+
+        for (Layer layer : Layer.values()) {
+            String table = layer.table;
+            String index = layer.indexTable();
+            try {
+                stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS " + index + " USING rtree(id, min_lat, max_lat, min_lng, max_lng)");
+
+                for (String event : new String[] {"insert", "update", "delete"}) {
+                    stmt.execute("DROP TRIGGER IF EXISTS trg_" + table + "_spatial_" + event);
+                }
+                stmt.execute("CREATE TRIGGER trg_" + table + "_spatial_insert AFTER INSERT ON " + table + " FOR EACH ROW " +
+                            "WHEN " + hasPoint("NEW") + " " +
+                            "BEGIN INSERT OR REPLACE INTO " + index + " VALUES (" + point("NEW") + "); END");
+                stmt.execute("CREATE TRIGGER trg_" + table + "_spatial_update AFTER UPDATE OF location_lat, location_lng ON " + table + " FOR EACH ROW " +
+                            "BEGIN DELETE FROM " + index + " WHERE id = OLD.id; " +
+                            "INSERT OR REPLACE INTO " + index + " SELECT " + point("NEW") + " WHERE " + hasPoint("NEW") + "; END");
+                stmt.execute("CREATE TRIGGER trg_" + table + "_spatial_delete AFTER DELETE ON " + table + " FOR EACH ROW " +
+                            "BEGIN DELETE FROM " + index + " WHERE id = OLD.id; END");
+
+                // Drop points for rows that are gone (e.g. replaced by INSERT OR REPLACE) and add missing ones
+                stmt.executeUpdate("DELETE FROM " + index + " WHERE id NOT IN (SELECT t.id FROM " + table + " t WHERE " + hasPoint("t") + ")");
+                int added = stmt.executeUpdate("INSERT INTO " + index + " SELECT " + point("t") + " FROM " + table + " t " +
+                                               "WHERE " + hasPoint("t") + " AND t.id NOT IN (SELECT id FROM " + index + ")");
+                if (added > 0) {
+                    System.out.println("Spatial index: added " + added + " rows from " + table);
+                }
+            } catch (SQLException e) {
+                System.err.println("Warning: Could not create spatial index for " + table + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void registerDistanceFunction(Connection connection) throws SQLException {
+        Function.create(connection, "distance_km", new Function() {
+            @Override
+            protected void xFunc() throws SQLException {
+                if (args() != 4 || value_type(0) == Codes.SQLITE_NULL || value_type(1) == Codes.SQLITE_NULL
+                        || value_type(2) == Codes.SQLITE_NULL || value_type(3) == Codes.SQLITE_NULL) {
+                    result();
+                    return;
+                }
+                result(distanceKm(value_double(0), value_double(1), value_double(2), value_double(3)));
+            }
+        }, 4, Function.FLAG_DETERMINISTIC);
+    }
+
+    /**
+     * Great-circle (Haversine) distance in kilometres
+     */
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                   Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * SQL condition limiting rows of a layer (under the given alias) to a radius, for use inside a
+     * larger query: an R*Tree bounding-box lookup followed by the exact distance check.
+     * Bind {@link #withinParams(double, double, double)} at the condition's position.
+     */
+    public static String withinFilter(Layer layer, String alias) {
+        return alias + ".id IN (SELECT id FROM " + layer.indexTable() + " " +
+               "WHERE max_lat >= ? AND min_lat <= ? AND max_lng >= ? AND min_lng <= ?) " +
+               "AND distance_km(" + alias + ".location_lat, " + alias + ".location_lng, ?, ?) <= ?";
+    }
+
+    public static Object[] withinParams(double lat, double lng, double km) {
+        double[] box = boundingBox(lat, lng, km);
+        return new Object[] { box[0], box[1], box[2], box[3], lat, lng, km };
+    }
+
+    /**
+     * Rows of a layer within a radius, nearest first
+     *
+     * @param filter extra condition on the layer's table aliased as t (e.g. "t.status = ?"), or null
+     * @param limit  maximum rows to return, or 0 for all
+     */
+    public static List<Hit> within(Layer layer, double lat, double lng, double km, int limit,
+                                   String filter, Object... filterParams) throws SQLException {
+        double[] box = boundingBox(lat, lng, km);
+        List<Object> params = new ArrayList<>();
+        params.add(lat);
+        params.add(lng);
+        Collections.addAll(params, box[0], box[1], box[2], box[3]);
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT t." + layer.keyColumn + " AS hit_key, t.location_lat, t.location_lng, " +
+            "distance_km(t.location_lat, t.location_lng, ?, ?) AS distance " +
+            "FROM " + layer.indexTable() + " s JOIN " + layer.table + " t ON t.id = s.id " +
+            "WHERE s.max_lat >= ? AND s.min_lat <= ? AND s.max_lng >= ? AND s.min_lng <= ?");
+        if (filter != null && !filter.isEmpty()) {
+            sql.append(" AND (").append(filter).append(")");
+            Collections.addAll(params, filterParams);
+        }
+        sql.append(" AND distance <= ? ORDER BY distance");
+        params.add(km);
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            params.add(limit);
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        DatabaseManager.getInstance().executeQueryWithCallback(sql.toString(), rs -> {
+            while (rs.next()) {
+                hits.add(new Hit(rs.getString("hit_key"), rs.getDouble("location_lat"),
+                                 rs.getDouble("location_lng"), rs.getDouble("distance")));
+            }
+        }, params.toArray());
+        return hits;
+    }
+
+    /**
+     * The k rows of a layer nearest to a point (fewer if the layer has fewer within reach)
+     */
+    public static List<Hit> nearest(Layer layer, double lat, double lng, int k,
+                                    String filter, Object... filterParams) throws SQLException {
+        List<Hit> hits = Collections.emptyList();
+        if (k <= 0) {
+            return hits;
+        }
+        // Everything within radius r is found, so once k rows are inside r they are the k nearest
+        for (double radius = NEAREST_START_KM; radius <= NEAREST_MAX_KM; radius *= 2) {
+            hits = within(layer, lat, lng, radius, k, filter, filterParams);
+            if (hits.size() >= k) {
+                break;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Volunteers available for assignment nearest to a point
+     */
+    public static List<Hit> findNearestVolunteers(double lat, double lng, int k) throws SQLException {
+        return nearest(Layer.USERS, lat, lng, k, "t.user_type = 'VOLUNTEER' AND t.status IN ('ACTIVE', 'ASSIGNED')");
+    }
+
+    /**
+     * Open emergency requests within a radius, nearest first
+     */
+    public static List<Hit> emergenciesWithin(double lat, double lng, double km) throws SQLException {
+        return within(Layer.EMERGENCIES, lat, lng, km, 0, "t.status IN ('PENDING', 'ASSIGNED', 'IN_PROGRESS')");
+    }
+
+    /**
+     * Active SOS alerts within a radius, nearest first
+     */
+    public static List<Hit> sosWithin(double lat, double lng, double km) throws SQLException {
+        return within(Layer.SOS_ALERTS, lat, lng, km, 0, "t.status IN ('PENDING', 'ACTIVE', 'ASSIGNED', 'RESPONDED')");
+    }
+
+    /**
+     * The emergency_alert_radius system setting, in kilometres
+     */
+    public static double getAlertRadiusKm() {
+        double[] radius = { DEFAULT_ALERT_RADIUS_KM };
+        try {
+            DatabaseManager.getInstance().executeQueryWithCallback(
+                "SELECT setting_value FROM settings WHERE setting_key = 'emergency_alert_radius' AND user_id IS NULL",
+                rs -> {
+                    if (rs.next()) {
+                        radius[0] = Double.parseDouble(rs.getString("setting_value").trim());
+                    }
+                });
+        } catch (SQLException | NumberFormatException e) {
+            System.err.println("Error reading emergency_alert_radius, using " + DEFAULT_ALERT_RADIUS_KM + " km: " + e.getMessage());
+        }
+        return radius[0];
+    }
+
+    /**
+     * [minLat, maxLat, minLng, maxLng] enclosing the circle, on the same sphere distanceKm measures
+     * on. The widest longitude span is north or south of the centre, hence asin rather than a
+     * plain division by cos(lat).
+     */
+    private static double[] boundingBox(double lat, double lng, double km) {
+        double angle = km / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angle);
+        double ratio = Math.sin(angle) / Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        double dLng = ratio >= 1 ? 180.0 : Math.toDegrees(Math.asin(ratio));
+        return new double[] { lat - dLat, lat + dLat, lng - dLng, lng + dLng };
+    }
+}
@@ -1,11 +1,17 @@
 package com.reliefnet.model;
 
 import javafx.beans.property.*;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
- * Resource model class for managing relief resources with JavaFX Properties
+ * Resource model class for managing relief resources
+ *
+ * Values are held in plain fields; the JavaFX property for a column is created the first time a
+ * table cell binds to it and kept in sync by the setters from then on, so resources that are
+ * loaded but never displayed carry no property objects.
  */
 public class Resource {
     
@@ -50,13 +56,20 @@ public class Resource {
         public String getColor() { return color; }
     }
     
-    // JavaFX Properties for TableView binding
-    private final StringProperty name = new SimpleStringProperty();
-    private final StringProperty category = new SimpleStringProperty();
-    private final IntegerProperty quantity = new SimpleIntegerProperty();
-    private final StringProperty unit = new SimpleStringProperty();
-    private final StringProperty status = new SimpleStringProperty();
-    private final StringProperty location = new SimpleStringProperty();
+    // Plain values; the JavaFX properties below are only created when a table cell binds to them
+    private String name = "";
+    private String category = "";
+    private int quantity;
+    private String unit = "";
+    private String status = "";
+    private String location = "";
+    
+    private StringProperty nameProperty;
+    private StringProperty categoryProperty;
+    private IntegerProperty quantityProperty;
+    private StringProperty unitProperty;
+    private StringProperty statusProperty;
+    private StringProperty locationProperty;
     
     // Additional fields
     private String resourceId;
@@ -69,11 +82,12 @@ public class Resource {
     private String notes;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Set by quantity/status changes instead of allocating a LocalDateTime on every setter call
+    private long touchedAtMillis;
     
     // Constructors
     public Resource() {
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        // Timestamps stay unset until loaded or saved; rows read from the database overwrite them anyway
     }
     
     public Resource(String name, String category, int quantity, String unit, String status, String location) {
@@ -98,23 +112,47 @@ public class Resource {
         this.statusEnum = ResourceStatus.AVAILABLE;
     }
     
-    // JavaFX Property getters
-    public StringProperty nameProperty() { return name; }
-    public StringProperty categoryProperty() { return category; }
-    public IntegerProperty quantityProperty() { return quantity; }
-    public StringProperty unitProperty() { return unit; }
-    public StringProperty statusProperty() { return status; }
-    public StringProperty locationProperty() { return location; }
+    // JavaFX Property getters (created on first use, seeded with the current value)
+    public StringProperty nameProperty() {
+        if (nameProperty == null) nameProperty = new SimpleStringProperty(this, "name", name);
+        return nameProperty;
+    }
+    public StringProperty categoryProperty() {
+        if (categoryProperty == null) categoryProperty = new SimpleStringProperty(this, "category", category);
+        return categoryProperty;
+    }
+    public IntegerProperty quantityProperty() {
+        if (quantityProperty == null) quantityProperty = new SimpleIntegerProperty(this, "quantity", quantity);
+        return quantityProperty;
+    }
+    public StringProperty unitProperty() {
+        if (unitProperty == null) unitProperty = new SimpleStringProperty(this, "unit", unit);
+        return unitProperty;
+    }
+    public StringProperty statusProperty() {
+        if (statusProperty == null) statusProperty = new SimpleStringProperty(this, "status", status);
+        return statusProperty;
+    }
+    public StringProperty locationProperty() {
+        if (locationProperty == null) locationProperty = new SimpleStringProperty(this, "location", location);
+        return locationProperty;
+    }
     
     // Getters and Setters
     public String getResourceId() { return resourceId; }
     public void setResourceId(String resourceId) { this.resourceId = resourceId; }
     
-    public String getName() { return name.get(); }
-    public void setName(String name) { this.name.set(name != null ? name : ""); }
+    public String getName() { return nameProperty != null ? nameProperty.get() : name; }
+    public void setName(String name) {
+        this.name = name != null ? name : "";
+        if (nameProperty != null) nameProperty.set(this.name);
+    }
     
-    public String getCategory() { return category.get(); }
-    public void setCategory(String category) { this.category.set(category != null ? category : ""); }
+    public String getCategory() { return categoryProperty != null ? categoryProperty.get() : category; }
+    public void setCategory(String category) {
+        this.category = category != null ? category : "";
+        if (categoryProperty != null) categoryProperty.set(this.category);
+    }
     
     public ResourceCategory getCategoryEnum() { return categoryEnum; }
     public void setCategoryEnum(ResourceCategory categoryEnum) { 
@@ -122,19 +160,24 @@ public class Resource {
         setCategory(categoryEnum.getDisplayName());
     }
     
-    public int getQuantity() { return quantity.get(); }
+    public int getQuantity() { return quantityProperty != null ? quantityProperty.get() : quantity; }
     public void setQuantity(int quantity) { 
-        this.quantity.set(quantity);
-        this.updatedAt = LocalDateTime.now();
+        this.quantity = quantity;
+        if (quantityProperty != null) quantityProperty.set(quantity);
+        touch();
     }
     
-    public String getUnit() { return unit.get(); }
-    public void setUnit(String unit) { this.unit.set(unit != null ? unit : ""); }
+    public String getUnit() { return unitProperty != null ? unitProperty.get() : unit; }
+    public void setUnit(String unit) {
+        this.unit = unit != null ? unit : "";
+        if (unitProperty != null) unitProperty.set(this.unit);
+    }
     
-    public String getStatus() { return status.get(); }
+    public String getStatus() { return statusProperty != null ? statusProperty.get() : status; }
     public void setStatus(String status) { 
-        this.status.set(status != null ? status : "");
-        this.updatedAt = LocalDateTime.now();
+        this.status = status != null ? status : "";
+        if (statusProperty != null) statusProperty.set(this.status);
+        touch();
     }
     
     public ResourceStatus getStatusEnum() { return statusEnum; }
@@ -143,8 +186,11 @@ public class Resource {
         setStatus(statusEnum.getDisplayName());
     }
     
-    public String getLocation() { return location.get(); }
-    public void setLocation(String location) { this.location.set(location != null ? location : ""); }
+    public String getLocation() { return locationProperty != null ? locationProperty.get() : location; }
+    public void setLocation(String location) {
+        this.location = location != null ? location : "";
+        if (locationProperty != null) locationProperty.set(this.location);
+    }
     
     public double getLocationLat() { return locationLat; }
     public void setLocationLat(double locationLat) { this.locationLat = locationLat; }
@@ -162,7 +208,7 @@ public class Resource {
             setStatus("Allocated");
             this.statusEnum = ResourceStatus.ALLOCATED;
         }
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
     
     public String getNotes() { return notes; }
@@ -171,8 +217,21 @@ public class Resource {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
-    public LocalDateTime getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public LocalDateTime getUpdatedAt() {
+        if (touchedAtMillis != 0) {
+            updatedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(touchedAtMillis), ZoneId.systemDefault());
+            touchedAtMillis = 0;
+        }
+        return updatedAt;
+    }
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+        this.touchedAtMillis = 0;
+    }
+    
+    private void touch() {
+        touchedAtMillis = System.currentTimeMillis();
+    }
     
     // Utility methods
     public boolean isAvailable() {
@@ -1,11 +1,16 @@
 package com.reliefnet.model;
 
 import javafx.beans.property.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 
 /**
- * User model class representing different types of users in the system with JavaFX Properties
+ * User model class representing different types of users in the system
+ *
+ * Like Resource, display values live in plain fields and the JavaFX properties are created only
+ * when a table cell binds to them.
  */
 public class User {
     
@@ -45,14 +50,22 @@ public class User {
         }
     }
     
-    // JavaFX Properties for TableView binding
-    private final StringProperty name = new SimpleStringProperty();
-    private final StringProperty email = new SimpleStringProperty();
-    private final StringProperty phone = new SimpleStringProperty();
-    private final StringProperty skills = new SimpleStringProperty();
-    private final StringProperty status = new SimpleStringProperty();
-    private final StringProperty location = new SimpleStringProperty();
-    private final StringProperty experience = new SimpleStringProperty();
+    // Plain values; the JavaFX properties below are only created when a table cell binds to them
+    private String name = "";
+    private String email = "";
+    private String phone = "";
+    private String skills = "";
+    private String status = "";
+    private String location = "";
+    private String experience = "";
+    
+    private StringProperty nameProperty;
+    private StringProperty emailProperty;
+    private StringProperty phoneProperty;
+    private StringProperty skillsProperty;
+    private StringProperty statusProperty;
+    private StringProperty locationProperty;
+    private StringProperty experienceProperty;
     
     // Additional fields
     private String userId;
@@ -72,11 +85,12 @@ public class User {
     private LocalDateTime createdAt;
     private LocalDateTime lastActive;
     private String notes;
+    // Set by status changes instead of allocating a LocalDateTime on every setter call
+    private long activeAtMillis;
     
     // Constructors
     public User() {
-        this.createdAt = LocalDateTime.now();
-        this.lastActive = LocalDateTime.now();
+        // Timestamps stay unset until loaded; rows read from the database overwrite them anyway
     }
     
     public User(String name, String email, String phone, String skills, String status, String location, String experience) {
@@ -100,42 +114,82 @@ public class User {
         this.statusEnum = Status.ACTIVE;
     }
     
-    // JavaFX Property getters
-    public StringProperty nameProperty() { return name; }
-    public StringProperty emailProperty() { return email; }
-    public StringProperty phoneProperty() { return phone; }
-    public StringProperty skillsProperty() { return skills; }
-    public StringProperty statusProperty() { return status; }
-    public StringProperty locationProperty() { return location; }
-    public StringProperty experienceProperty() { return experience; }
+    // JavaFX Property getters (created on first use, seeded with the current value)
+    public StringProperty nameProperty() {
+        if (nameProperty == null) nameProperty = new SimpleStringProperty(this, "name", name);
+        return nameProperty;
+    }
+    public StringProperty emailProperty() {
+        if (emailProperty == null) emailProperty = new SimpleStringProperty(this, "email", email);
+        return emailProperty;
+    }
+    public StringProperty phoneProperty() {
+        if (phoneProperty == null) phoneProperty = new SimpleStringProperty(this, "phone", phone);
+        return phoneProperty;
+    }
+    public StringProperty skillsProperty() {
+        if (skillsProperty == null) skillsProperty = new SimpleStringProperty(this, "skills", skills);
+        return skillsProperty;
+    }
+    public StringProperty statusProperty() {
+        if (statusProperty == null) statusProperty = new SimpleStringProperty(this, "status", status);
+        return statusProperty;
+    }
+    public StringProperty locationProperty() {
+        if (locationProperty == null) locationProperty = new SimpleStringProperty(this, "location", location);
+        return locationProperty;
+    }
+    public StringProperty experienceProperty() {
+        if (experienceProperty == null) experienceProperty = new SimpleStringProperty(this, "experience", experience);
+        return experienceProperty;
+    }
     
     // Getters and Setters
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
     
-    public String getName() { return name.get(); }
-    public void setName(String name) { this.name.set(name != null ? name : ""); }
+    public String getName() { return nameProperty != null ? nameProperty.get() : name; }
+    public void setName(String name) {
+        this.name = name != null ? name : "";
+        if (nameProperty != null) nameProperty.set(this.name);
+    }
     
-    public String getEmail() { return email.get(); }
-    public void setEmail(String email) { this.email.set(email != null ? email : ""); }
+    public String getEmail() { return emailProperty != null ? emailProperty.get() : email; }
+    public void setEmail(String email) {
+        this.email = email != null ? email : "";
+        if (emailProperty != null) emailProperty.set(this.email);
+    }
     
-    public String getPhone() { return phone.get(); }
-    public void setPhone(String phone) { this.phone.set(phone != null ? phone : ""); }
+    public String getPhone() { return phoneProperty != null ? phoneProperty.get() : phone; }
+    public void setPhone(String phone) {
+        this.phone = phone != null ? phone : "";
+        if (phoneProperty != null) phoneProperty.set(this.phone);
+    }
     
-    public String getSkills() { return skills.get(); }
-    public void setSkills(String skills) { this.skills.set(skills != null ? skills : ""); }
+    public String getSkills() { return skillsProperty != null ? skillsProperty.get() : skills; }
+    public void setSkills(String skills) {
+        this.skills = skills != null ? skills : "";
+        if (skillsProperty != null) skillsProperty.set(this.skills);
+    }
     
-    public String getStatus() { return status.get(); }
+    public String getStatus() { return statusProperty != null ? statusProperty.get() : status; }
     public void setStatus(String status) { 
-        this.status.set(status != null ? status : "");
-        this.lastActive = LocalDateTime.now();
+        this.status = status != null ? status : "";
+        if (statusProperty != null) statusProperty.set(this.status);
+        activeAtMillis = System.currentTimeMillis();
     }
     
-    public String getLocation() { return location.get(); }
-    public void setLocation(String location) { this.location.set(location != null ? location : ""); }
+    public String getLocation() { return locationProperty != null ? locationProperty.get() : location; }
+    public void setLocation(String location) {
+        this.location = location != null ? location : "";
+        if (locationProperty != null) locationProperty.set(this.location);
+    }
     
-    public String getExperience() { return experience.get(); }
-    public void setExperience(String experience) { this.experience.set(experience != null ? experience : ""); }
+    public String getExperience() { return experienceProperty != null ? experienceProperty.get() : experience; }
+    public void setExperience(String experience) {
+        this.experience = experience != null ? experience : "";
+        if (experienceProperty != null) experienceProperty.set(this.experience);
+    }
     
     public UserType getUserType() { return userType; }
     public void setUserType(UserType userType) { this.userType = userType; }
@@ -172,8 +226,17 @@ public class User {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
-    public LocalDateTime getLastActive() { return lastActive; }
-    public void setLastActive(LocalDateTime lastActive) { this.lastActive = lastActive; }
+    public LocalDateTime getLastActive() {
+        if (activeAtMillis != 0) {
+            lastActive = LocalDateTime.ofInstant(Instant.ofEpochMilli(activeAtMillis), ZoneId.systemDefault());
+            activeAtMillis = 0;
+        }
+        return lastActive;
+    }
+    public void setLastActive(LocalDateTime lastActive) {
+        this.lastActive = lastActive;
+        this.activeAtMillis = 0;
+    }
     
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
@@ -200,8 +263,9 @@ public class User {
     }
     
     public boolean isOnline() {
-        return lastActive != null && 
-               lastActive.isAfter(LocalDateTime.now().minusMinutes(5));
+        LocalDateTime active = getLastActive();
+        return active != null && 
+               active.isAfter(LocalDateTime.now().minusMinutes(5));
     }
     
     public double getDistanceFrom(double lat, double lng) {
@@ -0,0 +1,172 @@
+package com.reliefnet.network;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CloudSyncHarness - Drives CloudSyncManager uploads against a LocalFirebaseServer
+ * Latency, random errors and a hard outage are injected on the server side, so changes to
+ * the cloud upload path can be benchmarked for throughput and failure recovery offline.
+ *
+ * Reports upload throughput, per-request latency, first-attempt failures, retry rounds and
+ * the time needed to get every record onto the server after the outage.
+ *
+ * Usage: java ... CloudSyncHarness [messages] [concurrency] [latencyMs] [errorRate] [outageRequests]
+ */
+public class CloudSyncHarness {
+
+    private static final int MAX_RETRY_ROUNDS = 20;
+    private static final long RETRY_BACKOFF_MS = 100;
+
+    private final LocalFirebaseServer server = new LocalFirebaseServer(0);
+    private final CloudSyncManager cloudSync = CloudSyncManager.getInstance();
+    private final int concurrency;
+    private ExecutorService uploaders;
+
+    // Results of the last run
+    private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private int messageCount = 0;
+    private int firstPassFailures = 0;
+    private int retryRounds = 0;
+    private int unrecovered = 0;
+    private long firstPassMs = 0;
+    private long recoveryMs = 0;
+
+    public CloudSyncHarness(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    public LocalFirebaseServer getServer() {
+        return server;
+    }
+
+    public void start() throws Exception {
+        server.start();
+        NetworkConfig.setApiBaseUrl(server.getBaseUrl());
+        uploaders = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "cloud-sync-harness");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void stop() {
+        if (uploaders != null) {
+            uploaders.shutdownNow();
+            uploaders = null;
+        }
+        NetworkConfig.setApiBaseUrl(null);
+        server.stop();
+    }
+
+    /**
+     * Upload messages once, then retry the failures in rounds until the server has all of them
+     */
+    public void run(int messages) throws InterruptedException {
+        messageCount = messages;
+        List<String> pending = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            pending.add(String.format("harness-msg-%06d", i));
+        }
+
+        long started = System.currentTimeMillis();
+        pending = uploadAll(pending);
+        firstPassMs = System.currentTimeMillis() - started;
+        firstPassFailures = pending.size();
+
+        long recoveryStarted = System.currentTimeMillis();
+        retryRounds = 0;
+        while (!pending.isEmpty() && retryRounds < MAX_RETRY_ROUNDS) {
+            Thread.sleep(RETRY_BACKOFF_MS);
+            retryRounds++;
+            pending = uploadAll(pending);
+        }
+        recoveryMs = firstPassFailures > 0 ? System.currentTimeMillis() - recoveryStarted : 0;
+        unrecovered = pending.size();
+    }
+
+    private List<String> uploadAll(List<String> messageIds) throws InterruptedException {
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(messageIds.size());
+        for (String messageId : messageIds) {
+            uploaders.submit(() -> {
+                try {
+                    long sent = System.nanoTime();
+                    boolean ok = cloudSync.sendMessage(messageId, "harness", "payload " + messageId, "harness-channel");
+                    latencies.add((System.nanoTime() - sent) / 1_000_000);
+                    attempts.incrementAndGet();
+                    if (!ok) {
+                        failedAttempts.incrementAndGet();
+                        failed.add(messageId);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return new ArrayList<>(failed);
+    }
+
+    /**
+     * Summary of the last run
+     */
+    public String report() {
+        JsonNode stored = server.getData("messages");
+        int storedCount = stored.isObject() ? stored.size() : 0;
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("=== Cloud Sync Harness Report ===\n");
+        report.append(String.format("Messages: %d, concurrency: %d, stored on server: %d%n",
+            messageCount, concurrency, storedCount));
+        report.append(String.format("First pass: %d ms, %.1f uploads/s, failures: %d%n", firstPassMs,
+            firstPassMs > 0 ? 1000.0 * (messageCount - firstPassFailures) / firstPassMs : 0.0, firstPassFailures));
+        report.append(String.format("Recovery: %d retry rounds, %d ms, unrecovered: %d%n",
+            retryRounds, recoveryMs, unrecovered));
+        report.append(String.format("Attempts: %d, failed: %d, injected server errors: %d%n",
+            attempts.get(), failedAttempts.get(), server.getInjectedErrorCount()));
+        report.append(String.format("Request latency p50/p95/max: %s%n", percentiles(sorted)));
+        report.append(String.format("Server requests by method: %s%n", server.getRequestCounts()));
+        return report.toString();
+    }
+
+    private static String percentiles(List<Long> values) {
+        if (values.isEmpty()) {
+            return "n/a";
+        }
+        Collections.sort(values);
+        long p50 = values.get(values.size() / 2);
+        long p95 = values.get(Math.min(values.size() - 1, (int) Math.ceil(values.size() * 0.95) - 1));
+        return p50 + "/" + p95 + "/" + values.get(values.size() - 1) + " ms";
+    }
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        long latencyMs = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        double errorRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.05;
+        int outageRequests = args.length > 4 ? Integer.parseInt(args[4]) : 50;
+
+        CloudSyncHarness harness = new CloudSyncHarness(concurrency);
+        harness.start();
+        harness.getServer().setLatency(latencyMs, latencyMs / 2);
+        harness.getServer().setErrorRate(errorRate);
+        // A burst of hard failures at the start, on top of the random ones
+        harness.getServer().failNextRequests(outageRequests);
+
+        harness.run(messages);
+
+        System.out.println(harness.report());
+        harness.stop();
+        System.exit(0);
+    }
+}
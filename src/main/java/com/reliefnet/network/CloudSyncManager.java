@@ -6,6 +6,12 @@ import com.reliefnet.database.DatabaseManager;
 import com.reliefnet.util.DataSyncManager;
 import okhttp3.*;
 import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -48,7 +54,7 @@ public class CloudSyncManager {
         try {
             // Test connection to cloud service
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + "/health")
+                .url(NetworkConfig.getApiBaseUrl() + "/health")
                 .build();
                 
             Response response = httpClient.newCall(request).execute();
@@ -101,19 +107,20 @@ public class CloudSyncManager {
         
         // Upload pending messages
         String selectPendingSQL = "SELECT * FROM messages WHERE sync_status = 'PENDING' OR sync_status IS NULL";
-        try (java.sql.ResultSet rs = dbManager.executeQuery(selectPendingSQL)) {
+        // Read the rows first so no upload runs while the database lock is held
+        List<String[]> pending = new ArrayList<>();
+        dbManager.executeQueryWithCallback(selectPendingSQL, rs -> {
             while (rs.next()) {
-                String messageId = rs.getString("message_id");
-                String content = rs.getString("content");
-                String channelId = rs.getString("channel_id");
-                String senderId = rs.getString("sender_id");
-                
-                // Upload message to cloud
-                if (uploadMessage(messageId, senderId, content, channelId)) {
-                    // Mark as synced
-                    String updateSQL = "UPDATE messages SET sync_status = 'SYNCED' WHERE message_id = ?";
-                    dbManager.executeUpdate(updateSQL, messageId);
-                }
+                pending.add(new String[] {rs.getString("message_id"), rs.getString("sender_id"),
+                                          rs.getString("content"), rs.getString("channel_id")});
+            }
+        });
+        for (String[] message : pending) {
+            // Upload message to cloud
+            if (uploadMessage(message[0], message[1], message[2], message[3])) {
+                // Mark as synced
+                String updateSQL = "UPDATE messages SET sync_status = 'SYNCED' WHERE message_id = ?";
+                dbManager.executeUpdate(updateSQL, message[0]);
             }
         }
         
@@ -126,15 +133,12 @@ public class CloudSyncManager {
         
         // Upload pending emergency requests
         String selectPendingSQL = "SELECT * FROM emergency_requests WHERE sync_status = 'PENDING' OR sync_status IS NULL";
-        try (java.sql.ResultSet rs = dbManager.executeQuery(selectPendingSQL)) {
-            while (rs.next()) {
-                String requestId = rs.getString("request_id");
-                // Upload emergency request data
-                if (uploadEmergencyRequest(rs)) {
-                    // Mark as synced
-                    String updateSQL = "UPDATE emergency_requests SET sync_status = 'SYNCED' WHERE request_id = ?";
-                    dbManager.executeUpdate(updateSQL, requestId);
-                }
+        for (Map.Entry<String, Object> pending : readPayloads(selectPendingSQL, "request_id", this::emergencyRequestPayload).entrySet()) {
+            // Upload emergency request data
+            if (uploadEmergencyRequest(pending.getValue())) {
+                // Mark as synced
+                String updateSQL = "UPDATE emergency_requests SET sync_status = 'SYNCED' WHERE request_id = ?";
+                dbManager.executeUpdate(updateSQL, pending.getKey());
             }
         }
         
@@ -147,13 +151,10 @@ public class CloudSyncManager {
         DatabaseManager dbManager = DatabaseManager.getInstance();
         
         String selectPendingSQL = "SELECT * FROM users WHERE sync_status = 'PENDING' OR sync_status IS NULL";
-        try (java.sql.ResultSet rs = dbManager.executeQuery(selectPendingSQL)) {
-            while (rs.next()) {
-                String userId = rs.getString("user_id");
-                if (uploadUserData(rs)) {
-                    String updateSQL = "UPDATE users SET sync_status = 'SYNCED' WHERE user_id = ?";
-                    dbManager.executeUpdate(updateSQL, userId);
-                }
+        for (Map.Entry<String, Object> pending : readPayloads(selectPendingSQL, "user_id", this::userPayload).entrySet()) {
+            if (uploadUserData(pending.getValue())) {
+                String updateSQL = "UPDATE users SET sync_status = 'SYNCED' WHERE user_id = ?";
+                dbManager.executeUpdate(updateSQL, pending.getKey());
             }
         }
         
@@ -166,13 +167,10 @@ public class CloudSyncManager {
         DatabaseManager dbManager = DatabaseManager.getInstance();
         
         String selectPendingSQL = "SELECT * FROM resources WHERE sync_status = 'PENDING' OR sync_status IS NULL";
-        try (java.sql.ResultSet rs = dbManager.executeQuery(selectPendingSQL)) {
-            while (rs.next()) {
-                String resourceId = rs.getString("resource_id");
-                if (uploadResource(rs)) {
-                    String updateSQL = "UPDATE resources SET sync_status = 'SYNCED' WHERE resource_id = ?";
-                    dbManager.executeUpdate(updateSQL, resourceId);
-                }
+        for (Map.Entry<String, Object> pending : readPayloads(selectPendingSQL, "resource_id", this::resourcePayload).entrySet()) {
+            if (uploadResource(pending.getValue())) {
+                String updateSQL = "UPDATE resources SET sync_status = 'SYNCED' WHERE resource_id = ?";
+                dbManager.executeUpdate(updateSQL, pending.getKey());
             }
         }
         
@@ -193,7 +191,7 @@ public class CloudSyncManager {
             
             RequestBody body = RequestBody.create(json, MediaType.get("application/json"));
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + NetworkConfig.MESSAGES_ENDPOINT)
+                .url(NetworkConfig.getApiBaseUrl() + NetworkConfig.MESSAGES_ENDPOINT)
                 .post(body)
                 .build();
                 
@@ -207,24 +205,46 @@ public class CloudSyncManager {
         }
     }
     
-    private boolean uploadEmergencyRequest(java.sql.ResultSet rs) {
+    /**
+     * Upload payloads read from every row of a query, keyed by the given id column. Rows are
+     * read up front so the HTTP calls that follow never run under the database lock.
+     */
+    private Map<String, Object> readPayloads(String sql, String idColumn, PayloadReader reader, Object... params) throws SQLException {
+        Map<String, Object> payloads = new LinkedHashMap<>();
+        DatabaseManager.getInstance().executeQueryWithCallback(sql, rs -> {
+            while (rs.next()) {
+                payloads.put(rs.getString(idColumn), reader.read(rs));
+            }
+        }, params);
+        return payloads;
+    }
+    
+    private interface PayloadReader {
+        Object read(ResultSet rs) throws SQLException;
+    }
+    
+    private Object emergencyRequestPayload(ResultSet rs) throws SQLException {
+        // Create emergency request JSON from ResultSet
+        return new Object() {
+            public String request_id = rs.getString("request_id");
+            public String requester_id = rs.getString("requester_id");
+            public String emergency_type = rs.getString("emergency_type");
+            public String priority = rs.getString("priority");
+            public double location_lat = rs.getDouble("location_lat");
+            public double location_lng = rs.getDouble("location_lng");
+            public String description = rs.getString("description");
+            public String status = rs.getString("status");
+            public long timestamp = System.currentTimeMillis();
+        };
+    }
+    
+    private boolean uploadEmergencyRequest(Object payload) {
         try {
-            // Create emergency request JSON from ResultSet
-            String json = objectMapper.writeValueAsString(new Object() {
-                public String request_id = rs.getString("request_id");
-                public String requester_id = rs.getString("requester_id");
-                public String emergency_type = rs.getString("emergency_type");
-                public String priority = rs.getString("priority");
-                public double location_lat = rs.getDouble("location_lat");
-                public double location_lng = rs.getDouble("location_lng");
-                public String description = rs.getString("description");
-                public String status = rs.getString("status");
-                public long timestamp = System.currentTimeMillis();
-            });
+            String json = objectMapper.writeValueAsString(payload);
             
             RequestBody body = RequestBody.create(json, MediaType.get("application/json"));
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + NetworkConfig.EMERGENCIES_ENDPOINT)
+                .url(NetworkConfig.getApiBaseUrl() + NetworkConfig.EMERGENCIES_ENDPOINT)
                 .post(body)
                 .build();
                 
@@ -238,27 +258,30 @@ public class CloudSyncManager {
         }
     }
     
-    private boolean uploadUserData(java.sql.ResultSet rs) {
+    private Object userPayload(ResultSet rs) throws SQLException {
+        // Upload user data with complete information, handling null values
+        return new Object() {
+            public String user_id = rs.getString("user_id");
+            public String name = rs.getString("name");
+            public String email = getStringOrDefault(rs, "email", "");
+            public String user_type = getStringOrDefault(rs, "user_type", "SURVIVOR");
+            public String status = getStringOrDefault(rs, "status", "ACTIVE");
+            public double location_lat = getDoubleOrDefault(rs, "location_lat", 0.0);
+            public double location_lng = getDoubleOrDefault(rs, "location_lng", 0.0);
+            public String location_name = getStringOrDefault(rs, "location_name", "");
+            public long timestamp = System.currentTimeMillis();
+        };
+    }
+    
+    private boolean uploadUserData(Object payload) {
         try {
-            String userId = rs.getString("user_id");
-            String name = rs.getString("name");
-            
-            // Upload user data with complete information, handling null values
-            String json = objectMapper.writeValueAsString(new Object() {
-                public String user_id = rs.getString("user_id");
-                public String name = rs.getString("name");
-                public String email = getStringOrDefault(rs, "email", "");
-                public String user_type = getStringOrDefault(rs, "user_type", "SURVIVOR");
-                public String status = getStringOrDefault(rs, "status", "ACTIVE");
-                public double location_lat = getDoubleOrDefault(rs, "location_lat", 0.0);
-                public double location_lng = getDoubleOrDefault(rs, "location_lng", 0.0);
-                public String location_name = getStringOrDefault(rs, "location_name", "");
-                public long timestamp = System.currentTimeMillis();
-            });
+            JsonNode user = objectMapper.valueToTree(payload);
+            String name = user.path("name").asText();
+            String json = objectMapper.writeValueAsString(user);
             
             RequestBody body = RequestBody.create(json, MediaType.get("application/json"));
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + "/users.json")
+                .url(NetworkConfig.getApiBaseUrl() + "/users.json")
                 .post(body)  // Use POST to add to collection
                 .build();
                 
@@ -299,22 +322,26 @@ public class CloudSyncManager {
         }
     }
     
-    private boolean uploadResource(java.sql.ResultSet rs) {
+    private Object resourcePayload(ResultSet rs) throws SQLException {
+        return new Object() {
+            public String resource_id = rs.getString("resource_id");
+            public String name = rs.getString("name");
+            public String category = rs.getString("category");
+            public int quantity = rs.getInt("quantity");
+            public String status = rs.getString("status");
+            public double location_lat = rs.getDouble("location_lat");
+            public double location_lng = rs.getDouble("location_lng");
+            public long timestamp = System.currentTimeMillis();
+        };
+    }
+    
+    private boolean uploadResource(Object payload) {
         try {
-            String json = objectMapper.writeValueAsString(new Object() {
-                public String resource_id = rs.getString("resource_id");
-                public String name = rs.getString("name");
-                public String category = rs.getString("category");
-                public int quantity = rs.getInt("quantity");
-                public String status = rs.getString("status");
-                public double location_lat = rs.getDouble("location_lat");
-                public double location_lng = rs.getDouble("location_lng");
-                public long timestamp = System.currentTimeMillis();
-            });
+            String json = objectMapper.writeValueAsString(payload);
             
             RequestBody body = RequestBody.create(json, MediaType.get("application/json"));
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + NetworkConfig.RESOURCES_ENDPOINT)
+                .url(NetworkConfig.getApiBaseUrl() + NetworkConfig.RESOURCES_ENDPOINT)
                 .post(body)
                 .build();
                 
@@ -331,7 +358,7 @@ public class CloudSyncManager {
     private void downloadNewMessages() {
         try {
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + NetworkConfig.MESSAGES_ENDPOINT)
+                .url(NetworkConfig.getApiBaseUrl() + NetworkConfig.MESSAGES_ENDPOINT)
                 .build();
                 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -390,7 +417,7 @@ public class CloudSyncManager {
     private void downloadNewEmergencyRequests() {
         try {
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + NetworkConfig.EMERGENCIES_ENDPOINT)
+                .url(NetworkConfig.getApiBaseUrl() + NetworkConfig.EMERGENCIES_ENDPOINT)
                 .build();
                 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -408,6 +435,7 @@ public class CloudSyncManager {
                     // Firebase returns an object with keys as IDs, not an array
                     if (emergencies.isObject()) {
                         DatabaseManager dbManager = DatabaseManager.getInstance();
+                        int[] inserted = {0};
                         
                         emergencies.fields().forEachRemaining(entry -> {
                             try {
@@ -416,7 +444,7 @@ public class CloudSyncManager {
                                 
                                 // Check if already exists
                                 String checkSQL = "SELECT COUNT(*) FROM emergency_requests WHERE request_id = ?";
-                                try (java.sql.ResultSet rs = dbManager.executeQuery(checkSQL, requestId)) {
+                                dbManager.executeQueryWithCallback(checkSQL, rs -> {
                                     if (rs.next() && rs.getInt(1) == 0) {
                                         // Insert new emergency request
                                         String insertSQL = "INSERT INTO emergency_requests " +
@@ -424,7 +452,7 @@ public class CloudSyncManager {
                                             "location_lat, location_lng, created_at, sync_status) " +
                                             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, datetime('now'), 'SYNCED')";
                                         
-                                        dbManager.executeUpdate(insertSQL,
+                                        inserted[0] += dbManager.executeUpdate(insertSQL,
                                             requestId,
                                             emergency.get("requester_id").asText(),
                                             emergency.get("emergency_type").asText(),
@@ -435,11 +463,16 @@ public class CloudSyncManager {
                                             emergency.get("location_lng").asDouble()
                                         );
                                     }
-                                }
+                                }, requestId);
                             } catch (Exception e) {
                                 System.err.println("Error processing emergency request: " + e.getMessage());
                             }
                         });
+                        
+                        if (inserted[0] > 0) {
+                            System.out.println("Downloaded " + inserted[0] + " new emergency requests");
+                            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+                        }
                     }
                 } else {
                     System.out.println("? No new emergencies to download (response: " + response.code() + ")");
@@ -478,14 +511,11 @@ public class CloudSyncManager {
             try {
                 DatabaseManager dbManager = DatabaseManager.getInstance();
                 String sql = "SELECT * FROM emergency_requests WHERE request_id = ?";
-                try (java.sql.ResultSet rs = dbManager.executeQuery(sql, emergencyId)) {
-                    if (rs.next()) {
-                        if (uploadEmergencyRequest(rs)) {
-                            String updateSQL = "UPDATE emergency_requests SET sync_status = 'SYNCED' WHERE request_id = ?";
-                            dbManager.executeUpdate(updateSQL, emergencyId);
-                            System.out.println("? Emergency synced immediately: " + emergencyId);
-                        }
-                    }
+                Object payload = readPayloads(sql, "request_id", this::emergencyRequestPayload, emergencyId).get(emergencyId);
+                if (payload != null && uploadEmergencyRequest(payload)) {
+                    String updateSQL = "UPDATE emergency_requests SET sync_status = 'SYNCED' WHERE request_id = ?";
+                    dbManager.executeUpdate(updateSQL, emergencyId);
+                    System.out.println("? Emergency synced immediately: " + emergencyId);
                 }
             } catch (Exception e) {
                 System.err.println("Error in immediate emergency sync: " + e.getMessage());
@@ -498,14 +528,11 @@ public class CloudSyncManager {
             try {
                 DatabaseManager dbManager = DatabaseManager.getInstance();
                 String sql = "SELECT * FROM resources WHERE resource_id = ?";
-                try (java.sql.ResultSet rs = dbManager.executeQuery(sql, resourceId)) {
-                    if (rs.next()) {
-                        if (uploadResource(rs)) {
-                            String updateSQL = "UPDATE resources SET sync_status = 'SYNCED' WHERE resource_id = ?";
-                            dbManager.executeUpdate(updateSQL, resourceId);
-                            System.out.println("? Resource synced immediately: " + resourceId);
-                        }
-                    }
+                Object payload = readPayloads(sql, "resource_id", this::resourcePayload, resourceId).get(resourceId);
+                if (payload != null && uploadResource(payload)) {
+                    String updateSQL = "UPDATE resources SET sync_status = 'SYNCED' WHERE resource_id = ?";
+                    dbManager.executeUpdate(updateSQL, resourceId);
+                    System.out.println("? Resource synced immediately: " + resourceId);
                 }
             } catch (Exception e) {
                 System.err.println("Error in immediate resource sync: " + e.getMessage());
@@ -518,14 +545,11 @@ public class CloudSyncManager {
             try {
                 DatabaseManager dbManager = DatabaseManager.getInstance();
                 String sql = "SELECT * FROM users WHERE user_id = ?";
-                try (java.sql.ResultSet rs = dbManager.executeQuery(sql, userId)) {
-                    if (rs.next()) {
-                        if (uploadUserData(rs)) {
-                            String updateSQL = "UPDATE users SET sync_status = 'SYNCED' WHERE user_id = ?";
-                            dbManager.executeUpdate(updateSQL, userId);
-                            System.out.println("? User synced immediately: " + userId);
-                        }
-                    }
+                Object payload = readPayloads(sql, "user_id", this::userPayload, userId).get(userId);
+                if (payload != null && uploadUserData(payload)) {
+                    String updateSQL = "UPDATE users SET sync_status = 'SYNCED' WHERE user_id = ?";
+                    dbManager.executeUpdate(updateSQL, userId);
+                    System.out.println("? User synced immediately: " + userId);
                 }
             } catch (Exception e) {
                 System.err.println("Error in immediate user sync: " + e.getMessage());
@@ -538,18 +562,18 @@ public class CloudSyncManager {
             try {
                 DatabaseManager dbManager = DatabaseManager.getInstance();
                 String sql = "SELECT * FROM messages WHERE message_id = ?";
-                try (java.sql.ResultSet rs = dbManager.executeQuery(sql, messageId)) {
+                String[][] found = {null};
+                dbManager.executeQueryWithCallback(sql, rs -> {
                     if (rs.next()) {
-                        String senderId = rs.getString("sender_id");
-                        String content = rs.getString("content");
-                        String channelId = rs.getString("channel_id");
-                        
-                        if (uploadMessage(messageId, senderId, content, channelId)) {
-                            String updateSQL = "UPDATE messages SET sync_status = 'SYNCED' WHERE message_id = ?";
-                            dbManager.executeUpdate(updateSQL, messageId);
-                            System.out.println("? Message synced immediately: " + messageId);
-                        }
+                        found[0] = new String[] {rs.getString("sender_id"), rs.getString("content"), rs.getString("channel_id")};
                     }
+                }, messageId);
+                String[] message = found[0];
+                
+                if (message != null && uploadMessage(messageId, message[0], message[1], message[2])) {
+                    String updateSQL = "UPDATE messages SET sync_status = 'SYNCED' WHERE message_id = ?";
+                    dbManager.executeUpdate(updateSQL, messageId);
+                    System.out.println("? Message synced immediately: " + messageId);
                 }
             } catch (Exception e) {
                 System.err.println("Error in immediate message sync: " + e.getMessage());
@@ -564,7 +588,7 @@ public class CloudSyncManager {
         try {
             // Download all users from Firebase
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + NetworkConfig.USERS_ENDPOINT)
+                .url(NetworkConfig.getApiBaseUrl() + NetworkConfig.USERS_ENDPOINT)
                 .get()
                 .build();
                 
@@ -596,7 +620,7 @@ public class CloudSyncManager {
                                 
                                 // Check if user already exists locally
                                 String checkSQL = "SELECT COUNT(*) FROM users WHERE user_id = ?";
-                                try (java.sql.ResultSet rs = dbManager.executeQuery(checkSQL, userId)) {
+                                dbManager.executeQueryWithCallback(checkSQL, rs -> {
                                     if (rs.next() && rs.getInt(1) == 0) {
                                         // User doesn't exist locally, add them
                                         String insertSQL = "INSERT INTO users (user_id, email, password, name, user_type, status, sync_status) VALUES (?, ?, ?, ?, ?, ?, 'SYNCED')";
@@ -614,7 +638,7 @@ public class CloudSyncManager {
                                             System.out.println("Updated user without password: " + fullName);
                                         }
                                     }
-                                }
+                                }, userId);
                             } catch (Exception e) {
                                 System.err.println("Error processing user: " + e.getMessage());
                                 // Continue processing other users instead of stopping
@@ -656,7 +680,7 @@ public class CloudSyncManager {
             // Upload to Firebase as part of users collection
             RequestBody body = RequestBody.create(json, MediaType.get("application/json"));
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + "/users.json")
+                .url(NetworkConfig.getApiBaseUrl() + "/users.json")
                 .post(body)
                 .build();
                 
@@ -700,7 +724,7 @@ public class CloudSyncManager {
             
             RequestBody body = RequestBody.create(json, MediaType.get("application/json"));
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + "/messages/" + messageId + ".json")
+                .url(NetworkConfig.getApiBaseUrl() + "/messages/" + messageId + ".json")
                 .put(body)
                 .build();
                 
@@ -748,7 +772,7 @@ public class CloudSyncManager {
             
             RequestBody body = RequestBody.create(json, MediaType.get("application/json"));
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + "/emergencies/" + requestId + ".json")
+                .url(NetworkConfig.getApiBaseUrl() + "/emergencies/" + requestId + ".json")
                 .put(body)
                 .build();
                 
@@ -795,7 +819,7 @@ public class CloudSyncManager {
             
             RequestBody body = RequestBody.create(json, MediaType.get("application/json"));
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + "/resources/" + resourceId + ".json")
+                .url(NetworkConfig.getApiBaseUrl() + "/resources/" + resourceId + ".json")
                 .put(body)
                 .build();
                 
@@ -812,7 +836,7 @@ public class CloudSyncManager {
     private void downloadNewUsers() {
         try {
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + NetworkConfig.USERS_ENDPOINT)
+                .url(NetworkConfig.getApiBaseUrl() + NetworkConfig.USERS_ENDPOINT)
                 .build();
                 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -838,7 +862,7 @@ public class CloudSyncManager {
                                 
                                 // Check if user already exists
                                 String checkSQL = "SELECT COUNT(*) FROM users WHERE user_id = ?";
-                                try (java.sql.ResultSet rs = dbManager.executeQuery(checkSQL, userId)) {
+                                dbManager.executeQueryWithCallback(checkSQL, rs -> {
                                     if (rs.next() && rs.getInt(1) == 0) {
                                         // Insert new user
                                         String insertSQL = "INSERT INTO users " +
@@ -859,7 +883,7 @@ public class CloudSyncManager {
                                         );
                                         System.out.println("? Downloaded new user: " + user.get("name").asText());
                                     }
-                                }
+                                }, userId);
                             } catch (Exception e) {
                                 System.err.println("Error processing user: " + e.getMessage());
                             }
@@ -880,7 +904,7 @@ public class CloudSyncManager {
     private void downloadNewResources() {
         try {
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + NetworkConfig.RESOURCES_ENDPOINT)
+                .url(NetworkConfig.getApiBaseUrl() + NetworkConfig.RESOURCES_ENDPOINT)
                 .build();
                 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -906,7 +930,7 @@ public class CloudSyncManager {
                                 
                                 // Check if resource already exists
                                 String checkSQL = "SELECT COUNT(*) FROM resources WHERE resource_id = ?";
-                                try (java.sql.ResultSet rs = dbManager.executeQuery(checkSQL, resourceId)) {
+                                dbManager.executeQueryWithCallback(checkSQL, rs -> {
                                     if (rs.next() && rs.getInt(1) == 0) {
                                         // Insert new resource
                                         String insertSQL = "INSERT INTO resources " +
@@ -926,7 +950,7 @@ public class CloudSyncManager {
                                         );
                                         System.out.println("? Downloaded new resource: " + resource.get("name").asText());
                                     }
-                                }
+                                }, resourceId);
                             } catch (Exception e) {
                                 System.err.println("Error processing resource: " + e.getMessage());
                             }
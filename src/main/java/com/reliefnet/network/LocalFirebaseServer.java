@@ -0,0 +1,593 @@
+package com.reliefnet.network;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LocalFirebaseServer - In-process stand-in for the Firebase Realtime Database REST API
+ * Lets CloudSyncManager, SyncStatusMonitor and the migration tools run offline for
+ * integration tests and sync throughput benchmarks.
+ *
+ * Supported: GET/PUT/POST/PATCH/DELETE on ".json" paths, orderBy/startAt/endAt/limitToFirst/
+ * limitToLast queries, and event streaming (Accept: text/event-stream). Latency and
+ * failures can be injected to exercise retry and recovery paths.
+ *
+ * Usage:
+ *   LocalFirebaseServer rtdb = new LocalFirebaseServer(0);
+ *   rtdb.start();
+ *   NetworkConfig.setApiBaseUrl(rtdb.getBaseUrl());
+ */
+public class LocalFirebaseServer {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int requestedPort;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    // The whole database is one JSON tree, guarded by its own monitor
+    private final ObjectNode root;
+
+    // Open event streams
+    private final List<EventStream> streams = new CopyOnWriteArrayList<>();
+
+    // Fault injection
+    private volatile long latencyMs = 0;
+    private volatile long latencyJitterMs = 0;
+    private volatile double errorRate = 0.0;
+    private final AtomicInteger failNextRequests = new AtomicInteger(0);
+
+    // Statistics for benchmark reports
+    private final Map<String, AtomicLong> requestCounts = new TreeMap<>();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    public LocalFirebaseServer(int port) {
+        this.requestedPort = port;
+        this.root = objectMapper.createObjectNode();
+    }
+
+    public void start() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", requestedPort), 0);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "local-rtdb");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+        System.out.println("Local RTDB stand-in listening on " + getBaseUrl());
+    }
+
+    public void stop() {
+        for (EventStream stream : streams) {
+            stream.close();
+        }
+        streams.clear();
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public int getPort() {
+        return httpServer != null ? httpServer.getAddress().getPort() : requestedPort;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    // Fault injection
+
+    /**
+     * Delay every response by base latency plus a uniform random jitter
+     */
+    public void setLatency(long latencyMs, long jitterMs) {
+        this.latencyMs = Math.max(0, latencyMs);
+        this.latencyJitterMs = Math.max(0, jitterMs);
+    }
+
+    /**
+     * Fraction of requests (0.0 - 1.0) answered with 503 Service Unavailable
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = Math.max(0.0, Math.min(1.0, errorRate));
+    }
+
+    /**
+     * Fail the next n requests deterministically, for repeatable recovery tests
+     */
+    public void failNextRequests(int count) {
+        failNextRequests.set(count);
+    }
+
+    // Data access for test setup and assertions
+
+    public JsonNode getData(String path) {
+        synchronized (root) {
+            JsonNode node = resolve(splitPath(path));
+            return node != null ? node.deepCopy() : NullNode.getInstance();
+        }
+    }
+
+    public void setData(String path, JsonNode value) {
+        write("PUT", splitPath(path), value);
+    }
+
+    public void clear() {
+        synchronized (root) {
+            root.removeAll();
+        }
+    }
+
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        synchronized (requestCounts) {
+            requestCounts.forEach((method, count) -> snapshot.put(method, count.get()));
+        }
+        return snapshot;
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    // HTTP handling
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod().toUpperCase();
+        synchronized (requestCounts) {
+            requestCounts.computeIfAbsent(method, m -> new AtomicLong()).incrementAndGet();
+        }
+
+        try {
+            injectLatency();
+            if (shouldFail()) {
+                injectedErrors.incrementAndGet();
+                sendJson(exchange, 503, "{\"error\":\"Injected failure\"}");
+                return;
+            }
+
+            String rawPath = exchange.getRequestURI().getPath();
+            if (!rawPath.endsWith(".json")) {
+                // Plain health probe (CloudSyncManager.connect hits /health)
+                sendJson(exchange, 200, "{\"status\":\"ok\"}");
+                return;
+            }
+
+            List<String> path = splitPath(rawPath.substring(0, rawPath.length() - ".json".length()));
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            switch (method) {
+                case "GET":
+                    String accept = exchange.getRequestHeaders().getFirst("Accept");
+                    if (accept != null && accept.contains("text/event-stream")) {
+                        openEventStream(exchange, path);
+                    } else {
+                        sendJson(exchange, 200, objectMapper.writeValueAsString(read(path, query)));
+                    }
+                    break;
+                case "PUT":
+                case "PATCH": {
+                    JsonNode body = readBody(exchange);
+                    write(method, path, body);
+                    sendJson(exchange, 200, objectMapper.writeValueAsString(body));
+                    break;
+                }
+                case "POST": {
+                    JsonNode body = readBody(exchange);
+                    String pushId = nextPushId();
+                    List<String> childPath = new ArrayList<>(path);
+                    childPath.add(pushId);
+                    write("PUT", childPath, body);
+                    sendJson(exchange, 200, "{\"name\":\"" + pushId + "\"}");
+                    break;
+                }
+                case "DELETE":
+                    write("DELETE", path, NullNode.getInstance());
+                    sendJson(exchange, 200, "null");
+                    break;
+                default:
+                    sendJson(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            }
+        } catch (IllegalArgumentException e) {
+            sendJson(exchange, 400, objectMapper.writeValueAsString(Map.of("error", String.valueOf(e.getMessage()))));
+        } catch (Exception e) {
+            System.err.println("Local RTDB error: " + e.getMessage());
+            sendJson(exchange, 500, objectMapper.writeValueAsString(Map.of("error", String.valueOf(e.getMessage()))));
+        }
+    }
+
+    private void injectLatency() {
+        long delay = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean shouldFail() {
+        if (failNextRequests.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+            return true;
+        }
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readAllBytes();
+            if (bytes.length == 0) {
+                return NullNode.getInstance();
+            }
+            try {
+                return objectMapper.readTree(bytes);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid data; couldn't parse JSON object");
+            }
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Tree operations
+
+    private static List<String> splitPath(String path) {
+        List<String> segments = new ArrayList<>();
+        if (path == null) {
+            return segments;
+        }
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private JsonNode resolve(List<String> path) {
+        JsonNode node = root;
+        for (String segment : path) {
+            node = node.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private JsonNode read(List<String> path, Map<String, String> query) throws IOException {
+        JsonNode node;
+        synchronized (root) {
+            node = resolve(path);
+            node = node != null ? node.deepCopy() : NullNode.getInstance();
+        }
+        if (!query.containsKey("orderBy") || !node.isObject()) {
+            return node;
+        }
+        return applyQuery((ObjectNode) node, query);
+    }
+
+    /**
+     * Firebase-style filtering: orderBy="$key" | "$value" | "child", with startAt/endAt/limitTo*
+     */
+    private JsonNode applyQuery(ObjectNode collection, Map<String, String> query) throws IOException {
+        String orderBy = unquote(query.get("orderBy"));
+        JsonNode startAt = query.containsKey("startAt") ? objectMapper.readTree(query.get("startAt")) : null;
+        JsonNode endAt = query.containsKey("endAt") ? objectMapper.readTree(query.get("endAt")) : null;
+
+        List<Map.Entry<String, JsonNode>> entries = new ArrayList<>();
+        collection.fields().forEachRemaining(entries::add);
+
+        Comparator<Map.Entry<String, JsonNode>> order = (a, b) -> {
+            int result = compareValues(sortKey(a, orderBy), sortKey(b, orderBy));
+            return result != 0 ? result : a.getKey().compareTo(b.getKey());
+        };
+        entries.sort(order);
+
+        List<Map.Entry<String, JsonNode>> filtered = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : entries) {
+            JsonNode key = sortKey(entry, orderBy);
+            if (startAt != null && compareValues(key, startAt) < 0) {
+                continue;
+            }
+            if (endAt != null && compareValues(key, endAt) > 0) {
+                continue;
+            }
+            filtered.add(entry);
+        }
+
+        if (query.containsKey("limitToFirst")) {
+            int limit = Integer.parseInt(query.get("limitToFirst"));
+            filtered = filtered.subList(0, Math.min(limit, filtered.size()));
+        } else if (query.containsKey("limitToLast")) {
+            int limit = Integer.parseInt(query.get("limitToLast"));
+            filtered = filtered.subList(Math.max(0, filtered.size() - limit), filtered.size());
+        }
+
+        ObjectNode result = objectMapper.createObjectNode();
+        for (Map.Entry<String, JsonNode> entry : filtered) {
+            result.set(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    private JsonNode sortKey(Map.Entry<String, JsonNode> entry, String orderBy) {
+        if ("$key".equals(orderBy)) {
+            return objectMapper.getNodeFactory().textNode(entry.getKey());
+        }
+        if ("$value".equals(orderBy)) {
+            return entry.getValue();
+        }
+        JsonNode child = entry.getValue().at("/" + orderBy.replace(".", "/"));
+        return child.isMissingNode() ? NullNode.getInstance() : child;
+    }
+
+    /**
+     * RTDB ordering: null < false < true < numbers < strings < objects
+     */
+    private static int compareValues(JsonNode a, JsonNode b) {
+        int rankA = typeRank(a);
+        int rankB = typeRank(b);
+        if (rankA != rankB) {
+            return Integer.compare(rankA, rankB);
+        }
+        switch (rankA) {
+            case 1:
+                return Boolean.compare(a.asBoolean(), b.asBoolean());
+            case 2:
+                return Double.compare(a.asDouble(), b.asDouble());
+            case 3:
+                return a.asText().compareTo(b.asText());
+            default:
+                return 0;
+        }
+    }
+
+    private static int typeRank(JsonNode node) {
+        if (node == null || node.isNull()) return 0;
+        if (node.isBoolean()) return 1;
+        if (node.isNumber()) return 2;
+        if (node.isTextual()) return 3;
+        return 4;
+    }
+
+    private static String unquote(String value) {
+        if (value != null && value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private void write(String method, List<String> path, JsonNode value) {
+        synchronized (root) {
+            if (path.isEmpty()) {
+                if ("PATCH".equals(method) && value.isObject()) {
+                    value.fields().forEachRemaining(e -> root.set(e.getKey(), e.getValue()));
+                } else {
+                    root.removeAll();
+                    if (value.isObject()) {
+                        root.setAll((ObjectNode) value);
+                    }
+                }
+            } else {
+                ObjectNode parent = root;
+                for (String segment : path.subList(0, path.size() - 1)) {
+                    JsonNode child = parent.get(segment);
+                    if (!(child instanceof ObjectNode)) {
+                        if (value.isNull() || "DELETE".equals(method)) {
+                            return;
+                        }
+                        child = parent.putObject(segment);
+                    }
+                    parent = (ObjectNode) child;
+                }
+
+                String leaf = path.get(path.size() - 1);
+                if ("DELETE".equals(method) || value.isNull()) {
+                    parent.remove(leaf);
+                } else if ("PATCH".equals(method) && value.isObject()) {
+                    JsonNode existing = parent.get(leaf);
+                    ObjectNode target = existing instanceof ObjectNode ? (ObjectNode) existing : parent.putObject(leaf);
+                    value.fields().forEachRemaining(e -> target.set(e.getKey(), e.getValue()));
+                } else {
+                    parent.set(leaf, value.deepCopy());
+                }
+            }
+
+            // Still under the lock so listeners see writes to a path in the order they were applied
+            publish("PATCH".equals(method) ? "patch" : "put", path, value);
+        }
+    }
+
+    // Push IDs: time-ordered like Firebase's, so orderBy="$key" returns insertion order
+
+    private static final String PUSH_CHARS = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+    private long lastPushTime = 0;
+    private int pushCounter = 0;
+
+    private synchronized String nextPushId() {
+        long now = System.currentTimeMillis();
+        pushCounter = now == lastPushTime ? pushCounter + 1 : 0;
+        lastPushTime = now;
+
+        char[] id = new char[20];
+        long time = now;
+        for (int i = 7; i >= 0; i--) {
+            id[i] = PUSH_CHARS.charAt((int) (time % 64));
+            time /= 64;
+        }
+        long counter = pushCounter;
+        for (int i = 19; i >= 8; i--) {
+            id[i] = PUSH_CHARS.charAt((int) (counter % 64));
+            counter /= 64;
+        }
+        return new String(id);
+    }
+
+    // Event streaming
+
+    private void openEventStream(HttpExchange exchange, List<String> path) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        EventStream stream = new EventStream(exchange, path);
+        synchronized (root) {
+            // Snapshot and registration together, so no write lands between them
+            JsonNode node = resolve(path);
+            if (!stream.send("put", "/", node != null ? node.deepCopy() : NullNode.getInstance())) {
+                return;
+            }
+            streams.add(stream);
+        }
+
+        // Hold this handler thread until the client goes away or the server stops
+        stream.awaitClose();
+        streams.remove(stream);
+    }
+
+    /**
+     * Fan a change out to matching streams; callers hold the root lock
+     */
+    private void publish(String event, List<String> changedPath, JsonNode value) {
+        for (EventStream stream : streams) {
+            List<String> listenPath = stream.path;
+            if (isPrefix(listenPath, changedPath)) {
+                // Change at or below the listened location
+                String relative = "/" + String.join("/", changedPath.subList(listenPath.size(), changedPath.size()));
+                if (!stream.send(event, relative, value)) {
+                    streams.remove(stream);
+                }
+            } else if (isPrefix(changedPath, listenPath)) {
+                // A write above the listened location replaces it
+                JsonNode node = resolve(listenPath);
+                if (!stream.send("put", "/", node != null ? node.deepCopy() : NullNode.getInstance())) {
+                    streams.remove(stream);
+                }
+            }
+        }
+    }
+
+    private static boolean isPrefix(List<String> prefix, List<String> path) {
+        return prefix.size() <= path.size() && path.subList(0, prefix.size()).equals(prefix);
+    }
+
+    private class EventStream {
+        private final HttpExchange exchange;
+        private final List<String> path;
+        private boolean closed = false;
+
+        EventStream(HttpExchange exchange, List<String> path) {
+            this.exchange = exchange;
+            this.path = path;
+        }
+
+        synchronized boolean send(String event, String relativePath, JsonNode data) {
+            if (closed) {
+                return false;
+            }
+            try {
+                String payload = "event: " + event + "\ndata: "
+                    + objectMapper.writeValueAsString(Map.of("path", relativePath, "data", data)) + "\n\n";
+                OutputStream out = exchange.getResponseBody();
+                out.write(payload.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                close();
+                return false;
+            }
+        }
+
+        synchronized void awaitClose() {
+            while (!closed) {
+                try {
+                    wait(NetworkConfig.HEARTBEAT_INTERVAL_SECONDS * 1000L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (!closed) {
+                    // Firebase sends keep-alive events; a failed write tells us the client left
+                    try {
+                        OutputStream out = exchange.getResponseBody();
+                        out.write("event: keep-alive\ndata: null\n\n".getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                    } catch (IOException e) {
+                        closed = true;
+                    }
+                }
+            }
+            exchange.close();
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    /**
+     * Run the stand-in on its own: java ... LocalFirebaseServer [port] [latencyMs] [errorRate]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9000;
+        LocalFirebaseServer server = new LocalFirebaseServer(port);
+        if (args.length > 1) {
+            server.setLatency(Long.parseLong(args[1]), 0);
+        }
+        if (args.length > 2) {
+            server.setErrorRate(Double.parseDouble(args[2]));
+        }
+        server.start();
+        System.out.println("Start ReliefNet with -Dreliefnet.api.base.url=" + server.getBaseUrl());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        Thread.currentThread().join();
+    }
+}
@@ -7,7 +7,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
 import java.net.*;
 import java.util.concurrent.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -23,9 +28,65 @@ public class MeshNetworkManager {
     private ServerSocket serverSocket;
     private boolean isRunning = false;
     private String localNodeId;
+    private final int meshPort;
+    
+    // Messages already handled, so a flood is forwarded at most once per node
+    private static final int SEEN_MESSAGE_CAPACITY = 10000;
+    private final Set<String> seenMessages = Collections.newSetFromMap(Collections.synchronizedMap(
+        new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > SEEN_MESSAGE_CAPACITY;
+            }
+        }));
+    
+    // Simulation hooks: LAN discovery and database writes can be switched off
+    private boolean discoveryEnabled = true;
+    private boolean persistenceEnabled = true;
+    private MeshMessageListener messageListener;
     
     public MeshNetworkManager() {
-        this.localNodeId = generateNodeId();
+        this(generateNodeId(), NetworkConfig.MESH_PORT);
+    }
+    
+    /**
+     * Create a node with an explicit ID and port (0 picks a free port),
+     * e.g. to run many nodes in one JVM for simulation
+     */
+    public MeshNetworkManager(String nodeId, int port) {
+        this.localNodeId = nodeId;
+        this.meshPort = port;
+    }
+    
+    /**
+     * Listener notified of every mesh message a node receives, including duplicates
+     */
+    public interface MeshMessageListener {
+        void onMeshMessage(String nodeId, String type, String messageId, String sourceNodeId,
+                           long sentTimestamp, boolean duplicate);
+    }
+    
+    public void setMessageListener(MeshMessageListener messageListener) {
+        this.messageListener = messageListener;
+    }
+    
+    public void setDiscoveryEnabled(boolean discoveryEnabled) {
+        this.discoveryEnabled = discoveryEnabled;
+    }
+    
+    public void setPersistenceEnabled(boolean persistenceEnabled) {
+        this.persistenceEnabled = persistenceEnabled;
+    }
+    
+    public String getNodeId() {
+        return localNodeId;
+    }
+    
+    /**
+     * Port actually bound, which differs from the configured one when that was 0
+     */
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : meshPort;
     }
     
     /**
@@ -37,16 +98,18 @@ public class MeshNetworkManager {
         }
         
         try {
-            serverSocket = new ServerSocket(NetworkConfig.MESH_PORT);
+            serverSocket = new ServerSocket(meshPort);
             isRunning = true;
             
             // Start accepting connections
             threadPool.execute(this::acceptConnections);
             
             // Start peer discovery
-            threadPool.execute(this::discoverPeers);
+            if (discoveryEnabled) {
+                threadPool.execute(this::discoverPeers);
+            }
             
-            System.out.println("Mesh network started on port " + NetworkConfig.MESH_PORT + 
+            System.out.println("Mesh network started on port " + getPort() + 
                              " with node ID: " + localNodeId);
             
         } catch (IOException e) {
@@ -136,7 +199,7 @@ public class MeshNetworkManager {
             DatagramSocket socket = new DatagramSocket();
             socket.setBroadcast(true);
             
-            String discoveryMessage = NetworkConfig.PEER_BROADCAST_MESSAGE + ":" + localNodeId + ":" + NetworkConfig.MESH_PORT;
+            String discoveryMessage = NetworkConfig.PEER_BROADCAST_MESSAGE + ":" + localNodeId + ":" + getPort();
             byte[] buffer = discoveryMessage.getBytes();
             
             // Broadcast to common network ranges
@@ -168,7 +231,7 @@ public class MeshNetworkManager {
      * Connect to a discovered peer
      */
     public void connectToPeer(String peerAddress, int peerPort) {
-        if (connectedPeers.containsKey(peerAddress)) {
+        if (connectedPeers.containsKey(peerAddress + ":" + peerPort)) {
             return; // Already connected
         }
         
@@ -202,6 +265,7 @@ public class MeshNetworkManager {
             meshMessage.channelId = channelId;
             meshMessage.sourceNodeId = localNodeId;
             meshMessage.timestamp = System.currentTimeMillis();
+            seenMessages.add(dedupKey(meshMessage));
             
             String jsonMessage = objectMapper.writeValueAsString(meshMessage);
             
@@ -244,7 +308,7 @@ public class MeshNetworkManager {
         }
     }
     
-    private String generateNodeId() {
+    private static String generateNodeId() {
         try {
             String hostname = InetAddress.getLocalHost().getHostName();
             return "RELIEF_" + hostname + "_" + System.currentTimeMillis() % 10000;
@@ -260,8 +324,16 @@ public class MeshNetworkManager {
         try {
             MeshMessage message = objectMapper.readValue(jsonMessage, MeshMessage.class);
             
-            // Prevent message loops
-            if (localNodeId.equals(message.sourceNodeId)) {
+            // Prevent message loops: drop our own messages and anything already handled
+            boolean duplicate = localNodeId.equals(message.sourceNodeId) || !seenMessages.add(dedupKey(message));
+            
+            MeshMessageListener listener = messageListener;
+            if (listener != null) {
+                listener.onMeshMessage(localNodeId, message.type, message.messageId, message.sourceNodeId,
+                    message.timestamp, duplicate);
+            }
+            
+            if (duplicate) {
                 return;
             }
             
@@ -288,7 +360,17 @@ public class MeshNetworkManager {
         }
     }
     
+    private static String dedupKey(MeshMessage message) {
+        return message.messageId != null
+            ? message.type + "|" + message.messageId
+            : message.type + "|" + message.sourceNodeId + "|" + message.timestamp;
+    }
+    
     private void handleMessageSync(MeshMessage message) {
+        if (!persistenceEnabled) {
+            return;
+        }
+        
         try {
             // Store message in local database
             DatabaseManager dbManager = DatabaseManager.getInstance();
@@ -310,13 +392,18 @@ public class MeshNetworkManager {
     }
     
     private void handleSyncRequest(MeshPeer fromPeer) {
+        if (!persistenceEnabled) {
+            return;
+        }
+        
         try {
             // Send recent data to requesting peer
             DatabaseManager dbManager = DatabaseManager.getInstance();
             
             // Get recent messages
             String recentMessagesSQL = "SELECT * FROM messages WHERE sent_at >= datetime('now', '-1 hour') ORDER BY sent_at DESC LIMIT 20";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(recentMessagesSQL)) {
+            List<MeshMessage> syncMessages = new ArrayList<>();
+            dbManager.executeQueryWithCallback(recentMessagesSQL, rs -> {
                 while (rs.next()) {
                     MeshMessage syncMessage = new MeshMessage();
                     syncMessage.type = "SYNC_RESPONSE";
@@ -325,10 +412,13 @@ public class MeshNetworkManager {
                     syncMessage.channelId = rs.getString("channel_id");
                     syncMessage.sourceNodeId = localNodeId;
                     syncMessage.timestamp = rs.getTimestamp("sent_at").getTime();
-                    
-                    String jsonMessage = objectMapper.writeValueAsString(syncMessage);
-                    fromPeer.sendMessage(jsonMessage);
+                    syncMessages.add(syncMessage);
                 }
+            });
+            
+            // Send after the query so the peer socket is never written under the database lock
+            for (MeshMessage syncMessage : syncMessages) {
+                fromPeer.sendMessage(objectMapper.writeValueAsString(syncMessage));
             }
             
         } catch (Exception e) {
@@ -342,6 +432,10 @@ public class MeshNetworkManager {
     }
     
     private void handleEmergencySync(MeshMessage message) {
+        if (!persistenceEnabled) {
+            return;
+        }
+        
         try {
             // Handle emergency request synchronization
             DatabaseManager dbManager = DatabaseManager.getInstance();
@@ -386,7 +480,8 @@ public class MeshNetworkManager {
         
         public MeshPeer(Socket socket) throws IOException {
             this.socket = socket;
-            this.peerAddress = socket.getInetAddress().getHostAddress();
+            // Address and port, so several nodes on one host stay distinct
+            this.peerAddress = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
             this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
             this.writer = new PrintWriter(socket.getOutputStream(), true);
             
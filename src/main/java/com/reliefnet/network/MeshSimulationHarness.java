@@ -0,0 +1,390 @@
+package com.reliefnet.network;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MeshSimulationHarness - Runs many MeshNetworkManager nodes in one JVM on loopback
+ * Nodes are wired into a topology through per-link proxies that inject latency, loss
+ * and partitions, so changes to the forwarding logic can be benchmarked without hardware.
+ *
+ * Reports end-to-end propagation latency, delivery ratio, duplicate ratio and bytes on
+ * the wire per delivered message.
+ *
+ * Usage: java ... MeshSimulationHarness [nodes] [LINE|RING|GRID|RANDOM] [messages] [latencyMs] [lossRate]
+ */
+public class MeshSimulationHarness {
+
+    public enum Topology { LINE, RING, GRID, RANDOM }
+
+    private final int nodeCount;
+    private final Topology topology;
+    private final Random random;
+
+    private final List<MeshNetworkManager> nodes = new ArrayList<>();
+    private final List<LinkProxy> links = new ArrayList<>();
+    private final ScheduledExecutorService linkScheduler = Executors.newScheduledThreadPool(4, r -> {
+        Thread thread = new Thread(r, "mesh-sim-link");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Link conditions, applied to every link
+    private volatile long linkLatencyMs = 0;
+    private volatile long linkJitterMs = 0;
+    private volatile double lossRate = 0.0;
+
+    // messageId -> send time, and messageId -> (nodeId -> first receipt time)
+    private final Map<String, Long> sendTimes = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Long>> receipts = new ConcurrentHashMap<>();
+    private final AtomicLong totalReceptions = new AtomicLong();
+    private final AtomicLong duplicateReceptions = new AtomicLong();
+
+    public MeshSimulationHarness(int nodeCount, Topology topology, long seed) {
+        this.nodeCount = nodeCount;
+        this.topology = topology;
+        this.random = new Random(seed);
+    }
+
+    public void setLinkLatency(long latencyMs, long jitterMs) {
+        this.linkLatencyMs = Math.max(0, latencyMs);
+        this.linkJitterMs = Math.max(0, jitterMs);
+    }
+
+    public void setLossRate(double lossRate) {
+        this.lossRate = Math.max(0.0, Math.min(1.0, lossRate));
+    }
+
+    /**
+     * Start all nodes and wire them into the configured topology
+     */
+    public void start() throws IOException {
+        for (int i = 0; i < nodeCount; i++) {
+            MeshNetworkManager node = new MeshNetworkManager("SIM_NODE_" + i, 0);
+            node.setDiscoveryEnabled(false);
+            node.setPersistenceEnabled(false);
+            node.setMessageListener(this::recordReception);
+            node.start();
+            nodes.add(node);
+        }
+
+        for (int[] edge : buildEdges()) {
+            MeshNetworkManager from = nodes.get(edge[0]);
+            MeshNetworkManager to = nodes.get(edge[1]);
+            LinkProxy link = new LinkProxy(edge[0], edge[1], to.getPort());
+            link.start();
+            links.add(link);
+            from.connectToPeer(InetAddress.getLoopbackAddress().getHostAddress(), link.getPort());
+        }
+
+        System.out.println("Mesh simulation started: " + nodeCount + " nodes, " + links.size() + " links, " + topology);
+    }
+
+    public void stop() {
+        for (MeshNetworkManager node : nodes) {
+            node.stop();
+        }
+        for (LinkProxy link : links) {
+            link.close();
+        }
+        linkScheduler.shutdownNow();
+    }
+
+    private List<int[]> buildEdges() {
+        List<int[]> edges = new ArrayList<>();
+        switch (topology) {
+            case LINE:
+                for (int i = 0; i + 1 < nodeCount; i++) {
+                    edges.add(new int[]{i, i + 1});
+                }
+                break;
+            case RING:
+                for (int i = 0; i + 1 < nodeCount; i++) {
+                    edges.add(new int[]{i, i + 1});
+                }
+                if (nodeCount > 2) {
+                    edges.add(new int[]{nodeCount - 1, 0});
+                }
+                break;
+            case GRID:
+                int side = (int) Math.ceil(Math.sqrt(nodeCount));
+                for (int i = 0; i < nodeCount; i++) {
+                    if ((i + 1) % side != 0 && i + 1 < nodeCount) {
+                        edges.add(new int[]{i, i + 1});
+                    }
+                    if (i + side < nodeCount) {
+                        edges.add(new int[]{i, i + side});
+                    }
+                }
+                break;
+            case RANDOM:
+                // Random spanning tree keeps the graph connected, extra edges give ~4 average degree
+                Set<Long> existing = new HashSet<>();
+                for (int i = 1; i < nodeCount; i++) {
+                    int j = random.nextInt(i);
+                    edges.add(new int[]{j, i});
+                    existing.add((long) j * nodeCount + i);
+                }
+                double extraProbability = nodeCount > 1 ? Math.min(1.0, 2.0 / (nodeCount - 1)) : 0.0;
+                for (int i = 0; i < nodeCount; i++) {
+                    for (int j = i + 1; j < nodeCount; j++) {
+                        if (!existing.contains((long) i * nodeCount + j) && random.nextDouble() < extraProbability) {
+                            edges.add(new int[]{i, j});
+                        }
+                    }
+                }
+                break;
+        }
+        return edges;
+    }
+
+    /**
+     * Cut every link between the given group of nodes and the rest
+     */
+    public void partition(Collection<Integer> group) {
+        Set<Integer> members = new HashSet<>(group);
+        for (LinkProxy link : links) {
+            link.setDown(members.contains(link.fromNode) != members.contains(link.toNode));
+        }
+    }
+
+    public void heal() {
+        for (LinkProxy link : links) {
+            link.setDown(false);
+        }
+    }
+
+    /**
+     * Flood a chat message from one node
+     * @return the message ID, for tracking
+     */
+    public String broadcastFrom(int nodeIndex) {
+        String messageId = "SIM_" + UUID.randomUUID();
+        sendTimes.put(messageId, System.currentTimeMillis());
+        receipts.put(messageId, new ConcurrentHashMap<>());
+        nodes.get(nodeIndex).sendMessage(messageId, "Simulated mesh message from node " + nodeIndex, "sim_channel");
+        return messageId;
+    }
+
+    private void recordReception(String nodeId, String type, String messageId, String sourceNodeId,
+                                 long sentTimestamp, boolean duplicate) {
+        if (!"MESSAGE".equals(type) || messageId == null) {
+            return;
+        }
+        totalReceptions.incrementAndGet();
+        if (duplicate) {
+            duplicateReceptions.incrementAndGet();
+            return;
+        }
+        Map<String, Long> messageReceipts = receipts.get(messageId);
+        if (messageReceipts != null) {
+            messageReceipts.putIfAbsent(nodeId, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Wait until no new receptions arrive for a quiet period, or the timeout expires
+     */
+    public void awaitQuiescence(long quietMs, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long lastCount = -1;
+        long lastChange = System.currentTimeMillis();
+        while (System.currentTimeMillis() < deadline) {
+            long count = totalReceptions.get();
+            if (count != lastCount) {
+                lastCount = count;
+                lastChange = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - lastChange >= quietMs) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Summary of everything sent since start
+     */
+    public String report() {
+        List<Long> fullPropagation = new ArrayList<>();
+        List<Long> perNodeLatency = new ArrayList<>();
+        long deliveries = 0;
+        long expected = (long) sendTimes.size() * (nodeCount - 1);
+
+        for (Map.Entry<String, Long> sent : sendTimes.entrySet()) {
+            Map<String, Long> messageReceipts = receipts.getOrDefault(sent.getKey(), Collections.emptyMap());
+            long latest = 0;
+            for (long received : messageReceipts.values()) {
+                long latency = received - sent.getValue();
+                perNodeLatency.add(latency);
+                latest = Math.max(latest, latency);
+            }
+            deliveries += messageReceipts.size();
+            if (messageReceipts.size() == nodeCount - 1) {
+                fullPropagation.add(latest);
+            }
+        }
+
+        long wireBytes = 0;
+        long dropped = 0;
+        for (LinkProxy link : links) {
+            wireBytes += link.bytesForwarded.get();
+            dropped += link.linesDropped.get();
+        }
+
+        long receptions = totalReceptions.get();
+        StringBuilder report = new StringBuilder();
+        report.append("=== Mesh Simulation Report ===\n");
+        report.append(String.format("Topology: %s, nodes: %d, links: %d, latency: %dms +/- %dms, loss: %.1f%%%n",
+            topology, nodeCount, links.size(), linkLatencyMs, linkJitterMs, lossRate * 100));
+        report.append(String.format("Messages sent: %d, delivered: %d / %d (%.1f%%)%n", sendTimes.size(), deliveries,
+            expected, expected > 0 ? 100.0 * deliveries / expected : 0.0));
+        report.append(String.format("Fully propagated: %d, full-propagation latency p50/p95/max: %s%n",
+            fullPropagation.size(), percentiles(fullPropagation)));
+        report.append(String.format("Per-node latency p50/p95/max: %s%n", percentiles(perNodeLatency)));
+        report.append(String.format("Receptions: %d, duplicates: %d (ratio %.2f)%n", receptions,
+            duplicateReceptions.get(), receptions > 0 ? (double) duplicateReceptions.get() / receptions : 0.0));
+        report.append(String.format("Wire bytes: %d, per delivered message: %.1f, lines dropped: %d%n", wireBytes,
+            deliveries > 0 ? (double) wireBytes / deliveries : 0.0, dropped));
+        return report.toString();
+    }
+
+    private static String percentiles(List<Long> values) {
+        if (values.isEmpty()) {
+            return "n/a";
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2) + "ms / "
+            + sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * 0.95) - 1)) + "ms / "
+            + sorted.get(sorted.size() - 1) + "ms";
+    }
+
+    /**
+     * One simulated radio link: a loopback TCP proxy in front of the target node.
+     * The mesh protocol is newline-delimited JSON, so conditions are applied per line.
+     */
+    private class LinkProxy {
+        private final int fromNode;
+        private final int toNode;
+        private final int targetPort;
+        private final ServerSocket listener;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private volatile boolean down = false;
+        private final AtomicLong bytesForwarded = new AtomicLong();
+        private final AtomicLong linesDropped = new AtomicLong();
+
+        LinkProxy(int fromNode, int toNode, int targetPort) throws IOException {
+            this.fromNode = fromNode;
+            this.toNode = toNode;
+            this.targetPort = targetPort;
+            this.listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        }
+
+        int getPort() {
+            return listener.getLocalPort();
+        }
+
+        void setDown(boolean down) {
+            this.down = down;
+        }
+
+        void start() {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    Socket inbound = listener.accept();
+                    Socket outbound = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                    sockets.add(inbound);
+                    sockets.add(outbound);
+                    pump(inbound, outbound);
+                    pump(outbound, inbound);
+                } catch (IOException e) {
+                    if (!listener.isClosed()) {
+                        System.err.println("Mesh simulation link " + fromNode + "->" + toNode + " failed: " + e.getMessage());
+                    }
+                }
+            }, "mesh-sim-accept-" + fromNode + "-" + toNode);
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private void pump(Socket source, Socket sink) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = sink.getOutputStream();
+            Thread pumpThread = new Thread(() -> {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (down || (lossRate > 0 && ThreadLocalRandom.current().nextDouble() < lossRate)) {
+                            linesDropped.incrementAndGet();
+                            continue;
+                        }
+                        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+                        long delay = linkLatencyMs + (linkJitterMs > 0 ? ThreadLocalRandom.current().nextLong(linkJitterMs + 1) : 0);
+                        linkScheduler.schedule(() -> deliver(out, bytes), delay, TimeUnit.MILLISECONDS);
+                    }
+                } catch (IOException e) {
+                    // Link closed
+                } finally {
+                    close();
+                }
+            }, "mesh-sim-pump-" + fromNode + "-" + toNode);
+            pumpThread.setDaemon(true);
+            pumpThread.start();
+        }
+
+        private void deliver(OutputStream out, byte[] bytes) {
+            try {
+                synchronized (out) {
+                    out.write(bytes);
+                    out.flush();
+                }
+                bytesForwarded.addAndGet(bytes.length);
+            } catch (IOException e) {
+                // Receiver gone; counted as not delivered
+            }
+        }
+
+        void close() {
+            try {
+                listener.close();
+                for (Socket socket : sockets) {
+                    socket.close();
+                }
+            } catch (IOException e) {
+                // Ignore during shutdown
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        Topology topology = args.length > 1 ? Topology.valueOf(args[1].toUpperCase()) : Topology.GRID;
+        int messages = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        long latencyMs = args.length > 3 ? Long.parseLong(args[3]) : 5;
+        double loss = args.length > 4 ? Double.parseDouble(args[4]) : 0.0;
+
+        MeshSimulationHarness harness = new MeshSimulationHarness(nodeCount, topology, 42L);
+        harness.setLinkLatency(latencyMs, latencyMs / 2);
+        harness.setLossRate(loss);
+        harness.start();
+
+        // Give every link time to connect before traffic starts
+        Thread.sleep(500);
+        Random random = new Random(7L);
+        for (int i = 0; i < messages; i++) {
+            harness.broadcastFrom(random.nextInt(nodeCount));
+            Thread.sleep(10);
+        }
+        harness.awaitQuiescence(500, 30000);
+
+        System.out.println(harness.report());
+        harness.stop();
+        System.exit(0);
+    }
+}
@@ -13,6 +13,10 @@ public class NetworkConfig {
     // WebSocket Configuration
     public static final int WEBSOCKET_PORT = 8080;
     public static final String WEBSOCKET_PATH = "/reliefnet-sync";
+    public static final int WEBSOCKET_BATCH_WINDOW_MS = 50; // Collect live records for up to 50ms per frame
+    public static final int WEBSOCKET_BATCH_MAX_RECORDS = 256;
+    public static final int WEBSOCKET_BATCH_MAX_BYTES = 64 * 1024;
+    public static final int WEBSOCKET_DEFLATE_THRESHOLD_BYTES = 256; // Smaller frames are sent uncompressed
     
     // Mesh Network Configuration
     public static final int MESH_PORT = 8081;
@@ -36,6 +40,32 @@ public class NetworkConfig {
     public static final String EMERGENCIES_ENDPOINT = "/emergencies.json";
     public static final String RESOURCES_ENDPOINT = "/resources.json";
     
+    // Override for API_BASE_URL, e.g. a LocalFirebaseServer for offline testing and benchmarks.
+    // Also settable with -Dreliefnet.api.base.url=... or the RELIEFNET_API_BASE_URL environment variable.
+    private static volatile String apiBaseUrlOverride = null;
+    
+    /**
+     * Base URL for all cloud REST calls
+     */
+    public static String getApiBaseUrl() {
+        if (apiBaseUrlOverride != null) {
+            return apiBaseUrlOverride;
+        }
+        String configured = System.getProperty("reliefnet.api.base.url", System.getenv("RELIEFNET_API_BASE_URL"));
+        return configured != null && !configured.isBlank() ? stripTrailingSlash(configured) : API_BASE_URL;
+    }
+    
+    /**
+     * Point cloud sync at a different RTDB-compatible host; null restores the default
+     */
+    public static void setApiBaseUrl(String baseUrl) {
+        apiBaseUrlOverride = baseUrl != null ? stripTrailingSlash(baseUrl) : null;
+    }
+    
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+    
     // Network Status
     public enum NetworkMode {
         ONLINE_CLOUD,      // Connected to internet, using cloud sync
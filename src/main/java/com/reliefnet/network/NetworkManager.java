@@ -1,11 +1,14 @@
 package com.reliefnet.network;
 
 import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.model.EmergencyRequest;
 import com.reliefnet.model.User;
 import java.net.*;
 import java.util.concurrent.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.io.IOException;
 
 /**
@@ -64,9 +67,27 @@ public class NetworkManager {
         }
         
         System.out.println("NetworkManager initialized for user: " + user.getFullName() + " as " + currentRole);
+        if (webSocketSync != null) {
+            webSocketSync.setSubscriptionTopics(subscriptionTopicsFor(user));
+        }
         updateNetworkMode();
     }
     
+    /**
+     * Topics a client asks the authority server for: its role, its area and the general chat.
+     * Authorities declare nothing and therefore receive every change.
+     */
+    private Set<String> subscriptionTopicsFor(User user) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (user.getUserType() == User.UserType.AUTHORITY) {
+            return topics;
+        }
+        topics.add(TopicSubscriptionIndex.roleTopic(user.getUserType().name()));
+        topics.addAll(TopicSubscriptionIndex.locationTopics(user.getLocation()));
+        topics.add(TopicSubscriptionIndex.channelTopic("general_chat"));
+        return topics;
+    }
+    
     private void initializeNetworkComponents() {
         try {
             cloudSync = CloudSyncManager.getInstance();
@@ -341,6 +362,22 @@ public class NetworkManager {
         }
     }
 
+    /**
+     * Broadcast a newly created emergency to connected peers.
+     * Only local WebSocket peers get it live; other modes carry it in their periodic sync.
+     */
+    public boolean broadcastEmergency(EmergencyRequest request) {
+        try {
+            if (currentMode == NetworkConfig.NetworkMode.ONLINE_LOCAL && webSocketSync != null) {
+                return webSocketSync.sendEmergency(request);
+            }
+            return false;
+        } catch (Exception e) {
+            System.err.println("Error broadcasting emergency: " + e.getMessage());
+            return false;
+        }
+    }
+
     private boolean storeForLaterSync(String messageId, String content, String channelId) {
         try {
             // Store in local database with sync flag
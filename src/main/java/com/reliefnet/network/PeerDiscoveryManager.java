@@ -22,7 +22,15 @@ public class PeerDiscoveryManager {
     private boolean isDiscovering = false;
     private String localServerAddress = null;
     
+    // JmDNS created ahead of time during startup, handed to the next PeerDiscoveryManager
+    private static JmDNS prewarmedJmdns;
+    
     public PeerDiscoveryManager() {
+        jmdns = takePrewarmed();
+        if (jmdns != null) {
+            System.out.println("PeerDiscoveryManager using prewarmed mDNS instance");
+            return;
+        }
         try {
             // Get local IP address
             InetAddress localAddress = getLocalInetAddress();
@@ -33,6 +41,29 @@ public class PeerDiscoveryManager {
         }
     }
     
+    /**
+     * Create the JmDNS instance in advance - JmDNS.create probes the network interfaces and can
+     * take seconds, so startup does it off the UI thread while other work runs
+     */
+    public static synchronized void prewarm() {
+        if (prewarmedJmdns != null) {
+            return;
+        }
+        try {
+            InetAddress localAddress = getLocalInetAddress();
+            prewarmedJmdns = JmDNS.create(localAddress);
+            System.out.println("mDNS prewarmed on " + localAddress.getHostAddress());
+        } catch (IOException e) {
+            System.err.println("Error prewarming mDNS: " + e.getMessage());
+        }
+    }
+    
+    private static synchronized JmDNS takePrewarmed() {
+        JmDNS prewarmed = prewarmedJmdns;
+        prewarmedJmdns = null;
+        return prewarmed;
+    }
+    
     /**
      * Start discovering nearby ReliefNet devices
      */
@@ -143,7 +174,7 @@ public class PeerDiscoveryManager {
         return Set.copyOf(discoveredPeers.values());
     }
     
-    private InetAddress getLocalInetAddress() throws IOException {
+    private static InetAddress getLocalInetAddress() throws IOException {
         try {
             // Try to find the best local address
             for (NetworkInterface networkInterface : java.util.Collections.list(NetworkInterface.getNetworkInterfaces())) {
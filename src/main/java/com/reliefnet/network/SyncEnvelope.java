@@ -0,0 +1,183 @@
+package com.reliefnet.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SyncEnvelope - Compact binary envelope carrying a batch of sync records in one WebSocket frame
+ *
+ * Layout (big-endian):
+ *   byte   magic ('R')
+ *   byte   version
+ *   int    record count
+ *   record...
+ *
+ * Chat messages use a typed record (sequence, timestamp and four strings) instead of JSON;
+ * every other record type is carried as length-prefixed JSON. Records are encoded on their
+ * own so a change serialized once can be reused in any number of envelopes.
+ */
+public class SyncEnvelope {
+
+    public static final byte MAGIC = 'R';
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 6;
+
+    // Largest frame decode() accepts; counts and lengths are also checked against the bytes present
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+    private static final int MIN_RECORD_SIZE = 5;
+
+    public static final byte KIND_JSON = 0;
+    public static final byte KIND_MESSAGE = 1;
+
+    /**
+     * A decoded record. For KIND_JSON only {@code json} is set.
+     */
+    public static class Record {
+        public byte kind;
+        public long sequence;
+        public long timestamp;
+        public String messageId;
+        public String channelId;
+        public String senderId;
+        public String content;
+        public String json;
+    }
+
+    /**
+     * Encode a chat message record
+     */
+    public static byte[] encodeMessageRecord(long sequence, long timestamp, String messageId,
+                                             String channelId, String senderId, String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (content != null ? content.length() : 0));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(KIND_MESSAGE);
+            out.writeLong(sequence);
+            out.writeLong(timestamp);
+            writeString(out, messageId);
+            writeString(out, channelId);
+            writeString(out, senderId);
+            writeString(out, content);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encode an arbitrary JSON sync message as a record
+     */
+    public static byte[] encodeJsonRecord(byte[] json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length + 5);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(KIND_JSON);
+            out.writeInt(json.length);
+            out.write(json);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Wrap already-encoded records into a single envelope frame
+     */
+    public static ByteBuffer wrap(List<byte[]> records) {
+        int size = HEADER_SIZE;
+        for (byte[] record : records) {
+            size += record.length;
+        }
+
+        ByteBuffer envelope = ByteBuffer.allocate(size);
+        envelope.put(MAGIC);
+        envelope.put(VERSION);
+        envelope.putInt(records.size());
+        for (byte[] record : records) {
+            envelope.put(record);
+        }
+        envelope.flip();
+        return envelope;
+    }
+
+    /**
+     * Check whether a binary frame is an envelope (older peers send raw UTF-8 JSON)
+     */
+    public static boolean isEnvelope(ByteBuffer frame) {
+        return frame.remaining() >= HEADER_SIZE
+            && frame.get(frame.position()) == MAGIC
+            && frame.get(frame.position() + 1) == VERSION;
+    }
+
+    /**
+     * Decode every record in an envelope. Malformed or oversized frames are rejected with an
+     * IOException before anything is allocated from the counts and lengths they claim.
+     */
+    public static List<Record> decode(ByteBuffer frame) throws IOException {
+        if (frame.remaining() > MAX_FRAME_SIZE) {
+            throw new IOException("Sync envelope of " + frame.remaining() + " bytes exceeds " + MAX_FRAME_SIZE);
+        }
+        byte[] data = new byte[frame.remaining()];
+        frame.duplicate().get(data);
+
+        try (DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(data))) {
+            if (in.readByte() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a ReliefNet sync envelope");
+            }
+
+            int count = in.readInt();
+            if (count < 0 || count > in.available() / MIN_RECORD_SIZE) {
+                throw new IOException("Sync envelope claims " + count + " records in " + in.available() + " bytes");
+            }
+            List<Record> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Record record = new Record();
+                record.kind = in.readByte();
+                if (record.kind == KIND_MESSAGE) {
+                    record.sequence = in.readLong();
+                    record.timestamp = in.readLong();
+                    record.messageId = readString(in);
+                    record.channelId = readString(in);
+                    record.senderId = readString(in);
+                    record.content = readString(in);
+                } else if (record.kind == KIND_JSON) {
+                    byte[] json = new byte[checkLength(in, in.readInt())];
+                    in.readFully(json);
+                    record.json = new String(json, StandardCharsets.UTF_8);
+                } else {
+                    throw new IOException("Unknown sync record kind: " + record.kind);
+                }
+                records.add(record);
+            }
+            return records;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int checkLength(DataInputStream in, int length) throws IOException {
+        // The input wraps a byte array, so available() is exactly what is left of the frame
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Sync record length " + length + " exceeds the " + in.available() + " bytes left");
+        }
+        return length;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[checkLength(in, length)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,184 @@
+package com.reliefnet.network;
+
+import com.reliefnet.util.LocationGazetteer;
+import org.java_websocket.WebSocket;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TopicSubscriptionIndex - Inverted index from subscription topic to WebSocket connections
+ * Lets the authority server fan a change out only to the clients that asked for it.
+ *
+ * Topics are plain strings of the form "division:dhaka", "district:sylhet",
+ * "channel:general_chat" or "role:volunteer". A connection that never declared
+ * any topics is treated as a wildcard subscriber and receives everything; one that
+ * has unsubscribed from all of its topics receives nothing.
+ */
+public class TopicSubscriptionIndex {
+
+    public static final String WILDCARD = "*";
+
+    private final Map<String, Set<WebSocket>> topicToConnections = new ConcurrentHashMap<>();
+    private final Map<WebSocket, Set<String>> connectionToTopics = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> deliveryCounts = new ConcurrentHashMap<>();
+
+    // Topic builders - keep naming consistent between clients and server
+
+    public static String divisionTopic(String division) {
+        return "division:" + normalize(division);
+    }
+
+    public static String districtTopic(String district) {
+        return "district:" + normalize(district);
+    }
+
+    public static String channelTopic(String channelId) {
+        return "channel:" + normalize(channelId);
+    }
+
+    public static String roleTopic(String role) {
+        return "role:" + normalize(role);
+    }
+
+    /**
+     * Derive district/division topics from a free-text location name
+     */
+    public static Set<String> locationTopics(String locationName) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (locationName == null || locationName.trim().isEmpty()) {
+            return topics;
+        }
+
+        LocationGazetteer.Place place = LocationGazetteer.getInstance().resolve(locationName);
+        if (place != null) {
+            if (place.getDistrict() != null) {
+                topics.add(districtTopic(place.getDistrict()));
+            }
+            topics.add(divisionTopic(place.getDivision()));
+        }
+        return topics;
+    }
+
+    /**
+     * Parse a comma separated topic list, as sent in the handshake header
+     */
+    public static Set<String> parseTopics(String topicList) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (topicList == null) {
+            return topics;
+        }
+        for (String topic : topicList.split(",")) {
+            if (!topic.trim().isEmpty()) {
+                topics.add(topic.trim().toLowerCase());
+            }
+        }
+        return topics;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+
+    /**
+     * Add topics to a connection's subscriptions
+     */
+    public void subscribe(WebSocket conn, Collection<String> topics) {
+        Set<String> current = connectionToTopics.computeIfAbsent(conn, c -> ConcurrentHashMap.newKeySet());
+        for (String topic : topics) {
+            String normalized = normalize(topic);
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            current.add(normalized);
+            topicToConnections.computeIfAbsent(normalized, t -> ConcurrentHashMap.newKeySet()).add(conn);
+        }
+    }
+
+    /**
+     * Remove topics from a connection's subscriptions. Removing the last one returns the
+     * connection to receiving everything, as when it connected without a topic header.
+     */
+    public void unsubscribe(WebSocket conn, Collection<String> topics) {
+        Set<String> current = connectionToTopics.get(conn);
+        if (current == null) {
+            return;
+        }
+        for (String topic : topics) {
+            String normalized = normalize(topic);
+            current.remove(normalized);
+            removeFromTopic(normalized, conn);
+        }
+        if (current.isEmpty()) {
+            connectionToTopics.remove(conn, current);
+        }
+    }
+
+    /**
+     * Drop every subscription held by a connection (on disconnect)
+     */
+    public void removeConnection(WebSocket conn) {
+        Set<String> topics = connectionToTopics.remove(conn);
+        if (topics == null) {
+            return;
+        }
+        for (String topic : topics) {
+            removeFromTopic(topic, conn);
+        }
+    }
+
+    private void removeFromTopic(String topic, WebSocket conn) {
+        topicToConnections.computeIfPresent(topic, (t, connections) -> {
+            connections.remove(conn);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    /**
+     * Select the candidates that should receive a change tagged with the given topics,
+     * and record per-topic delivery counts.
+     */
+    public List<WebSocket> route(Collection<String> changeTopics, Collection<WebSocket> candidates) {
+        List<WebSocket> recipients = new ArrayList<>();
+        for (WebSocket conn : candidates) {
+            Set<String> subscribed = connectionToTopics.get(conn);
+            if (subscribed == null) {
+                recipients.add(conn);
+                recordDelivery(WILDCARD);
+                continue;
+            }
+            for (String topic : changeTopics) {
+                if (subscribed.contains(topic)) {
+                    recipients.add(conn);
+                    recordDelivery(topic);
+                    break;
+                }
+            }
+        }
+        return recipients;
+    }
+
+    private void recordDelivery(String topic) {
+        deliveryCounts.computeIfAbsent(topic, t -> new LongAdder()).increment();
+    }
+
+    public Set<String> getTopics(WebSocket conn) {
+        Set<String> topics = connectionToTopics.get(conn);
+        return topics == null ? Collections.emptySet() : Collections.unmodifiableSet(topics);
+    }
+
+    public int getSubscriberCount(String topic) {
+        Set<WebSocket> connections = topicToConnections.get(normalize(topic));
+        return connections == null ? 0 : connections.size();
+    }
+
+    /**
+     * Snapshot of deliveries per topic since startup, for sizing the authority node
+     */
+    public Map<String, Long> getDeliveryCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        deliveryCounts.forEach((topic, count) -> snapshot.put(topic, count.sum()));
+        return snapshot;
+    }
+}
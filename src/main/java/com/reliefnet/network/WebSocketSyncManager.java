@@ -2,22 +2,47 @@ package com.reliefnet.network;
 
 import org.java_websocket.WebSocket;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.handshake.ServerHandshake;
 import org.java_websocket.server.WebSocketServer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.model.EmergencyRequest;
 import com.reliefnet.util.DataSyncManager;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.Map;
 
 /**
  * WebSocketSyncManager - Handles real-time synchronization via WebSocket connections
  * Supports both server mode (for authorities) and client mode (for volunteers/survivors)
+ *
+ * Sync records travel as binary {@link SyncEnvelope} frames, batched over a short time
+ * window and compressed with negotiated permessage-deflate.
  */
 public class WebSocketSyncManager {
     
@@ -28,10 +53,47 @@ public class WebSocketSyncManager {
     private boolean isServerMode = false;
     private boolean isConnected = false;
     
+    // Server mode: each change is encoded once, keyed by its change sequence (messages.id)
+    private static final int MAX_ENCODED_CHANGES = 500;
+    private static final int SYNC_PAGE_SIZE = 100;
+    private final ConcurrentNavigableMap<Long, EncodedChange> encodedChanges = new ConcurrentSkipListMap<>();
+    // Every row with cachedFrom < id <= cachedThrough is in encodedChanges (guarded by encodedChanges)
+    private long cachedFrom = -1;
+    private long cachedThrough = -1;
+    // Server mode: last change sequence delivered to each client
+    private final Map<WebSocket, Long> clientCursors = new ConcurrentHashMap<>();
+    // Server mode: which clients want which divisions, districts, channels and roles
+    private final TopicSubscriptionIndex subscriptions = new TopicSubscriptionIndex();
+    // Client mode: highest change sequence received from the server
+    private volatile long lastReceivedSequence = 0;
+    // Client mode: topics declared to the server at handshake and on change
+    private final Set<String> subscriptionTopics = ConcurrentHashMap.newKeySet();
+    
+    static final String TOPICS_HEADER = "X-ReliefNet-Topics";
+    
+    // Outgoing live records waiting for the current batch window to close
+    private final List<PendingRecord> pendingRecords = new ArrayList<>();
+    private int pendingBytes = 0;
+    private boolean flushScheduled = false;
+    private final ScheduledExecutorService batchFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "websocket-batch-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
     public WebSocketSyncManager() {
         // Constructor
     }
     
+    /**
+     * Draft offering permessage-deflate; peers that decline it fall back to plain RFC 6455
+     */
+    private static Draft compressedDraft() {
+        PerMessageDeflateExtension deflate = new PerMessageDeflateExtension();
+        deflate.setThreshold(NetworkConfig.WEBSOCKET_DEFLATE_THRESHOLD_BYTES);
+        return new Draft_6455(deflate);
+    }
+    
     /**
      * Start local WebSocket server (for authorities)
      */
@@ -91,6 +153,7 @@ public class WebSocketSyncManager {
      */
     public void disconnect() {
         try {
+            flushPendingRecords();
             if (client != null) {
                 client.close();
                 client = null;
@@ -107,37 +170,175 @@ public class WebSocketSyncManager {
         }
     }
     
+    /**
+     * Declare the topics this client wants from the server. Sent in the handshake
+     * header on the next connect; if already connected, only the difference from the
+     * previous set is sent (SUBSCRIBE for added topics, UNSUBSCRIBE for removed ones).
+     */
+    public synchronized void setSubscriptionTopics(Collection<String> topics) {
+        Set<String> requested = TopicSubscriptionIndex.parseTopics(String.join(",", topics));
+        List<String> added = new ArrayList<>(requested);
+        added.removeAll(subscriptionTopics);
+        List<String> removed = new ArrayList<>(subscriptionTopics);
+        removed.removeAll(requested);
+        
+        subscriptionTopics.clear();
+        subscriptionTopics.addAll(requested);
+        
+        if (client != null && client.isOpen()) {
+            // Subscribe before unsubscribing so a narrowed set never passes through "everything"
+            sendSubscriptionChange("SUBSCRIBE", added);
+            sendSubscriptionChange("UNSUBSCRIBE", removed);
+        }
+    }
+    
+    private void sendSubscriptionChange(String type, List<String> topics) {
+        if (topics.isEmpty()) {
+            return;
+        }
+        try {
+            SyncMessage change = new SyncMessage();
+            change.type = type;
+            change.topics = topics;
+            change.timestamp = System.currentTimeMillis();
+            client.send(objectMapper.writeValueAsString(change));
+        } catch (Exception e) {
+            System.err.println("Error sending WebSocket " + type + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Per-topic delivery counts on the authority server, for capacity sizing
+     */
+    public Map<String, Long> getTopicDeliveryCounts() {
+        return subscriptions.getDeliveryCounts();
+    }
+    
+    private Map<String, String> handshakeHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        if (!subscriptionTopics.isEmpty()) {
+            headers.put(TOPICS_HEADER, String.join(",", subscriptionTopics));
+        }
+        return headers;
+    }
+    
+    private static List<String> messageTopics(String channelId) {
+        return List.of(TopicSubscriptionIndex.channelTopic(channelId != null ? channelId : "general_chat"),
+            TopicSubscriptionIndex.roleTopic("authority"));
+    }
+    
     /**
      * Send message via WebSocket
      */
     public boolean sendMessage(String messageId, String content, String channelId) {
+        try {
+            if (!(isServerMode && server != null) && !(client != null && client.isOpen())) {
+                return false;
+            }
+            
+            // Live messages carry no change sequence; the receiver stores them without moving its cursor
+            byte[] record = SyncEnvelope.encodeMessageRecord(0L, System.currentTimeMillis(),
+                messageId, channelId, null, content);
+            enqueueRecord(record, messageTopics(channelId));
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error sending WebSocket message: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Push an emergency request to the clients subscribed to its district, division or role
+     */
+    public boolean sendEmergency(EmergencyRequest request) {
         try {
             SyncMessage syncMessage = new SyncMessage();
-            syncMessage.type = "MESSAGE";
-            syncMessage.messageId = messageId;
-            syncMessage.content = content;
-            syncMessage.channelId = channelId;
+            syncMessage.type = "EMERGENCY";
+            syncMessage.requestId = request.getRequestId();
+            syncMessage.requesterId = request.getRequesterId();
+            syncMessage.emergencyType = request.getEmergencyType() != null ? request.getEmergencyType().name() : "";
+            syncMessage.priority = request.getPriority() != null ? request.getPriority().name() : "";
+            syncMessage.latitude = request.getLocationLat();
+            syncMessage.longitude = request.getLocationLng();
+            syncMessage.description = request.getDescription();
+            syncMessage.status = request.getStatus() != null ? request.getStatus().name() : "PENDING";
             syncMessage.timestamp = System.currentTimeMillis();
             
-            String jsonMessage = objectMapper.writeValueAsString(syncMessage);
+            if (!(isServerMode && server != null) && !(client != null && client.isOpen())) {
+                return false;
+            }
             
+            Set<String> topics = TopicSubscriptionIndex.locationTopics(request.getLocationName());
+            topics.add(TopicSubscriptionIndex.roleTopic("authority"));
+            enqueueRecord(SyncEnvelope.encodeJsonRecord(objectMapper.writeValueAsBytes(syncMessage)), new ArrayList<>(topics));
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error sending WebSocket emergency: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Queue a live record for the current batch. The batch is flushed when the time
+     * window closes or when it reaches the record/byte limit, whichever comes first.
+     */
+    private void enqueueRecord(byte[] record, List<String> topics) {
+        boolean flushNow;
+        synchronized (pendingRecords) {
+            pendingRecords.add(new PendingRecord(record, topics));
+            pendingBytes += record.length;
+            flushNow = pendingRecords.size() >= NetworkConfig.WEBSOCKET_BATCH_MAX_RECORDS
+                || pendingBytes >= NetworkConfig.WEBSOCKET_BATCH_MAX_BYTES;
+            if (!flushNow && !flushScheduled) {
+                flushScheduled = true;
+                batchFlusher.schedule(this::flushPendingRecords, NetworkConfig.WEBSOCKET_BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        
+        if (flushNow) {
+            flushPendingRecords();
+        }
+    }
+    
+    /**
+     * Send every queued live record. On the server, consecutive records bound for the
+     * same clients share one envelope, which is framed once for all of them.
+     */
+    private void flushPendingRecords() {
+        List<PendingRecord> batch;
+        synchronized (pendingRecords) {
+            batch = new ArrayList<>(pendingRecords);
+            pendingRecords.clear();
+            pendingBytes = 0;
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        try {
             if (isServerMode && server != null) {
-                // Broadcast to all connected clients
-                for (WebSocket conn : connectedClients.keySet()) {
-                    if (conn.isOpen()) {
-                        conn.send(jsonMessage);
-                    }
+                EnvelopeBuilder builder = new EnvelopeBuilder();
+                for (PendingRecord pending : batch) {
+                    builder.add(pending.record, subscriptions.route(pending.topics, connectedClients.keySet()));
                 }
-                return true;
+                builder.finish();
             } else if (client != null && client.isOpen()) {
-                client.send(jsonMessage);
-                return true;
+                List<byte[]> records = new ArrayList<>();
+                int bytes = 0;
+                for (PendingRecord pending : batch) {
+                    if (!records.isEmpty() && bytes + pending.record.length > NetworkConfig.WEBSOCKET_BATCH_MAX_BYTES) {
+                        client.send(SyncEnvelope.wrap(records));
+                        records = new ArrayList<>();
+                        bytes = 0;
+                    }
+                    records.add(pending.record);
+                    bytes += pending.record.length;
+                }
+                client.send(SyncEnvelope.wrap(records));
             }
-            
-            return false;
         } catch (Exception e) {
-            System.err.println("Error sending WebSocket message: " + e.getMessage());
-            return false;
+            System.err.println("Error flushing WebSocket batch: " + e.getMessage());
         }
     }
     
@@ -154,31 +355,53 @@ public class WebSocketSyncManager {
         }
     }
     
+    /**
+     * Push every change a client has not seen yet. Each change is serialized once, and
+     * runs of changes bound for the same clients are broadcast as one envelope.
+     */
     private void broadcastSyncData() {
+        if (server == null || connectedClients.isEmpty()) {
+            return;
+        }
+        
         try {
-            // Broadcast recent data changes to all connected clients
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            
-            // Get recent messages
-            String recentMessagesSQL = "SELECT * FROM messages WHERE sent_at >= datetime('now', '-1 hour') ORDER BY sent_at DESC LIMIT 50";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(recentMessagesSQL)) {
-                while (rs.next()) {
-                    SyncMessage syncMessage = new SyncMessage();
-                    syncMessage.type = "SYNC_MESSAGE";
-                    syncMessage.messageId = rs.getString("message_id");
-                    syncMessage.content = rs.getString("content");
-                    syncMessage.channelId = rs.getString("channel_id");
-                    syncMessage.senderId = rs.getString("sender_id");
-                    syncMessage.timestamp = rs.getTimestamp("sent_at").getTime();
-                    
-                    String jsonMessage = objectMapper.writeValueAsString(syncMessage);
-                    
+            EnvelopeBuilder builder = new EnvelopeBuilder();
+            while (true) {
+                long oldestCursor = Long.MAX_VALUE;
+                for (WebSocket conn : connectedClients.keySet()) {
+                    if (conn.isOpen()) {
+                        oldestCursor = Math.min(oldestCursor, clientCursors.getOrDefault(conn, 0L));
+                    }
+                }
+                if (oldestCursor == Long.MAX_VALUE) {
+                    break;
+                }
+                
+                // One page at a time, so no cursor moves past a change that was not sent
+                NavigableMap<Long, EncodedChange> page = loadChangesSince(oldestCursor);
+                if (page.isEmpty()) {
+                    break;
+                }
+                Map<WebSocket, Long> reached = new HashMap<>();
+                for (Map.Entry<Long, EncodedChange> change : page.entrySet()) {
+                    long sequence = change.getKey();
+                    List<WebSocket> behind = new ArrayList<>();
                     for (WebSocket conn : connectedClients.keySet()) {
-                        if (conn.isOpen()) {
-                            conn.send(jsonMessage);
+                        if (conn.isOpen() && clientCursors.getOrDefault(conn, 0L) < sequence) {
+                            behind.add(conn);
                         }
                     }
+                    
+                    builder.add(change.getValue().record, subscriptions.route(change.getValue().topics, behind));
+                    // Unsubscribed clients are past this change too
+                    for (WebSocket conn : behind) {
+                        reached.put(conn, sequence);
+                    }
                 }
+                
+                // Cursors move only once the page is on the wire
+                builder.finish();
+                reached.forEach(this::advanceCursor);
             }
             
         } catch (Exception e) {
@@ -186,10 +409,119 @@ public class WebSocketSyncManager {
         }
     }
     
+    /**
+     * Send only the changes a single client is missing (answer to its SYNC_REQUEST)
+     */
+    private void sendDeltaToClient(WebSocket conn, long clientSequence) {
+        if (server == null || conn == null || !conn.isOpen()) {
+            return;
+        }
+        
+        // A reconnecting client knows best what it already has
+        long delivered = clientSequence > 0 ? clientSequence : clientCursors.getOrDefault(conn, 0L);
+        try {
+            List<WebSocket> target = Collections.singletonList(conn);
+            EnvelopeBuilder builder = new EnvelopeBuilder();
+            NavigableMap<Long, EncodedChange> page;
+            while (!(page = loadChangesSince(delivered)).isEmpty()) {
+                for (Map.Entry<Long, EncodedChange> change : page.entrySet()) {
+                    builder.add(change.getValue().record, subscriptions.route(change.getValue().topics, target));
+                }
+                // Only as far as the pages actually sent
+                builder.finish();
+                delivered = page.lastKey();
+                advanceCursor(conn, delivered);
+            }
+        } catch (Exception e) {
+            System.err.println("Error sending sync delta to client: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Move a client's cursor forward, never back. broadcastSyncData and sendDeltaToClient can
+     * race for the same client, and a late update must not undo a later one.
+     */
+    private void advanceCursor(WebSocket conn, long sequence) {
+        if (conn.isOpen()) {
+            clientCursors.merge(conn, sequence, Math::max);
+        }
+    }
+    
+    /**
+     * Return the next page (up to SYNC_PAGE_SIZE) of encoded changes after the given sequence,
+     * in sequence order and without gaps, or an empty map once caught up. A sequence of 0 (a
+     * new client) starts from the first change of the last hour. Rows not yet in the encoded
+     * cache are read and serialized exactly once.
+     */
+    private NavigableMap<Long, EncodedChange> loadChangesSince(long sequence) throws Exception {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        if (sequence <= 0) {
+            long[] start = {0};
+            dbManager.executeQueryWithCallback(
+                "SELECT COALESCE((SELECT MIN(id) - 1 FROM messages WHERE sent_at >= datetime('now', '-1 hour')), " +
+                "(SELECT MAX(id) FROM messages), 0)",
+                rs -> {
+                    if (rs.next()) {
+                        start[0] = rs.getLong(1);
+                    }
+                });
+            sequence = start[0];
+        }
+        
+        synchronized (encodedChanges) {
+            // The cache only helps if it runs unbroken from this sequence
+            if (sequence < cachedFrom || sequence > cachedThrough) {
+                encodedChanges.clear();
+                cachedFrom = sequence;
+                cachedThrough = sequence;
+            }
+            
+            // Page forward past the end of the cache until a full page lies beyond the sequence
+            String changesSQL = "SELECT * FROM messages WHERE id > ? ORDER BY id ASC LIMIT " + SYNC_PAGE_SIZE;
+            while (encodedChanges.tailMap(sequence, false).size() < SYNC_PAGE_SIZE) {
+                int[] rows = {0};
+                dbManager.executeQueryWithCallback(changesSQL, rs -> {
+                    while (rs.next()) {
+                        long changeSequence = rs.getLong("id");
+                        String channelId = rs.getString("channel_id");
+                        rows[0]++;
+                        cachedThrough = changeSequence;
+                        
+                        try {
+                            byte[] record = SyncEnvelope.encodeMessageRecord(changeSequence, rs.getTimestamp("sent_at").getTime(),
+                                rs.getString("message_id"), channelId, rs.getString("sender_id"), rs.getString("content"));
+                            encodedChanges.put(changeSequence, new EncodedChange(record, messageTopics(channelId)));
+                        } catch (Exception e) {
+                            System.err.println("Error encoding sync change " + changeSequence + ": " + e.getMessage());
+                        }
+                    }
+                }, cachedThrough);
+                if (rows[0] < SYNC_PAGE_SIZE) {
+                    break;
+                }
+            }
+            
+            // Drop entries every caller has moved past, oldest first
+            while (encodedChanges.size() > MAX_ENCODED_CHANGES && encodedChanges.firstKey() <= sequence) {
+                cachedFrom = encodedChanges.pollFirstEntry().getKey();
+            }
+            
+            NavigableMap<Long, EncodedChange> page = new TreeMap<>();
+            for (Map.Entry<Long, EncodedChange> change : encodedChanges.tailMap(sequence, false).entrySet()) {
+                if (page.size() == SYNC_PAGE_SIZE) {
+                    break;
+                }
+                page.put(change.getKey(), change.getValue());
+            }
+            return page;
+        }
+    }
+    
     private void requestSyncFromServer() {
         try {
             SyncMessage syncRequest = new SyncMessage();
             syncRequest.type = "SYNC_REQUEST";
+            syncRequest.sequence = lastReceivedSequence;
             syncRequest.timestamp = System.currentTimeMillis();
             
             String jsonMessage = objectMapper.writeValueAsString(syncRequest);
@@ -202,24 +534,40 @@ public class WebSocketSyncManager {
         }
     }
     
-    private void handleIncomingMessage(String message) {
+    private void handleIncomingMessage(WebSocket origin, String message) {
         try {
             JsonNode jsonNode = objectMapper.readTree(message);
             String type = jsonNode.get("type").asText();
             
             switch (type) {
                 case "MESSAGE":
+                    handleSyncMessage(jsonNode);
+                    break;
                 case "SYNC_MESSAGE":
                     handleSyncMessage(jsonNode);
+                    if (jsonNode.has("sequence")) {
+                        lastReceivedSequence = Math.max(lastReceivedSequence, jsonNode.get("sequence").asLong());
+                    }
                     break;
                 case "SYNC_REQUEST":
                     if (isServerMode) {
-                        broadcastSyncData();
+                        long clientSequence = jsonNode.has("sequence") ? jsonNode.get("sequence").asLong() : 0L;
+                        sendDeltaToClient(origin, clientSequence);
                     }
                     break;
                 case "EMERGENCY":
                     handleEmergencySync(jsonNode);
                     break;
+                case "SUBSCRIBE":
+                    if (isServerMode && origin != null) {
+                        subscriptions.subscribe(origin, readTopics(jsonNode));
+                    }
+                    break;
+                case "UNSUBSCRIBE":
+                    if (isServerMode && origin != null) {
+                        subscriptions.unsubscribe(origin, readTopics(jsonNode));
+                    }
+                    break;
                 default:
                     System.out.println("Unknown WebSocket message type: " + type);
             }
@@ -229,22 +577,68 @@ public class WebSocketSyncManager {
         }
     }
     
+    /**
+     * Handle a binary frame: a batch envelope, or raw UTF-8 JSON from an older peer
+     */
+    private void handleIncomingFrame(WebSocket origin, ByteBuffer frame) {
+        if (!SyncEnvelope.isEnvelope(frame)) {
+            handleIncomingMessage(origin, StandardCharsets.UTF_8.decode(frame).toString());
+            return;
+        }
+        
+        List<SyncEnvelope.Record> records;
+        try {
+            records = SyncEnvelope.decode(frame);
+        } catch (IOException e) {
+            // Drop the whole frame; nothing in it has been applied yet
+            System.err.println("Rejected malformed sync envelope from "
+                + (origin != null ? origin.getRemoteSocketAddress() : "server") + ": " + e.getMessage());
+            return;
+        }
+        
+        try {
+            int storedMessages = 0;
+            for (SyncEnvelope.Record record : records) {
+                if (record.kind == SyncEnvelope.KIND_MESSAGE) {
+                    if (storeSyncedMessage(record.messageId, record.senderId, record.content, record.channelId)) {
+                        storedMessages++;
+                    }
+                    if (record.sequence > 0) {
+                        lastReceivedSequence = Math.max(lastReceivedSequence, record.sequence);
+                    }
+                } else {
+                    handleIncomingMessage(origin, record.json);
+                }
+            }
+            
+            // One UI refresh per batch rather than per message
+            if (storedMessages > 0) {
+                System.out.println("Synced " + storedMessages + " messages from remote batch");
+                DataSyncManager.getInstance().notifyCommunicationDataChanged();
+            }
+        } catch (Exception e) {
+            System.err.println("Error handling incoming WebSocket batch: " + e.getMessage());
+        }
+    }
+    
+    private Set<String> readTopics(JsonNode jsonNode) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (jsonNode.has("topics")) {
+            for (JsonNode topic : jsonNode.get("topics")) {
+                topics.add(topic.asText());
+            }
+        }
+        return topics;
+    }
+    
     private void handleSyncMessage(JsonNode jsonNode) {
         try {
             String messageId = jsonNode.get("messageId").asText();
             String content = jsonNode.get("content").asText();
             String channelId = jsonNode.get("channelId").asText();
-            String senderId = jsonNode.has("senderId") ? jsonNode.get("senderId").asText() : "REMOTE_USER";
-            
-            // Insert message into local database if not already exists
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            String insertSQL = "INSERT OR IGNORE INTO messages " +
-                "(message_id, sender_id, content, message_type, channel_id, sent_at, sync_status) " +
-                "VALUES (?, ?, ?, 'CHAT', ?, datetime('now'), 'SYNCED')";
+            String senderId = jsonNode.has("senderId") ? jsonNode.get("senderId").asText() : null;
             
-            int rowsAffected = dbManager.executeUpdate(insertSQL, messageId, senderId, content, channelId);
-            
-            if (rowsAffected > 0) {
+            if (storeSyncedMessage(messageId, senderId, content, channelId)) {
                 System.out.println("Synced message from remote: " + messageId);
                 // Notify UI to refresh
                 DataSyncManager.getInstance().notifyCommunicationDataChanged();
@@ -255,6 +649,20 @@ public class WebSocketSyncManager {
         }
     }
     
+    /**
+     * Insert a remote message into the local database if not already there
+     * @return true if a new row was stored
+     */
+    private boolean storeSyncedMessage(String messageId, String senderId, String content, String channelId) throws Exception {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        String insertSQL = "INSERT OR IGNORE INTO messages " +
+            "(message_id, sender_id, content, message_type, channel_id, sent_at, sync_status) " +
+            "VALUES (?, ?, ?, 'CHAT', ?, datetime('now'), 'SYNCED')";
+        
+        return dbManager.executeUpdate(insertSQL, messageId, senderId != null ? senderId : "REMOTE_USER",
+            content, channelId) > 0;
+    }
+    
     private void handleEmergencySync(JsonNode jsonNode) {
         try {
             // Handle emergency request synchronization
@@ -291,25 +699,35 @@ public class WebSocketSyncManager {
     private class ReliefNetWebSocketServer extends WebSocketServer {
         
         public ReliefNetWebSocketServer(InetSocketAddress address) {
-            super(address);
+            super(address, Collections.singletonList(compressedDraft()));
         }
         
         @Override
         public void onOpen(WebSocket conn, ClientHandshake handshake) {
             connectedClients.put(conn, conn.getRemoteSocketAddress().getAddress().getHostAddress());
+            if (handshake.hasFieldValue(TOPICS_HEADER)) {
+                subscriptions.subscribe(conn, TopicSubscriptionIndex.parseTopics(handshake.getFieldValue(TOPICS_HEADER)));
+            }
             System.out.println("Client connected: " + conn.getRemoteSocketAddress());
         }
         
         @Override
         public void onClose(WebSocket conn, int code, String reason, boolean remote) {
             connectedClients.remove(conn);
+            clientCursors.remove(conn);
+            subscriptions.removeConnection(conn);
             System.out.println("Client disconnected: " + conn.getRemoteSocketAddress());
         }
         
         @Override
         public void onMessage(WebSocket conn, String message) {
             System.out.println("Received message from client: " + message);
-            handleIncomingMessage(message);
+            handleIncomingMessage(conn, message);
+        }
+        
+        @Override
+        public void onMessage(WebSocket conn, ByteBuffer message) {
+            handleIncomingFrame(conn, message);
         }
         
         @Override
@@ -329,7 +747,7 @@ public class WebSocketSyncManager {
     private class ReliefNetWebSocketClient extends WebSocketClient {
         
         public ReliefNetWebSocketClient(URI serverUri) {
-            super(serverUri);
+            super(serverUri, compressedDraft(), handshakeHeaders());
         }
         
         @Override
@@ -341,7 +759,13 @@ public class WebSocketSyncManager {
         @Override
         public void onMessage(String message) {
             System.out.println("Received message from server: " + message);
-            handleIncomingMessage(message);
+            handleIncomingMessage(null, message);
+        }
+        
+        @Override
+        public void onMessage(ByteBuffer message) {
+            // Sync changes arrive as batched binary envelopes
+            handleIncomingFrame(null, message);
         }
         
         @Override
@@ -366,6 +790,7 @@ public class WebSocketSyncManager {
         public String channelId;
         public String senderId;
         public long timestamp;
+        public long sequence;
         
         // For emergency messages
         public String requestId;
@@ -376,5 +801,68 @@ public class WebSocketSyncManager {
         public String description;
         public String status;
         public String requesterId;
+        
+        // For SUBSCRIBE / UNSUBSCRIBE
+        public List<String> topics;
+    }
+    
+    /**
+     * A change serialized once as an envelope record, with the topics used to route it
+     */
+    private static class EncodedChange {
+        final byte[] record;
+        final List<String> topics;
+        
+        EncodedChange(byte[] record, List<String> topics) {
+            this.record = record;
+            this.topics = topics;
+        }
+    }
+    
+    /**
+     * A live record queued for the current batch window
+     */
+    private static class PendingRecord {
+        final byte[] record;
+        final List<String> topics;
+        
+        PendingRecord(byte[] record, List<String> topics) {
+            this.record = record;
+            this.topics = topics;
+        }
+    }
+    
+    /**
+     * Groups consecutive records that go to the same clients into size-bounded envelopes
+     * and broadcasts each envelope once to that group.
+     */
+    private class EnvelopeBuilder {
+        private List<byte[]> records = new ArrayList<>();
+        private List<WebSocket> recipients = Collections.emptyList();
+        private int bytes = 0;
+        
+        void add(byte[] record, List<WebSocket> recordRecipients) {
+            if (recordRecipients.isEmpty()) {
+                return;
+            }
+            boolean sameRecipients = recordRecipients.size() == recipients.size()
+                && new HashSet<>(recipients).containsAll(recordRecipients);
+            if (!records.isEmpty() && (!sameRecipients
+                    || records.size() >= NetworkConfig.WEBSOCKET_BATCH_MAX_RECORDS
+                    || bytes + record.length > NetworkConfig.WEBSOCKET_BATCH_MAX_BYTES)) {
+                finish();
+            }
+            recipients = recordRecipients;
+            records.add(record);
+            bytes += record.length;
+        }
+        
+        void finish() {
+            if (!records.isEmpty() && server != null) {
+                server.broadcast(SyncEnvelope.wrap(records), recipients);
+            }
+            records = new ArrayList<>();
+            bytes = 0;
+        }
     }
 }
@@ -0,0 +1,710 @@
+package com.reliefnet.util;
+
+import com.reliefnet.database.DatabaseManager;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * AssignmentOptimizer - Proposes volunteer assignments for every open request at once
+ *
+ * During a surge, assigning volunteers one emergency at a time tends to send the nearest volunteer
+ * to whichever request happens to be handled first. This instead takes all pending emergency
+ * requests and unanswered SOS alerts plus every volunteer with spare capacity and solves a single
+ * min-cost flow problem:
+ *
+ *   volunteer -> request  only between each request and its nearest few volunteers, and between
+ *                         each volunteer and its nearest few requests that are not yet covered,
+ *                         costing the travel distance plus a penalty when the volunteer lacks
+ *                         the needed skill
+ *   request -> sink       one edge per volunteer the request needs, paying back its priority
+ *                         value (CRITICAL > HIGH > MEDIUM > LOW, scaled up by people_count),
+ *                         each extra volunteer worth half the previous one
+ *   volunteer -> sink     staying unassigned, at no cost
+ *
+ * Each unit of volunteer capacity is routed in turn along its cheapest path, as in the Hungarian
+ * method: straight to a request, by displacing earlier volunteers to other requests, or to staying
+ * unassigned. The result maximises total value minus total distance, and a search never explores
+ * further than the volunteer's own best option; with only a handful of candidate edges per
+ * request, 5k requests x 2k volunteers take a few seconds at most. The result is only a proposal;
+ * commit() writes all of it in one transaction after the authority has reviewed it.
+ */
+public class AssignmentOptimizer {
+
+    // Costs are whole units of 10 m, so distances and values compare exactly
+    private static final long UNITS_PER_KM = 100;
+    private static final int CANDIDATES_PER_REQUEST = 12;
+    private static final int CANDIDATES_PER_VOLUNTEER = 12;
+    // Volunteer-side edges a request takes per volunteer it needs, so crowded requests share them out
+    private static final int VOLUNTEER_EDGES_PER_NEED = 4;
+    private static final double MAX_TRAVEL_KM = 100.0;
+    // Stand-in distances when either side only has a district/division
+    private static final double SAME_DISTRICT_KM = 15.0;
+    private static final double SAME_DIVISION_KM = 60.0;
+    private static final double GENERAL_SKILL_PENALTY_KM = 10.0;
+    private static final double OTHER_SKILL_PENALTY_KM = 30.0;
+    private static final double VALUE_KM_PER_PRIORITY = 40.0;
+    private static final int PEOPLE_PER_VOLUNTEER = 10;
+    private static final int MAX_VOLUNTEERS_PER_REQUEST = 3;
+    private static final int MAX_OPEN_ASSIGNMENTS = 2;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private static final int SKILL_MEDICAL = 1;
+    private static final int SKILL_RESCUE = 2;
+    private static final int SKILL_LOGISTICS = 4;
+
+    /**
+     * One proposed volunteer-to-request assignment
+     */
+    public static class Assignment {
+        private final String recordType;
+        private final String recordId;
+        private final String location;
+        private final String priority;
+        private final String volunteerId;
+        private final String volunteerName;
+        private final double distanceKm;
+
+        Assignment(Request request, Volunteer volunteer, double distanceKm) {
+            this.recordType = request.recordType;
+            this.recordId = request.recordId;
+            this.location = request.location;
+            this.priority = request.priority;
+            this.volunteerId = volunteer.userId;
+            this.volunteerName = volunteer.name;
+            this.distanceKm = distanceKm;
+        }
+
+        /** "EMERGENCY" or "SOS", as stored in volunteer_assignments.assignment_type */
+        public String getRecordType() { return recordType; }
+        public String getRecordId() { return recordId; }
+        public String getLocation() { return location; }
+        public String getPriority() { return priority; }
+        public String getVolunteerId() { return volunteerId; }
+        public String getVolunteerName() { return volunteerName; }
+        /** Great-circle distance, or NaN when matched by district/division only */
+        public double getDistanceKm() { return distanceKm; }
+    }
+
+    /**
+     * A reviewed-before-commit set of assignments
+     */
+    public static class Proposal {
+        private final List<Assignment> assignments;
+        private final int requestCount;
+        private final int volunteerCount;
+        private final int unservedRequests;
+        private final long computeMillis;
+
+        Proposal(List<Assignment> assignments, int requestCount, int volunteerCount, int unservedRequests, long computeMillis) {
+            this.assignments = assignments;
+            this.requestCount = requestCount;
+            this.volunteerCount = volunteerCount;
+            this.unservedRequests = unservedRequests;
+            this.computeMillis = computeMillis;
+        }
+
+        public List<Assignment> getAssignments() { return Collections.unmodifiableList(assignments); }
+        public int getRequestCount() { return requestCount; }
+        public int getVolunteerCount() { return volunteerCount; }
+        /** Open requests that got no volunteer (none near enough, or all volunteers used) */
+        public int getUnservedRequests() { return unservedRequests; }
+        public long getComputeMillis() { return computeMillis; }
+
+        public double getTotalDistanceKm() {
+            double total = 0;
+            for (Assignment assignment : assignments) {
+                if (!Double.isNaN(assignment.distanceKm)) {
+                    total += assignment.distanceKm;
+                }
+            }
+            return total;
+        }
+    }
+
+    static class Request {
+        final String recordType;
+        final String recordId;
+        final String location;
+        final String priority;
+        final int needed;
+        final long value;
+        final int requiredSkill;
+        final Point point;
+
+        Request(String recordType, String recordId, String location, String priority, int peopleCount,
+                int requiredSkill, Point point) {
+            this.recordType = recordType;
+            this.recordId = recordId;
+            this.location = location;
+            this.priority = priority;
+            this.requiredSkill = requiredSkill;
+            this.point = point;
+            int people = Math.max(1, peopleCount);
+            this.needed = Math.min(MAX_VOLUNTEERS_PER_REQUEST, (people + PEOPLE_PER_VOLUNTEER - 1) / PEOPLE_PER_VOLUNTEER);
+            this.value = Math.round(VALUE_KM_PER_PRIORITY * priorityWeight(priority) * (1 + Math.log(people)) * UNITS_PER_KM);
+        }
+    }
+
+    static class Volunteer {
+        final String userId;
+        final String name;
+        final int capacity;
+        final int skills;
+        final Point point;
+
+        Volunteer(String userId, String name, int capacity, int skills, Point point) {
+            this.userId = userId;
+            this.name = name;
+            this.capacity = capacity;
+            this.skills = skills;
+            this.point = point;
+        }
+    }
+
+    /**
+     * Coordinates (NaN if unknown, with radians precomputed) and location keys (null if unresolved)
+     */
+    static class Point {
+        final double lat;
+        final double latRad;
+        final double lngRad;
+        final double cosLat;
+        final Integer districtId;
+        final Integer divisionId;
+
+        Point(double lat, double lng, Integer districtId, Integer divisionId) {
+            this.lat = lat;
+            this.latRad = Math.toRadians(lat);
+            this.lngRad = Math.toRadians(lng);
+            this.cosLat = Math.cos(latRad);
+            this.districtId = districtId;
+            this.divisionId = divisionId;
+        }
+
+        boolean hasCoordinates() {
+            return !Double.isNaN(lat);
+        }
+    }
+
+    private AssignmentOptimizer() {
+    }
+
+    /**
+     * Load open requests and available volunteers and compute a proposal
+     */
+    public static Proposal propose() throws SQLException {
+        return solve(loadRequests(), loadVolunteers());
+    }
+
+    /**
+     * Write a proposal in one transaction. Requests that were assigned or closed since the
+     * proposal was computed are skipped, as are volunteers who have since reached
+     * MAX_OPEN_ASSIGNMENTS. Returns the number of assignments written.
+     */
+    public static int commit(Proposal proposal) throws SQLException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        Map<String, List<Assignment>> byRecord = new LinkedHashMap<>();
+        for (Assignment assignment : proposal.assignments) {
+            byRecord.computeIfAbsent(assignment.recordType + "|" + assignment.recordId, k -> new ArrayList<>()).add(assignment);
+        }
+
+        int[] written = {0};
+        String batchId = Long.toString(System.currentTimeMillis());
+        dbManager.executeInTransaction(() -> {
+            for (List<Assignment> group : byRecord.values()) {
+                Assignment first = group.get(0);
+                boolean sos = "SOS".equals(first.recordType);
+                // Claim the request first; 0 rows means someone else got to it meanwhile
+                dbManager.executeUpdate("SAVEPOINT assign_request");
+                int claimed = sos
+                    ? dbManager.executeUpdate("UPDATE sos_alerts SET status = 'ASSIGNED', updated_at = CURRENT_TIMESTAMP " +
+                                              "WHERE sos_id = ? AND status IN ('ACTIVE', 'PENDING') " +
+                                              "AND (assigned_volunteer IS NULL OR assigned_volunteer = '')",
+                                              first.recordId)
+                    : dbManager.executeUpdate("UPDATE emergency_requests SET status = 'ASSIGNED', updated_at = CURRENT_TIMESTAMP " +
+                                              "WHERE request_id = ? AND status = 'PENDING'",
+                                              first.recordId);
+                List<String> names = new ArrayList<>();
+                if (claimed > 0) {
+                    for (Assignment assignment : group) {
+                        // Same capacity rule as loadVolunteers, checked again against what is open now
+                        int booked = dbManager.executeUpdate("UPDATE users SET assignment_count = COALESCE(assignment_count, 0) + 1, status = 'ASSIGNED' " +
+                                                             "WHERE user_id = ? AND (SELECT COUNT(*) FROM volunteer_assignments va WHERE va.volunteer_id = ? " +
+                                                             "AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS')) < ?",
+                                                             assignment.volunteerId, assignment.volunteerId, MAX_OPEN_ASSIGNMENTS);
+                        if (booked == 0) {
+                            continue;
+                        }
+                        dbManager.executeUpdate("INSERT INTO volunteer_assignments (assignment_id, volunteer_id, request_id, assignment_type, status, assigned_at) " +
+                                                "VALUES (?, ?, ?, ?, 'ASSIGNED', datetime('now'))",
+                                                "BATCH_" + batchId + "_" + (written[0] + 1), assignment.volunteerId, assignment.recordId, assignment.recordType);
+                        names.add(assignment.volunteerName);
+                        written[0]++;
+                    }
+                }
+                if (names.isEmpty()) {
+                    // Nobody could take it after all; leave the request open
+                    dbManager.executeUpdate("ROLLBACK TO assign_request");
+                } else {
+                    dbManager.executeUpdate(sos ? "UPDATE sos_alerts SET assigned_volunteer = ? WHERE sos_id = ?"
+                                                : "UPDATE emergency_requests SET assigned_volunteer = ? WHERE request_id = ?",
+                                            String.join(", ", names), first.recordId);
+                }
+                dbManager.executeUpdate("RELEASE assign_request");
+            }
+        });
+        System.out.println("AssignmentOptimizer: committed " + written[0] + " of " + proposal.assignments.size() + " proposed assignments");
+        return written[0];
+    }
+
+    static Proposal solve(List<Request> requests, List<Volunteer> volunteers) {
+        long start = System.currentTimeMillis();
+        int requestCount = requests.size();
+        int volunteerCount = volunteers.size();
+        int sink = volunteerCount + requestCount;
+        FlowNetwork network = new FlowNetwork(sink + 1, requestCount * (CANDIDATES_PER_REQUEST + MAX_VOLUNTEERS_PER_REQUEST) +
+                                                        volunteerCount * (CANDIDATES_PER_VOLUNTEER + 1));
+        Point[] requestPoints = new Point[requestCount];
+        for (int r = 0; r < requestCount; r++) {
+            requestPoints[r] = requests.get(r).point;
+        }
+        Point[] volunteerPoints = new Point[volunteerCount];
+        for (int v = 0; v < volunteerCount; v++) {
+            volunteerPoints[v] = volunteers.get(v).point;
+        }
+
+        // volunteer -> request edges; remember where they sit to read the flow back
+        int firstCandidateEdge = network.edgeCount;
+
+        // Each request to its nearest volunteers
+        int[][] requestCandidates = new int[requestCount][];
+        int[] candidate = new int[CANDIDATES_PER_REQUEST];
+        double[] candidateKm = new double[CANDIDATES_PER_REQUEST];
+        for (int r = 0; r < requestCount; r++) {
+            Request request = requests.get(r);
+            int found = nearest(request.point, volunteerPoints, null, candidate, candidateKm);
+            requestCandidates[r] = Arrays.copyOf(candidate, found);
+            for (int i = 0; i < found; i++) {
+                addCandidateEdge(network, request, r, volunteers.get(candidate[i]), candidate[i], candidateKm[i], volunteerCount);
+            }
+        }
+
+        // Each volunteer to its nearest requests that still have room. Without these, requests
+        // crowded in one place all pick the same few volunteers and everyone else gets no edge.
+        int[] volunteerEdges = new int[requestCount];
+        boolean[] open = new boolean[requestCount];
+        Arrays.fill(open, true);
+        candidate = new int[CANDIDATES_PER_VOLUNTEER];
+        candidateKm = new double[CANDIDATES_PER_VOLUNTEER];
+        for (int v = 0; v < volunteerCount; v++) {
+            Volunteer volunteer = volunteers.get(v);
+            int found = nearest(volunteer.point, requestPoints, open, candidate, candidateKm);
+            if (found < CANDIDATES_PER_VOLUNTEER) {
+                // Every nearby request is covered already; still offer this volunteer the closest ones
+                found = nearest(volunteer.point, requestPoints, null, candidate, candidateKm);
+            }
+            for (int i = 0; i < found; i++) {
+                int r = candidate[i];
+                if (contains(requestCandidates[r], v)) {
+                    continue;
+                }
+                Request request = requests.get(r);
+                addCandidateEdge(network, request, r, volunteer, v, candidateKm[i], volunteerCount);
+                if (++volunteerEdges[r] >= request.needed * VOLUNTEER_EDGES_PER_NEED) {
+                    open[r] = false;
+                }
+            }
+        }
+        int lastCandidateEdge = network.edgeCount;
+
+        // request -> sink, one unit per volunteer needed, each worth half the previous
+        for (int r = 0; r < requestCount; r++) {
+            Request request = requests.get(r);
+            long value = request.value;
+            for (int unit = 0; unit < request.needed; unit++) {
+                network.addEdge(volunteerCount + r, sink, 1, -value);
+                value /= 2;
+            }
+        }
+
+        // volunteer -> sink directly: staying unassigned costs nothing
+        for (int v = 0; v < volunteerCount; v++) {
+            network.addEdge(v, sink, volunteers.get(v).capacity, 0);
+        }
+
+        // Potentials from the exact distances to the sink, so every reduced cost starts non-negative
+        long[] potential = network.potential;
+        for (int r = 0; r < requestCount; r++) {
+            potential[volunteerCount + r] = requests.get(r).value;
+        }
+        for (int v = 0; v < volunteerCount; v++) {
+            long best = 0;
+            for (int e = network.head[v]; e != -1; e = network.next[e]) {
+                if (network.cap[e] > 0) {
+                    best = Math.max(best, potential[network.to[e]] - network.cost[e]);
+                }
+            }
+            potential[v] = best;
+        }
+
+        // Route every unit of volunteer capacity, each to its best use given the earlier ones
+        for (int v = 0; v < volunteerCount; v++) {
+            for (int unit = 0; unit < volunteers.get(v).capacity; unit++) {
+                network.route(v, sink);
+            }
+        }
+
+        List<Assignment> assignments = new ArrayList<>();
+        boolean[] served = new boolean[requestCount];
+        for (int e = firstCandidateEdge; e < lastCandidateEdge; e += 2) {
+            if (network.cap[e] == 0) {
+                int v = network.to[e + 1];
+                int r = network.to[e] - volunteerCount;
+                Request request = requests.get(r);
+                Volunteer volunteer = volunteers.get(v);
+                double km = request.point.hasCoordinates() && volunteer.point.hasCoordinates()
+                    ? distanceKm(request.point, volunteer.point) : Double.NaN;
+                assignments.add(new Assignment(request, volunteer, km));
+                served[r] = true;
+            }
+        }
+        int unserved = 0;
+        for (boolean s : served) {
+            if (!s) {
+                unserved++;
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        System.out.println("AssignmentOptimizer: " + assignments.size() + " assignments for " + requestCount + " requests and " +
+                           volunteerCount + " volunteers in " + elapsed + "ms");
+        return new Proposal(assignments, requestCount, volunteerCount, unserved, elapsed);
+    }
+
+    private static void addCandidateEdge(FlowNetwork network, Request request, int r, Volunteer volunteer, int v,
+                                         double km, int volunteerCount) {
+        long cost = Math.round((km + skillPenaltyKm(request, volunteer)) * UNITS_PER_KM);
+        // An edge costing more than the request's first unit is worth can never be used
+        if (cost < request.value) {
+            network.addEdge(v, volunteerCount + r, 1, cost);
+        }
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fill candidate/candidateKm with the points closest to from within MAX_TRAVEL_KM, nearest
+     * first, skipping those not marked usable (all are usable when usable is null)
+     */
+    private static int nearest(Point from, Point[] points, boolean[] usable, int[] candidate, double[] candidateKm) {
+        int found = 0;
+        for (int p = 0; p < points.length; p++) {
+            if (usable != null && !usable[p]) {
+                continue;
+            }
+            Point to = points[p];
+            double limit = found == candidate.length ? candidateKm[found - 1] : MAX_TRAVEL_KM;
+            double km;
+            if (from.hasCoordinates() && to.hasCoordinates()) {
+                // The latitude gap alone bounds the distance from below
+                if (Math.abs(from.latRad - to.latRad) * EARTH_RADIUS_KM >= limit) {
+                    continue;
+                }
+                km = distanceKm(from, to);
+            } else if (from.districtId != null && from.districtId.equals(to.districtId)) {
+                km = SAME_DISTRICT_KM;
+            } else if (from.divisionId != null && from.divisionId.equals(to.divisionId)) {
+                km = SAME_DIVISION_KM;
+            } else {
+                continue;
+            }
+            if (km >= limit) {
+                continue;
+            }
+            // Insertion into the short sorted list
+            int i = found == candidate.length ? found - 1 : found++;
+            while (i > 0 && candidateKm[i - 1] > km) {
+                candidate[i] = candidate[i - 1];
+                candidateKm[i] = candidateKm[i - 1];
+                i--;
+            }
+            candidate[i] = p;
+            candidateKm[i] = km;
+        }
+        return found;
+    }
+
+    private static double distanceKm(Point a, Point b) {
+        double sinLat = Math.sin((b.latRad - a.latRad) / 2);
+        double sinLng = Math.sin((b.lngRad - a.lngRad) / 2);
+        double h = sinLat * sinLat + a.cosLat * b.cosLat * sinLng * sinLng;
+        return EARTH_RADIUS_KM * 2 * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    private static double skillPenaltyKm(Request request, Volunteer volunteer) {
+        if (request.requiredSkill == 0 || (volunteer.skills & request.requiredSkill) != 0) {
+            return 0;
+        }
+        return volunteer.skills == 0 ? GENERAL_SKILL_PENALTY_KM : OTHER_SKILL_PENALTY_KM;
+    }
+
+    static int priorityWeight(String priority) {
+        if (priority == null) {
+            return 2;
+        }
+        switch (priority.toUpperCase()) {
+            case "CRITICAL": return 4;
+            case "HIGH": return 3;
+            case "LOW": return 1;
+            default: return 2;
+        }
+    }
+
+    static int skillsOf(String text) {
+        if (text == null) {
+            return 0;
+        }
+        String lower = text.toLowerCase();
+        int skills = 0;
+        if (lower.contains("medic") || lower.contains("first aid") || lower.contains("doctor") || lower.contains("nurs")) {
+            skills |= SKILL_MEDICAL;
+        }
+        if (lower.contains("rescue") || lower.contains("search")) {
+            skills |= SKILL_RESCUE;
+        }
+        if (lower.contains("logistic") || lower.contains("food") || lower.contains("water") || lower.contains("shelter") || lower.contains("driv")) {
+            skills |= SKILL_LOGISTICS;
+        }
+        return skills;
+    }
+
+    private static List<Request> loadRequests() throws SQLException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        List<Request> requests = new ArrayList<>();
+        dbManager.executeQueryWithCallback(
+            "SELECT request_id, emergency_type, priority, people_count, location_name, location_lat, location_lng, district_id, division_id " +
+            "FROM emergency_requests WHERE status = 'PENDING'",
+            rs -> {
+                while (rs.next()) {
+                    requests.add(new Request("EMERGENCY", rs.getString("request_id"), rs.getString("location_name"),
+                                             rs.getString("priority"), rs.getInt("people_count"),
+                                             skillsOf(rs.getString("emergency_type")), readPoint(rs)));
+                }
+            });
+        // SOS alerts are always treated as life-threatening, whatever urgency the sender picked
+        dbManager.executeQueryWithCallback(
+            "SELECT sos_id, location_name, location_lat, location_lng, district_id, division_id " +
+            "FROM sos_alerts WHERE status IN ('ACTIVE', 'PENDING') AND (assigned_volunteer IS NULL OR assigned_volunteer = '')",
+            rs -> {
+                while (rs.next()) {
+                    requests.add(new Request("SOS", rs.getString("sos_id"), rs.getString("location_name"),
+                                             "CRITICAL", 1, SKILL_RESCUE | SKILL_MEDICAL, readPoint(rs)));
+                }
+            });
+        return requests;
+    }
+
+    private static List<Volunteer> loadVolunteers() throws SQLException {
+        List<Volunteer> volunteers = new ArrayList<>();
+        DatabaseManager.getInstance().executeQueryWithCallback(
+            "SELECT u.user_id, u.name, u.skills, u.location_lat, u.location_lng, u.district_id, u.division_id, " +
+            "(SELECT COUNT(*) FROM volunteer_assignments va WHERE va.volunteer_id = u.user_id " +
+            " AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS')) AS open_assignments " +
+            "FROM users u WHERE u.user_type = 'VOLUNTEER' AND u.status IN ('ACTIVE', 'ASSIGNED')",
+            rs -> {
+                while (rs.next()) {
+                    int capacity = MAX_OPEN_ASSIGNMENTS - rs.getInt("open_assignments");
+                    Point point = readPoint(rs);
+                    if (capacity > 0 && (point.hasCoordinates() || point.divisionId != null)) {
+                        volunteers.add(new Volunteer(rs.getString("user_id"), rs.getString("name"), capacity,
+                                                     skillsOf(rs.getString("skills")), point));
+                    }
+                }
+            });
+        return volunteers;
+    }
+
+    private static Point readPoint(java.sql.ResultSet rs) throws SQLException {
+        double lat = rs.getDouble("location_lat");
+        boolean hasLat = !rs.wasNull();
+        double lng = rs.getDouble("location_lng");
+        boolean hasPoint = hasLat && !rs.wasNull() && !(lat == 0 && lng == 0);
+        int district = rs.getInt("district_id");
+        Integer districtId = rs.wasNull() ? null : district;
+        int division = rs.getInt("division_id");
+        Integer divisionId = rs.wasNull() ? null : division;
+        return new Point(hasPoint ? lat : Double.NaN, hasPoint ? lng : Double.NaN, districtId, divisionId);
+    }
+
+    /**
+     * Residual graph in flat arrays (edge e and its reverse e ^ 1) with potentials, routing one
+     * unit of flow at a time along the cheapest path (Dijkstra on reduced costs)
+     */
+    private static class FlowNetwork {
+        private static final long INF = Long.MAX_VALUE / 4;
+
+        final int nodeCount;
+        int[] head;
+        int[] next;
+        int[] to;
+        int[] cap;
+        long[] cost;
+        int edgeCount = 0;
+        final long[] potential;
+        private final long[] dist;
+        private final int[] parentEdge;
+        private final boolean[] settled;
+        private final LongHeap heap;
+
+        FlowNetwork(int nodeCount, int expectedEdges) {
+            this.nodeCount = nodeCount;
+            this.head = new int[nodeCount];
+            Arrays.fill(head, -1);
+            int capacity = Math.max(16, 2 * expectedEdges);
+            this.next = new int[capacity];
+            this.to = new int[capacity];
+            this.cap = new int[capacity];
+            this.cost = new long[capacity];
+            this.potential = new long[nodeCount];
+            this.dist = new long[nodeCount];
+            this.parentEdge = new int[nodeCount];
+            this.settled = new boolean[nodeCount];
+            this.heap = new LongHeap(nodeCount);
+        }
+
+        void addEdge(int from, int target, int capacity, long edgeCost) {
+            if (edgeCount + 2 > to.length) {
+                int grown = to.length * 2;
+                next = Arrays.copyOf(next, grown);
+                to = Arrays.copyOf(to, grown);
+                cap = Arrays.copyOf(cap, grown);
+                cost = Arrays.copyOf(cost, grown);
+            }
+            link(from, target, capacity, edgeCost);
+            link(target, from, 0, -edgeCost);
+        }
+
+        private void link(int from, int target, int capacity, long edgeCost) {
+            to[edgeCount] = target;
+            cap[edgeCount] = capacity;
+            cost[edgeCount] = edgeCost;
+            next[edgeCount] = head[from];
+            head[from] = edgeCount++;
+        }
+
+        /**
+         * Send one unit from a node to the sink along the cheapest residual path. Reduced costs
+         * (cost + potential[from] - potential[to]) stay non-negative, and the search stops once
+         * the sink is settled, so it only explores paths cheaper than the one taken.
+         */
+        void route(int from, int sink) {
+            Arrays.fill(dist, INF);
+            Arrays.fill(settled, false);
+            dist[from] = 0;
+            heap.clear();
+            heap.push(from, 0);
+            while (!heap.isEmpty()) {
+                int u = LongHeap.node(heap.pop());
+                if (settled[u]) {
+                    continue;
+                }
+                settled[u] = true;
+                if (u == sink) {
+                    break;
+                }
+                for (int e = head[u]; e != -1; e = next[e]) {
+                    if (cap[e] == 0) {
+                        continue;
+                    }
+                    int v = to[e];
+                    long candidate = dist[u] + cost[e] + potential[u] - potential[v];
+                    if (candidate < dist[v]) {
+                        dist[v] = candidate;
+                        parentEdge[v] = e;
+                        heap.push(v, candidate);
+                    }
+                }
+            }
+            if (dist[sink] == INF) {
+                return;
+            }
+            // Nodes beyond the sink get its distance, which keeps every reduced cost non-negative
+            long sinkDist = dist[sink];
+            for (int u = 0; u < nodeCount; u++) {
+                potential[u] += Math.min(dist[u], sinkDist);
+            }
+            for (int v = sink; v != from; v = to[parentEdge[v] ^ 1]) {
+                cap[parentEdge[v]]--;
+                cap[parentEdge[v] ^ 1]++;
+            }
+        }
+    }
+
+    /**
+     * Binary min-heap of (key, node) packed into longs; stale entries are skipped by the caller
+     */
+    private static class LongHeap {
+        private static final int NODE_BITS = 22;
+        private long[] items;
+        private int size;
+
+        LongHeap(int capacity) {
+            items = new long[Math.max(16, capacity)];
+        }
+
+        static int node(long entry) {
+            return (int) (entry & ((1L << NODE_BITS) - 1));
+        }
+
+        void push(int node, long key) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            long entry = (key << NODE_BITS) | node;
+            int i = size++;
+            while (i > 0 && items[(i - 1) >> 1] > entry) {
+                items[i] = items[(i - 1) >> 1];
+                i = (i - 1) >> 1;
+            }
+            items[i] = entry;
+        }
+
+        long pop() {
+            long top = items[0];
+            long last = items[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && items[child + 1] < items[child]) {
+                    child++;
+                }
+                if (items[child] >= last) {
+                    break;
+                }
+                items[i] = items[child];
+                i = child;
+            }
+            items[i] = last;
+            return top;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -12,11 +12,10 @@ public class CheckSurvivorRequestsWithinProject {
               // Check emergency_requests table for survivor submissions
             String sql = "SELECT request_id, emergency_type, description, status, assigned_volunteer, submitted_by, created_at FROM emergency_requests WHERE submitted_by IS NOT NULL AND submitted_by != ''";
             
-            try (ResultSet rs = dbManager.executeQuery(sql)) {
-                
-                boolean found = false;
+            boolean[] foundAny = {false};
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 while (rs.next()) {
-                    found = true;
+                    foundAny[0] = true;
                     System.out.printf("Request ID: %s%n", rs.getString("request_id"));
                     System.out.printf("  Type: %s%n", rs.getString("emergency_type"));
                     System.out.printf("  Status: %s%n", rs.getString("status"));
@@ -26,31 +25,30 @@ public class CheckSurvivorRequestsWithinProject {
                     System.out.printf("  Description: %s%n", rs.getString("description"));
                     System.out.println("  ---");
                 }
+            });
+            
+            if (!foundAny[0]) {
+                System.out.println("No survivor-generated requests found.");                    System.out.println("Creating a test survivor request...");
                 
-                if (!found) {
-                    System.out.println("No survivor-generated requests found.");                    System.out.println("Creating a test survivor request...");
-                    
-                    // Create a test survivor request using executeUpdate
-                    String insertSql = "INSERT INTO emergency_requests (request_id, emergency_type, description, status, priority, location, submitted_by, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-                    String requestId = "TEST_SURVIVOR_REQ_" + System.currentTimeMillis();
-                    int result = dbManager.executeUpdate(insertSql, 
-                        requestId,
-                        "Medical",
-                        "Need immediate medical assistance - survivor generated request for testing",
-                        "PENDING",
-                        "HIGH",
-                        "Test Location",
-                        "survivor_test_user",
-                        new java.util.Date().toString()
-                    );
-                    System.out.println("Test survivor request created. Rows affected: " + result);
-                }
+                // Create a test survivor request using executeUpdate
+                String insertSql = "INSERT INTO emergency_requests (request_id, emergency_type, description, status, priority, location, submitted_by, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+                String requestId = "TEST_SURVIVOR_REQ_" + System.currentTimeMillis();
+                int result = dbManager.executeUpdate(insertSql, 
+                    requestId,
+                    "Medical",
+                    "Need immediate medical assistance - survivor generated request for testing",
+                    "PENDING",
+                    "HIGH",
+                    "Test Location",
+                    "survivor_test_user",
+                    new java.util.Date().toString()
+                );
+                System.out.println("Test survivor request created. Rows affected: " + result);
             }
               // Also check volunteer_assignments
             System.out.println("\n=== Checking volunteer assignments ===");
             String vaSql = "SELECT * FROM volunteer_assignments ORDER BY created_at DESC LIMIT 10";
-            try (ResultSet rs = dbManager.executeQuery(vaSql)) {
-                
+            dbManager.executeQueryWithCallback(vaSql, rs -> {
                 while (rs.next()) {
                     System.out.printf("Assignment ID: %s | Volunteer: %s | Request: %s | Type: %s | Status: %s%n",
                             rs.getString("assignment_id"),
@@ -60,7 +58,7 @@ public class CheckSurvivorRequestsWithinProject {
                             rs.getString("status")
                     );
                 }
-            }
+            });
             
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
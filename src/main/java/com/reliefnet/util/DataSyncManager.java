@@ -42,6 +42,15 @@ public class DataSyncManager {
         System.out.println("DataSyncManager: Added listener, total: " + listeners.size());
     }
     
+    /**
+     * Register a listener that is notified before those already registered, for shared caches
+     * that views read from while handling the same notification
+     */
+    public void addListenerFirst(DataChangeListener listener) {
+        listeners.add(0, listener);
+        System.out.println("DataSyncManager: Added listener, total: " + listeners.size());
+    }
+    
     /**
      * Remove a listener
      */
@@ -24,48 +24,48 @@ public class DatabaseCleanup {
             // 3. Check if sos_alerts table exists and show its structure
             System.out.println("3. Checking sos_alerts table...");
             String checkSOSTable = "SELECT name FROM sqlite_master WHERE type='table' AND name='sos_alerts'";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(checkSOSTable)) {
+            dbManager.executeQueryWithCallback(checkSOSTable, rs -> {
                 if (rs.next()) {
                     System.out.println("   ✓ sos_alerts table exists");
                     
                     // Show table structure
                     String tableInfoSql = "PRAGMA table_info(sos_alerts)";
                     System.out.println("   SOS alerts table structure:");
-                    try (java.sql.ResultSet tableInfo = dbManager.executeQuery(tableInfoSql)) {
+                    dbManager.executeQueryWithCallback(tableInfoSql, tableInfo -> {
                         while (tableInfo.next()) {
                             String columnName = tableInfo.getString("name");
                             String columnType = tableInfo.getString("type");
                             System.out.println("     - " + columnName + " (" + columnType + ")");
                         }
-                    }
+                    });
                 } else {
                     System.err.println("   ✗ sos_alerts table does NOT exist!");
                 }
-            }
+            });
             
             // 4. Count remaining records
             System.out.println("4. Final record counts:");
             
             String countEmergencyRequests = "SELECT COUNT(*) as count FROM emergency_requests";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(countEmergencyRequests)) {
+            dbManager.executeQueryWithCallback(countEmergencyRequests, rs -> {
                 if (rs.next()) {
                     System.out.println("   Emergency requests: " + rs.getInt("count"));
                 }
-            }
+            });
             
             String countMessages = "SELECT COUNT(*) as count FROM messages";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(countMessages)) {
+            dbManager.executeQueryWithCallback(countMessages, rs -> {
                 if (rs.next()) {
                     System.out.println("   Messages: " + rs.getInt("count"));
                 }
-            }
+            });
             
             String countSOSAlerts = "SELECT COUNT(*) as count FROM sos_alerts";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(countSOSAlerts)) {
+            dbManager.executeQueryWithCallback(countSOSAlerts, rs -> {
                 if (rs.next()) {
                     System.out.println("   SOS alerts: " + rs.getInt("count"));
                 }
-            }
+            });
             
             System.out.println("✓ Database cleanup completed successfully!");
             
@@ -0,0 +1,498 @@
+package com.reliefnet.util;
+
+import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.database.SpatialIndex;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * DuplicateDetector - Finds emergency requests and SOS alerts that describe the same incident,
+ * across users and devices, without comparing every pair of reports
+ *
+ * Each description is cut into overlapping character shingles and summarised by a MinHash
+ * signature, whose agreement with another signature estimates the Jaccard similarity of the two
+ * shingle sets. Signatures are split into bands for locality-sensitive hashing: reports land in
+ * one bucket per band, keyed by the band's values together with the report's geohash cell (or
+ * district, without coordinates) and its time window. A lookup only reads the buckets of its own
+ * bands in the neighbouring cells and windows, so it touches near-duplicates and almost nothing
+ * else, and the candidates found are scored by signature agreement.
+ *
+ * Reports from the last RETENTION_WINDOWS time windows are indexed. The index follows both tables
+ * through row_version: an emergency change marks it stale and the next lookup applies just the
+ * changed rows, dropping deleted ones when the table's deletion count has moved.
+ */
+public class DuplicateDetector implements DataSyncManager.DataChangeListener {
+
+    public static final double SIMILARITY_THRESHOLD = 0.6;
+
+    private static final int SHINGLE_LENGTH = 5;
+    private static final int BANDS = 16;
+    private static final int ROWS_PER_BAND = 4;
+    private static final int SIGNATURE_LENGTH = BANDS * ROWS_PER_BAND;
+
+    // Geohash precision in bits: 30 bits is a 6-character geohash, about 1.2 km x 0.6 km here
+    private static final int GEOHASH_BITS = 30;
+    private static final double CELL_LAT_DEGREES = 180.0 / (1 << (GEOHASH_BITS / 2));
+    private static final double CELL_LNG_DEGREES = 360.0 / (1 << (GEOHASH_BITS / 2));
+
+    private static final long WINDOW_MILLIS = 6 * 60 * 60 * 1000L;
+    private static final int RETENTION_WINDOWS = 8;
+
+    // Multiply-shift hash functions, one per signature position: (a * x + b) >>> 32
+    private static final long[] MULTIPLIERS = new long[SIGNATURE_LENGTH];
+    private static final long[] OFFSETS = new long[SIGNATURE_LENGTH];
+    static {
+        Random random = new Random(0x5EEDL);
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * A report to index or to look up
+     */
+    public static class Report {
+        private final TriageQueue.Kind kind;
+        private final String recordId;
+        private final String reporterId;
+        private final double lat;
+        private final double lng;
+        private final long area;
+        private final boolean located;
+        private final long createdAtMillis;
+        private final int[] signature;
+
+        /**
+         * @param reporterId requester user ID or SOS sender contact, may be null
+         * @param districtId district key, used as the area when there are no coordinates
+         */
+        public Report(TriageQueue.Kind kind, String recordId, String reporterId, String description,
+                      double lat, double lng, Integer districtId, String locationName, long createdAtMillis) {
+            this.kind = kind;
+            this.recordId = recordId;
+            this.reporterId = reporterId;
+            this.located = !Double.isNaN(lat) && !(lat == 0 && lng == 0) && Math.abs(lat) <= 90 && Math.abs(lng) <= 180;
+            this.lat = located ? lat : Double.NaN;
+            this.lng = located ? lng : Double.NaN;
+            if (located) {
+                this.area = geohash(lat, lng);
+            } else if (districtId != null) {
+                this.area = -1L - districtId;
+            } else {
+                this.area = Long.MIN_VALUE + (locationName == null ? 0 : normalize(locationName).hashCode());
+            }
+            this.createdAtMillis = createdAtMillis;
+            this.signature = signature(description);
+        }
+
+        long window() {
+            return Math.floorDiv(createdAtMillis, WINDOW_MILLIS);
+        }
+
+        String key() {
+            return kind + ":" + recordId;
+        }
+    }
+
+    /**
+     * An earlier report that looks like the same incident
+     */
+    public static class Match {
+        private final TriageQueue.Kind kind;
+        private final String recordId;
+        private final String reporterId;
+        private final double similarity;
+        private final double distanceKm;
+        private final long minutesApart;
+
+        Match(Report report, double similarity, double distanceKm, long minutesApart) {
+            this.kind = report.kind;
+            this.recordId = report.recordId;
+            this.reporterId = report.reporterId;
+            this.similarity = similarity;
+            this.distanceKm = distanceKm;
+            this.minutesApart = minutesApart;
+        }
+
+        public TriageQueue.Kind getKind() { return kind; }
+        public String getRecordId() { return recordId; }
+        public String getReporterId() { return reporterId; }
+        /** Estimated Jaccard similarity of the two descriptions, 0 to 1 */
+        public double getSimilarity() { return similarity; }
+        /** Distance between the reports, NaN when either has no coordinates */
+        public double getDistanceKm() { return distanceKm; }
+        public long getMinutesApart() { return minutesApart; }
+    }
+
+    private static DuplicateDetector instance;
+
+    private final Map<String, Report> reports = new HashMap<>();
+    // Time window -> LSH bucket key -> reports
+    private final TreeMap<Long, Map<Long, List<Report>>> buckets = new TreeMap<>();
+    private final EnumMap<TriageQueue.Kind, Long> lastVersion = new EnumMap<>(TriageQueue.Kind.class);
+    private final EnumMap<TriageQueue.Kind, Long> lastDeletions = new EnumMap<>(TriageQueue.Kind.class);
+    private volatile boolean stale = true;
+
+    private DuplicateDetector() {
+        for (TriageQueue.Kind kind : TriageQueue.Kind.values()) {
+            lastVersion.put(kind, -1L);
+            lastDeletions.put(kind, 0L);
+        }
+        DataSyncManager.getInstance().addListener(this);
+    }
+
+    public static synchronized DuplicateDetector getInstance() {
+        if (instance == null) {
+            instance = new DuplicateDetector();
+        }
+        return instance;
+    }
+
+    /**
+     * Indexed reports similar to the given one (excluding itself), most similar first
+     */
+    public synchronized List<Match> findSimilar(Report report) {
+        sync();
+        Set<Report> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        long[] areas = neighbourAreas(report);
+        long window = report.window();
+        for (int band = 0; band < BANDS; band++) {
+            long bandHash = bandHash(report.signature, band);
+            for (long w = window - 1; w <= window + 1; w++) {
+                Map<Long, List<Report>> windowBuckets = buckets.get(w);
+                if (windowBuckets == null) {
+                    continue;
+                }
+                for (long area : areas) {
+                    List<Report> bucket = windowBuckets.get(bucketKey(bandHash, area));
+                    if (bucket != null) {
+                        candidates.addAll(bucket);
+                    }
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Report candidate : candidates) {
+            if (candidate.kind == report.kind && candidate.recordId.equals(report.recordId)) {
+                continue;
+            }
+            double similarity = similarity(report.signature, candidate.signature);
+            if (similarity >= SIMILARITY_THRESHOLD) {
+                double distance = report.located && candidate.located
+                    ? SpatialIndex.distanceKm(report.lat, report.lng, candidate.lat, candidate.lng) : Double.NaN;
+                matches.add(new Match(candidate, similarity, distance,
+                                      Math.abs(report.createdAtMillis - candidate.createdAtMillis) / 60000));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::getSimilarity).reversed());
+        return matches;
+    }
+
+    /**
+     * Possible duplicates of an indexed emergency request or SOS alert
+     */
+    public synchronized List<Match> findDuplicates(TriageQueue.Kind kind, String recordId) {
+        sync();
+        Report report = reports.get(kind + ":" + recordId);
+        return report == null ? new ArrayList<>() : findSimilar(report);
+    }
+
+    /**
+     * Index a report that may not be in the database yet; a later version of the row replaces it
+     */
+    public synchronized void add(Report report) {
+        sync();
+        index(report);
+    }
+
+    public synchronized int size() {
+        sync();
+        return reports.size();
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+
+    private void sync() {
+        if (!stale) {
+            return;
+        }
+        stale = false;
+        long now = System.currentTimeMillis();
+        long oldestWindow = Math.floorDiv(now, WINDOW_MILLIS) - RETENTION_WINDOWS + 1;
+        // Drop whole windows that aged out
+        while (!buckets.isEmpty() && buckets.firstKey() < oldestWindow) {
+            for (List<Report> bucket : buckets.pollFirstEntry().getValue().values()) {
+                for (Report old : bucket) {
+                    reports.remove(old.key(), old);
+                }
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        for (TriageQueue.Kind kind : TriageQueue.Kind.values()) {
+            try {
+                load(kind, oldestWindow * WINDOW_MILLIS / 1000);
+            } catch (SQLException e) {
+                System.err.println("DuplicateDetector: Error loading " + kind.table + ": " + e.getMessage());
+                stale = true;
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        if (elapsed > 50) {
+            System.out.println("DuplicateDetector: Indexed " + reports.size() + " reports in " + elapsed + "ms");
+        }
+    }
+
+    private void load(TriageQueue.Kind kind, long oldestEpochSeconds) throws SQLException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        // Rows deleted outright leave no version behind; drop indexed reports that are gone
+        long deletions = dbManager.getDeletionCount(kind.table);
+        if (deletions != lastDeletions.get(kind)) {
+            lastDeletions.put(kind, deletions);
+            Set<String> present = new HashSet<>();
+            dbManager.executeQueryWithCallback("SELECT " + kind.keyColumn + " FROM " + kind.table, rs -> {
+                while (rs.next()) {
+                    present.add(rs.getString(1));
+                }
+            });
+            for (Report report : new ArrayList<>(reports.values())) {
+                if (report.kind == kind && !present.contains(report.recordId)) {
+                    reports.remove(report.key());
+                    unindex(report);
+                }
+            }
+        }
+
+        String reporter = kind == TriageQueue.Kind.EMERGENCY ? "requester_id" : "sender_contact";
+        String created = "CAST(strftime('%s', created_at) AS INTEGER)";
+        long since = lastVersion.get(kind);
+        long[] maxVersion = {Math.max(since, 0)};
+        dbManager.executeQueryWithCallback(
+            "SELECT " + kind.keyColumn + " AS record_id, " + reporter + " AS reporter_id, description, " +
+            "location_lat, location_lng, district_id, location_name, " + created + " AS created_epoch, row_version " +
+            "FROM " + kind.table + " WHERE " + (since < 0 ? "" : "row_version > ? AND ") + created + " >= ?",
+            rs -> read(kind, rs, maxVersion),
+            since < 0 ? new Object[] {oldestEpochSeconds} : new Object[] {since, oldestEpochSeconds});
+        if (since < 0) {
+            // Older rows may carry higher versions; start the next delta from the table's maximum
+            dbManager.executeQueryWithCallback(
+                "SELECT COALESCE(MAX(row_version), 0) FROM " + kind.table,
+                rs -> {
+                    if (rs.next()) {
+                        maxVersion[0] = Math.max(maxVersion[0], rs.getLong(1));
+                    }
+                });
+        }
+        lastVersion.put(kind, maxVersion[0]);
+    }
+
+    private void read(TriageQueue.Kind kind, ResultSet rs, long[] maxVersion) throws SQLException {
+        while (rs.next()) {
+            maxVersion[0] = Math.max(maxVersion[0], rs.getLong("row_version"));
+            String recordId = rs.getString("record_id");
+            if (recordId == null) {
+                continue;
+            }
+            double lat = rs.getDouble("location_lat");
+            if (rs.wasNull()) {
+                lat = Double.NaN;
+            }
+            double lng = rs.getDouble("location_lng");
+            int district = rs.getInt("district_id");
+            Integer districtId = rs.wasNull() ? null : district;
+            index(new Report(kind, recordId, rs.getString("reporter_id"), rs.getString("description"),
+                             lat, lng, districtId, rs.getString("location_name"), rs.getLong("created_epoch") * 1000));
+        }
+    }
+
+    private void index(Report report) {
+        Report previous = reports.put(report.key(), report);
+        if (previous != null) {
+            unindex(previous);
+        }
+        Map<Long, List<Report>> windowBuckets = buckets.computeIfAbsent(report.window(), w -> new HashMap<>());
+        for (int band = 0; band < BANDS; band++) {
+            windowBuckets.computeIfAbsent(bucketKey(bandHash(report.signature, band), report.area), key -> new ArrayList<>(2))
+                         .add(report);
+        }
+    }
+
+    private void unindex(Report report) {
+        Map<Long, List<Report>> windowBuckets = buckets.get(report.window());
+        if (windowBuckets == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            long key = bucketKey(bandHash(report.signature, band), report.area);
+            List<Report> bucket = windowBuckets.get(key);
+            if (bucket != null) {
+                bucket.removeIf(indexed -> indexed == report);
+                if (bucket.isEmpty()) {
+                    windowBuckets.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * The report's own area and, for located reports, the eight geohash cells around it
+     */
+    private static long[] neighbourAreas(Report report) {
+        if (!report.located) {
+            return new long[] {report.area};
+        }
+        long[] areas = new long[9];
+        int i = 0;
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLng = -1; dLng <= 1; dLng++) {
+                double lat = Math.max(-90, Math.min(90, report.lat + dLat * CELL_LAT_DEGREES));
+                double lng = report.lng + dLng * CELL_LNG_DEGREES;
+                lng = lng > 180 ? lng - 360 : lng < -180 ? lng + 360 : lng;
+                areas[i++] = geohash(lat, lng);
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * Geohash of a point as an integer: GEOHASH_BITS bits alternating longitude and latitude halvings
+     */
+    static long geohash(double lat, double lng) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        long hash = 0;
+        for (int bit = 0; bit < GEOHASH_BITS; bit++) {
+            hash <<= 1;
+            if (bit % 2 == 0) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    hash |= 1;
+                    minLng = mid;
+                } else {
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    hash |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * MinHash signature of a description's character shingles (lower-cased, punctuation folded to spaces)
+     */
+    static int[] signature(String description) {
+        int[] signature = new int[SIGNATURE_LENGTH];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        String text = normalize(description == null ? "" : description);
+        if (text.length() < SHINGLE_LENGTH) {
+            text = String.format("%-" + SHINGLE_LENGTH + "s", text);
+        }
+        for (int start = 0; start + SHINGLE_LENGTH <= text.length(); start++) {
+            int shingle = 0;
+            for (int i = start; i < start + SHINGLE_LENGTH; i++) {
+                shingle = 31 * shingle + text.charAt(i);
+            }
+            long mixed = mix(shingle);
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                int value = (int) ((mixed * MULTIPLIERS[i] + OFFSETS[i]) >>> 32);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / SIGNATURE_LENGTH;
+    }
+
+    private static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        return normalized.toString().trim();
+    }
+
+    private static long bandHash(int[] signature, int band) {
+        long hash = band;
+        for (int i = band * ROWS_PER_BAND; i < (band + 1) * ROWS_PER_BAND; i++) {
+            hash = hash * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return hash;
+    }
+
+    private static long bucketKey(long bandHash, long area) {
+        long key = bandHash ^ (area * 0xC2B2AE3D27D4EB4FL);
+        key ^= key >>> 31;
+        return key * 0x94D049BB133111EBL;
+    }
+
+    // Murmur3 64-bit finalizer, spreading a shingle's hash over all bits
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // DataSyncManager.DataChangeListener - new or edited requests and SOS alerts
+
+    @Override
+    public void onEmergencyDataChanged() {
+        invalidate();
+    }
+
+    @Override
+    public void onResourceDataChanged() {
+    }
+
+    @Override
+    public void onUserDataChanged() {
+    }
+
+    @Override
+    public void onDashboardDataChanged() {
+    }
+
+    @Override
+    public void onVolunteerDataChanged() {
+    }
+
+    @Override
+    public void onCommunicationDataChanged() {
+    }
+
+    @Override
+    public void onSettingsDataChanged() {
+    }
+}
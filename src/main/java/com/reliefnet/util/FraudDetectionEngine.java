@@ -2,19 +2,82 @@ package com.reliefnet.util;
 
 import com.reliefnet.model.*;
 import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.database.LocationKeys;
+import com.reliefnet.database.PositionStore;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * FraudDetectionEngine - AI-powered fraud detection and prevention system
  * Core functionality: Detect suspicious patterns, duplicate requests, and unusual activities
+ *
+ * Activity is kept per user as typed event counters (SlidingWindowCounter) in a concurrent map,
+ * so the checks run from UI and sync threads at once, honour their time windows and cost the
+ * same however much activity a user has.
  */
 public class FraudDetectionEngine {
       private static FraudDetectionEngine instance;
     private DatabaseManager dbManager;
-    private Map<String, List<String>> userActivityLog;
-    private Map<String, Double> suspiciousActivityScores;
-    private double detectionThreshold = 75.0; // Percentage threshold for fraud detection
+    private final Map<String, UserActivity> userActivity = new ConcurrentHashMap<>();
+    private volatile double detectionThreshold = 75.0; // Percentage threshold for fraud detection
+    
+    // Activity counters keep an hour of history in one-minute buckets
+    private static final long BUCKET_MILLIS = 60 * 1000L;
+    private static final int BUCKETS = 60;
+    private static final long RECENT_WINDOW_MILLIS = 60 * 60 * 1000L;
+    private static final long RAPID_WINDOW_MILLIS = 10 * 60 * 1000L;
+    
+    /**
+     * Kinds of activity counted per user
+     */
+    public enum ActivityType {
+        EMERGENCY_REQUEST,
+        RESOURCE_REQUEST
+    }
+    
+    /**
+     * One user's counters; per resource category ones are created on first use
+     */
+    private static final class UserActivity {
+        final SlidingWindowCounter[] byType = new SlidingWindowCounter[ActivityType.values().length];
+        // Last slot holds categories that match no ResourceCategory
+        final AtomicReferenceArray<SlidingWindowCounter> byResourceCategory =
+            new AtomicReferenceArray<>(Resource.ResourceCategory.values().length + 1);
+        final AtomicInteger total = new AtomicInteger();
+        volatile boolean blocked;
+        volatile double suspicionScore;
+        
+        UserActivity() {
+            for (int i = 0; i < byType.length; i++) {
+                byType[i] = new SlidingWindowCounter(BUCKETS, BUCKET_MILLIS);
+            }
+        }
+        
+        int requests(long windowMillis, long now) {
+            int count = 0;
+            for (SlidingWindowCounter counter : byType) {
+                count += counter.count(windowMillis, now);
+            }
+            return count;
+        }
+        
+        static SlidingWindowCounter counter(AtomicReferenceArray<SlidingWindowCounter> counters, int index) {
+            SlidingWindowCounter counter = counters.get(index);
+            if (counter == null) {
+                counters.compareAndSet(index, null, new SlidingWindowCounter(BUCKETS, BUCKET_MILLIS));
+                counter = counters.get(index);
+            }
+            return counter;
+        }
+        
+        static int count(AtomicReferenceArray<SlidingWindowCounter> counters, int index, long windowMillis, long now) {
+            SlidingWindowCounter counter = counters.get(index);
+            return counter == null ? 0 : counter.count(windowMillis, now);
+        }
+    }
     
     // Fraud detection rules
     public enum FraudType {
@@ -40,13 +103,19 @@ public class FraudDetectionEngine {
         private FraudType fraudType;
         private double confidenceScore;
         private String details;
+        private double similarity;
         private LocalDateTime timestamp;
         
         public FraudAlert(String userId, FraudType fraudType, double confidenceScore, String details) {
+            this(userId, fraudType, confidenceScore, details, Double.NaN);
+        }
+        
+        public FraudAlert(String userId, FraudType fraudType, double confidenceScore, String details, double similarity) {
             this.userId = userId;
             this.fraudType = fraudType;
             this.confidenceScore = confidenceScore;
             this.details = details;
+            this.similarity = similarity;
             this.timestamp = LocalDateTime.now();
         }
         
@@ -55,6 +124,8 @@ public class FraudDetectionEngine {
         public FraudType getFraudType() { return fraudType; }
         public double getConfidenceScore() { return confidenceScore; }
         public String getDetails() { return details; }
+        /** Description similarity to the matched report for duplicate alerts, NaN otherwise */
+        public double getSimilarity() { return similarity; }
         public LocalDateTime getTimestamp() { return timestamp; }
         
         public boolean isCritical() {
@@ -70,8 +141,6 @@ public class FraudDetectionEngine {
     
     private FraudDetectionEngine() {
         this.dbManager = DatabaseManager.getInstance();
-        this.userActivityLog = new HashMap<>();
-        this.suspiciousActivityScores = new HashMap<>();
     }
     
     public static FraudDetectionEngine getInstance() {
@@ -114,8 +183,8 @@ public class FraudDetectionEngine {
             storeFraudAlert(frequencyAlert);
         }
         
-        // Update user activity log
-        logUserActivity(request.getRequesterId(), "EMERGENCY_REQUEST", request.toString());
+        // Update user activity counters
+        logUserActivity(request.getRequesterId(), ActivityType.EMERGENCY_REQUEST, -1);
         
         return alerts;
     }
@@ -127,7 +196,8 @@ public class FraudDetectionEngine {
         List<FraudAlert> alerts = new ArrayList<>();
         
         // Check for excessive resource requests
-        double excessiveRequestScore = calculateExcessiveRequestScore(userId, resource.getCategory());
+        int category = categoryIndex(resource);
+        double excessiveRequestScore = calculateExcessiveRequestScore(userId, category);
         if (excessiveRequestScore > detectionThreshold) {
             alerts.add(new FraudAlert(userId, FraudType.EXCESSIVE_REQUESTS, 
                     excessiveRequestScore, 
@@ -143,8 +213,7 @@ public class FraudDetectionEngine {
         }
         
         // Log activity
-        logUserActivity(userId, "RESOURCE_REQUEST", 
-                String.format("%s:%d", resource.getName(), requestedQuantity));
+        logUserActivity(userId, ActivityType.RESOURCE_REQUEST, category);
         
         return alerts;
     }
@@ -182,7 +251,8 @@ public class FraudDetectionEngine {
      * Get fraud risk score for a user
      */
     public double getUserFraudRiskScore(String userId) {
-        return suspiciousActivityScores.getOrDefault(userId, 0.0);
+        UserActivity activity = userActivity.get(userId);
+        return activity != null ? activity.suspicionScore : 0.0;
     }
     
     /**
@@ -209,7 +279,7 @@ public class FraudDetectionEngine {
     private void loadUserActivityHistory(String userId) {
         try {
             // Use dbManager to load activity history
-            // Implementation would use dbManager.executeQuery() if the method exists
+            // Implementation would use dbManager.executeQueryWithCallback()
             System.out.println("Loading activity history for user: " + userId);
         } catch (Exception e) {
             System.err.println("Failed to load user activity: " + e.getMessage());
@@ -221,8 +291,9 @@ public class FraudDetectionEngine {
      */
     public void blockUser(String userId, String reason) {
         // Update database to mark user as blocked
-        logUserActivity(userId, "BLOCKED", reason);
-        suspiciousActivityScores.put(userId, 100.0); // Maximum risk score
+        UserActivity activity = activityOf(userId);
+        activity.blocked = true;
+        activity.suspicionScore = 100.0; // Maximum risk score
         
         System.out.println("🚫 USER BLOCKED: " + userId + " - " + reason);
     }
@@ -242,46 +313,67 @@ public class FraudDetectionEngine {
     
     private FraudAlert checkDuplicateRequests(EmergencyRequest request) {
         String userId = request.getRequesterId();
-        List<String> recentActivities = userActivityLog.getOrDefault(userId, new ArrayList<>());
-        
-        // Check if similar emergency request was made in last hour
-        long duplicateCount = recentActivities.stream()
-                .filter(activity -> activity.contains("EMERGENCY_REQUEST"))
-                .filter(activity -> activity.contains(request.getType().toString()))
-                .count();
+        if (request.getRequestId() == null) {
+            return null;
+        }
         
-        if (duplicateCount > 1) {
-            double confidence = Math.min(95.0, 60.0 + (duplicateCount * 15.0));
-            return new FraudAlert(userId, FraudType.DUPLICATE_REQUEST, confidence,
-                    String.format("Similar emergency request made %d times recently", duplicateCount));
+        // Look for an earlier report of the same incident nearby, from this user or anyone else
+        DuplicateDetector detector = DuplicateDetector.getInstance();
+        DuplicateDetector.Report report = new DuplicateDetector.Report(TriageQueue.Kind.EMERGENCY,
+                request.getRequestId(), userId, request.getDescription(),
+                request.getLocationLat(), request.getLocationLng(),
+                LocationKeys.resolve(request.getLocationName()).getDistrictId(), request.getLocationName(),
+                System.currentTimeMillis());
+        List<DuplicateDetector.Match> matches = detector.findSimilar(report);
+        detector.add(report);
+        if (matches.isEmpty()) {
+            return null;
         }
         
-        return null;
+        DuplicateDetector.Match best = matches.get(0);
+        double confidence = Math.min(95.0, 50.0 + best.getSimilarity() * 50.0);
+        String distance = Double.isNaN(best.getDistanceKm()) ? "in the same area"
+                : String.format("%.1f km away", best.getDistanceKm());
+        String reporter = userId != null && userId.equals(best.getReporterId()) ? "by the same user" : "by another reporter";
+        return new FraudAlert(userId, FraudType.DUPLICATE_REQUEST, confidence,
+                String.format("%.0f%% similar to %s %s reported %s, %s and %d min apart",
+                        best.getSimilarity() * 100, best.getKind() == TriageQueue.Kind.SOS ? "SOS alert" : "request",
+                        best.getRecordId(), reporter, distance, best.getMinutesApart()),
+                best.getSimilarity());
     }
     
     private FraudAlert checkLocationConsistency(EmergencyRequest request) {
         String userId = request.getRequesterId();
+        double lat = request.getLocationLat();
+        double lng = request.getLocationLng();
+        if (userId == null || (lat == 0 && lng == 0)) {
+            return null; // No coordinates to compare
+        }
         
-        // This would check against previous location data
-        // For now, implement basic impossible travel detection
-        double travelSpeed = calculateTravelSpeed(userId, request.getLocationLat(), request.getLocationLng());
+        // Compare with the user's last known position, then remember this one
+        PositionStore positions = PositionStore.getInstance();
+        long now = System.currentTimeMillis();
+        PositionStore.Movement movement = positions.movementTo(userId, lat, lng, now);
+        positions.record(userId, lat, lng, now);
         
-        if (travelSpeed > 200.0) { // More than 200 km/h is suspicious
+        if (movement != null && movement.getSpeedKmh() > 200.0) { // More than 200 km/h is suspicious
             return new FraudAlert(userId, FraudType.IMPOSSIBLE_LOCATION, 85.0,
-                    String.format("Location changed at impossible speed: %.1f km/h", travelSpeed));
+                    String.format("Location changed at impossible speed: %.1f km in %d min (%.1f km/h)",
+                            movement.getDistanceKm(), movement.getElapsedMillis() / 60000, movement.getSpeedKmh()));
         }
         
         return null;
     }
     
     private FraudAlert checkRequestFrequency(String userId) {
-        List<String> recentActivities = userActivityLog.getOrDefault(userId, new ArrayList<>());
+        UserActivity activity = userActivity.get(userId);
+        if (activity == null) {
+            return null;
+        }
         
-        long requestCount = recentActivities.stream()
-                .filter(activity -> activity.contains("REQUEST"))
-                .count();
+        long requestCount = activity.requests(RECENT_WINDOW_MILLIS, System.currentTimeMillis());
         
-        if (requestCount > 10) { // More than 10 requests recently
+        if (requestCount > 10) { // More than 10 requests in the last hour
             double confidence = Math.min(90.0, 50.0 + (requestCount * 4.0));
             return new FraudAlert(userId, FraudType.EXCESSIVE_REQUESTS, confidence,
                     String.format("Made %d requests in short timeframe", requestCount));
@@ -290,30 +382,28 @@ public class FraudDetectionEngine {
         return null;
     }
     
-    private double calculateExcessiveRequestScore(String userId, String resourceCategory) {
-        List<String> activities = userActivityLog.getOrDefault(userId, new ArrayList<>());
+    private double calculateExcessiveRequestScore(String userId, int category) {
+        UserActivity activity = userActivity.get(userId);
+        if (activity == null) {
+            return 0.0;
+        }
         
-        long categoryRequests = activities.stream()
-                .filter(activity -> activity.contains("RESOURCE_REQUEST"))
-                .filter(activity -> activity.toLowerCase().contains(resourceCategory.toLowerCase()))
-                .count();
+        long categoryRequests = UserActivity.count(activity.byResourceCategory, category,
+                RECENT_WINDOW_MILLIS, System.currentTimeMillis());
         
         // Calculate score based on request frequency
         return Math.min(100.0, categoryRequests * 15.0);
     }
     
     private double analyzeUserPattern(String userId) {
-        List<String> activities = userActivityLog.getOrDefault(userId, new ArrayList<>());
+        UserActivity activity = userActivity.get(userId);
         
-        if (activities.size() < 3) {
+        if (activity == null || activity.total.get() < 3) {
             return 0.0; // Not enough data for pattern analysis
         }
         
         // Simple pattern analysis - check for rapid sequential requests
-        long rapidRequests = activities.stream()
-                .filter(activity -> activity.contains("REQUEST"))
-                .limit(5)
-                .count();
+        long rapidRequests = activity.requests(RAPID_WINDOW_MILLIS, System.currentTimeMillis());
         
         if (rapidRequests >= 5) {
             return 80.0; // High suspicion for rapid requests
@@ -323,44 +413,60 @@ public class FraudDetectionEngine {
     }
     
     private boolean hasConsistentActivityHistory(String userId) {
-        List<String> activities = userActivityLog.getOrDefault(userId, new ArrayList<>());
-        return activities.size() >= 3 && activities.size() <= 20; // Reasonable activity level
+        UserActivity activity = userActivity.get(userId);
+        return activity != null && activity.total.get() >= 3
+                && activity.requests(RECENT_WINDOW_MILLIS, System.currentTimeMillis()) <= 20; // Reasonable activity level
     }
     
-    private double calculateTravelSpeed(String userId, double lat, double lng) {
-        // This would calculate speed based on previous location and timestamp
-        // For demo purposes, return a random speed
-        return Math.random() * 300; // 0-300 km/h
+    private UserActivity activityOf(String userId) {
+        return userActivity.computeIfAbsent(userId, id -> new UserActivity());
     }
     
-    private void logUserActivity(String userId, String activityType, String details) {
-        userActivityLog.computeIfAbsent(userId, k -> new ArrayList<>())
-                .add(String.format("[%s] %s: %s", 
-                        LocalDateTime.now().toString(), activityType, details));
-        
-        // Keep only last 50 activities per user
-        List<String> activities = userActivityLog.get(userId);
-        if (activities.size() > 50) {
-            activities.subList(0, activities.size() - 50).clear();
+    /**
+     * Slot of a resource's category in the per-category counters
+     */
+    private static int categoryIndex(Resource resource) {
+        Resource.ResourceCategory[] categories = Resource.ResourceCategory.values();
+        if (resource.getCategoryEnum() != null) {
+            return resource.getCategoryEnum().ordinal();
+        }
+        String category = resource.getCategory();
+        if (category != null) {
+            for (Resource.ResourceCategory candidate : categories) {
+                if (candidate.name().equalsIgnoreCase(category) || candidate.getDisplayName().equalsIgnoreCase(category)) {
+                    return candidate.ordinal();
+                }
+            }
+        }
+        return categories.length;
+    }
+    
+    /**
+     * Count an activity; subtype is the resource category slot, -1 for none
+     */
+    private void logUserActivity(String userId, ActivityType activityType, int subtype) {
+        UserActivity activity = activityOf(userId);
+        long now = System.currentTimeMillis();
+        activity.byType[activityType.ordinal()].record(now);
+        if (subtype >= 0 && activityType == ActivityType.RESOURCE_REQUEST) {
+            UserActivity.counter(activity.byResourceCategory, subtype).record(now);
         }
+        activity.total.incrementAndGet();
         
         // Update suspicion score
-        updateSuspicionScore(userId);
+        updateSuspicionScore(activity, now);
     }
     
-    private void updateSuspicionScore(String userId) {
-        List<String> activities = userActivityLog.getOrDefault(userId, new ArrayList<>());
-        
+    private void updateSuspicionScore(UserActivity activity, long now) {
         double score = 0.0;
         
         // Count suspicious activities
-        long blockedCount = activities.stream().filter(a -> a.contains("BLOCKED")).count();
-        long excessiveRequests = activities.stream().filter(a -> a.contains("REQUEST")).count();
+        long excessiveRequests = activity.requests(RECENT_WINDOW_MILLIS, now);
         
-        score += blockedCount * 50.0; // Heavy penalty for being blocked
+        score += activity.blocked ? 50.0 : 0.0; // Heavy penalty for being blocked
         score += Math.min(30.0, excessiveRequests * 2.0); // Penalty for excessive requests
         
-        suspiciousActivityScores.put(userId, Math.min(100.0, score));
+        activity.suspicionScore = Math.min(100.0, score);
     }
     
     /**
@@ -370,22 +476,22 @@ public class FraudDetectionEngine {
         StringBuilder report = new StringBuilder();
         report.append("=== FRAUD DETECTION REPORT ===\n");
         report.append("Detection Threshold: ").append(detectionThreshold).append("%\n");
-        report.append("Total Users Monitored: ").append(userActivityLog.size()).append("\n");
+        report.append("Total Users Monitored: ").append(userActivity.size()).append("\n");
         
-        long highRiskUsers = suspiciousActivityScores.values().stream()
-                .filter(score -> score >= 70.0)
+        long highRiskUsers = userActivity.values().stream()
+                .filter(activity -> activity.suspicionScore >= 70.0)
                 .count();
         
         report.append("High Risk Users: ").append(highRiskUsers).append("\n");
         
         if (highRiskUsers > 0) {
             report.append("\nHigh Risk Users:\n");
-            suspiciousActivityScores.entrySet().stream()
-                    .filter(entry -> entry.getValue() >= 70.0)
+            userActivity.entrySet().stream()
+                    .filter(entry -> entry.getValue().suspicionScore >= 70.0)
                     .forEach(entry -> report.append("- ")
                             .append(entry.getKey())
                             .append(" (Risk: ")
-                            .append(String.format("%.1f", entry.getValue()))
+                            .append(String.format("%.1f", entry.getValue().suspicionScore))
                             .append("%)\n"));
         }
         
@@ -0,0 +1,391 @@
+package com.reliefnet.util;
+
+import com.reliefnet.database.SpatialIndex;
+
+import java.util.*;
+
+/**
+ * IncidentClusterer - Groups active emergency requests and SOS alerts reported close together in
+ * space and time, so responders can handle one cluster instead of dozens of rows from the same place
+ *
+ * Clusters follow DBSCAN: two incidents are neighbours when they are within EPS_KM of each other
+ * and were reported within WINDOW_MILLIS; an incident with at least MIN_POINTS neighbours
+ * (itself included) is a core point, core points that are neighbours share a cluster, and other
+ * incidents join a neighbouring core's cluster or stay on their own. Incidents without
+ * coordinates are always on their own.
+ *
+ * The clusters are kept up to date as TriageQueue adds and removes items rather than recomputed.
+ * Points are bucketed in a grid of EPS_KM cells, so finding neighbours only looks at adjacent
+ * cells. An arrival updates its neighbours' counts and merges the clusters it connects (smaller
+ * into larger, carrying centroid sums and counts along); a departure that can split a cluster
+ * re-clusters just the members of the clusters it touched.
+ */
+public class IncidentClusterer implements TriageQueue.Observer {
+
+    public static final double EPS_KM = 1.5;
+    public static final long WINDOW_MILLIS = 6 * 60 * 60 * 1000L;
+    public static final int MIN_POINTS = 3;
+
+    // Grid rows and columns are EPS_KM tall in degrees of latitude (at the shortest degree length)
+    private static final double CELL_DEGREES = EPS_KM / 110.5;
+
+    /**
+     * A cluster as shown to views; a snapshot that does not change afterwards
+     */
+    public static class Cluster {
+        private final List<TriageQueue.Item> members;
+        private final int emergencyCount;
+        private final int sosCount;
+        private final int peopleCount;
+        private final double centroidLat;
+        private final double centroidLng;
+        private final double radiusKm;
+        private final long firstReportedMillis;
+        private final long lastReportedMillis;
+
+        Cluster(List<TriageQueue.Item> members, int emergencyCount, int sosCount, int peopleCount,
+                double centroidLat, double centroidLng, double radiusKm, long firstReportedMillis, long lastReportedMillis) {
+            this.members = members;
+            this.emergencyCount = emergencyCount;
+            this.sosCount = sosCount;
+            this.peopleCount = peopleCount;
+            this.centroidLat = centroidLat;
+            this.centroidLng = centroidLng;
+            this.radiusKm = radiusKm;
+            this.firstReportedMillis = firstReportedMillis;
+            this.lastReportedMillis = lastReportedMillis;
+        }
+
+        /** Members, most urgent first */
+        public List<TriageQueue.Item> getMembers() { return members; }
+        public TriageQueue.Item getRepresentative() { return members.get(0); }
+        public int getSize() { return members.size(); }
+        public int getEmergencyCount() { return emergencyCount; }
+        public int getSosCount() { return sosCount; }
+        public int getPeopleCount() { return peopleCount; }
+        /** Centroid of the located members, NaN when none has coordinates */
+        public double getCentroidLat() { return centroidLat; }
+        public double getCentroidLng() { return centroidLng; }
+        /** Distance from the centroid to the farthest located member */
+        public double getRadiusKm() { return radiusKm; }
+        public long getFirstReportedMillis() { return firstReportedMillis; }
+        public long getLastReportedMillis() { return lastReportedMillis; }
+        public String getTopPriority() { return getRepresentative().getPriority(); }
+        public String getLocationName() { return getRepresentative().getLocationName(); }
+    }
+
+    private static final class Point {
+        final TriageQueue.Item item;
+        final long cell;
+        // Neighbours within EPS_KM and WINDOW_MILLIS, counting the point itself
+        int neighbors = 1;
+        Group group;
+
+        Point(TriageQueue.Item item) {
+            this.item = item;
+            this.cell = item.hasPosition() ? cellKey(row(item.getLat()), column(item.getLng())) : 0;
+        }
+
+        boolean isCore() {
+            return neighbors >= MIN_POINTS;
+        }
+    }
+
+    private static final class Group {
+        final Set<Point> members = new LinkedHashSet<>();
+        int located;
+        double sumLat;
+        double sumLng;
+
+        void add(Point point) {
+            members.add(point);
+            point.group = this;
+            if (point.item.hasPosition()) {
+                located++;
+                sumLat += point.item.getLat();
+                sumLng += point.item.getLng();
+            }
+        }
+
+        void remove(Point point) {
+            members.remove(point);
+            if (point.item.hasPosition()) {
+                located--;
+                sumLat -= point.item.getLat();
+                sumLng -= point.item.getLng();
+            }
+        }
+    }
+
+    private static IncidentClusterer instance;
+
+    private final Map<TriageQueue.Item, Point> points = new HashMap<>();
+    private final Map<Long, List<Point>> grid = new HashMap<>();
+    private final Set<Group> groups = new HashSet<>();
+    // Clusters that lost a core point since the last read and may have to split
+    private final Set<Group> broken = new HashSet<>();
+    private List<Cluster> snapshot;
+
+    private IncidentClusterer() {
+    }
+
+    public static synchronized IncidentClusterer getInstance() {
+        if (instance == null) {
+            instance = new IncidentClusterer();
+            TriageQueue.getInstance().addObserver(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * All clusters of the active incidents, the most urgent first (top priority, then size)
+     */
+    public List<Cluster> getClusters() {
+        // Bring the queue up to date first; it reports changes back before this returns
+        TriageQueue.getInstance().size();
+        synchronized (this) {
+            if (snapshot == null) {
+                if (!broken.isEmpty()) {
+                    recluster();
+                }
+                List<Cluster> clusters = new ArrayList<>(groups.size());
+                for (Group group : groups) {
+                    clusters.add(toCluster(group));
+                }
+                clusters.sort(Comparator
+                    .comparingInt((Cluster c) -> TriageQueue.levelOf(c.getTopPriority())).reversed()
+                    .thenComparing(Comparator.comparingInt(Cluster::getSize).reversed())
+                    .thenComparing(Comparator.comparingDouble((Cluster c) -> c.getRepresentative().getScore()).reversed()));
+                snapshot = Collections.unmodifiableList(clusters);
+            }
+            return snapshot;
+        }
+    }
+
+    // TriageQueue.Observer
+
+    @Override
+    public synchronized void itemAdded(TriageQueue.Item item) {
+        snapshot = null;
+        Point point = new Point(item);
+        points.put(item, point);
+        Group own = new Group();
+        own.add(point);
+        groups.add(own);
+        if (!item.hasPosition()) {
+            return;
+        }
+
+        List<Point> near = neighbors(point);
+        grid.computeIfAbsent(point.cell, cell -> new ArrayList<>()).add(point);
+        point.neighbors += near.size();
+        List<Point> promoted = new ArrayList<>();
+        for (Point other : near) {
+            other.neighbors++;
+            if (other.neighbors == MIN_POINTS) {
+                promoted.add(other);
+            }
+        }
+        if (point.isCore()) {
+            expand(point, near);
+        }
+        for (Point core : promoted) {
+            expand(core, neighbors(core));
+        }
+        if (!point.isCore()) {
+            attach(point, near);
+        }
+    }
+
+    @Override
+    public synchronized void itemRemoved(TriageQueue.Item item) {
+        Point point = points.remove(item);
+        if (point == null) {
+            return;
+        }
+        snapshot = null;
+        Group group = point.group;
+        group.remove(point);
+        if (group.members.isEmpty()) {
+            groups.remove(group);
+            broken.remove(group);
+        }
+        if (!item.hasPosition()) {
+            return;
+        }
+
+        List<Point> cell = grid.get(point.cell);
+        cell.remove(point);
+        if (cell.isEmpty()) {
+            grid.remove(point.cell);
+        }
+        // Losing a core point (this one, or a neighbour that drops below MIN_POINTS) may split
+        // clusters; splitting waits for the next read so a batch of changes re-clusters them once
+        if (point.isCore() && !group.members.isEmpty()) {
+            broken.add(group);
+        }
+        for (Point other : neighbors(point)) {
+            other.neighbors--;
+            if (other.neighbors == MIN_POINTS - 1) {
+                broken.add(other.group);
+            }
+        }
+    }
+
+    /**
+     * Re-run the clustering for the members of the broken clusters; neighbour counts are already correct
+     */
+    private void recluster() {
+        List<Point> members = new ArrayList<>();
+        for (Group group : broken) {
+            members.addAll(group.members);
+            groups.remove(group);
+        }
+        broken.clear();
+        for (Point member : members) {
+            Group own = new Group();
+            own.add(member);
+            groups.add(own);
+        }
+        for (Point member : members) {
+            if (member.isCore()) {
+                expand(member, neighbors(member));
+            }
+        }
+        for (Point member : members) {
+            if (!member.isCore() && member.item.hasPosition()) {
+                attach(member, neighbors(member));
+            }
+        }
+    }
+
+    /**
+     * Join a core point with its core neighbours and take in neighbours that are on their own
+     */
+    private void expand(Point core, List<Point> near) {
+        for (Point other : near) {
+            if (other.isCore()) {
+                merge(core.group, other.group);
+            } else if (other.group.members.size() == 1 && other.group != core.group) {
+                move(other, core.group);
+            }
+        }
+    }
+
+    /**
+     * Put a non-core point that is on its own into a neighbouring core's cluster, if it has one
+     */
+    private void attach(Point point, List<Point> near) {
+        if (point.group.members.size() != 1) {
+            return;
+        }
+        for (Point other : near) {
+            if (other.isCore()) {
+                move(point, other.group);
+                return;
+            }
+        }
+    }
+
+    private void merge(Group a, Group b) {
+        if (a == b) {
+            return;
+        }
+        Group into = a.members.size() >= b.members.size() ? a : b;
+        Group from = into == a ? b : a;
+        for (Point point : new ArrayList<>(from.members)) {
+            into.add(point);
+        }
+        groups.remove(from);
+        if (broken.remove(from)) {
+            broken.add(into);
+        }
+    }
+
+    private void move(Point point, Group into) {
+        Group from = point.group;
+        from.remove(point);
+        if (from.members.isEmpty()) {
+            groups.remove(from);
+            broken.remove(from);
+        }
+        into.add(point);
+    }
+
+    /**
+     * Located points within EPS_KM and WINDOW_MILLIS of the given one, excluding itself
+     */
+    private List<Point> neighbors(Point point) {
+        List<Point> near = new ArrayList<>();
+        TriageQueue.Item item = point.item;
+        double lat = item.getLat();
+        double lng = item.getLng();
+        // Columns share the row height in degrees, so a degree of longitude covers fewer km away from the equator
+        double latitude = Math.min(89.0, Math.abs(lat) + CELL_DEGREES);
+        double lngSpan = EPS_KM / (111.0 * Math.cos(Math.toRadians(latitude)));
+        int row = row(lat);
+        int firstColumn = column(lng - lngSpan);
+        int lastColumn = column(lng + lngSpan);
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                List<Point> cell = grid.get(cellKey(r, c));
+                if (cell == null) {
+                    continue;
+                }
+                for (Point other : cell) {
+                    TriageQueue.Item candidate = other.item;
+                    if (other != point
+                            && Math.abs(candidate.getCreatedAtMillis() - item.getCreatedAtMillis()) <= WINDOW_MILLIS
+                            && SpatialIndex.distanceKm(lat, lng, candidate.getLat(), candidate.getLng()) <= EPS_KM) {
+                        near.add(other);
+                    }
+                }
+            }
+        }
+        return near;
+    }
+
+    private static Cluster toCluster(Group group) {
+        List<TriageQueue.Item> members = new ArrayList<>(group.members.size());
+        int emergencies = 0;
+        int people = 0;
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (Point point : group.members) {
+            TriageQueue.Item item = point.item;
+            members.add(item);
+            if (item.getKind() == TriageQueue.Kind.EMERGENCY) {
+                emergencies++;
+            }
+            people += item.getPeopleCount();
+            first = Math.min(first, item.getCreatedAtMillis());
+            last = Math.max(last, item.getCreatedAtMillis());
+        }
+        members.sort(Comparator.comparingDouble(TriageQueue.Item::getScore).reversed());
+
+        double lat = group.located > 0 ? group.sumLat / group.located : Double.NaN;
+        double lng = group.located > 0 ? group.sumLng / group.located : Double.NaN;
+        double radius = 0;
+        if (group.located > 0) {
+            for (TriageQueue.Item item : members) {
+                if (item.hasPosition()) {
+                    radius = Math.max(radius, SpatialIndex.distanceKm(lat, lng, item.getLat(), item.getLng()));
+                }
+            }
+        }
+        return new Cluster(Collections.unmodifiableList(members), emergencies, members.size() - emergencies, people,
+                           lat, lng, radius, first, last);
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor(lat / CELL_DEGREES);
+    }
+
+    private static int column(double lng) {
+        return (int) Math.floor(lng / CELL_DEGREES);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
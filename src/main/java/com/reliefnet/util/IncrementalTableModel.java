@@ -0,0 +1,218 @@
+package com.reliefnet.util;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * IncrementalTableModel - Keeps a TableView's backing list in step with the database by applying
+ * only the rows that changed since the last refresh, instead of clearing and reloading everything.
+ *
+ * Rows are matched by key. A changed row that still belongs in the list replaces the existing item
+ * in place (new rows go to the top), and one that no longer matches the filter is removed, so
+ * selection and scroll position survive a refresh. The model remembers the highest row_version it
+ * has seen; views query "row_version > ?" with it and pass the result to {@link #applyChanges}.
+ * When the list is paged by a {@link KeysetPager}, restrict that query to the pager's window.
+ * Must be used on the JavaFX application thread, like the list it wraps.
+ */
+public class IncrementalTableModel<T> {
+
+    private final ObservableList<T> items;
+    private final Function<T, String> keyExtractor;
+    private final Predicate<T> filter;
+
+    private final Map<String, Integer> positions = new HashMap<>();
+    private boolean positionsValid = false;
+    private boolean applying = false;
+    private long version = -1;
+    private long deletions = -1;
+
+    public IncrementalTableModel(ObservableList<T> items, Function<T, String> keyExtractor) {
+        this(items, keyExtractor, item -> true);
+    }
+
+    public IncrementalTableModel(ObservableList<T> items, Function<T, String> keyExtractor, Predicate<T> filter) {
+        this.items = items;
+        this.keyExtractor = keyExtractor;
+        this.filter = filter;
+
+        // Edits made directly on the list (e.g. optimistic inserts) just invalidate the key index
+        items.addListener((ListChangeListener<T>) change -> {
+            if (!applying) {
+                positionsValid = false;
+            }
+        });
+    }
+
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Highest row_version applied so far, or -1 before the first load
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isLoaded() {
+        return version >= 0;
+    }
+
+    /**
+     * Force the next refresh to do a full load (e.g. after the list was repopulated with other data)
+     */
+    public void invalidate() {
+        version = -1;
+        positionsValid = false;
+    }
+
+    /**
+     * Replace the whole list - used for the first load and after {@link #invalidate()}
+     */
+    public void loadAll(List<T> rows, long newVersion) {
+        List<T> accepted = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            if (filter.test(row)) {
+                accepted.add(row);
+            }
+        }
+
+        applying = true;
+        try {
+            items.setAll(accepted);
+        } finally {
+            applying = false;
+        }
+        positionsValid = false;
+        version = Math.max(newVersion, 0);
+    }
+
+    /**
+     * Record that the list was filled by someone else (e.g. a pager) as of the given row_version
+     */
+    public void markLoaded(long newVersion) {
+        positionsValid = false;
+        version = Math.max(newVersion, 0);
+    }
+
+    /**
+     * Apply rows changed since {@link #getVersion()}, ordered newest first.
+     * Returns the number of list items that were inserted, replaced or removed.
+     */
+    public int applyChanges(List<T> changedRows, long newVersion) {
+        if (changedRows.isEmpty()) {
+            version = Math.max(version, newVersion);
+            return 0;
+        }
+
+        ensurePositions();
+
+        List<T> inserts = new ArrayList<>();
+        TreeSet<Integer> removals = new TreeSet<>(Comparator.reverseOrder());
+        int touched = 0;
+
+        applying = true;
+        try {
+            for (T row : changedRows) {
+                String key = keyExtractor.apply(row);
+                Integer position = positions.get(key);
+                boolean belongs = filter.test(row);
+
+                if (position != null) {
+                    if (belongs) {
+                        items.set(position, row);
+                    } else {
+                        removals.add(position);
+                    }
+                    touched++;
+                } else if (belongs) {
+                    inserts.add(row);
+                    touched++;
+                }
+            }
+
+            for (int position : removals) {
+                items.remove(position);
+            }
+            if (!inserts.isEmpty()) {
+                items.addAll(0, inserts);
+            }
+        } finally {
+            applying = false;
+        }
+
+        if (!removals.isEmpty() || !inserts.isEmpty()) {
+            positionsValid = false;
+        }
+        version = Math.max(version, newVersion);
+        return touched;
+    }
+
+    /**
+     * Record the table's deletion count ({@link com.reliefnet.database.DatabaseManager#getDeletionCount});
+     * true when it moved since the last call, i.e. rows may have to go through {@link #retainKeys}
+     */
+    public boolean deletionsChanged(long deletionCount) {
+        boolean changed = deletionCount != deletions;
+        deletions = deletionCount;
+        return changed;
+    }
+
+    /**
+     * Drop items whose key is no longer present in the database (rows deleted outright,
+     * which row_version cannot report). Returns the number of items removed.
+     */
+    public int retainKeys(Set<String> liveKeys) {
+        int before = items.size();
+        applying = true;
+        try {
+            items.removeIf(item -> !liveKeys.contains(keyExtractor.apply(item)));
+        } finally {
+            applying = false;
+        }
+
+        int removed = before - items.size();
+        if (removed > 0) {
+            positionsValid = false;
+        }
+        return removed;
+    }
+
+    /**
+     * Rebuild the key to position index, dropping duplicate keys left behind by direct list edits
+     */
+    private void ensurePositions() {
+        if (positionsValid) {
+            return;
+        }
+
+        positions.clear();
+        List<Integer> duplicates = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            String key = keyExtractor.apply(items.get(i));
+            if (positions.putIfAbsent(key, i) != null) {
+                duplicates.add(i);
+            }
+        }
+
+        if (!duplicates.isEmpty()) {
+            applying = true;
+            try {
+                for (int i = duplicates.size() - 1; i >= 0; i--) {
+                    items.remove((int) duplicates.get(i));
+                }
+            } finally {
+                applying = false;
+            }
+            positions.clear();
+            for (int i = 0; i < items.size(); i++) {
+                positions.put(keyExtractor.apply(items.get(i)), i);
+            }
+        }
+        positionsValid = true;
+    }
+}
@@ -0,0 +1,490 @@
+package com.reliefnet.util;
+
+import com.reliefnet.database.DatabaseManager;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Control;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.skin.VirtualFlow;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * KeysetPager - Lazily pages a large query into a TableView or ListView
+ *
+ * Pages are fetched with keyset (seek) pagination on a (timestamp, id) pair instead of OFFSET,
+ * so every page costs the same no matter how deep the user scrolls. Only a bounded window of
+ * rows is kept in the list: when it grows past the limit, rows at the far end are dropped and
+ * fetched again if the user scrolls back. The next page is prefetched once the viewport gets
+ * close to either end of the window.
+ *
+ * Rows are kept in display order: newest first for tables, oldest first (newest at the bottom)
+ * for chat. The select must expose the timestamp and id columns under their unqualified names.
+ * Passing the id column as the timestamp column orders by id alone (arrival order).
+ *
+ * Pagers register with the MemoryGovernor; under memory pressure the window shrinks from its
+ * oldest end and those rows are paged back in on demand.
+ */
+public class KeysetPager<T> implements MemoryGovernor.Evictable {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAX_WINDOW = 500;
+    private static final double PREFETCH_THRESHOLD = 0.15;
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Position of a row in the (timestamp, id) ordering
+     */
+    private static final class Cursor {
+        final Object time;
+        final long id;
+
+        Cursor(Object time, long id) {
+            this.time = time;
+            this.id = id;
+        }
+    }
+
+    private final ObservableList<T> items;
+    private final String selectFrom;
+    private final String where;
+    private Object[] whereParams;
+    private final String timeColumn;
+    private final String idColumn;
+    private final boolean newestFirst;
+    private final RowMapper<T> mapper;
+    private final Function<T, Object> cursorKey;
+    private final Map<Object, Cursor> cursors;
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private int maxWindow = DEFAULT_MAX_WINDOW;
+
+    private Cursor oldest;
+    private Cursor newest;
+    private boolean hasOlder = true;
+    private boolean hasNewer = false;
+    private boolean loading = false;
+    private VirtualFlow<?> flow;
+
+    /**
+     * @param items        list shown by the control, kept in display order
+     * @param selectFrom   "SELECT ... FROM ... [JOIN ...]" without WHERE or ORDER BY
+     * @param where        filter condition, or null for all rows
+     * @param whereParams  parameters for the filter condition
+     * @param timeColumn   qualified timestamp column, e.g. "m.sent_at"
+     * @param idColumn     qualified integer id column, e.g. "m.id"
+     * @param newestFirst  true for tables (newest on top), false for chat (newest at the bottom)
+     * @param keyExtractor stable row key, or null to track rows by identity
+     */
+    public KeysetPager(ObservableList<T> items, String selectFrom, String where, Object[] whereParams,
+                       String timeColumn, String idColumn, boolean newestFirst,
+                       RowMapper<T> mapper, Function<T, String> keyExtractor) {
+        this.items = items;
+        this.selectFrom = selectFrom;
+        this.where = where;
+        this.whereParams = whereParams != null ? whereParams : new Object[0];
+        this.timeColumn = timeColumn;
+        this.idColumn = idColumn;
+        this.newestFirst = newestFirst;
+        this.mapper = mapper;
+        if (keyExtractor != null) {
+            this.cursorKey = keyExtractor::apply;
+            this.cursors = new HashMap<>();
+        } else {
+            this.cursorKey = item -> item;
+            this.cursors = new IdentityHashMap<>();
+        }
+        MemoryGovernor.getInstance().register(this);
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    public void setMaxWindow(int maxWindow) {
+        this.maxWindow = Math.max(pageSize * 2, maxWindow);
+    }
+
+    /**
+     * Change the filter parameters (e.g. switching chat channel); call {@link #reload()} afterwards
+     */
+    public void setWhereParams(Object... whereParams) {
+        this.whereParams = whereParams != null ? whereParams : new Object[0];
+    }
+
+    public boolean hasOlder() {
+        return hasOlder;
+    }
+
+    /**
+     * True when rows newer than the window were trimmed away and must be paged back in
+     */
+    public boolean hasNewer() {
+        return hasNewer;
+    }
+
+    /**
+     * Replace the list with the newest page
+     */
+    public int reload() throws SQLException {
+        loading = true;
+        try {
+            items.clear();
+            cursors.clear();
+            oldest = null;
+            newest = null;
+            hasOlder = true;
+            hasNewer = false;
+
+            List<Row<T>> page = fetch(null, true);
+            hasOlder = page.size() == pageSize;
+            if (!page.isEmpty()) {
+                newest = page.get(0).cursor;
+                oldest = page.get(page.size() - 1).cursor;
+            }
+            addAtEnd(page, true, false);
+            return page.size();
+        } finally {
+            loading = false;
+        }
+    }
+
+    /**
+     * Fetch the page just older than the window, trimming the newest rows if the window is full
+     */
+    public int loadOlder() throws SQLException {
+        if (!hasOlder || loading) {
+            return 0;
+        }
+        loading = true;
+        try {
+            List<Row<T>> page = fetch(oldest, true);
+            hasOlder = page.size() == pageSize;
+            if (page.isEmpty()) {
+                return 0;
+            }
+            oldest = page.get(page.size() - 1).cursor;
+            if (newest == null) {
+                newest = page.get(0).cursor;
+            }
+            addAtEnd(page, true, true);
+            trim(false);
+            return page.size();
+        } finally {
+            loading = false;
+        }
+    }
+
+    /**
+     * Fetch the page just newer than the window (only after newer rows were trimmed)
+     */
+    public int loadNewer() throws SQLException {
+        if (!hasNewer || loading) {
+            return 0;
+        }
+        loading = true;
+        try {
+            List<Row<T>> page = fetch(newest, false);
+            hasNewer = page.size() == pageSize;
+            if (page.isEmpty()) {
+                return 0;
+            }
+            newest = page.get(page.size() - 1).cursor;
+            addAtEnd(page, false, true);
+            trim(true);
+            return page.size();
+        } finally {
+            loading = false;
+        }
+    }
+
+    /**
+     * Append rows newer than the window, e.g. messages that just arrived. Does nothing while the
+     * user is scrolled away from the newest rows; they will be paged in on the way back.
+     */
+    public int loadLatest() throws SQLException {
+        if (hasNewer || loading) {
+            return 0;
+        }
+        if (newest == null) {
+            return reload();
+        }
+
+        loading = true;
+        try {
+            int total = 0;
+            List<Row<T>> page;
+            do {
+                page = fetch(newest, false);
+                if (page.isEmpty()) {
+                    break;
+                }
+                newest = page.get(page.size() - 1).cursor;
+                addAtEnd(page, false, true);
+                total += page.size();
+            } while (page.size() == pageSize);
+
+            trim(true);
+            return total;
+        } finally {
+            loading = false;
+        }
+    }
+
+    /**
+     * Record the cursor of a row read outside the pager, e.g. by a row_version change query over
+     * the same select, so the window can still be trimmed and paged at that row. The result set
+     * must be positioned on the row and expose the timestamp and id columns. Returns the item.
+     */
+    public T track(ResultSet rs, T item) throws SQLException {
+        cursors.put(cursorKey.apply(item), new Cursor(rs.getObject(unqualified(timeColumn)), rs.getLong(unqualified(idColumn))));
+        return item;
+    }
+
+    // MemoryGovernor.Evictable - rows at the oldest end can always be paged back in
+
+    @Override
+    public String getEvictionName() {
+        int from = selectFrom.toUpperCase().indexOf(" FROM ");
+        return "KeysetPager(" + (from >= 0 ? selectFrom.substring(from + 6).trim() : selectFrom) + ")";
+    }
+
+    @Override
+    public int getEvictionPriority() {
+        return MemoryGovernor.PRIORITY_DATA_WINDOW;
+    }
+
+    @Override
+    public int evict(double fraction) {
+        if (loading || items.size() <= pageSize) {
+            return 0;
+        }
+        int before = items.size();
+        int keep = Math.max(pageSize, before - (int) Math.ceil(before * fraction));
+        trim(true, keep);
+        return before - items.size();
+    }
+
+    /**
+     * SQL condition limiting a query to the (timestamp, id) range covered by the window, so
+     * change detection can skip rows that are not loaded. Use with {@link #windowParams()}.
+     */
+    public String windowClause() {
+        StringBuilder clause = new StringBuilder("1=1");
+        if (hasOlder && oldest != null) {
+            if (orderedByIdOnly()) {
+                clause.append(" AND ").append(idColumn).append(" >= ?");
+            } else {
+                clause.append(" AND (").append(timeColumn).append(" > ? OR (")
+                      .append(timeColumn).append(" = ? AND ").append(idColumn).append(" >= ?))");
+            }
+        }
+        if (hasNewer && newest != null) {
+            if (orderedByIdOnly()) {
+                clause.append(" AND ").append(idColumn).append(" <= ?");
+            } else {
+                clause.append(" AND (").append(timeColumn).append(" < ? OR (")
+                      .append(timeColumn).append(" = ? AND ").append(idColumn).append(" <= ?))");
+            }
+        }
+        return clause.toString();
+    }
+
+    public Object[] windowParams() {
+        List<Object> params = new ArrayList<>();
+        if (hasOlder && oldest != null) {
+            params.addAll(orderedByIdOnly() ? List.of(oldest.id) : Arrays.asList(oldest.time, oldest.time, oldest.id));
+        }
+        if (hasNewer && newest != null) {
+            params.addAll(orderedByIdOnly() ? List.of(newest.id) : Arrays.asList(newest.time, newest.time, newest.id));
+        }
+        return params.toArray();
+    }
+
+    /**
+     * True when rows are ordered by the id alone (time column = id column), e.g. chat arrival order
+     */
+    private boolean orderedByIdOnly() {
+        return timeColumn.equals(idColumn);
+    }
+
+    /**
+     * Prefetch pages as the control scrolls near either end of the window
+     */
+    public void bind(Control control) {
+        if (control.getSkin() != null) {
+            Platform.runLater(() -> attachFlow(control));
+        }
+        control.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            if (newSkin != null) {
+                Platform.runLater(() -> attachFlow(control));
+            }
+        });
+    }
+
+    private void attachFlow(Control control) {
+        if (!(control.lookup(".virtual-flow") instanceof VirtualFlow<?> found) || found == flow) {
+            return;
+        }
+        flow = found;
+        flow.positionProperty().addListener((obs, oldPos, newPos) -> {
+            if (loading) {
+                return;
+            }
+            double position = newPos.doubleValue();
+            boolean nearStart = position <= PREFETCH_THRESHOLD;
+            boolean nearEnd = position >= 1.0 - PREFETCH_THRESHOLD;
+
+            try {
+                // The oldest rows are at the end of a table but at the start of a chat
+                if (newestFirst ? nearEnd : nearStart) {
+                    loadOlder();
+                } else if (newestFirst ? nearStart : nearEnd) {
+                    loadNewer();
+                }
+            } catch (SQLException e) {
+                System.err.println("Error loading page: " + e.getMessage());
+            }
+        });
+    }
+
+    private static final class Row<T> {
+        final T item;
+        final Cursor cursor;
+
+        Row(T item, Cursor cursor) {
+            this.item = item;
+            this.cursor = cursor;
+        }
+    }
+
+    /**
+     * Fetch up to one page after the cursor; older = descending order, otherwise ascending
+     */
+    private List<Row<T>> fetch(Cursor after, boolean older) throws SQLException {
+        StringBuilder sql = new StringBuilder(selectFrom).append(" WHERE ");
+        List<Object> params = new ArrayList<>();
+        sql.append(where != null ? "(" + where + ")" : "1=1");
+        params.addAll(Arrays.asList(whereParams));
+
+        if (after != null) {
+            String op = older ? "<" : ">";
+            if (orderedByIdOnly()) {
+                // A plain range keeps the seek on the index
+                sql.append(" AND ").append(idColumn).append(' ').append(op).append(" ?");
+                params.add(after.id);
+            } else {
+                sql.append(" AND (").append(timeColumn).append(' ').append(op).append(" ? OR (")
+                   .append(timeColumn).append(" = ? AND ").append(idColumn).append(' ').append(op).append(" ?))");
+                params.addAll(Arrays.asList(after.time, after.time, after.id));
+            }
+        }
+
+        String direction = older ? "DESC" : "ASC";
+        sql.append(" ORDER BY ").append(timeColumn).append(' ').append(direction);
+        if (!orderedByIdOnly()) {
+            sql.append(", ").append(idColumn).append(' ').append(direction);
+        }
+        sql.append(" LIMIT ?");
+        params.add(pageSize);
+
+        String timeLabel = unqualified(timeColumn);
+        String idLabel = unqualified(idColumn);
+        List<Row<T>> page = new ArrayList<>();
+        DatabaseManager.getInstance().executeQueryWithCallback(sql.toString(), rs -> {
+            while (rs.next()) {
+                page.add(new Row<>(mapper.map(rs), new Cursor(rs.getObject(timeLabel), rs.getLong(idLabel))));
+            }
+        }, params.toArray());
+        return page;
+    }
+
+    /**
+     * Add a page at the old end (descending page) or the new end (ascending page) of the window
+     */
+    private void addAtEnd(List<Row<T>> page, boolean olderEnd, boolean keepPosition) {
+        List<T> pageItems = new ArrayList<>(page.size());
+        for (Row<T> row : page) {
+            pageItems.add(row.item);
+            cursors.put(cursorKey.apply(row.item), row.cursor);
+        }
+
+        // Pages arrive ordered away from the window; flip them when they go before it
+        boolean atListStart = newestFirst ? !olderEnd : olderEnd;
+        if (atListStart) {
+            Collections.reverse(pageItems);
+            int firstVisible = keepPosition ? firstVisibleIndex() : -1;
+            items.addAll(0, pageItems);
+            if (firstVisible >= 0 && flow != null) {
+                flow.scrollToTop(firstVisible + pageItems.size());
+            }
+        } else {
+            items.addAll(pageItems);
+        }
+    }
+
+    /**
+     * Drop rows beyond the window limit (or a smaller limit) from the newest end (when paging older) or the oldest end
+     */
+    private void trim(boolean trimOldest) {
+        trim(trimOldest, maxWindow);
+    }
+
+    private void trim(boolean trimOldest, int limit) {
+        int excess = items.size() - limit;
+        if (excess <= 0) {
+            return;
+        }
+
+        boolean fromListStart = newestFirst != trimOldest;
+        int boundaryIndex = fromListStart ? excess : items.size() - excess - 1;
+        Cursor boundary = cursors.get(cursorKey.apply(items.get(boundaryIndex)));
+        if (boundary == null) {
+            return; // Row added without track(); keep the window as is
+        }
+
+        int firstVisible = firstVisibleIndex();
+        List<T> dropped;
+        if (fromListStart) {
+            dropped = new ArrayList<>(items.subList(0, excess));
+            items.remove(0, excess);
+            if (firstVisible >= 0 && flow != null) {
+                flow.scrollToTop(Math.max(0, firstVisible - excess));
+            }
+        } else {
+            dropped = new ArrayList<>(items.subList(items.size() - excess, items.size()));
+            items.remove(items.size() - excess, items.size());
+        }
+        for (T item : dropped) {
+            cursors.remove(cursorKey.apply(item));
+        }
+
+        if (trimOldest) {
+            oldest = boundary;
+            hasOlder = true;
+        } else {
+            newest = boundary;
+            hasNewer = true;
+        }
+    }
+
+    private int firstVisibleIndex() {
+        if (flow == null) {
+            return -1;
+        }
+        IndexedCell<?> cell = flow.getFirstVisibleCell();
+        return cell != null ? cell.getIndex() : -1;
+    }
+
+    private static String unqualified(String column) {
+        int dot = column.lastIndexOf('.');
+        return dot >= 0 ? column.substring(dot + 1) : column;
+    }
+}
@@ -0,0 +1,322 @@
+package com.reliefnet.util;
+
+import java.util.*;
+
+/**
+ * LocationGazetteer - Resolves free-text locations to canonical places in one pass
+ *
+ * Every division, district, upazila and alias name from LocationHierarchy is compiled into a
+ * single Aho-Corasick automaton, so scanning an input finds every known name it contains in time
+ * linear in the input, however many names there are. Only whole-word occurrences count ("Bhola"
+ * does not match inside "Bholahat"), and a name inside a longer match is ignored ("Dhaka" inside
+ * "Old Dhaka"). The resolved place is the most specific one found that does not contradict a
+ * district or division the text names ("Mirpur, Dhaka" resolves to the Mirpur upazila of Dhaka,
+ * "Mirpur, Kushtia" to Kushtia), preferring places that agree with the other names in the text.
+ *
+ * Place ids use the same form as subscription topics: "division:dhaka", "district:cox's bazar",
+ * "upazila:mirpur". The automaton is immutable once built and safe to share between threads.
+ */
+public class LocationGazetteer {
+
+    public enum PlaceType { DIVISION, DISTRICT, UPAZILA }
+
+    /**
+     * A canonical place with its parents
+     */
+    public static class Place {
+        private final PlaceType type;
+        private final String name;
+        private final String district;
+        private final String division;
+
+        Place(PlaceType type, String name, String district, String division) {
+            this.type = type;
+            this.name = name;
+            this.district = district;
+            this.division = division;
+        }
+
+        public String getId() { return type.name().toLowerCase() + ":" + name.toLowerCase(); }
+        public PlaceType getType() { return type; }
+        public String getName() { return name; }
+        /** Canonical district name, or null for a division */
+        public String getDistrict() { return district; }
+        public String getDivision() { return division; }
+
+        @Override
+        public String toString() {
+            return getId();
+        }
+    }
+
+    /**
+     * One occurrence of a known name in the input
+     */
+    public static class Match {
+        private final Place place;
+        private final int start;
+        private final int end;
+
+        Match(Place place, int start, int end) {
+            this.place = place;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Place getPlace() { return place; }
+        /** Start offset in the input (inclusive) */
+        public int getStart() { return start; }
+        /** End offset in the input (exclusive) */
+        public int getEnd() { return end; }
+    }
+
+    /**
+     * Automaton state: goto edges, failure link and the patterns ending here
+     */
+    private static class Node {
+        final Map<Character, Node> next = new HashMap<>(4);
+        Node fail;
+        // Pattern ending exactly here, and the nearest proper suffix state that ends a pattern
+        Pattern output;
+        Node outputLink;
+    }
+
+    private static class Pattern {
+        final int length;
+        final Place place;
+
+        Pattern(int length, Place place) {
+            this.length = length;
+            this.place = place;
+        }
+    }
+
+    private static LocationGazetteer instance;
+
+    private final Node root = new Node();
+    private final Map<String, Place> placesById = new LinkedHashMap<>();
+    private int patternCount = 0;
+
+    private LocationGazetteer() {
+        build();
+    }
+
+    public static synchronized LocationGazetteer getInstance() {
+        if (instance == null) {
+            instance = new LocationGazetteer();
+        }
+        return instance;
+    }
+
+    /**
+     * Every whole-word occurrence of a known name, left to right, without names nested in longer matches
+     */
+    public List<Match> findAll(String text) {
+        List<Match> matches = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return matches;
+        }
+
+        String input = text.toLowerCase();
+        Node state = root;
+        for (int i = 0; i < input.length(); i++) {
+            char c = normalizeChar(input.charAt(i));
+            while (state != root && !state.next.containsKey(c)) {
+                state = state.fail;
+            }
+            state = state.next.getOrDefault(c, root);
+
+            for (Node out = state.output != null ? state : state.outputLink; out != null; out = out.outputLink) {
+                int start = i + 1 - out.output.length;
+                if (isBoundary(input, start - 1) && isBoundary(input, i + 1)) {
+                    matches.add(new Match(out.output.place, start, i + 1));
+                }
+            }
+        }
+        return dropNested(matches);
+    }
+
+    /**
+     * The most specific place named in the text, or null if it names none
+     */
+    public Place resolve(String text) {
+        List<Match> matches = findAll(text);
+        Place best = null;
+        int bestScore = Integer.MIN_VALUE;
+        for (Match match : matches) {
+            Place place = match.getPlace();
+            int agreement = 0;
+            int conflicts = 0;
+            for (Match other : matches) {
+                if (other == match) {
+                    continue;
+                }
+                if (agrees(place, other.getPlace())) {
+                    agreement++;
+                } else if (other.getPlace().getType().ordinal() < place.getType().ordinal()) {
+                    // A broader place named explicitly rules out a same-named place elsewhere
+                    conflicts++;
+                }
+            }
+            // No contradiction with named districts/divisions first, then specificity, then
+            // agreement with the rest of the text; earlier matches win ties
+            int score = -conflicts * 1000000 + place.getType().ordinal() * 1000 + agreement;
+            if (score > bestScore) {
+                best = place;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Canonical division named or implied by the text, or null
+     */
+    public String divisionOf(String text) {
+        Place place = resolve(text);
+        return place != null ? place.getDivision() : null;
+    }
+
+    /**
+     * Canonical district named or implied by the text, or null
+     */
+    public String districtOf(String text) {
+        Place place = resolve(text);
+        return place != null ? place.getDistrict() : null;
+    }
+
+    public Place getPlace(String id) {
+        return id != null ? placesById.get(id.toLowerCase()) : null;
+    }
+
+    public Collection<Place> getPlaces() {
+        return Collections.unmodifiableCollection(placesById.values());
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    private static boolean agrees(Place place, Place other) {
+        if (other.getDistrict() != null && place.getDistrict() != null) {
+            return other.getDistrict().equals(place.getDistrict());
+        }
+        return other.getDivision().equals(place.getDivision());
+    }
+
+    private static List<Match> dropNested(List<Match> matches) {
+        List<Match> kept = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            boolean nested = false;
+            for (Match other : matches) {
+                if (other != match && other.start <= match.start && other.end >= match.end
+                        && (other.end - other.start) > (match.end - match.start)) {
+                    nested = true;
+                    break;
+                }
+            }
+            if (!nested) {
+                kept.add(match);
+            }
+        }
+        kept.sort(Comparator.comparingInt(Match::getStart));
+        return kept;
+    }
+
+    private static boolean isBoundary(String input, int index) {
+        return index < 0 || index >= input.length() || !Character.isLetterOrDigit(input.charAt(index));
+    }
+
+    /**
+     * Fold the spellings that vary in practice ("Cox’s Bazar", "Chapai-Nawabganj")
+     */
+    private static char normalizeChar(char c) {
+        if (c == '’' || c == '`') {
+            return '\'';
+        }
+        if (c == '-' || c == '_') {
+            return ' ';
+        }
+        return c;
+    }
+
+    private void build() {
+        Map<String, Place> districts = new HashMap<>();
+        for (String division : new TreeSet<>(LocationHierarchy.getAllDivisions())) {
+            Place place = place(new Place(PlaceType.DIVISION, division, null, division));
+            addPattern(division + " division", place);
+        }
+        for (String key : new TreeSet<>(LocationHierarchy.getAllDistricts())) {
+            String name = LocationHierarchy.getDistrictName(key);
+            Place place = place(new Place(PlaceType.DISTRICT, name, name, LocationHierarchy.getDivisionForDistrict(key)));
+            districts.put(key, place);
+            addPattern(name, place);
+        }
+        for (Map.Entry<String, String> alias : LocationHierarchy.getAliases().entrySet()) {
+            Place district = districts.get(alias.getValue());
+            if (district != null) {
+                addPattern(alias.getKey(), district);
+                // "Chattogram Division" names the division, like "Chittagong Division"
+                if (district.getName().equalsIgnoreCase(district.getDivision())) {
+                    addPattern(alias.getKey() + " division", placesById.get("division:" + district.getDivision().toLowerCase()));
+                }
+            }
+        }
+        for (Map.Entry<String, String> upazila : LocationHierarchy.getUpazilas().entrySet()) {
+            Place district = districts.get(upazila.getValue());
+            if (district != null) {
+                Place place = place(new Place(PlaceType.UPAZILA, upazila.getKey(), district.getName(), district.getDivision()));
+                addPattern(upazila.getKey(), place);
+            }
+        }
+        linkFailures();
+    }
+
+    private Place place(Place place) {
+        placesById.putIfAbsent(place.getId(), place);
+        return placesById.get(place.getId());
+    }
+
+    private void addPattern(String name, Place place) {
+        String pattern = name.toLowerCase();
+        Node node = root;
+        for (int i = 0; i < pattern.length(); i++) {
+            node = node.next.computeIfAbsent(normalizeChar(pattern.charAt(i)), c -> new Node());
+        }
+        // A district name wins over an upazila of the same name (e.g. Sherpur)
+        if (node.output == null || node.output.place.getType().ordinal() > place.getType().ordinal()) {
+            if (node.output == null) {
+                patternCount++;
+            }
+            node.output = new Pattern(pattern.length(), place);
+        }
+    }
+
+    /**
+     * Breadth-first pass setting each state's failure link to the longest proper suffix that is
+     * also a prefix of some pattern, and its output link to the nearest such suffix ending a pattern
+     */
+    private void linkFailures() {
+        Deque<Node> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> edge : node.next.entrySet()) {
+                char c = edge.getKey();
+                Node child = edge.getValue();
+                Node fail = node.fail;
+                while (fail != root && !fail.next.containsKey(c)) {
+                    fail = fail.fail;
+                }
+                Node target = fail.next.get(c);
+                child.fail = target != null && target != child ? target : root;
+                child.outputLink = child.fail.output != null ? child.fail : child.fail.outputLink;
+                queue.add(child);
+            }
+        }
+    }
+}
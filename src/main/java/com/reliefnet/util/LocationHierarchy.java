@@ -11,6 +11,15 @@ public class LocationHierarchy {
     // Map of districts to their parent divisions
     private static final Map<String, String> districtToDivision = new HashMap<>();
     
+    // Canonical spelling of each district, keyed by lowercase name
+    private static final Map<String, String> districtNames = new LinkedHashMap<>();
+    
+    // Alternate spellings, mapped to the lowercase district they stand for
+    private static final Map<String, String> aliasToDistrict = new LinkedHashMap<>();
+    
+    // Upazilas and city thanas, mapped to the lowercase district they belong to
+    private static final Map<String, String> upazilaToDistrict = new LinkedHashMap<>();
+    
     static {
         // Dhaka Division
         addDistrictToDivision("Dhaka", "Dhaka");
@@ -91,9 +100,69 @@ public class LocationHierarchy {
         addDistrictToDivision("Jamalpur", "Mymensingh");
         addDistrictToDivision("Netrokona", "Mymensingh");
         addDistrictToDivision("Sherpur", "Mymensingh");
+        
+        // Official and common alternate spellings
+        addAlias("Chattogram", "Chittagong");
+        addAlias("Cox", "Cox's Bazar");
+        addAlias("Coxs Bazar", "Cox's Bazar");
+        addAlias("Khagrachhari", "Khagrachari");
+        addAlias("Cumilla", "Comilla");
+        addAlias("Bogura", "Bogra");
+        addAlias("Chapainawabganj", "Chapai Nawabganj");
+        addAlias("Jashore", "Jessore");
+        addAlias("Barishal", "Barisal");
+        addAlias("Jhalakathi", "Jhalokati");
+        addAlias("Maulvibazar", "Moulvibazar");
+        addAlias("Netrakona", "Netrokona");
+        
+        addAlias("Old Dhaka", "Dhaka");
+        addAlias("Puran Dhaka", "Dhaka");
+        
+        // Upazilas and city areas that reports often give instead of the district
+        addUpazila("Gulshan", "Dhaka");
+        addUpazila("Dhanmondi", "Dhaka");
+        addUpazila("Mirpur", "Dhaka");
+        addUpazila("Uttara", "Dhaka");
+        addUpazila("Banani", "Dhaka");
+        addUpazila("Mohammadpur", "Dhaka");
+        addUpazila("Motijheel", "Dhaka");
+        addUpazila("Savar", "Dhaka");
+        addUpazila("Keraniganj", "Dhaka");
+        addUpazila("Tongi", "Gazipur");
+        addUpazila("Sreepur", "Gazipur");
+        addUpazila("Rupganj", "Narayanganj");
+        addUpazila("Sitakunda", "Chittagong");
+        addUpazila("Patenga", "Chittagong");
+        addUpazila("Teknaf", "Cox's Bazar");
+        addUpazila("Ukhia", "Cox's Bazar");
+        addUpazila("Kutubdia", "Cox's Bazar");
+        addUpazila("Maheshkhali", "Cox's Bazar");
+        addUpazila("Hatiya", "Noakhali");
+        addUpazila("Sandwip", "Chittagong");
+        addUpazila("Mongla", "Bagerhat");
+        addUpazila("Shyamnagar", "Satkhira");
+        addUpazila("Koyra", "Khulna");
+        addUpazila("Kuakata", "Patuakhali");
+        addUpazila("Kalapara", "Patuakhali");
+        addUpazila("Char Fasson", "Bhola");
+        addUpazila("Sreemangal", "Moulvibazar");
+        addUpazila("Companiganj", "Sylhet");
+        addUpazila("Tahirpur", "Sunamganj");
+        addUpazila("Chilmari", "Kurigram");
+        addUpazila("Sariakandi", "Bogra");
+        addUpazila("Chauhali", "Sirajganj");
     }
       private static void addDistrictToDivision(String district, String division) {
         districtToDivision.put(district.toLowerCase(), division);
+        districtNames.put(district.toLowerCase(), district);
+    }
+    
+    private static void addAlias(String alias, String district) {
+        aliasToDistrict.put(alias.toLowerCase(), district.toLowerCase());
+    }
+    
+    private static void addUpazila(String upazila, String district) {
+        upazilaToDistrict.put(upazila, district.toLowerCase());
     }
     
     /**
@@ -108,7 +177,7 @@ public class LocationHierarchy {
     
     /**
      * Get the division for a given district
-     * @param district The district to look up
+     * @param district The district to look up (free text such as "Mirpur, Dhaka" is resolved by the gazetteer)
      * @return The parent division or the district itself if not found
      */
     public static String getDivisionForDistrict(String district) {
@@ -117,7 +186,11 @@ public class LocationHierarchy {
         }
         
         String normalizedDistrict = district.toLowerCase().trim();
-        return districtToDivision.getOrDefault(normalizedDistrict, district);
+        String division = districtToDivision.get(normalizedDistrict);
+        if (division == null) {
+            division = LocationGazetteer.getInstance().divisionOf(district);
+        }
+        return division != null ? division : district;
     }
     
     /**
@@ -183,6 +256,31 @@ public class LocationHierarchy {
         return new HashSet<>(districtToDivision.values());
     }
     
+    /**
+     * Canonical spelling of a district (e.g. "cox's bazar" -> "Cox's Bazar")
+     * @param district The district name in any case
+     * @return The canonical name, or null if it is not a known district
+     */
+    public static String getDistrictName(String district) {
+        return district != null ? districtNames.get(district.toLowerCase().trim()) : null;
+    }
+    
+    /**
+     * Get the alternate spellings and area names known for districts
+     * @return Map of lowercase alias to lowercase district name
+     */
+    public static Map<String, String> getAliases() {
+        return Collections.unmodifiableMap(aliasToDistrict);
+    }
+    
+    /**
+     * Get the known upazilas and city areas
+     * @return Map of upazila name (canonical spelling) to lowercase district name
+     */
+    public static Map<String, String> getUpazilas() {
+        return Collections.unmodifiableMap(upazilaToDistrict);
+    }
+    
     /**
      * Get all districts
      * @return Set of all districts
@@ -0,0 +1,389 @@
+package com.reliefnet.util;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import javafx.application.Platform;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.*;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryGovernor - Reacts to heap pressure by shrinking registered caches, a bit at a time
+ *
+ * Instead of polling, the governor sets usage and collection-usage thresholds on the heap pools
+ * that support them (the old generation) and listens for the JVM's threshold and GC
+ * notifications. Crossing the usage threshold raises pressure to ELEVATED; still being above the
+ * collection threshold right after a GC means live data is large and raises it to CRITICAL.
+ *
+ * Under pressure, each step asks registered {@link Evictable}s to release a fraction of their
+ * entries, cheapest-to-rebuild first: an ELEVATED step stops after the first priority tier that
+ * released something, a CRITICAL step shrinks every tier. Further steps follow later GCs while
+ * pressure lasts, and pressure drops back to NORMAL once usage after GC falls below the low-water
+ * mark. Nothing is cleared wholesale and System.gc() is never called. Evictions run on the
+ * JavaFX application thread, since most caches back visible controls.
+ */
+public class MemoryGovernor {
+
+    public enum Pressure { NORMAL, ELEVATED, CRITICAL }
+
+    /**
+     * A cache or window that can give back memory it is able to rebuild
+     */
+    public interface Evictable {
+        /**
+         * Name used in metrics and logs
+         */
+        String getEvictionName();
+
+        /**
+         * Lower values are evicted first (cheap to rebuild); see the PRIORITY_* constants
+         */
+        int getEvictionPriority();
+
+        /**
+         * Release roughly the given fraction (0..1] of the current entries; returns how many were released.
+         * Called on the JavaFX application thread.
+         */
+        int evict(double fraction);
+    }
+
+    public static final int PRIORITY_LOOKUP_CACHE = 10;
+    public static final int PRIORITY_DATA_WINDOW = 20;
+    public static final int PRIORITY_VIEW = 30;
+
+    private static final double USAGE_THRESHOLD = 0.75;
+    private static final double COLLECTION_THRESHOLD = 0.85;
+    private static final double LOW_WATER_MARK = 0.60;
+    private static final double ELEVATED_FRACTION = 0.25;
+    private static final double CRITICAL_FRACTION = 0.50;
+    private static final long MIN_STEP_INTERVAL_MS = 5000;
+
+    /**
+     * Eviction counts for one registered evictable
+     */
+    public static class EvictionStats {
+        private final String name;
+        private int runs;
+        private long entriesEvicted;
+        private long lastEvictedAt;
+
+        EvictionStats(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+        public int getRuns() { return runs; }
+        public long getEntriesEvicted() { return entriesEvicted; }
+        public long getLastEvictedAt() { return lastEvictedAt; }
+    }
+
+    private static MemoryGovernor instance;
+
+    // Weak so a registered view-level cache does not keep its view alive
+    private final List<WeakReference<Evictable>> evictables = new ArrayList<>();
+    private final Map<String, EvictionStats> stats = new LinkedHashMap<>();
+    private final List<MemoryPoolMXBean> monitoredPools = new ArrayList<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::handleNotification;
+    private final ExecutorService executor;
+
+    private volatile Pressure pressure = Pressure.NORMAL;
+    private volatile long lastStepAt = 0;
+    private int steps = 0;
+    private int thresholdEvents = 0;
+
+    private MemoryGovernor() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "MemoryGovernor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        installThresholds();
+        installListeners();
+    }
+
+    public static synchronized MemoryGovernor getInstance() {
+        if (instance == null) {
+            instance = new MemoryGovernor();
+        }
+        return instance;
+    }
+
+    /**
+     * Register a cache; the governor only holds it weakly, so keep a reference to it elsewhere
+     */
+    public synchronized void register(Evictable evictable) {
+        evictables.removeIf(ref -> ref.get() == null || ref.get() == evictable);
+        evictables.add(new WeakReference<>(evictable));
+        stats.computeIfAbsent(evictable.getEvictionName(), EvictionStats::new);
+    }
+
+    public synchronized void unregister(Evictable evictable) {
+        evictables.removeIf(ref -> ref.get() == null || ref.get() == evictable);
+    }
+
+    public Pressure getPressure() {
+        return pressure;
+    }
+
+    public boolean isMemoryUsageCritical() {
+        return pressure == Pressure.CRITICAL;
+    }
+
+    /**
+     * Per-evictable eviction metrics, in registration order
+     */
+    public synchronized List<EvictionStats> getEvictionStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    /**
+     * Run one eviction step now at the given level (e.g. before loading something large)
+     */
+    public void relieve(Pressure level) {
+        if (level != Pressure.NORMAL) {
+            executor.execute(() -> runStep(level));
+        }
+    }
+
+    private void installThresholds() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported()) {
+                continue;
+            }
+            long max = pool.getUsage().getMax();
+            if (max <= 0) {
+                continue;
+            }
+            pool.setUsageThreshold((long) (max * USAGE_THRESHOLD));
+            if (pool.isCollectionUsageThresholdSupported()) {
+                pool.setCollectionUsageThreshold((long) (max * COLLECTION_THRESHOLD));
+            }
+            monitoredPools.add(pool);
+        }
+        if (monitoredPools.isEmpty()) {
+            System.out.println("MemoryGovernor: No heap pool supports usage thresholds; pressure tracking disabled");
+        }
+    }
+
+    private void installListeners() {
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        if (memoryBean instanceof NotificationEmitter) {
+            NotificationEmitter emitter = (NotificationEmitter) memoryBean;
+            emitter.addNotificationListener(listener, null, null);
+            emitters.add(emitter);
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) gc;
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    /**
+     * Called on a JMX notification thread; hand the work to the governor thread
+     */
+    private void handleNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)) {
+            executor.execute(() -> raise(Pressure.ELEVATED, notification));
+        } else if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+            executor.execute(() -> raise(Pressure.CRITICAL, notification));
+        } else if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(type)) {
+            GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            executor.execute(() -> afterGc(info));
+        }
+    }
+
+    private void raise(Pressure level, Notification notification) {
+        thresholdEvents++;
+        if (level.ordinal() > pressure.ordinal()) {
+            MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+            System.out.println("MemoryGovernor: " + level + " pressure (" + info.getPoolName() + " at " +
+                               toMb(info.getUsage().getUsed()) + " of " + toMb(info.getUsage().getMax()) + " MB)");
+            pressure = level;
+        }
+        runStep(pressure);
+    }
+
+    /**
+     * After a GC: step down if the collection freed enough, otherwise keep shrinking gradually
+     */
+    private void afterGc(GarbageCollectionNotificationInfo info) {
+        if (pressure == Pressure.NORMAL) {
+            return;
+        }
+
+        Map<String, MemoryUsage> afterGc = info.getGcInfo().getMemoryUsageAfterGc();
+        double highestRatio = -1;
+        for (MemoryPoolMXBean pool : monitoredPools) {
+            MemoryUsage usage = afterGc.get(pool.getName());
+            if (usage != null && usage.getMax() > 0) {
+                highestRatio = Math.max(highestRatio, (double) usage.getUsed() / usage.getMax());
+            }
+        }
+        if (highestRatio < 0) {
+            return; // This collection did not cover the monitored pools
+        }
+
+        if (highestRatio < LOW_WATER_MARK) {
+            System.out.println("MemoryGovernor: Pressure relieved (" + Math.round(highestRatio * 100) + "% after " + info.getGcName() + ")");
+            pressure = Pressure.NORMAL;
+        } else {
+            if (highestRatio < USAGE_THRESHOLD && pressure == Pressure.CRITICAL) {
+                pressure = Pressure.ELEVATED;
+            }
+            runStep(pressure);
+        }
+    }
+
+    private void runStep(Pressure level) {
+        long now = System.currentTimeMillis();
+        if (now - lastStepAt < MIN_STEP_INTERVAL_MS) {
+            return;
+        }
+        lastStepAt = now;
+
+        List<Evictable> ordered = liveEvictables();
+        if (ordered.isEmpty()) {
+            return;
+        }
+        ordered.sort(Comparator.comparingInt(Evictable::getEvictionPriority));
+        double fraction = level == Pressure.CRITICAL ? CRITICAL_FRACTION : ELEVATED_FRACTION;
+
+        CountDownLatch done = new CountDownLatch(1);
+        runOnFxThread(() -> {
+            try {
+                evictInTiers(ordered, fraction, level == Pressure.CRITICAL);
+            } finally {
+                done.countDown();
+            }
+        });
+        try {
+            done.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void evictInTiers(List<Evictable> ordered, double fraction, boolean allTiers) {
+        int released = 0;
+        int index = 0;
+        while (index < ordered.size()) {
+            int tier = ordered.get(index).getEvictionPriority();
+            int tierReleased = 0;
+            for (; index < ordered.size() && ordered.get(index).getEvictionPriority() == tier; index++) {
+                tierReleased += evictOne(ordered.get(index), fraction);
+            }
+            released += tierReleased;
+            if (!allTiers && tierReleased > 0) {
+                break;
+            }
+        }
+
+        synchronized (this) {
+            steps++;
+        }
+        System.out.println("MemoryGovernor: Eviction step at " + pressure + " pressure released " + released + " entries");
+    }
+
+    private int evictOne(Evictable evictable, double fraction) {
+        try {
+            int count = evictable.evict(fraction);
+            if (count > 0) {
+                synchronized (this) {
+                    EvictionStats entry = stats.computeIfAbsent(evictable.getEvictionName(), EvictionStats::new);
+                    entry.runs++;
+                    entry.entriesEvicted += count;
+                    entry.lastEvictedAt = System.currentTimeMillis();
+                }
+            }
+            return count;
+        } catch (Exception e) {
+            System.err.println("MemoryGovernor: Eviction failed for " + evictable.getEvictionName() + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private synchronized List<Evictable> liveEvictables() {
+        List<Evictable> live = new ArrayList<>();
+        Iterator<WeakReference<Evictable>> refs = evictables.iterator();
+        while (refs.hasNext()) {
+            Evictable evictable = refs.next().get();
+            if (evictable == null) {
+                refs.remove();
+            } else {
+                live.add(evictable);
+            }
+        }
+        return live;
+    }
+
+    private static void runOnFxThread(Runnable task) {
+        if (Platform.isFxApplicationThread()) {
+            task.run();
+            return;
+        }
+        try {
+            Platform.runLater(task);
+        } catch (IllegalStateException e) {
+            task.run(); // Toolkit not running (e.g. headless tools)
+        }
+    }
+
+    /**
+     * Print heap usage, pressure and eviction metrics
+     */
+    public void printMemoryUsage() {
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        long maxMemory = runtime.maxMemory();
+
+        System.out.println("=== Memory Usage ===");
+        System.out.printf("Used: %.2f MB\n", usedMemory / 1024.0 / 1024.0);
+        System.out.printf("Max: %.2f MB\n", maxMemory / 1024.0 / 1024.0);
+        System.out.printf("Usage: %.1f%%\n", (usedMemory * 100.0) / maxMemory);
+        for (MemoryPoolMXBean pool : monitoredPools) {
+            MemoryUsage usage = pool.getUsage();
+            System.out.printf("%s: %d / %d MB (threshold exceeded %d times)\n", pool.getName(),
+                              toMb(usage.getUsed()), toMb(usage.getMax()), pool.getUsageThresholdCount());
+        }
+        synchronized (this) {
+            System.out.println("Pressure: " + pressure + " (" + thresholdEvents + " threshold events, " + steps + " eviction steps)");
+            for (EvictionStats entry : stats.values()) {
+                System.out.println("  " + entry.getName() + ": " + entry.getEntriesEvicted() + " entries evicted in " + entry.getRuns() + " runs");
+            }
+        }
+        System.out.println("===================");
+    }
+
+    /**
+     * Detach from the JVM's notifications and stop the governor thread
+     */
+    public void shutdown() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (Exception e) {
+                // Already removed
+            }
+        }
+        emitters.clear();
+        executor.shutdownNow();
+    }
+
+    private static long toMb(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
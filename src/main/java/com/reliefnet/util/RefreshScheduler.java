@@ -0,0 +1,295 @@
+package com.reliefnet.util;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * RefreshScheduler - Single place where views schedule their auto-refresh
+ *
+ * Views register a refresh task under a stable key instead of starting their own Timeline.
+ * Registering the same key again replaces the old task, so rebuilding a view never leaves a
+ * timer behind. Tasks are driven by DataSyncManager change events; a task only runs while its
+ * view is attached to a showing, non-minimized window. Changes that arrive while a view is
+ * hidden mark it dirty and it refreshes once when it is shown again. An optional interval adds
+ * a slow safety poll for visible views. One shared one-second pulse drives everything.
+ */
+public class RefreshScheduler implements DataSyncManager.DataChangeListener {
+
+    public enum DataKind { RESOURCE, EMERGENCY, USER, DASHBOARD, VOLUNTEER, COMMUNICATION, SETTINGS }
+
+    private static RefreshScheduler instance;
+
+    private final Map<String, Registration> registrations = new LinkedHashMap<>();
+    private final Set<DataKind> pendingChanges = EnumSet.noneOf(DataKind.class);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private Timeline pulse;
+    private long refreshCount = 0;
+
+    /**
+     * A view's refresh task. Only touched on the JavaFX application thread.
+     */
+    public class Registration {
+        private final String key;
+        private final Node view;
+        private final Runnable task;
+        private final Set<DataKind> kinds;
+        private final long intervalMillis;
+        private final ChangeListener<Scene> sceneListener;
+        private long lastRun;
+        private boolean dirty;
+        private boolean cancelled;
+
+        private Registration(String key, Node view, Runnable task, Set<DataKind> kinds, long intervalMillis) {
+            this.key = key;
+            this.view = view;
+            this.task = task;
+            this.kinds = kinds;
+            this.intervalMillis = intervalMillis;
+            this.lastRun = System.currentTimeMillis();
+
+            // Catch up as soon as a dirty view is put back on screen
+            this.sceneListener = (obs, oldScene, newScene) -> {
+                if (newScene != null && dirty && !cancelled) {
+                    Platform.runLater(() -> runIfVisible(this));
+                }
+            };
+            view.sceneProperty().addListener(sceneListener);
+        }
+
+        // A retired registration must not keep a listener on a node that may be registered again
+        private void retire() {
+            cancelled = true;
+            view.sceneProperty().removeListener(sceneListener);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            unregister(key, this);
+        }
+    }
+
+    private RefreshScheduler() {
+        DataSyncManager.getInstance().addListener(this);
+    }
+
+    public static synchronized RefreshScheduler getInstance() {
+        if (instance == null) {
+            instance = new RefreshScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Register (or replace) the refresh task for a view. Call on the JavaFX application thread.
+     *
+     * @param key             stable view key, e.g. "emergency-view"
+     * @param view            root node of the view; the task only runs while it is showing
+     * @param intervalSeconds safety poll while visible, or 0 to refresh on data changes only
+     * @param task            refresh work, run on the JavaFX application thread
+     * @param kinds           data changes that make the view stale
+     */
+    public Registration register(String key, Node view, int intervalSeconds, Runnable task, DataKind... kinds) {
+        Set<DataKind> kindSet = kinds.length == 0 ? EnumSet.noneOf(DataKind.class) : EnumSet.copyOf(Arrays.asList(kinds));
+        Registration registration = new Registration(key, view, task, kindSet, intervalSeconds * 1000L);
+
+        Registration previous = registrations.put(key, registration);
+        if (previous != null) {
+            previous.retire();
+            System.out.println("RefreshScheduler: Replaced refresh task for " + key);
+        }
+        ensurePulse();
+        return registration;
+    }
+
+    public void unregister(String key) {
+        Registration registration = registrations.remove(key);
+        if (registration != null) {
+            registration.retire();
+        }
+        if (registrations.isEmpty()) {
+            stopPulse();
+        }
+    }
+
+    private void unregister(String key, Registration registration) {
+        if (registrations.get(key) == registration) {
+            unregister(key);
+        } else {
+            registration.retire();
+        }
+    }
+
+    /**
+     * Mark views interested in this kind of data stale; visible ones refresh on the next pulse.
+     * Safe to call from any thread - bursts of events collapse into one refresh per view.
+     */
+    public void dataChanged(DataKind kind) {
+        synchronized (pendingChanges) {
+            pendingChanges.add(kind);
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flushChanges);
+        }
+    }
+
+    /**
+     * Number of registered refresh tasks
+     */
+    public int getRegistrationCount() {
+        return registrations.size();
+    }
+
+    /**
+     * Number of refresh tasks currently live, i.e. whose view is on screen
+     */
+    public int getActiveTimerCount() {
+        int active = 0;
+        for (Registration registration : registrations.values()) {
+            if (isShowing(registration.view)) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    public long getRefreshCount() {
+        return refreshCount;
+    }
+
+    private void flushChanges() {
+        flushScheduled.set(false);
+        Set<DataKind> changes;
+        synchronized (pendingChanges) {
+            changes = EnumSet.copyOf(pendingChanges);
+            pendingChanges.clear();
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        for (Registration registration : new ArrayList<>(registrations.values())) {
+            if (!Collections.disjoint(registration.kinds, changes)) {
+                registration.dirty = true;
+                runIfVisible(registration);
+            }
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (Registration registration : new ArrayList<>(registrations.values())) {
+            boolean due = registration.intervalMillis > 0 && now - registration.lastRun >= registration.intervalMillis;
+            if (due) {
+                registration.dirty = true;
+            }
+            if (registration.dirty) {
+                runIfVisible(registration);
+            }
+        }
+    }
+
+    private void runIfVisible(Registration registration) {
+        if (registration.cancelled || !registration.dirty || !isShowing(registration.view)) {
+            return;
+        }
+
+        registration.dirty = false;
+        registration.lastRun = System.currentTimeMillis();
+        refreshCount++;
+        try {
+            registration.task.run();
+        } catch (Exception e) {
+            System.err.println("RefreshScheduler: Error refreshing " + registration.key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * True when the node is in a showing, non-minimized window and not hidden by an ancestor
+     */
+    private static boolean isShowing(Node node) {
+        if (node.getScene() == null) {
+            return false;
+        }
+        Window window = node.getScene().getWindow();
+        if (window == null || !window.isShowing()) {
+            return false;
+        }
+        if (window instanceof Stage && ((Stage) window).isIconified()) {
+            return false;
+        }
+        for (Node current = node; current != null; current = current.getParent()) {
+            if (!current.isVisible()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensurePulse() {
+        if (pulse == null) {
+            pulse = new Timeline(new KeyFrame(Duration.seconds(1), e -> tick()));
+            pulse.setCycleCount(Timeline.INDEFINITE);
+        }
+        pulse.play();
+    }
+
+    private void stopPulse() {
+        if (pulse != null) {
+            pulse.stop();
+        }
+    }
+
+    // DataSyncManager.DataChangeListener - map change notifications onto data kinds
+
+    @Override
+    public void onResourceDataChanged() {
+        dataChanged(DataKind.RESOURCE);
+    }
+
+    @Override
+    public void onEmergencyDataChanged() {
+        dataChanged(DataKind.EMERGENCY);
+    }
+
+    @Override
+    public void onUserDataChanged() {
+        dataChanged(DataKind.USER);
+    }
+
+    @Override
+    public void onDashboardDataChanged() {
+        dataChanged(DataKind.DASHBOARD);
+    }
+
+    @Override
+    public void onVolunteerDataChanged() {
+        dataChanged(DataKind.VOLUNTEER);
+    }
+
+    @Override
+    public void onCommunicationDataChanged() {
+        dataChanged(DataKind.COMMUNICATION);
+    }
+
+    @Override
+    public void onSettingsDataChanged() {
+        dataChanged(DataKind.SETTINGS);
+    }
+}
@@ -0,0 +1,74 @@
+package com.reliefnet.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * SlidingWindowCounter - Lock-free event counter over a sliding time window
+ *
+ * Events are counted in a ring of fixed-width time buckets. Each slot packs the bucket's number
+ * (time / bucket width) with its count in one long, so recording is a single compare-and-set and
+ * a slot left over from an earlier lap of the ring is recognised and reset in the same step.
+ * Counting sums the slots whose bucket falls inside the window. Neither allocates, and both cost
+ * the same however many events were recorded.
+ */
+public class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final long bucketMillis;
+
+    /**
+     * @param buckets      number of buckets kept; the longest window is buckets * bucketMillis
+     * @param bucketMillis width of one bucket, a second or more (bucket numbers must fit in 40 bits)
+     */
+    public SlidingWindowCounter(int buckets, long bucketMillis) {
+        this.slots = new AtomicLongArray(buckets);
+        this.bucketMillis = bucketMillis;
+    }
+
+    public void record(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        int index = (int) (bucket % slots.length());
+        while (true) {
+            long slot = slots.get(index);
+            long next;
+            if (slot >>> COUNT_BITS == bucket) {
+                if ((slot & COUNT_MASK) == COUNT_MASK) {
+                    return; // Saturated
+                }
+                next = slot + 1;
+            } else if (slot >>> COUNT_BITS > bucket) {
+                return; // Slot already moved on to a later lap; this event is older than the window
+            } else {
+                next = (bucket << COUNT_BITS) | 1;
+            }
+            if (slots.compareAndSet(index, slot, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Events recorded within windowMillis before nowMillis, to bucket precision (the current
+     * bucket counts in full); windows longer than the ring are cut to its length
+     */
+    public int count(long windowMillis, long nowMillis) {
+        long current = nowMillis / bucketMillis;
+        long oldest = current - Math.min(slots.length(), Math.max(1, windowMillis / bucketMillis)) + 1;
+        int total = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long slot = slots.get(i);
+            long bucket = slot >>> COUNT_BITS;
+            if (bucket >= oldest && bucket <= current) {
+                total += (int) (slot & COUNT_MASK);
+            }
+        }
+        return total;
+    }
+
+    public long getMaxWindowMillis() {
+        return slots.length() * bucketMillis;
+    }
+}
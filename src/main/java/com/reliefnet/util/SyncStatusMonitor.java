@@ -8,7 +8,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import java.io.IOException;
-import java.sql.ResultSet;
 
 /**
  * SyncStatusMonitor - Provides comprehensive monitoring and status reporting for data synchronization
@@ -84,7 +83,7 @@ public class SyncStatusMonitor {
         System.out.println("? FIREBASE CONNECTIVITY:");
         try {
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + "/users.json")
+                .url(NetworkConfig.getApiBaseUrl() + "/users.json")
                 .build();
                 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -191,18 +190,19 @@ public class SyncStatusMonitor {
     }
     
     private String getSingleValue(String sql) throws Exception {
-        try (ResultSet rs = dbManager.executeQuery(sql)) {
+        String[] value = {"0"};
+        dbManager.executeQueryWithCallback(sql, rs -> {
             if (rs.next()) {
-                return rs.getString(1);
+                value[0] = rs.getString(1);
             }
-            return "0";
-        }
+        });
+        return value[0];
     }
     
     private int getFirebaseCount(String endpoint) {
         try {
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + endpoint)
+                .url(NetworkConfig.getApiBaseUrl() + endpoint)
                 .build();
                 
             try (Response response = httpClient.newCall(request).execute()) {
@@ -231,11 +231,11 @@ public class SyncStatusMonitor {
     public boolean isSystemHealthy() {
         try {
             // Check database connection
-            dbManager.executeQuery("SELECT 1");
+            dbManager.executeQueryWithCallback("SELECT 1", rs -> rs.next());
             
             // Check Firebase connection
             Request request = new Request.Builder()
-                .url(NetworkConfig.API_BASE_URL + "/users.json")
+                .url(NetworkConfig.getApiBaseUrl() + "/users.json")
                 .build();
                 
             try (Response response = httpClient.newCall(request).execute()) {
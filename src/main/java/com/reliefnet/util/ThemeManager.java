@@ -1,6 +1,7 @@
 package com.reliefnet.util;
 
 import javafx.scene.Scene;
+import javafx.scene.image.Image;
 
 /**
  * ThemeManager - Manages consistent styling across the ReliefNet application
@@ -65,6 +66,33 @@ public class ThemeManager {
         "    -fx-cursor: hand;\n" +
         "}\n";
     
+    private static Image logoImage;
+    
+    /**
+     * Application logo, decoded once and shared by the splash, login and main screens.
+     * Returns null if the image cannot be loaded.
+     */
+    public static synchronized Image getLogoImage() {
+        if (logoImage == null) {
+            try {
+                Image image = new Image(ThemeManager.class.getResourceAsStream("/images/logo.png"));
+                if (!image.isError()) {
+                    logoImage = image;
+                }
+            } catch (Exception e) {
+                System.out.println("Could not load logo.png: " + e.getMessage());
+            }
+        }
+        return logoImage;
+    }
+    
+    /**
+     * Decode shared images ahead of first use (safe to call off the JavaFX thread)
+     */
+    public static void preloadAssets() {
+        getLogoImage();
+    }
+    
     public static void applyTheme(Scene scene) {
         scene.getStylesheets().clear();
         scene.getRoot().setStyle(MAIN_CSS);
@@ -0,0 +1,537 @@
+package com.reliefnet.util;
+
+import com.reliefnet.database.DatabaseManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * TriageQueue - The active emergency requests and SOS alerts, ordered by urgency, shared by all views
+ *
+ * Views used to rank and count open incidents themselves (ORDER BY CASE priority ..., GROUP BY
+ * priority) on every refresh. The queue keeps one copy of the active set in memory instead: an
+ * indexed binary heap over all items plus one per division, and per-priority and per-status
+ * counts. Insert, update and removal are O(log n), counts are O(1) and the top N of any heap is
+ * read in O(N log N) without touching the rest.
+ *
+ * The urgency score combines priority, people affected and waiting time. It is expressed in
+ * minutes so that it does not change as time passes: one priority level is worth six hours of
+ * waiting and each e-fold of people one hour, so a HIGH request that has waited six hours ranks
+ * alongside a fresh CRITICAL one.
+ *
+ * The queue follows the tables through their row_version columns: an emergency or SOS change
+ * marks it stale and the next read applies just the rows that changed.
+ */
+public class TriageQueue implements DataSyncManager.DataChangeListener {
+
+    private static final double LEVEL_MINUTES = 6 * 60;
+    private static final double PEOPLE_MINUTES = 60;
+
+    public static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    /**
+     * The two kinds of incident and where they live
+     */
+    public enum Kind {
+        EMERGENCY("emergency_requests", "request_id", "priority", "COALESCE(people_count, 1)",
+                  "'PENDING', 'ASSIGNED', 'IN_PROGRESS'"),
+        SOS("sos_alerts", "sos_id", "urgency_level", "1",
+            "'ACTIVE', 'PENDING', 'ASSIGNED', 'RESPONDED'");
+
+        final String table;
+        final String keyColumn;
+        final String priorityColumn;
+        final String peopleExpression;
+        final String activeStatuses;
+
+        Kind(String table, String keyColumn, String priorityColumn, String peopleExpression, String activeStatuses) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.priorityColumn = priorityColumn;
+            this.peopleExpression = peopleExpression;
+            this.activeStatuses = activeStatuses;
+        }
+
+        String select() {
+            return "SELECT " + keyColumn + " AS record_id, " + priorityColumn + " AS priority, status, division_id, " +
+                   peopleExpression + " AS people_count, CAST(strftime('%s', created_at) AS INTEGER) AS created_epoch, " +
+                   "description, location_name, location_lat, location_lng, row_version FROM " + table;
+        }
+    }
+
+    /**
+     * An active incident
+     */
+    public static class Item {
+        private final Kind kind;
+        private final String recordId;
+        private String priority;
+        private int level;
+        private String status;
+        private Integer divisionId;
+        private int peopleCount;
+        private long createdAtMillis;
+        private String description;
+        private String locationName;
+        private double lat = Double.NaN;
+        private double lng = Double.NaN;
+        private double score;
+
+        // Position in the global heap and in the division heap, -1 when absent
+        private final int[] position = {-1, -1};
+
+        Item(Kind kind, String recordId) {
+            this.kind = kind;
+            this.recordId = recordId;
+        }
+
+        public Kind getKind() { return kind; }
+        public String getRecordId() { return recordId; }
+        public String getPriority() { return priority; }
+        public String getStatus() { return status; }
+        public Integer getDivisionId() { return divisionId; }
+        public int getPeopleCount() { return peopleCount; }
+        public long getCreatedAtMillis() { return createdAtMillis; }
+        public String getDescription() { return description; }
+        public String getLocationName() { return locationName; }
+        public double getLat() { return lat; }
+        public double getLng() { return lng; }
+        public double getScore() { return score; }
+
+        public boolean hasPosition() {
+            return !Double.isNaN(lat);
+        }
+    }
+
+    /**
+     * Receives every item entering or leaving the queue; a changed row leaves and re-enters.
+     * Called while the queue is locked, so observers must not call back into it.
+     */
+    public interface Observer {
+        void itemAdded(Item item);
+        void itemRemoved(Item item);
+    }
+
+    /**
+     * Max-heap of items by score; each item records its own index so it can be moved or removed in O(log n)
+     */
+    private static final class IndexedHeap {
+        private final int slot;
+        private final ArrayList<Item> items = new ArrayList<>();
+
+        IndexedHeap(int slot) {
+            this.slot = slot;
+        }
+
+        int size() {
+            return items.size();
+        }
+
+        void add(Item item) {
+            items.add(item);
+            item.position[slot] = items.size() - 1;
+            siftUp(items.size() - 1);
+        }
+
+        void remove(Item item) {
+            int index = item.position[slot];
+            if (index < 0) {
+                return;
+            }
+            Item last = items.remove(items.size() - 1);
+            item.position[slot] = -1;
+            if (last != item) {
+                place(last, index);
+                update(last);
+            }
+        }
+
+        /**
+         * Restore heap order after the item's score changed
+         */
+        void update(Item item) {
+            int index = item.position[slot];
+            if (index >= 0 && !siftUp(index)) {
+                siftDown(index);
+            }
+        }
+
+        private boolean siftUp(int index) {
+            Item item = items.get(index);
+            int start = index;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                Item above = items.get(parent);
+                if (above.score >= item.score) {
+                    break;
+                }
+                place(above, index);
+                index = parent;
+            }
+            place(item, index);
+            return index != start;
+        }
+
+        private void siftDown(int index) {
+            Item item = items.get(index);
+            int size = items.size();
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && items.get(child + 1).score > items.get(child).score) {
+                    child++;
+                }
+                Item below = items.get(child);
+                if (below.score <= item.score) {
+                    break;
+                }
+                place(below, index);
+                index = child;
+            }
+            place(item, index);
+        }
+
+        private void place(Item item, int index) {
+            items.set(index, item);
+            item.position[slot] = index;
+        }
+
+        /**
+         * The n highest-scoring items accepted by the filter, best first. Walks the heap from the
+         * root with a frontier of candidate positions, so untouched subtrees are never visited.
+         */
+        List<Item> top(int n, Predicate<Item> filter) {
+            List<Item> result = new ArrayList<>();
+            if (items.isEmpty() || n <= 0) {
+                return result;
+            }
+            PriorityQueue<Integer> frontier = new PriorityQueue<>(
+                (a, b) -> Double.compare(items.get(b).score, items.get(a).score));
+            frontier.add(0);
+            while (!frontier.isEmpty() && result.size() < n) {
+                int index = frontier.poll();
+                Item item = items.get(index);
+                if (filter == null || filter.test(item)) {
+                    result.add(item);
+                }
+                int child = 2 * index + 1;
+                if (child < items.size()) {
+                    frontier.add(child);
+                }
+                if (child + 1 < items.size()) {
+                    frontier.add(child + 1);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static TriageQueue instance;
+
+    private final IndexedHeap all = new IndexedHeap(0);
+    private final Map<Integer, IndexedHeap> byDivision = new HashMap<>();
+    private final EnumMap<Kind, Map<String, Item>> byKey = new EnumMap<>(Kind.class);
+    private final EnumMap<Kind, int[]> levelCounts = new EnumMap<>(Kind.class);
+    private final EnumMap<Kind, Map<String, Integer>> statusCounts = new EnumMap<>(Kind.class);
+    private final EnumMap<Kind, Long> lastVersion = new EnumMap<>(Kind.class);
+    private final EnumMap<Kind, Long> lastDeletions = new EnumMap<>(Kind.class);
+
+    private final List<Observer> observers = new ArrayList<>();
+    private volatile boolean stale = true;
+
+    private TriageQueue() {
+        for (Kind kind : Kind.values()) {
+            byKey.put(kind, new HashMap<>());
+            levelCounts.put(kind, new int[PRIORITIES.length]);
+            statusCounts.put(kind, new HashMap<>());
+            lastVersion.put(kind, -1L);
+        }
+        // Ahead of the views, so a view refreshing on the same event reads the new state
+        DataSyncManager.getInstance().addListenerFirst(this);
+    }
+
+    public static synchronized TriageQueue getInstance() {
+        if (instance == null) {
+            instance = new TriageQueue();
+        }
+        return instance;
+    }
+
+    /**
+     * Register an observer and replay the items already queued to it
+     */
+    public synchronized void addObserver(Observer observer) {
+        sync();
+        observers.add(observer);
+        for (Map<String, Item> items : byKey.values()) {
+            for (Item item : items.values()) {
+                observer.itemAdded(item);
+            }
+        }
+    }
+
+    /**
+     * Most urgent active incidents of both kinds
+     */
+    public synchronized List<Item> top(int n) {
+        sync();
+        return all.top(n, null);
+    }
+
+    /**
+     * Most urgent active incidents accepted by the filter; a null division means all divisions
+     */
+    public synchronized List<Item> top(int n, Integer divisionId, Predicate<Item> filter) {
+        sync();
+        IndexedHeap heap = divisionId == null ? all : byDivision.get(divisionId);
+        return heap == null ? new ArrayList<>() : heap.top(n, filter);
+    }
+
+    /**
+     * Number of active incidents of a kind with the given priority
+     */
+    public synchronized int count(Kind kind, String priority) {
+        sync();
+        int level = levelOf(priority);
+        return level < 0 ? 0 : levelCounts.get(kind)[level];
+    }
+
+    /**
+     * Number of active incidents of a kind
+     */
+    public synchronized int count(Kind kind) {
+        sync();
+        return byKey.get(kind).size();
+    }
+
+    /**
+     * Number of active incidents of a kind in the given status
+     */
+    public synchronized int countByStatus(Kind kind, String status) {
+        sync();
+        return statusCounts.get(kind).getOrDefault(status, 0);
+    }
+
+    /**
+     * Number of active incidents of both kinds in a division
+     */
+    public synchronized int countInDivision(Integer divisionId) {
+        sync();
+        IndexedHeap heap = divisionId == null ? null : byDivision.get(divisionId);
+        return heap == null ? 0 : heap.size();
+    }
+
+    public synchronized int size() {
+        sync();
+        return all.size();
+    }
+
+    /**
+     * Re-read changed rows on the next access
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Priority level, LOW = 0 up to CRITICAL = 3, or -1 when unknown
+     */
+    public static int levelOf(String priority) {
+        if (priority != null) {
+            for (int level = 0; level < PRIORITIES.length; level++) {
+                if (PRIORITIES[level].equalsIgnoreCase(priority)) {
+                    return level;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void sync() {
+        if (!stale) {
+            return;
+        }
+        stale = false;
+        long start = System.currentTimeMillis();
+        for (Kind kind : Kind.values()) {
+            try {
+                if (lastVersion.get(kind) < 0) {
+                    reload(kind);
+                } else {
+                    applyChanges(kind);
+                }
+            } catch (SQLException e) {
+                System.err.println("TriageQueue: Error loading " + kind.table + ": " + e.getMessage());
+                lastVersion.put(kind, -1L);
+                stale = true;
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        if (elapsed > 50) {
+            System.out.println("TriageQueue: Synced " + all.size() + " active incidents in " + elapsed + "ms");
+        }
+    }
+
+    private void reload(Kind kind) throws SQLException {
+        for (Item item : new ArrayList<>(byKey.get(kind).values())) {
+            remove(item);
+        }
+        lastDeletions.put(kind, DatabaseManager.getInstance().getDeletionCount(kind.table));
+        long[] maxVersion = {0};
+        DatabaseManager.getInstance().executeQueryWithCallback(
+            kind.select() + " WHERE status IN (" + kind.activeStatuses + ")",
+            rs -> apply(kind, rs, maxVersion));
+        // Inactive rows may carry higher versions; start the next delta from the table's maximum
+        DatabaseManager.getInstance().executeQueryWithCallback(
+            "SELECT COALESCE(MAX(row_version), 0) FROM " + kind.table,
+            rs -> {
+                if (rs.next()) {
+                    maxVersion[0] = Math.max(maxVersion[0], rs.getLong(1));
+                }
+            });
+        lastVersion.put(kind, maxVersion[0]);
+    }
+
+    private void applyChanges(Kind kind) throws SQLException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        long[] maxVersion = {lastVersion.get(kind)};
+        dbManager.executeQueryWithCallback(kind.select() + " WHERE row_version > ?",
+            rs -> apply(kind, rs, maxVersion), maxVersion[0]);
+        lastVersion.put(kind, maxVersion[0]);
+
+        // Deleted rows leave no version behind; the table's deletion count says whether any went
+        long deletions = dbManager.getDeletionCount(kind.table);
+        if (deletions != lastDeletions.get(kind)) {
+            lastDeletions.put(kind, deletions);
+            Set<String> present = new HashSet<>();
+            dbManager.executeQueryWithCallback(
+                "SELECT " + kind.keyColumn + " FROM " + kind.table + " WHERE status IN (" + kind.activeStatuses + ")",
+                rs -> {
+                    while (rs.next()) {
+                        present.add(rs.getString(1));
+                    }
+                });
+            for (Item item : new ArrayList<>(byKey.get(kind).values())) {
+                if (!present.contains(item.recordId)) {
+                    remove(item);
+                }
+            }
+        }
+    }
+
+    private void apply(Kind kind, ResultSet rs, long[] maxVersion) throws SQLException {
+        Set<String> activeStatuses = statusesOf(kind);
+        long now = System.currentTimeMillis();
+        while (rs.next()) {
+            maxVersion[0] = Math.max(maxVersion[0], rs.getLong("row_version"));
+            String recordId = rs.getString("record_id");
+            String status = rs.getString("status");
+            Item item = byKey.get(kind).get(recordId);
+            if (item != null) {
+                remove(item);
+            }
+            if (recordId == null || status == null || !activeStatuses.contains(status)) {
+                continue;
+            }
+            item = new Item(kind, recordId);
+            item.priority = rs.getString("priority");
+            item.level = Math.max(0, levelOf(item.priority));
+            item.status = status;
+            int division = rs.getInt("division_id");
+            item.divisionId = rs.wasNull() ? null : division;
+            item.peopleCount = Math.max(1, rs.getInt("people_count"));
+            long created = rs.getLong("created_epoch");
+            item.createdAtMillis = rs.wasNull() ? now : created * 1000;
+            item.description = rs.getString("description");
+            item.locationName = rs.getString("location_name");
+            double lat = rs.getDouble("location_lat");
+            boolean latMissing = rs.wasNull();
+            double lng = rs.getDouble("location_lng");
+            // Unset coordinates are stored as NULL or 0/0
+            if (!latMissing && !rs.wasNull() && (lat != 0 || lng != 0)
+                    && Math.abs(lat) <= 90 && Math.abs(lng) <= 180) {
+                item.lat = lat;
+                item.lng = lng;
+            }
+            item.score = item.level * LEVEL_MINUTES + PEOPLE_MINUTES * Math.log(item.peopleCount)
+                         - item.createdAtMillis / 60000.0;
+            add(item);
+        }
+    }
+
+    private void add(Item item) {
+        byKey.get(item.kind).put(item.recordId, item);
+        all.add(item);
+        if (item.divisionId != null) {
+            byDivision.computeIfAbsent(item.divisionId, id -> new IndexedHeap(1)).add(item);
+        }
+        levelCounts.get(item.kind)[item.level]++;
+        statusCounts.get(item.kind).merge(item.status, 1, Integer::sum);
+        for (Observer observer : observers) {
+            observer.itemAdded(item);
+        }
+    }
+
+    private void remove(Item item) {
+        byKey.get(item.kind).remove(item.recordId);
+        all.remove(item);
+        if (item.divisionId != null) {
+            IndexedHeap heap = byDivision.get(item.divisionId);
+            if (heap != null) {
+                heap.remove(item);
+                if (heap.size() == 0) {
+                    byDivision.remove(item.divisionId);
+                }
+            }
+        }
+        levelCounts.get(item.kind)[item.level]--;
+        statusCounts.get(item.kind).merge(item.status, -1, Integer::sum);
+        for (Observer observer : observers) {
+            observer.itemRemoved(item);
+        }
+    }
+
+    private static Set<String> statusesOf(Kind kind) {
+        Set<String> statuses = new HashSet<>();
+        for (String status : kind.activeStatuses.split(",")) {
+            statuses.add(status.trim().replace("'", ""));
+        }
+        return statuses;
+    }
+
+    // DataSyncManager.DataChangeListener - emergency/SOS changes and assignments move the queue
+
+    @Override
+    public void onEmergencyDataChanged() {
+        invalidate();
+    }
+
+    @Override
+    public void onVolunteerDataChanged() {
+        invalidate();
+    }
+
+    @Override
+    public void onResourceDataChanged() {
+    }
+
+    @Override
+    public void onUserDataChanged() {
+    }
+
+    @Override
+    public void onDashboardDataChanged() {
+    }
+
+    @Override
+    public void onCommunicationDataChanged() {
+    }
+
+    @Override
+    public void onSettingsDataChanged() {
+    }
+}
@@ -0,0 +1,151 @@
+package com.reliefnet.util;
+
+import com.reliefnet.database.DatabaseManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * UserNameCache - Display names for user IDs, so lists such as chat history do not join or look
+ * up the users table for every row
+ *
+ * IDs are resolved by users.user_id (unique index), falling back to the numeric row id that
+ * older messages stored. Unknown IDs are cached as themselves. The cache holds the most recently
+ * used entries and is cleared whenever user data changes or trimmed under memory pressure.
+ */
+public class UserNameCache implements DataSyncManager.DataChangeListener, MemoryGovernor.Evictable {
+
+    private static final int MAX_ENTRIES = 2000;
+
+    private static UserNameCache instance;
+
+    private final Map<String, String> names = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private UserNameCache() {
+        DataSyncManager.getInstance().addListener(this);
+        MemoryGovernor.getInstance().register(this);
+    }
+
+    public static synchronized UserNameCache getInstance() {
+        if (instance == null) {
+            instance = new UserNameCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Display name for a user ID, or the ID itself when no user matches
+     */
+    public synchronized String getName(String userId) {
+        if (userId == null || userId.isEmpty()) {
+            return userId;
+        }
+        String name = names.get(userId);
+        if (name == null) {
+            name = lookup(userId);
+            names.put(userId, name);
+        }
+        return name;
+    }
+
+    /**
+     * Seed a name that is already known (e.g. the logged-in user)
+     */
+    public synchronized void put(String userId, String name) {
+        if (userId != null && name != null && !name.trim().isEmpty()) {
+            names.put(userId, name);
+        }
+    }
+
+    public synchronized void clear() {
+        names.clear();
+    }
+
+    // MemoryGovernor.Evictable - drop the least recently used names first
+
+    @Override
+    public String getEvictionName() {
+        return "UserNameCache";
+    }
+
+    @Override
+    public int getEvictionPriority() {
+        return MemoryGovernor.PRIORITY_LOOKUP_CACHE;
+    }
+
+    @Override
+    public synchronized int evict(double fraction) {
+        int count = (int) Math.ceil(names.size() * fraction);
+        Iterator<String> keys = names.keySet().iterator();
+        for (int i = 0; i < count && keys.hasNext(); i++) {
+            keys.next();
+            keys.remove();
+        }
+        return count;
+    }
+
+    private String lookup(String userId) {
+        String[] found = new String[1];
+        try {
+            DatabaseManager dbManager = DatabaseManager.getInstance();
+            dbManager.executeQueryWithCallback("SELECT name FROM users WHERE user_id = ?", rs -> {
+                if (rs.next()) {
+                    found[0] = rs.getString("name");
+                }
+            }, userId);
+
+            if (isBlank(found[0]) && userId.chars().allMatch(Character::isDigit)) {
+                dbManager.executeQueryWithCallback("SELECT name FROM users WHERE id = ?", rs -> {
+                    if (rs.next()) {
+                        found[0] = rs.getString("name");
+                    }
+                }, Long.parseLong(userId));
+            }
+        } catch (Exception e) {
+            System.err.println("Error looking up user name for " + userId + ": " + e.getMessage());
+        }
+        return isBlank(found[0]) ? userId : found[0];
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    // DataSyncManager.DataChangeListener - names can change with any user update
+
+    @Override
+    public void onUserDataChanged() {
+        clear();
+    }
+
+    @Override
+    public void onVolunteerDataChanged() {
+        clear();
+    }
+
+    @Override
+    public void onResourceDataChanged() {
+    }
+
+    @Override
+    public void onEmergencyDataChanged() {
+    }
+
+    @Override
+    public void onDashboardDataChanged() {
+    }
+
+    @Override
+    public void onCommunicationDataChanged() {
+    }
+
+    @Override
+    public void onSettingsDataChanged() {
+    }
+}
@@ -0,0 +1,474 @@
+package com.reliefnet.util;
+
+import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.database.LocationKeys;
+
+import java.util.*;
+
+/**
+ * VolunteerMatcher - Ranks available volunteers for an emergency or SOS alert
+ *
+ * Keeps an in-memory index of every active volunteer (position, location keys, skill bitset and
+ * number of open assignments), loaded with one query. After a volunteer or user change only the
+ * users rows with a newer row_version are read back; after an emergency change only the open
+ * assignment counts are refreshed. Ranking a request is then a single pass over the index keeping the k
+ * best scores in a small heap, instead of a SQL scan plus a count query per volunteer each time an
+ * assignment dialog opens.
+ *
+ * The score weighs proximity (great-circle distance when both sides have coordinates, otherwise
+ * same district or division), skill fit and current load. Volunteers lacking a required skill are
+ * left out, as before; volunteers who list no skills count as general helpers.
+ */
+public class VolunteerMatcher implements DataSyncManager.DataChangeListener {
+
+    private static final double WEIGHT_PROXIMITY = 0.5;
+    private static final double WEIGHT_SKILL = 0.3;
+    private static final double WEIGHT_LOAD = 0.2;
+    // Proximity halves at this distance
+    private static final double DISTANCE_SCALE_KM = 10.0;
+    private static final double SAME_DISTRICT_PROXIMITY = 0.6;
+    private static final double SAME_DIVISION_PROXIMITY = 0.3;
+    private static final double GENERAL_SKILL_FIT = 0.5;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private static VolunteerMatcher instance;
+
+    /**
+     * Where help is needed: coordinates (NaN if unknown) and location keys (null if unresolved)
+     */
+    public static class Target {
+        private final double lat;
+        private final double lng;
+        private final Integer districtId;
+        private final Integer divisionId;
+        private final double latRad;
+        private final double lngRad;
+        private final double cosLat;
+
+        public Target(double lat, double lng, Integer districtId, Integer divisionId) {
+            this.lat = lat;
+            this.lng = lng;
+            this.districtId = districtId;
+            this.divisionId = divisionId;
+            this.latRad = Math.toRadians(lat);
+            this.lngRad = Math.toRadians(lng);
+            this.cosLat = Math.cos(latRad);
+        }
+
+        /**
+         * Target for free-text location only
+         */
+        public static Target forLocation(String location) {
+            LocationKeys.Key key = LocationKeys.resolve(location);
+            return new Target(Double.NaN, Double.NaN, key.getDistrictId(), key.getDivisionId());
+        }
+
+        /**
+         * Target for a stored emergency request ("EMERGENCY") or SOS alert ("SOS")
+         */
+        public static Target forRecord(String recordType, String recordId) {
+            String sql = "SOS".equals(recordType)
+                ? "SELECT location_lat, location_lng, district_id, division_id, location_name FROM sos_alerts WHERE sos_id = ?"
+                : "SELECT location_lat, location_lng, district_id, division_id, location_name FROM emergency_requests WHERE request_id = ?";
+            Target[] target = { new Target(Double.NaN, Double.NaN, null, null) };
+            try {
+                DatabaseManager.getInstance().executeQueryWithCallback(sql, rs -> {
+                    if (rs.next()) {
+                        double lat = rs.getDouble("location_lat");
+                        boolean hasLat = !rs.wasNull();
+                        double lng = rs.getDouble("location_lng");
+                        boolean hasPoint = hasLat && !rs.wasNull() && !(lat == 0 && lng == 0);
+                        Integer districtId = intOrNull(rs, "district_id");
+                        Integer divisionId = intOrNull(rs, "division_id");
+                        if (divisionId == null) {
+                            LocationKeys.Key key = LocationKeys.resolve(rs.getString("location_name"));
+                            districtId = key.getDistrictId();
+                            divisionId = key.getDivisionId();
+                        }
+                        target[0] = new Target(hasPoint ? lat : Double.NaN, hasPoint ? lng : Double.NaN, districtId, divisionId);
+                    }
+                }, recordId);
+            } catch (Exception e) {
+                System.err.println("Error loading match target for " + recordType + " " + recordId + ": " + e.getMessage());
+            }
+            return target[0];
+        }
+
+        public Integer getDivisionId() { return divisionId; }
+
+        boolean hasPoint() {
+            return !Double.isNaN(lat) && !Double.isNaN(lng);
+        }
+    }
+
+    /**
+     * A ranked volunteer
+     */
+    public static class Candidate {
+        private final Volunteer volunteer;
+        private final double distanceKm;
+        private final double score;
+
+        Candidate(Volunteer volunteer, double distanceKm, double score) {
+            this.volunteer = volunteer;
+            this.distanceKm = distanceKm;
+            this.score = score;
+        }
+
+        public String getUserId() { return volunteer.userId; }
+        public String getName() { return volunteer.name; }
+        public String getEmail() { return volunteer.email; }
+        public String getLocation() { return volunteer.location; }
+        public String getSkills() { return volunteer.skills; }
+        public int getActiveAssignments() { return volunteer.activeAssignments; }
+        /** Great-circle distance to the target, or NaN when either side has no coordinates */
+        public double getDistanceKm() { return distanceKm; }
+        public double getScore() { return score; }
+    }
+
+    /**
+     * Index entry for one volunteer
+     */
+    private static class Volunteer {
+        final String userId;
+        final String name;
+        final String email;
+        final String location;
+        final String skills;
+        final double lat;
+        final double lng;
+        final Integer districtId;
+        final Integer divisionId;
+        final BitSet skillBits;
+        final int activeAssignments;
+        // Radians and cosine of the latitude, so ranking needs no per-query conversions
+        final double latRad;
+        final double lngRad;
+        final double cosLat;
+
+        Volunteer(String userId, String name, String email, String location, String skills, double lat, double lng,
+                  Integer districtId, Integer divisionId, BitSet skillBits, int activeAssignments) {
+            this.userId = userId;
+            this.name = name;
+            this.email = email;
+            this.location = location;
+            this.skills = skills;
+            this.lat = lat;
+            this.lng = lng;
+            this.districtId = districtId;
+            this.divisionId = divisionId;
+            this.skillBits = skillBits;
+            this.activeAssignments = activeAssignments;
+            this.latRad = Math.toRadians(lat);
+            this.lngRad = Math.toRadians(lng);
+            this.cosLat = Math.cos(latRad);
+        }
+
+        Volunteer withAssignments(int count) {
+            return new Volunteer(userId, name, email, location, skills, lat, lng, districtId, divisionId, skillBits, count);
+        }
+    }
+
+    private static final String VOLUNTEER_SELECT =
+        "SELECT u.user_id, u.user_type, u.status, u.name, u.email, COALESCE(NULLIF(u.location_name, ''), u.location) AS location, " +
+        "u.skills, u.location_lat, u.location_lng, u.district_id, u.division_id, u.row_version, " +
+        "(SELECT COUNT(*) FROM volunteer_assignments va WHERE va.volunteer_id = u.user_id " +
+        " AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS')) AS active_assignments " +
+        "FROM users u";
+
+    // Skill token -> bit; only grows, so bits stay valid across reloads
+    private final Map<String, Integer> skillVocabulary = new HashMap<>();
+    private final Map<String, Volunteer> byId = new LinkedHashMap<>();
+    private volatile Volunteer[] volunteers = new Volunteer[0];
+    private long lastVersion = -1;
+    private long lastDeletions;
+    // Users rows changed / only assignment counts changed
+    private volatile boolean stale = true;
+    private volatile boolean loadsStale = false;
+
+    private VolunteerMatcher() {
+        DataSyncManager.getInstance().addListener(this);
+    }
+
+    public static synchronized VolunteerMatcher getInstance() {
+        if (instance == null) {
+            instance = new VolunteerMatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * The k best volunteers for a target, best first
+     *
+     * @param requiredSkill skill the volunteers must list, or null/"Any" for none
+     */
+    public List<Candidate> topCandidates(Target target, String requiredSkill, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        ensureLoaded();
+        int requiredBit = -1;
+        if (requiredSkill != null && !requiredSkill.trim().isEmpty() && !"Any".equalsIgnoreCase(requiredSkill.trim())) {
+            requiredBit = skillBit(requiredSkill.trim().toLowerCase());
+        }
+
+        boolean byDistance = target.hasPoint();
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Math.min(k, volunteers.length) + 1, Comparator.comparingDouble(Candidate::getScore));
+        for (Volunteer volunteer : volunteers) {
+            double skillFit;
+            if (requiredBit < 0) {
+                skillFit = 1.0;
+            } else if (volunteer.skillBits.get(requiredBit)) {
+                skillFit = 1.0;
+            } else if (volunteer.skillBits.isEmpty()) {
+                skillFit = GENERAL_SKILL_FIT;
+            } else {
+                continue;
+            }
+
+            double base = WEIGHT_SKILL * skillFit + WEIGHT_LOAD / (1 + volunteer.activeAssignments);
+            boolean full = best.size() >= k;
+            double floor = full ? best.peek().getScore() : Double.NEGATIVE_INFINITY;
+            if (base + WEIGHT_PROXIMITY <= floor) {
+                continue; // cannot make the list even from next door
+            }
+
+            double distanceKm = Double.NaN;
+            double proximity = 0.0;
+            if (byDistance && !Double.isNaN(volunteer.lat)) {
+                double latGapKm = Math.abs(volunteer.latRad - target.latRad) * EARTH_RADIUS_KM;
+                if (full && floor > base) {
+                    // The latitude gap alone is a lower bound on the distance; skip the trigonometry when it is already too far
+                    double maxKm = DISTANCE_SCALE_KM * (WEIGHT_PROXIMITY / (floor - base) - 1.0);
+                    if (latGapKm >= maxKm) {
+                        continue;
+                    }
+                }
+                distanceKm = haversineKm(target, volunteer);
+                proximity = 1.0 / (1.0 + distanceKm / DISTANCE_SCALE_KM);
+            } else if (target.districtId != null && target.districtId.equals(volunteer.districtId)) {
+                proximity = SAME_DISTRICT_PROXIMITY;
+            } else if (target.divisionId != null && target.divisionId.equals(volunteer.divisionId)) {
+                proximity = SAME_DIVISION_PROXIMITY;
+            }
+
+            double score = WEIGHT_PROXIMITY * proximity + base;
+            if (!full) {
+                best.add(new Candidate(volunteer, distanceKm, score));
+            } else if (score > floor) {
+                best.poll();
+                best.add(new Candidate(volunteer, distanceKm, score));
+            }
+        }
+
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble(Candidate::getScore).reversed()
+                              .thenComparing(Candidate::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        return ranked;
+    }
+
+    /**
+     * Same result as SpatialIndex.distanceKm, from the precomputed radians and cosines
+     */
+    private static double haversineKm(Target target, Volunteer volunteer) {
+        double sinLat = Math.sin((volunteer.latRad - target.latRad) / 2);
+        double sinLng = Math.sin((volunteer.lngRad - target.lngRad) / 2);
+        double a = sinLat * sinLat + target.cosLat * volunteer.cosLat * sinLng * sinLng;
+        return EARTH_RADIUS_KM * 2 * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    public int size() {
+        ensureLoaded();
+        return volunteers.length;
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+
+    private void ensureLoaded() {
+        if (stale || loadsStale) {
+            sync();
+        }
+    }
+
+    private synchronized void sync() {
+        boolean usersChanged = stale;
+        boolean loadsChanged = loadsStale;
+        if (!usersChanged && !loadsChanged) {
+            return;
+        }
+        stale = false;
+        loadsStale = false;
+        try {
+            if (lastVersion < 0) {
+                reload();
+            } else {
+                if (usersChanged) {
+                    applyChanges();
+                }
+                if (loadsChanged) {
+                    refreshLoads();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error loading volunteers for matching: " + e.getMessage());
+            lastVersion = -1;
+            stale = true;
+            return;
+        }
+        volunteers = byId.values().toArray(new Volunteer[0]);
+    }
+
+    private void reload() throws java.sql.SQLException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        long start = System.currentTimeMillis();
+        byId.clear();
+        lastDeletions = dbManager.getDeletionCount("users");
+        long[] maxVersion = {0};
+        dbManager.executeQueryWithCallback(
+            VOLUNTEER_SELECT + " WHERE u.user_type = 'VOLUNTEER' AND u.status IN ('ACTIVE', 'ASSIGNED')",
+            rs -> apply(rs, maxVersion));
+        // Other users may carry higher versions; start the next delta from the table's maximum
+        dbManager.executeQueryWithCallback("SELECT COALESCE(MAX(row_version), 0) FROM users", rs -> {
+            if (rs.next()) {
+                maxVersion[0] = Math.max(maxVersion[0], rs.getLong(1));
+            }
+        });
+        lastVersion = maxVersion[0];
+        System.out.println("VolunteerMatcher: indexed " + byId.size() + " volunteers in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Re-read only the users rows written since the last look, and drop volunteers whose rows were deleted
+     */
+    private void applyChanges() throws java.sql.SQLException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        long[] maxVersion = {lastVersion};
+        dbManager.executeQueryWithCallback(VOLUNTEER_SELECT + " WHERE u.row_version > ?",
+            rs -> apply(rs, maxVersion), maxVersion[0]);
+        lastVersion = maxVersion[0];
+
+        long deletions = dbManager.getDeletionCount("users");
+        if (deletions != lastDeletions) {
+            lastDeletions = deletions;
+            Set<String> present = new HashSet<>();
+            dbManager.executeQueryWithCallback("SELECT user_id FROM users WHERE user_type = 'VOLUNTEER'", rs -> {
+                while (rs.next()) {
+                    present.add(rs.getString(1));
+                }
+            });
+            byId.keySet().retainAll(present);
+        }
+    }
+
+    /**
+     * Emergency changes move assignments, not volunteers: refresh the open assignment counts only
+     */
+    private void refreshLoads() throws java.sql.SQLException {
+        Map<String, Integer> counts = new HashMap<>();
+        DatabaseManager.getInstance().executeQueryWithCallback(
+            "SELECT volunteer_id, COUNT(*) FROM volunteer_assignments " +
+            "WHERE status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') GROUP BY volunteer_id",
+            rs -> {
+                while (rs.next()) {
+                    counts.put(rs.getString(1), rs.getInt(2));
+                }
+            });
+        byId.replaceAll((userId, volunteer) -> {
+            int count = counts.getOrDefault(userId, 0);
+            return count == volunteer.activeAssignments ? volunteer : volunteer.withAssignments(count);
+        });
+    }
+
+    private void apply(java.sql.ResultSet rs, long[] maxVersion) throws java.sql.SQLException {
+        while (rs.next()) {
+            maxVersion[0] = Math.max(maxVersion[0], rs.getLong("row_version"));
+            String userId = rs.getString("user_id");
+            byId.remove(userId);
+            String status = rs.getString("status");
+            if (!"VOLUNTEER".equals(rs.getString("user_type")) || !("ACTIVE".equals(status) || "ASSIGNED".equals(status))) {
+                continue;
+            }
+            String location = rs.getString("location");
+            double lat = rs.getDouble("location_lat");
+            boolean hasLat = !rs.wasNull();
+            double lng = rs.getDouble("location_lng");
+            boolean hasPoint = hasLat && !rs.wasNull() && !(lat == 0 && lng == 0);
+            // Volunteers with no location at all cannot be placed near anything
+            if ((location == null || location.trim().isEmpty()) && !hasPoint) {
+                continue;
+            }
+            String skills = rs.getString("skills");
+            byId.put(userId, new Volunteer(userId, rs.getString("name"), rs.getString("email"),
+                                           location, skills, hasPoint ? lat : Double.NaN, hasPoint ? lng : Double.NaN,
+                                           intOrNull(rs, "district_id"), intOrNull(rs, "division_id"),
+                                           skillBits(skills), rs.getInt("active_assignments")));
+        }
+    }
+
+    /**
+     * Bits for each listed skill and each word of it ("First Aid, Rescue" sets first aid, first, aid, rescue)
+     */
+    private BitSet skillBits(String skills) {
+        BitSet bits = new BitSet();
+        if (skills == null) {
+            return bits;
+        }
+        for (String phrase : skills.toLowerCase().split("[,;/|]")) {
+            String skill = phrase.trim();
+            if (skill.isEmpty() || "general".equals(skill)) {
+                continue;
+            }
+            bits.set(skillBit(skill));
+            for (String word : skill.split("\\s+")) {
+                bits.set(skillBit(word));
+            }
+        }
+        return bits;
+    }
+
+    private static Integer intOrNull(java.sql.ResultSet rs, String column) throws java.sql.SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private int skillBit(String skill) {
+        synchronized (skillVocabulary) {
+            return skillVocabulary.computeIfAbsent(skill, s -> skillVocabulary.size());
+        }
+    }
+
+    // DataSyncManager.DataChangeListener - volunteers, their locations and their assignments
+
+    @Override
+    public void onVolunteerDataChanged() {
+        invalidate();
+    }
+
+    @Override
+    public void onUserDataChanged() {
+        invalidate();
+    }
+
+    @Override
+    public void onEmergencyDataChanged() {
+        loadsStale = true;
+    }
+
+    @Override
+    public void onResourceDataChanged() {
+    }
+
+    @Override
+    public void onDashboardDataChanged() {
+    }
+
+    @Override
+    public void onCommunicationDataChanged() {
+    }
+
+    @Override
+    public void onSettingsDataChanged() {
+    }
+}
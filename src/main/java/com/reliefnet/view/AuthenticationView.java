@@ -18,6 +18,7 @@ import com.reliefnet.database.DatabaseManager;
 import com.reliefnet.controller.MainController;
 import com.reliefnet.network.CloudSyncManager;
 import com.reliefnet.util.EmailService;
+import com.reliefnet.util.ThemeManager;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -170,7 +171,7 @@ public class AuthenticationView {
     private ImageView createLogoView() {
         try {
             // Use logo.png specifically for authentication screen
-            Image logoImage = new Image(getClass().getResourceAsStream("/images/logo.png"));
+            Image logoImage = ThemeManager.getLogoImage();
             if (logoImage != null && !logoImage.isError()) {
                 ImageView imageView = new ImageView(logoImage);
                 imageView.setFitWidth(60);
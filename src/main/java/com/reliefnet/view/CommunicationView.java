@@ -9,7 +9,9 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import com.reliefnet.util.KeysetPager;
 import com.reliefnet.util.ThemeManager;
+import com.reliefnet.util.UserNameCache;
 import com.reliefnet.database.DatabaseManager;
 import com.reliefnet.model.User;
 import com.reliefnet.network.NetworkManager;
@@ -24,6 +26,10 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
     private HBox sosAlertBanner; // Banner for SOS alerts
     private ListView<String> messagesList;
     private ObservableList<String> messages;
+    private KeysetPager<String> messagePager; // Pages chat history for the current channel
+    private boolean messagePagerBound = false;
+    private static final int CHAT_PAGE_SIZE = 200;
+    private static final int CHAT_MAX_WINDOW = 600; // Scrollback kept in memory; older pages reload on demand
     private TextField messageInput;
     private ComboBox<String> channelSelector;
     private ListView<String> contactsList;    private ObservableList<String> contacts;
@@ -332,7 +338,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
             String broadcastsSql = "SELECT sender_id, content, broadcast_type, priority, sent_at FROM messages " +
                                  "WHERE message_type = 'BROADCAST' AND sent_at >= datetime('now', '-24 hours') " +
                                  "ORDER BY sent_at DESC LIMIT 5";
-              try (java.sql.ResultSet rs = dbManager.executeQuery(broadcastsSql)) {
+              dbManager.executeQueryWithCallback(broadcastsSql, rs -> {
                 while (rs.next()) {
                     // String sender = rs.getString("sender_id"); // Not needed for display
                     String content = rs.getString("content");
@@ -361,7 +367,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
                         broadcastList.getChildren().add(broadcastItem);
                     }
                 }
-            }
+            });
             
             if (broadcastList.getChildren().isEmpty()) {
                 Label noBroadcasts = new Label("No recent broadcasts");
@@ -462,33 +468,11 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
         messages = FXCollections.observableArrayList();
         
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();            // Load recent messages from current channel (exclude BROADCAST and EMERGENCY types)
-            // Join with users table to get the username instead of user_id
-            String messagesSql = "SELECT m.*, u.name as sender_name FROM messages m " +
-                               "LEFT JOIN users u ON m.sender_id = CAST(u.id AS TEXT) " +
-                               "WHERE m.channel_id = ? AND m.message_type = 'CHAT' " +
-                               "ORDER BY m.sent_at ASC";
-            System.out.println("Loading messages for channel: " + currentChannel + " using SQL: " + messagesSql);try (java.sql.ResultSet rs = dbManager.executeQuery(messagesSql, currentChannel)) {
-                int messageCount = 0;
-                while (rs.next()) {
-                    String senderId = rs.getString("sender_id");
-                    String senderName = rs.getString("sender_name");
-                    String content = rs.getString("content");
-                    java.sql.Timestamp sentAt = rs.getTimestamp("sent_at");
-                    
-                    // Use username (from users table) if available, otherwise fall back to user_id
-                    String displayName = (senderName != null && !senderName.trim().isEmpty()) ? senderName : senderId;
-                    
-                    if (sentAt != null) {
-                        String timeStr = sentAt.toLocalDateTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
-                        String messageText = "[" + timeStr + "] " + displayName + ": " + content;
-                        messages.add(messageText);
-                        messageCount++;
-                        System.out.println("Loaded message " + messageCount + ": " + messageText);
-                    }
-                }
-                System.out.println("Total messages loaded from database: " + messageCount);
-            }
+            // Load the most recent page of the current channel (exclude BROADCAST and EMERGENCY types);
+            // older messages are paged in as the user scrolls up
+            messagePager = createMessagePager(messages);
+            int messageCount = messagePager.reload();
+            System.out.println("Total messages loaded from database: " + messageCount);
             
             // If no messages found, add system welcome message
             if (messages.isEmpty()) {
@@ -503,7 +487,34 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
             messages.add("[" + java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm")) + "] System: Welcome to ReliefNet Emergency Communication");
         }
         
-        // Initialize contacts - only authorities and approved volunteers
+        loadContacts();
+          // Set data to UI components
+        System.out.println("Setting data to UI components...");
+        System.out.println("Messages to set: " + messages.size());
+        System.out.println("MessagesList is null: " + (messagesList == null));
+        
+        if (messagesList != null) {
+            messagesList.setItems(messages);
+            bindMessagePager();
+            System.out.println("Messages set to ListView successfully");
+            // Auto-scroll to bottom to show the most recent messages
+            if (!messages.isEmpty()) {
+                // Use Platform.runLater to ensure UI is updated before scrolling
+                javafx.application.Platform.runLater(() -> {
+                    messagesList.scrollTo(messages.size() - 1);
+                    System.out.println("Auto-scrolled to bottom message: " + (messages.size() - 1));
+                });
+            }
+            System.out.println("Scrolled to bottom of messages");
+        } else {
+            System.err.println("ERROR: messagesList is null, cannot set messages!");
+        }
+    }
+    
+    /**
+     * Load contacts - only authorities and approved volunteers
+     */
+    private void loadContacts() {
         contacts = FXCollections.observableArrayList();
           try {
             DatabaseManager dbManager = DatabaseManager.getInstance();
@@ -516,7 +527,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
                                "AND status IN ('ACTIVE', 'AVAILABLE') " +
                                "ORDER BY user_type DESC, last_seen DESC LIMIT 50";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(contactsSql)) {
+            dbManager.executeQueryWithCallback(contactsSql, rs -> {
                 while (rs.next()) {
                     String name = rs.getString("name");
                     String userType = rs.getString("user_type");
@@ -527,7 +538,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
                     String contactText = icon + " " + roleIcon + " " + name + " (" + userType + ")";
                     contacts.add(contactText);
                 }
-            }
+            });
             
             // Always add emergency control center
             if (!contacts.stream().anyMatch(c -> c.contains("Emergency Control Center"))) {
@@ -541,26 +552,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
             // Add system contact on error
             contacts.add("� �🟢 Emergency Control Center (SYSTEM)");
         }
-          // Set data to UI components
-        System.out.println("Setting data to UI components...");
-        System.out.println("Messages to set: " + messages.size());
-        System.out.println("MessagesList is null: " + (messagesList == null));
         
-        if (messagesList != null) {
-            messagesList.setItems(messages);
-            System.out.println("Messages set to ListView successfully");
-            // Auto-scroll to bottom to show the most recent messages
-            if (!messages.isEmpty()) {
-                // Use Platform.runLater to ensure UI is updated before scrolling
-                javafx.application.Platform.runLater(() -> {
-                    messagesList.scrollTo(messages.size() - 1);
-                    System.out.println("Auto-scrolled to bottom message: " + (messages.size() - 1));
-                });
-            }
-            System.out.println("Scrolled to bottom of messages");
-        } else {
-            System.err.println("ERROR: messagesList is null, cannot set messages!");
-        }
         if (contactsList != null) {
             contactsList.setItems(contacts);
         }
@@ -650,6 +642,9 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
                                                      contact, finalLocation, finalDescription, urgencyLevel);
             
             if (rowsAffected > 0) {
+                // Responders' views, the triage queue and incident clusters follow emergency changes
+                DataSyncManager.getInstance().notifyEmergencyDataChanged();
+                
                 // Show SOS alert in banner instead of chat
                 sosAlertBanner.setVisible(true);
                 sosAlertBanner.setManaged(true);
@@ -741,40 +736,9 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
                 }
             }
             
-            // Verify the message was saved by querying it back
-            String verifySql = "SELECT * FROM messages WHERE message_id = ?";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(verifySql, messageId)) {
-                if (rs.next()) {
-                    System.out.println("Message verified in database: " + rs.getString("content"));
-                } else {
-                    System.err.println("Message NOT found in database after insert!");
-                }
-            }
-              // Add to UI immediately (at the bottom) - get the username from database
-            String timeStr = java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
-            
-            // Query the database to get the actual username for display
-            String displayName = senderId; // fallback
-            try {
-                String userQuery = "SELECT name FROM users WHERE id = ?";
-                try (java.sql.ResultSet userRs = dbManager.executeQuery(userQuery, senderId)) {
-                    if (userRs.next()) {
-                        String userName = userRs.getString("name");
-                        if (userName != null && !userName.trim().isEmpty()) {
-                            displayName = userName;
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error getting username for display: " + e.getMessage());
-            }
-            
-            messages.add("[" + timeStr + "] " + displayName + ": " + messageText);
-            
-            // Auto-scroll to bottom to show the new message
-            if (messagesList != null) {
-                messagesList.scrollTo(messages.size() - 1);
-            }
+            // Show the new message by appending from the database - the sender's name is already known
+            UserNameCache.getInstance().put(senderId, senderName);
+            appendNewMessages();
             
             // Clear input
             messageInput.clear();
@@ -834,24 +798,25 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
                                   "((location IS NOT NULL AND location != '') OR (location_name IS NOT NULL AND location_name != '')))) " +
                                   "AND status IN ('ACTIVE', 'AVAILABLE')";
             
-            int onlineCount = 0;
-            try (java.sql.ResultSet rs = dbManager.executeQuery(onlineCountSql)) {
+            int[] onlineCount = {0};
+            dbManager.executeQueryWithCallback(onlineCountSql, rs -> {
                 if (rs.next()) {
-                    onlineCount = rs.getInt("count");
-                }            }
-            onlineText.setText(onlineCount + " members online");
+                    onlineCount[0] = rs.getInt("count");
+                }
+            });
+            onlineText.setText(onlineCount[0] + " members online");
             
             // Count messages for current channel only if messageText is provided
             if (messageText != null) {
                 String messagesCountSql = "SELECT COUNT(*) as count FROM messages WHERE " +
                                          "channel_id = ? AND date(sent_at) = date('now')";
-                int messageCount = 0;
-                try (java.sql.ResultSet rs = dbManager.executeQuery(messagesCountSql, currentChannel)) {
+                int[] messageCount = {0};
+                dbManager.executeQueryWithCallback(messagesCountSql, rs -> {
                     if (rs.next()) {
-                        messageCount = rs.getInt("count");
+                        messageCount[0] = rs.getInt("count");
                     }
-                }
-                messageText.setText(messageCount + " messages today");
+                }, currentChannel);
+                messageText.setText(messageCount[0] + " messages today");
             }
               // Load actual online members (authorities and approved volunteers only) - only if usersList is provided
             if (usersList != null) {
@@ -863,14 +828,14 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
                                   "ORDER BY user_type DESC, name ASC LIMIT 10";
                 
                 usersList.getChildren().clear();
-                try (java.sql.ResultSet rs = dbManager.executeQuery(membersSql)) {
+                dbManager.executeQueryWithCallback(membersSql, rs -> {
                     while (rs.next()) {
                         String name = rs.getString("name");
                         String userType = rs.getString("user_type");
                         HBox userItem = createUserItem(name, userType, true);
                         usersList.getChildren().add(userItem);
                     }
-                }
+                });
                 
                 // Add system user if no members found
                 if (usersList.getChildren().isEmpty()) {
@@ -953,54 +918,94 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
                             "((location IS NOT NULL AND location != '') OR (location_name IS NOT NULL && location_name != '')))) " +
                             "AND status IN ('ACTIVE', 'AVAILABLE')";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(countSql)) {
+            dbManager.executeQueryWithCallback(countSql, rs -> {
                 if (rs.next()) {
                     int count = rs.getInt("count");
                     participantCountLabel.setText(count + " participants");
                 }
-            }        } catch (Exception e) {
+            });        } catch (Exception e) {
             System.err.println("Error updating participant count: " + e.getMessage());
             participantCountLabel.setText(""); // Remove Loading... text
         }
-    }      private void loadChannelMessages() {
+    }
+    
+    /**
+     * Chat history pager for the current channel, newest messages at the bottom.
+     * Messages are ordered by arrival (row id), so anything synced in later - whatever its
+     * sent_at - is newer than the last seen id and gets appended by {@link #appendNewMessages()}.
+     */
+    private KeysetPager<String> createMessagePager(ObservableList<String> target) {
+        // Sender names come from UserNameCache instead of a per-row join on users
+        KeysetPager<String> pager = new KeysetPager<>(target,
+            "SELECT m.id, m.sender_id, m.content, m.sent_at FROM messages m",
+            "m.channel_id = ? AND m.message_type = 'CHAT' AND m.sent_at IS NOT NULL",
+            new Object[] { currentChannel },
+            "m.id", "m.id", false, this::formatChatMessage, null);
+        pager.setPageSize(CHAT_PAGE_SIZE);
+        pager.setMaxWindow(CHAT_MAX_WINDOW);
+        return pager;
+    }
+    
+    /**
+     * Append only the messages newer than the last one shown, instead of reloading the channel
+     */
+    private void appendNewMessages() {
+        if (messagePager == null || messages == null) {
+            loadChannelMessages();
+            return;
+        }
+        
+        try {
+            boolean wasEmpty = messages.size() <= 1;
+            int added = messagePager.loadLatest();
+            if (added > 0 && messagesList != null) {
+                if (wasEmpty) {
+                    bindMessagePager();
+                }
+                messagesList.scrollTo(messages.size() - 1);
+            }
+        } catch (Exception e) {
+            System.err.println("Error appending new messages: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Page older messages in as the chat list is scrolled up (once the list exists)
+     */
+    private void bindMessagePager() {
+        if (messagePager != null && messagesList != null && !messagePagerBound) {
+            messagePager.bind(messagesList);
+            messagePagerBound = true;
+        }
+    }
+    
+    private String formatChatMessage(java.sql.ResultSet rs) throws java.sql.SQLException {
+        String senderId = rs.getString("sender_id");
+        String content = rs.getString("content");
+        java.sql.Timestamp sentAt = rs.getTimestamp("sent_at");
+        
+        // Use username (from users table) if available, otherwise fall back to user_id
+        String displayName = UserNameCache.getInstance().getName(senderId);
+        String timeStr = sentAt.toLocalDateTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
+        return "[" + timeStr + "] " + displayName + ": " + content;
+    }
+    
+    private void loadChannelMessages() {
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            
             // Initialize messages if null
             if (messages == null) {
                 messages = FXCollections.observableArrayList();
             }
             
-            // Clear current messages
-            messages.clear();
+            if (messagePager == null) {
+                messagePager = createMessagePager(messages);
+            }
             
             System.out.println("Loading messages for channel: " + currentChannel);
-              // Load messages for current channel (exclude broadcasts and emergency messages)
-            // Join with users table to get the username instead of user_id
-            String messagesSql = "SELECT m.*, u.name as sender_name FROM messages m " +
-                               "LEFT JOIN users u ON m.sender_id = CAST(u.id AS TEXT) " +
-                               "WHERE m.channel_id = ? AND m.message_type = 'CHAT' " +
-                               "ORDER BY m.sent_at ASC";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(messagesSql, currentChannel)) {
-                int messageCount = 0;
-                while (rs.next()) {
-                    String senderId = rs.getString("sender_id");
-                    String senderName = rs.getString("sender_name");
-                    String content = rs.getString("content");
-                    java.sql.Timestamp sentAt = rs.getTimestamp("sent_at");
-                    messageCount++;
-                    
-                    // Use username (from users table) if available, otherwise fall back to user_id
-                    String displayName = (senderName != null && !senderName.trim().isEmpty()) ? senderName : senderId;
-                    
-                    if (sentAt != null) {
-                        String timeStr = sentAt.toLocalDateTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
-                        String messageText = "[" + timeStr + "] " + displayName + ": " + content;
-                        messages.add(messageText);
-                    }
-                }
-                System.out.println("Loaded " + messageCount + " messages from database for channel: " + currentChannel);
-            }
+            // Load the latest page for the current channel (exclude broadcasts and emergency messages)
+            messagePager.setWhereParams(currentChannel);
+            int messageCount = messagePager.reload();
+            System.out.println("Loaded " + messageCount + " messages from database for channel: " + currentChannel);
             
             // If no messages, add welcome message
             if (messages.isEmpty()) {
@@ -1012,6 +1017,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
             javafx.application.Platform.runLater(() -> {
                 if (messagesList != null) {
                     messagesList.setItems(messages);
+                    bindMessagePager();
                     messagesList.refresh(); // Force refresh the ListView
                     if (!messages.isEmpty()) {
                         // Use another Platform.runLater for better auto-scroll timing
@@ -1067,54 +1073,56 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
             
             // Test 1: Check if messages table exists and has correct structure
             String checkTableSql = "SELECT name FROM sqlite_master WHERE type='table' AND name='messages'";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(checkTableSql)) {
-                if (rs.next()) {
-                    System.out.println("✓ Messages table exists");
-                } else {
-                    System.err.println("✗ Messages table does NOT exist!");
-                    return;
-                }
+            boolean[] tableExists = {false};
+            dbManager.executeQueryWithCallback(checkTableSql, rs -> {
+                tableExists[0] = rs.next();
+            });
+            if (tableExists[0]) {
+                System.out.println("✓ Messages table exists");
+            } else {
+                System.err.println("✗ Messages table does NOT exist!");
+                return;
             }
             
             // Test 2: Check table structure
             String tableInfoSql = "PRAGMA table_info(messages)";
             System.out.println("Messages table structure:");
-            try (java.sql.ResultSet rs = dbManager.executeQuery(tableInfoSql)) {
+            dbManager.executeQueryWithCallback(tableInfoSql, rs -> {
                 while (rs.next()) {
                     String columnName = rs.getString("name");
                     String columnType = rs.getString("type");
                     System.out.println("  - " + columnName + " (" + columnType + ")");
                 }
-            }
+            });
             
             // Test 3: Count existing messages
             String countSql = "SELECT COUNT(*) as count FROM messages";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(countSql)) {
+            dbManager.executeQueryWithCallback(countSql, rs -> {
                 if (rs.next()) {
                     int count = rs.getInt("count");
                     System.out.println("✓ Total messages in database: " + count);
                 }
-            }
+            });
             
             // Test 4: Count CHAT messages
             String chatCountSql = "SELECT COUNT(*) as count FROM messages WHERE message_type = 'CHAT'";
-            try (java.sql.ResultSet rs = dbManager.executeQuery(chatCountSql)) {
+            dbManager.executeQueryWithCallback(chatCountSql, rs -> {
                 if (rs.next()) {
                     int count = rs.getInt("count");
                     System.out.println("✓ Total CHAT messages in database: " + count);
                 }
-            }
+            });
             
             // Test 5: Show recent messages by channel
             String channelMessagesSql = "SELECT channel_id, COUNT(*) as count FROM messages WHERE message_type = 'CHAT' GROUP BY channel_id";
             System.out.println("Messages by channel:");
-            try (java.sql.ResultSet rs = dbManager.executeQuery(channelMessagesSql)) {
+            dbManager.executeQueryWithCallback(channelMessagesSql, rs -> {
                 while (rs.next()) {
                     String channelId = rs.getString("channel_id");
                     int count = rs.getInt("count");
                     System.out.println("  - " + channelId + ": " + count + " messages");
                 }
-            }
+            });
             
         } catch (Exception e) {
             System.err.println("✗ Database test failed: " + e.getMessage());
@@ -1138,7 +1146,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
         // Refresh contacts list when user data changes
         javafx.application.Platform.runLater(() -> {
             System.out.println("CommunicationView: Refreshing contacts due to user data change");
-            initializeCommunicationData();
+            loadContacts();
         });
     }
     
@@ -1152,7 +1160,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
         // Refresh contacts list when volunteer data changes
         javafx.application.Platform.runLater(() -> {
             System.out.println("CommunicationView: Refreshing contacts due to volunteer data change");
-            initializeCommunicationData();
+            loadContacts();
         });
     }
     
@@ -1169,7 +1177,7 @@ public class CommunicationView implements DataSyncManager.DataChangeListener {
             int beforeCount = messages != null ? messages.size() : 0;
             System.out.println("   Messages before refresh: " + beforeCount);
             
-            loadChannelMessages();
+            appendNewMessages();
             
             int afterCount = messages != null ? messages.size() : 0;
             System.out.println("   Messages after refresh: " + afterCount);
@@ -12,9 +12,11 @@ import javafx.scene.shape.Circle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
+import com.reliefnet.util.RefreshScheduler;
 import com.reliefnet.util.ThemeManager;
+import com.reliefnet.database.DailyRollups;
+import com.reliefnet.database.DashboardCounters;
 import com.reliefnet.database.DatabaseManager;
-import java.sql.ResultSet;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -32,6 +34,7 @@ public class DashboardView {    // Dashboard data
     private int activeVolunteers = 0;
     private int onDutyVolunteers = 0;
     private int areasCovered = 0; // Will be loaded from database
+    private long metricsVersion = -1; // Snapshot version the metrics above were read at
     private List<ActivityItem> recentActivities = new ArrayList<>();
     
     // References to metric labels for real-time updates
@@ -75,6 +78,11 @@ public class DashboardView {    // Dashboard data
         
         mainContainer.getChildren().addAll(header, metricsRow, chartsRow, activitySection);
         
+        // Bursts of change notifications collapse into one refresh while the dashboard is showing
+        RefreshScheduler.getInstance().register("dashboard-view", mainContainer, 0, this::refreshDashboard,
+            RefreshScheduler.DataKind.EMERGENCY, RefreshScheduler.DataKind.USER,
+            RefreshScheduler.DataKind.DASHBOARD, RefreshScheduler.DataKind.VOLUNTEER, RefreshScheduler.DataKind.RESOURCE);
+        
         return mainContainer;
     }    private VBox createHeader() {
         VBox header = new VBox(10);
@@ -92,55 +100,22 @@ public class DashboardView {    // Dashboard data
       private void loadDashboardData() {
         try {
             DatabaseManager dbManager = DatabaseManager.getInstance();
-              // Load active emergencies from both emergency_requests and sos_alerts
-            String emergencyQuery = "SELECT SUM(total) as total_emergencies, SUM(critical) as critical_emergencies FROM (" +
-                                  "SELECT COUNT(*) as total, " +
-                                  "SUM(CASE WHEN priority = 'CRITICAL' THEN 1 ELSE 0 END) as critical " +
-                                  "FROM emergency_requests WHERE status = 'PENDING' OR status = 'IN_PROGRESS' " +
-                                  "UNION ALL " +
-                                  "SELECT COUNT(*) as total, " +
-                                  "SUM(CASE WHEN urgency_level = 'CRITICAL' THEN 1 ELSE 0 END) as critical " +
-                                  "FROM sos_alerts WHERE status = 'ACTIVE' OR status = 'RESPONDED'" +
-                                  ")";
-            try (ResultSet rs = dbManager.executeQuery(emergencyQuery)) {
-                if (rs.next()) {
-                    activeEmergencies = rs.getInt("total_emergencies");
-                    criticalEmergencies = rs.getInt("critical_emergencies");
-                }
-            }            // Load total resources (matching Resource Management window count - only AVAILABLE resources)
-            String resourceQuery = "SELECT COUNT(*) as total FROM resources WHERE status = 'AVAILABLE'";
-            try (ResultSet rs = dbManager.executeQuery(resourceQuery)) {
-                if (rs.next()) {
-                    availableResources = rs.getInt("total");
-                }
-            }// Load active volunteers (only approved volunteers, not pending) - must match VolunteerView logic
-            String volunteerQuery = "SELECT COUNT(*) as total, " +
-                                  "SUM(CASE WHEN status = 'ACTIVE' THEN 1 ELSE 0 END) as on_duty " +
-                                  "FROM users WHERE user_type = 'VOLUNTEER' AND status IN ('ACTIVE', 'INACTIVE', 'ASSIGNED') " +
-                                  "AND ((location IS NOT NULL AND location != '') OR (location_name IS NOT NULL AND location_name != ''))";
-            try (ResultSet rs = dbManager.executeQuery(volunteerQuery)) {
-                if (rs.next()) {
-                    activeVolunteers = rs.getInt("total");
-                    onDutyVolunteers = rs.getInt("on_duty");
-                }
-            }            // Load areas covered from districts in population_data table
-            String areaQuery = "SELECT COUNT(DISTINCT district) as total_districts FROM population_data";
-            try (ResultSet rs = dbManager.executeQuery(areaQuery)) {
-                if (rs.next()) {
-                    areasCovered = rs.getInt("total_districts");
-                    System.out.println("Areas covered from database: " + areasCovered);
-                } else {
-                    System.out.println("No districts found in population_data table");
-                    areasCovered = 0;
-                }
-            }
             
-            // Verify the database connection and data
-            try (ResultSet rs = dbManager.executeQuery("SELECT district FROM population_data")) {
-                System.out.println("Districts in database:");
-                while (rs.next()) {
-                    System.out.println(" - " + rs.getString("district"));
-                }
+            // Metrics come from trigger-maintained counters - one primary-key read instead of aggregate queries
+            DashboardCounters.Snapshot snapshot = DashboardCounters.read();
+            if (snapshot.getVersion() != metricsVersion) {
+                // Active emergencies span both emergency_requests and sos_alerts
+                activeEmergencies = snapshot.getInt(DashboardCounters.EMERGENCY_ACTIVE) + snapshot.getInt(DashboardCounters.SOS_ACTIVE);
+                criticalEmergencies = snapshot.getInt(DashboardCounters.EMERGENCY_CRITICAL) + snapshot.getInt(DashboardCounters.SOS_CRITICAL);
+                // Only AVAILABLE resources, matching the Resource Management window count
+                availableResources = snapshot.getInt(DashboardCounters.RESOURCES_AVAILABLE);
+                // Only approved volunteers, not pending - same rule as VolunteerView
+                activeVolunteers = snapshot.getInt(DashboardCounters.VOLUNTEERS_APPROVED);
+                onDutyVolunteers = snapshot.getInt(DashboardCounters.VOLUNTEERS_ON_DUTY);
+                // Areas covered = districts in population_data
+                areasCovered = snapshot.getInt(DashboardCounters.DISTRICTS_COVERED);
+                metricsVersion = snapshot.getVersion();
+                System.out.println("Dashboard metrics snapshot v" + metricsVersion + " (last change " + snapshot.getLastChanged() + ")");
             }
             
             // Load recent activities (emergency requests, resource updates, user registrations)
@@ -161,7 +136,7 @@ public class DashboardView {    // Dashboard data
                                   "SELECT 'SOS' as type, description, created_at, urgency_level as urgency " +
                                   "FROM sos_alerts " +
                                   "ORDER BY created_at DESC LIMIT 5";
-            try (ResultSet rs = dbManager.executeQuery(emergencyQuery)) {
+            dbManager.executeQueryWithCallback(emergencyQuery, rs -> {
                 while (rs.next()) {
                     String type = rs.getString("type");
                     String description = rs.getString("description");
@@ -175,12 +150,12 @@ public class DashboardView {    // Dashboard data
                     recentActivities.add(new ActivityItem(icon, 
                         prefix + description, time, color));
                 }
-            }
+            });
             
             // Get recent user registrations
             String userQuery = "SELECT name, user_type, created_at FROM users " +
                              "ORDER BY created_at DESC LIMIT 3";
-            try (ResultSet rs = dbManager.executeQuery(userQuery)) {
+            dbManager.executeQueryWithCallback(userQuery, rs -> {
                 while (rs.next()) {
                     String name = rs.getString("name");
                     String userType = rs.getString("user_type");
@@ -190,11 +165,11 @@ public class DashboardView {    // Dashboard data
                     recentActivities.add(new ActivityItem(icon, 
                         name + " registered as " + userType.toLowerCase(), time, ThemeManager.SUCCESS_COLOR));
                 }
-            }
+            });
               // Get recent resource updates
             String resourceQuery = "SELECT name, quantity, unit, updated_at FROM resources " +
                                  "ORDER BY updated_at DESC LIMIT 3";
-            try (ResultSet rs = dbManager.executeQuery(resourceQuery)) {
+            dbManager.executeQueryWithCallback(resourceQuery, rs -> {
                 while (rs.next()) {
                     String name = rs.getString("name");
                     int quantity = rs.getInt("quantity");
@@ -205,41 +180,43 @@ public class DashboardView {    // Dashboard data
                         quantity + " " + unit + " of " + name + " updated", 
                         time, ThemeManager.INFO_COLOR));
                 }
-            }
+            });
             
             // Get activities from the new activities table (logged by ResourceView)
             String activityQuery = "SELECT activity_type, description, timestamp FROM activities " +
                                  "ORDER BY timestamp DESC LIMIT 5";
-            try (ResultSet rs = dbManager.executeQuery(activityQuery)) {
-                while (rs.next()) {
-                    String activityType = rs.getString("activity_type");
-                    String description = rs.getString("description");
-                    String time = getTimeAgo(rs.getString("timestamp"));
+            try {
+                dbManager.executeQueryWithCallback(activityQuery, rs -> {
+                    while (rs.next()) {
+                        String activityType = rs.getString("activity_type");
+                        String description = rs.getString("description");
+                        String time = getTimeAgo(rs.getString("timestamp"));
                     
-                    String icon = "📦";
-                    String color = ThemeManager.SUCCESS_COLOR;
+                        String icon = "📦";
+                        String color = ThemeManager.SUCCESS_COLOR;
                     
-                    // Set icon and color based on activity type
-                    switch (activityType) {
-                        case "RESOURCE_ADDED":
-                            icon = "➕";
-                            color = ThemeManager.SUCCESS_COLOR;
-                            break;
-                        case "RESOURCE_UPDATED":
-                            icon = "✏️";
-                            color = ThemeManager.INFO_COLOR;
-                            break;
-                        case "RESOURCE_DISTRIBUTED":
-                            icon = "🚚";
-                            color = ThemeManager.WARNING_COLOR;
-                            break;
-                        default:
-                            icon = "📦";
-                            color = ThemeManager.INFO_COLOR;
-                    }
+                        // Set icon and color based on activity type
+                        switch (activityType) {
+                            case "RESOURCE_ADDED":
+                                icon = "➕";
+                                color = ThemeManager.SUCCESS_COLOR;
+                                break;
+                            case "RESOURCE_UPDATED":
+                                icon = "✏️";
+                                color = ThemeManager.INFO_COLOR;
+                                break;
+                            case "RESOURCE_DISTRIBUTED":
+                                icon = "🚚";
+                                color = ThemeManager.WARNING_COLOR;
+                                break;
+                            default:
+                                icon = "📦";
+                                color = ThemeManager.INFO_COLOR;
+                        }
                     
-                    recentActivities.add(new ActivityItem(icon, description, time, color));
-                }
+                        recentActivities.add(new ActivityItem(icon, description, time, color));
+                    }
+                });
             } catch (Exception e) {
                 // Ignore if activities table doesn't exist yet
                 System.out.println("Activities table not found (will be created when first activity is logged)");
@@ -412,26 +389,9 @@ public class DashboardView {    // Dashboard data
     }    private Map<String, Integer> loadEmergencyTimelineData() {
         Map<String, Integer> data = new HashMap<>();
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            
-            // Count from both emergency_requests and sos_alerts tables
-            String query = "SELECT date, SUM(count) as total_count FROM (" +
-                          "SELECT DATE(created_at) as date, COUNT(*) as count " +
-                          "FROM emergency_requests " +
-                          "WHERE created_at >= date('now', '-7 days') " +
-                          "GROUP BY DATE(created_at) " +
-                          "UNION ALL " +
-                          "SELECT DATE(created_at) as date, COUNT(*) as count " +
-                          "FROM sos_alerts " +
-                          "WHERE created_at >= date('now', '-7 days') " +
-                          "GROUP BY DATE(created_at)" +
-                          ") GROUP BY date";
-            
-            try (ResultSet rs = dbManager.executeQuery(query)) {
-                while (rs.next()) {
-                    data.put(rs.getString("date"), rs.getInt("total_count"));
-                }
-            }
+            // Count from both emergency_requests and sos_alerts via the daily rollups
+            data = DailyRollups.totalsByDay(DailyRollups.METRIC_CREATED, LocalDate.now().minusDays(7),
+                                            DailyRollups.SOURCE_EMERGENCY, DailyRollups.SOURCE_SOS);
         } catch (Exception e) {
             System.err.println("Error loading emergency timeline data: " + e.getMessage());
         }
@@ -439,26 +399,9 @@ public class DashboardView {    // Dashboard data
     }    private Map<String, Integer> loadResolvedTimelineData() {
         Map<String, Integer> data = new HashMap<>();
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            
-            // Count COMPLETED and RESOLVED from both emergency_requests and sos_alerts tables
-            String query = "SELECT date, SUM(count) as total_count FROM (" +
-                          "SELECT DATE(updated_at) as date, COUNT(*) as count " +
-                          "FROM emergency_requests " +
-                          "WHERE (status = 'COMPLETED' OR status = 'RESOLVED') AND updated_at >= date('now', '-7 days') " +
-                          "GROUP BY DATE(updated_at) " +
-                          "UNION ALL " +
-                          "SELECT DATE(updated_at) as date, COUNT(*) as count " +
-                          "FROM sos_alerts " +
-                          "WHERE (status = 'COMPLETED' OR status = 'RESOLVED') AND updated_at >= date('now', '-7 days') " +
-                          "GROUP BY DATE(updated_at)" +
-                          ") GROUP BY date";
-            
-            try (ResultSet rs = dbManager.executeQuery(query)) {
-                while (rs.next()) {
-                    data.put(rs.getString("date"), rs.getInt("total_count"));
-                }
-            }
+            // COMPLETED and RESOLVED from both emergency_requests and sos_alerts via the daily rollups
+            data = DailyRollups.totalsByDay(DailyRollups.METRIC_RESOLVED, LocalDate.now().minusDays(7),
+                                            DailyRollups.SOURCE_EMERGENCY, DailyRollups.SOURCE_SOS);
         } catch (Exception e) {
             System.err.println("Error loading resolved timeline data: " + e.getMessage());
         }
@@ -515,20 +458,8 @@ public class DashboardView {    // Dashboard data
     }private Map<String, Integer> loadResourceDistributionData() {
         Map<String, Integer> data = new HashMap<>();
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            
             // Show only AVAILABLE resources by category (matches dashboard total and ResourceView available table)
-            String query = "SELECT category, COUNT(*) as count " +
-                          "FROM resources WHERE status = 'AVAILABLE' " +
-                          "GROUP BY category";
-            
-            try (ResultSet rs = dbManager.executeQuery(query)) {
-                while (rs.next()) {
-                    String category = rs.getString("category");
-                    int count = rs.getInt("count");
-                    data.put(category, count);
-                }
-            }
+            data = DailyRollups.currentByCategory(DailyRollups.SOURCE_RESOURCE, DailyRollups.METRIC_AVAILABLE);
         } catch (Exception e) {
             System.err.println("Error loading resource distribution data: " + e.getMessage());
         }
@@ -1,6 +1,9 @@
 package com.reliefnet.view;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -13,20 +16,30 @@ import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.animation.Timeline;
-import javafx.animation.KeyFrame;
-import javafx.util.Duration;
 import com.reliefnet.util.ThemeManager;
+import com.reliefnet.util.AssignmentOptimizer;
 import com.reliefnet.util.DataSyncManager;
+import com.reliefnet.util.DuplicateDetector;
+import com.reliefnet.util.IncidentClusterer;
+import com.reliefnet.util.IncrementalTableModel;
+import com.reliefnet.util.KeysetPager;
+import com.reliefnet.util.RefreshScheduler;
+import com.reliefnet.util.TriageQueue;
+import com.reliefnet.util.VolunteerMatcher;
 import com.reliefnet.model.EmergencyRequest;
 import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.network.NetworkManager;
 
 /**
  * EmergencyView - Emergency response management interface
  */
 public class EmergencyView {
       private TableView<EmergencyRequest> emergencyTable;
+    private IncrementalTableModel<EmergencyRequest> emergencyModel;
+    private KeysetPager<EmergencyRequest> emergencyPager;
     private TableView<Object[]> sosTable; // SOS alerts table
+    private TableView<IncidentClusterer.Cluster> clusterTable;
+    private Label clusterSummary;
     
     // Store counts as class variables for reuse
     private int criticalCount = 0;
@@ -58,17 +71,18 @@ public class EmergencyView {
         HBox actionButtons = createActionButtons();
           mainContainer.getChildren().addAll(header, alertBanner, controls, tableSection, actionButtons);
         
-        // Setup automatic refresh every 10 seconds to keep authority view updated
-        Timeline autoRefresh = new Timeline(new KeyFrame(Duration.seconds(10), e -> {
+        // Keep the authority view updated while it is on screen; every write to requests and SOS
+        // alerts notifies DataSyncManager, so change events are enough
+        RefreshScheduler.getInstance().register("emergency-view", mainContainer, 0, () -> {
             System.out.println("Auto-refreshing emergency data...");
+            TriageQueue.getInstance().invalidate();
             loadEmergencyData();
             updateEmergencyCounts();
             if (sosTable != null) {
                 loadSOSData(sosTable);
             }
-        }));
-        autoRefresh.setCycleCount(Timeline.INDEFINITE);
-        autoRefresh.play();
+            loadClusterData();
+        }, RefreshScheduler.DataKind.EMERGENCY);
         
         return mainContainer;
     }
@@ -197,7 +211,11 @@ public class EmergencyView {
         newEmergencyBtn.setStyle(ThemeManager.getButtonPrimaryStyle());
         newEmergencyBtn.setOnAction(e -> handleNewEmergency());
         
-        actionButtons.getChildren().add(newEmergencyBtn);
+        Button assignAllBtn = new Button("Auto-Assign Volunteers");
+        assignAllBtn.setStyle(ThemeManager.getButtonPrimaryStyle());
+        assignAllBtn.setOnAction(e -> showAssignVolunteersDialog());
+        
+        actionButtons.getChildren().addAll(newEmergencyBtn, assignAllBtn);
         actionsSection.getChildren().addAll(actionsLabel, actionButtons);
         controls.getChildren().add(actionsSection);
         
@@ -225,7 +243,12 @@ public class EmergencyView {
         VBox sosContent = createSOSAlertsContent();
         sosAlertsTab.setContent(sosContent);
         
-        tabPane.getTabs().addAll(emergencyRequestsTab, sosAlertsTab);
+        // Tab 3: Active incidents grouped by place and time
+        Tab clustersTab = new Tab("Clusters");
+        clustersTab.setClosable(false);
+        clustersTab.setContent(createClustersContent());
+        
+        tabPane.getTabs().addAll(emergencyRequestsTab, sosAlertsTab, clustersTab);
         tabSection.getChildren().add(tabPane);
         return tabSection;
     }
@@ -240,6 +263,14 @@ public class EmergencyView {
         tableTitle.setFont(Font.font("Arial", FontWeight.BOLD, 18));
         tableTitle.setFill(Color.web(ThemeManager.PRIMARY_DARK));        // Create table
         emergencyTable = new TableView<>();
+        emergencyModel = new IncrementalTableModel<>(emergencyTable.getItems(), EmergencyRequest::getRequestId);
+        // Join with users table to get assigned volunteer name; pages load newest first as the table scrolls
+        emergencyPager = new KeysetPager<>(emergencyTable.getItems(),
+            "SELECT er.*, u.name as volunteer_name FROM emergency_requests er " +
+            "LEFT JOIN users u ON er.assigned_volunteer = u.user_id",
+            null, null, "er.created_at", "er.id", true,
+            this::readEmergencyRequest, EmergencyRequest::getRequestId);
+        emergencyPager.bind(emergencyTable);
         emergencyTable.setPrefHeight(400);
         
         // Define columns
@@ -424,23 +455,30 @@ public class EmergencyView {
                 System.err.println("Error: Unable to get DatabaseManager instance");
                 return;
             }
-              // Join with users table to get assigned volunteer name
-            String sql = "SELECT er.*, u.name as volunteer_name " +
-                        "FROM emergency_requests er " +
-                        "LEFT JOIN users u ON er.assigned_volunteer = u.user_id " +
-                        "ORDER BY er.created_at DESC";
-            System.out.println("Executing SQL: " + sql);
-            
-            // Clear existing data
-            emergencyTable.getItems().clear();
+              // The first load fetches the newest page; after that only rows inside the loaded
+            // window whose row_version moved past the last one seen are fetched
+            if (!emergencyModel.isLoaded()) {
+                long version = queryMaxRowVersion(dbManager);
+                emergencyPager.reload();
+                emergencyModel.markLoaded(version);
+            } else {
+                String sql = "SELECT er.*, u.name as volunteer_name " +
+                            "FROM emergency_requests er " +
+                            "LEFT JOIN users u ON er.assigned_volunteer = u.user_id " +
+                            "WHERE er.row_version > ? AND " + emergencyPager.windowClause() + " " +
+                            "ORDER BY er.created_at DESC";
+                java.util.List<Object> params = new java.util.ArrayList<>();
+                params.add(emergencyModel.getVersion());
+                params.addAll(java.util.Arrays.asList(emergencyPager.windowParams()));
                 
-            // Execute query and populate table
-            try (java.sql.ResultSet rs = dbManager.executeQuery(sql)) {
-                if (rs == null) {
-                    System.err.println("Error: ResultSet is null");
-                } else {
-                    loadEmergencyRequestsFromResultSet(rs);
-                    System.out.println("ResultSet processed successfully");
+                java.util.List<EmergencyRequest> rows = new java.util.ArrayList<>();
+                long[] maxVersion = { emergencyModel.getVersion() };
+                dbManager.executeQueryWithCallback(sql, rs -> rows.addAll(readEmergencyRequests(rs, maxVersion)), params.toArray());
+                
+                int changed = emergencyModel.applyChanges(rows, maxVersion[0]);
+                changed += removeDeletedEmergencies(dbManager);
+                if (changed == 0) {
+                    return;
                 }
             }
             
@@ -451,53 +489,21 @@ public class EmergencyView {
         } catch (Exception e) {
             System.err.println("Error loading emergency data: " + e.getMessage());
             e.printStackTrace();
-            // Clear table on error but don't throw any UI exceptions
-            try {
-                emergencyTable.getItems().clear();
-            } catch (Exception ex) {
-                System.err.println("Error clearing emergency table: " + ex.getMessage());
-            }
+            // Fall back to a full reload on the next refresh
+            emergencyModel.invalidate();
         }
     }
     
     /**
-     * Updates the counts of emergencies by priority from the database
+     * Updates the counts of active emergencies by priority from the shared triage queue
      */
     private void updateEmergencyCounts() {
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            
-            // Reset counts to 0
-            criticalCount = 0;
-            highCount = 0;
-            mediumCount = 0;
-            
-            // Query for counts by priority
-            String countQuery = "SELECT priority, COUNT(*) as count FROM emergency_requests " +
-                              "WHERE status != 'COMPLETED' AND status != 'CANCELLED' " +
-                              "GROUP BY priority";
+            TriageQueue triage = TriageQueue.getInstance();
+            criticalCount = triage.count(TriageQueue.Kind.EMERGENCY, "CRITICAL");
+            highCount = triage.count(TriageQueue.Kind.EMERGENCY, "HIGH");
+            mediumCount = triage.count(TriageQueue.Kind.EMERGENCY, "MEDIUM");
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(countQuery)) {
-                while (rs.next()) {
-                    String priority = rs.getString("priority");
-                    int count = rs.getInt("count");
-                    
-                    switch (priority) {
-                        case "CRITICAL":
-                            criticalCount = count;
-                            break;
-                        case "HIGH":
-                            highCount = count;
-                            break;
-                        case "MEDIUM":
-                            mediumCount = count;
-                            break;
-                        default:
-                            // Ignore other priorities (LOW)
-                            break;
-                    }
-                }
-            }
               System.out.println("Emergency counts updated: " + 
                              criticalCount + " critical, " + 
                              highCount + " high, " + 
@@ -538,7 +544,8 @@ public class EmergencyView {
         }
           // Find critical emergencies and focus on them
         try {
-            // Load critical emergencies
+            // Load critical emergencies (the table holds a filtered view until the next full load)
+            emergencyModel.invalidate();
             emergencyTable.getItems().clear();
               DatabaseManager dbManager = DatabaseManager.getInstance();
             String sql = "SELECT er.*, u.name as volunteer_name " +
@@ -547,9 +554,9 @@ public class EmergencyView {
                        "WHERE er.priority = 'CRITICAL' AND (er.status = 'PENDING' OR er.status = 'ASSIGNED') " +
                        "ORDER BY er.created_at DESC";
                 
-                try (java.sql.ResultSet rs = dbManager.executeQuery(sql)) {
+                dbManager.executeQueryWithCallback(sql, rs -> {
                     loadEmergencyRequestsFromResultSet(rs);
-                }
+                });
                   // Show response dialog with options for each critical emergency
                 if (emergencyTable.getItems().size() > 0) {
                     showCriticalResponseDialog();
@@ -632,16 +639,89 @@ public class EmergencyView {
     }
     
     /**
-     * Shows a dialog to assign volunteers to critical emergencies
+     * Computes a batch assignment for every open emergency and SOS alert in the background,
+     * then lets the authority review it before anything is written
      */
     private void showAssignVolunteersDialog() {
-        // In a real implementation, this would show available volunteers
-        // and allow assigning them to emergencies
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Assign Volunteers");
-        alert.setHeaderText("Volunteer Assignment");
-        alert.setContentText("This would show a list of available volunteers to assign to critical emergencies.");
-        alert.showAndWait();
+        Thread optimizer = new Thread(() -> {
+            try {
+                AssignmentOptimizer.Proposal proposal = AssignmentOptimizer.propose();
+                javafx.application.Platform.runLater(() -> showAssignmentProposal(proposal));
+            } catch (Exception e) {
+                System.err.println("Error computing batch assignment: " + e.getMessage());
+                javafx.application.Platform.runLater(() -> showAlert(Alert.AlertType.ERROR, "Assignment Failed",
+                        "Could not compute volunteer assignments: " + e.getMessage()));
+            }
+        }, "AssignmentOptimizer");
+        optimizer.setDaemon(true);
+        optimizer.start();
+    }
+    
+    /**
+     * Review dialog for a batch assignment; "Assign All" commits it in one transaction
+     */
+    private void showAssignmentProposal(AssignmentOptimizer.Proposal proposal) {
+        if (proposal.getAssignments().isEmpty()) {
+            showAlert(Alert.AlertType.INFORMATION, "Assign Volunteers",
+                    proposal.getRequestCount() == 0 ? "There are no open emergencies or SOS alerts to assign."
+                                                    : "No available volunteer is near enough to any open emergency.");
+            return;
+        }
+        
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Assign Volunteers");
+        dialog.setHeaderText("Proposed assignments for " + proposal.getRequestCount() + " open requests and " +
+                             proposal.getVolunteerCount() + " available volunteers");
+        
+        Label summary = new Label(String.format("%d assignments, %.0f km total travel, %d requests left without a volunteer (computed in %d ms)",
+                proposal.getAssignments().size(), proposal.getTotalDistanceKm(), proposal.getUnservedRequests(), proposal.getComputeMillis()));
+        summary.setStyle("-fx-text-fill: #6c757d;");
+        
+        TableView<AssignmentOptimizer.Assignment> table = new TableView<>();
+        table.setPrefSize(760, 420);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.getColumns().add(textColumn("Type", a -> a.getRecordType()));
+        table.getColumns().add(textColumn("Request", a -> a.getRecordId()));
+        table.getColumns().add(textColumn("Priority", a -> a.getPriority()));
+        table.getColumns().add(textColumn("Location", a -> a.getLocation()));
+        table.getColumns().add(textColumn("Volunteer", a -> a.getVolunteerName()));
+        table.getColumns().add(textColumn("Distance", a -> Double.isNaN(a.getDistanceKm()) ? "same area" : String.format("%.1f km", a.getDistanceKm())));
+        table.getItems().addAll(proposal.getAssignments());
+        
+        VBox content = new VBox(10, summary, table);
+        content.setPadding(new Insets(15));
+        dialog.getDialogPane().setContent(content);
+        
+        ButtonType assignAll = new ButtonType("Assign All", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(assignAll, ButtonType.CANCEL);
+        
+        if (dialog.showAndWait().orElse(ButtonType.CANCEL) == assignAll) {
+            Thread committer = new Thread(() -> {
+                try {
+                    int written = AssignmentOptimizer.commit(proposal);
+                    javafx.application.Platform.runLater(() -> {
+                        DataSyncManager.getInstance().notifyVolunteerDataChanged();
+                        DataSyncManager.getInstance().notifyEmergencyDataChanged();
+                        loadEmergencyData();
+                        int skipped = proposal.getAssignments().size() - written;
+                        showAlert(Alert.AlertType.INFORMATION, "Volunteers Assigned", written + " volunteer assignments were saved." +
+                                (skipped > 0 ? "\n" + skipped + " were skipped because their request was assigned or closed, or their volunteer was fully booked, meanwhile." : ""));
+                    });
+                } catch (Exception e) {
+                    System.err.println("Error committing batch assignment: " + e.getMessage());
+                    javafx.application.Platform.runLater(() -> showAlert(Alert.AlertType.ERROR, "Assignment Failed",
+                            "No assignments were saved: " + e.getMessage()));
+                }
+            }, "AssignmentCommit");
+            committer.setDaemon(true);
+            committer.start();
+        }
+    }
+    
+    private <T> TableColumn<T, String> textColumn(String title, java.util.function.Function<T, String> value) {
+        TableColumn<T, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cellData -> new SimpleStringProperty(value.apply(cellData.getValue())));
+        return column;
     }
     
     /**
@@ -684,73 +764,63 @@ public class EmergencyView {
      * @param rs The ResultSet containing emergency request data
      * @throws java.sql.SQLException if an error occurs while reading the ResultSet
      */    private void loadEmergencyRequestsFromResultSet(java.sql.ResultSet rs) throws java.sql.SQLException {
+        emergencyTable.getItems().addAll(readEmergencyRequests(rs, new long[1]));
+    }
+    
+    /**
+     * Removes rows deleted from the database since the last refresh, within the loaded window.
+     * Only compares key sets when rows were deleted or the row count no longer matches the table.
+     */
+    private int removeDeletedEmergencies(DatabaseManager dbManager) throws java.sql.SQLException {
+        String window = emergencyPager.windowClause();
+        Object[] windowParams = emergencyPager.windowParams();
+        
+        int[] total = {0};
+        dbManager.executeQueryWithCallback("SELECT COUNT(*) FROM emergency_requests er WHERE " + window, rs -> {
+            if (rs.next()) {
+                total[0] = rs.getInt(1);
+            }
+        }, windowParams);
+        boolean deleted = emergencyModel.deletionsChanged(dbManager.getDeletionCount("emergency_requests"));
+        if (!deleted && total[0] == emergencyTable.getItems().size()) {
+            return 0;
+        }
+        
+        java.util.Set<String> liveIds = new java.util.HashSet<>();
+        dbManager.executeQueryWithCallback("SELECT er.request_id FROM emergency_requests er WHERE " + window, rs -> {
+            while (rs.next()) {
+                liveIds.add(rs.getString("request_id"));
+            }
+        }, windowParams);
+        return emergencyModel.retainKeys(liveIds);
+    }
+    
+    private long queryMaxRowVersion(DatabaseManager dbManager) throws java.sql.SQLException {
+        long[] version = {0};
+        dbManager.executeQueryWithCallback("SELECT COALESCE(MAX(row_version), 0) FROM emergency_requests", rs -> {
+            if (rs.next()) {
+                version[0] = rs.getLong(1);
+            }
+        });
+        return version[0];
+    }
+    
+    /**
+     * Reads emergency requests from a ResultSet, tracking the highest row_version seen
+     * 
+     * @param rs The ResultSet containing emergency request data
+     * @param maxVersion single-element holder updated with the highest row_version
+     * @throws java.sql.SQLException if an error occurs while reading the ResultSet
+     */
+    private java.util.List<EmergencyRequest> readEmergencyRequests(java.sql.ResultSet rs, long[] maxVersion) throws java.sql.SQLException {
+        java.util.List<EmergencyRequest> requests = new java.util.ArrayList<>();
         int count = 0;
         while (rs.next()) {
             try {
-                EmergencyRequest request = new EmergencyRequest();
-                request.setRequestId(rs.getString("request_id"));
-                request.setRequesterId(rs.getString("requester_id"));
-            
-                // Parse emergency type
-                String typeStr = rs.getString("emergency_type");
-                if (typeStr != null) {
-                    try {
-                        request.setEmergencyType(EmergencyRequest.EmergencyType.valueOf(typeStr));
-                    } catch (IllegalArgumentException e) {
-                        request.setEmergencyType(EmergencyRequest.EmergencyType.MEDICAL); // Default
-                    }
-                }
-            
-                // Parse priority
-                String priorityStr = rs.getString("priority");
-                if (priorityStr != null) {
-                    try {
-                        request.setPriority(EmergencyRequest.Priority.valueOf(priorityStr));
-                    } catch (IllegalArgumentException e) {
-                        request.setPriority(EmergencyRequest.Priority.MEDIUM); // Default
-                    }
-                }
-            
-                request.setLocationLat(rs.getDouble("location_lat"));
-                request.setLocationLng(rs.getDouble("location_lng"));
-                request.setLocationName(rs.getString("location_name"));
-                request.setDescription(rs.getString("description"));
-                request.setPeopleCount(rs.getInt("people_count"));
-            
-                // Parse status
-                String statusStr = rs.getString("status");
-                if (statusStr != null) {
-                    try {
-                        request.setStatus(EmergencyRequest.RequestStatus.valueOf(statusStr));
-                    } catch (IllegalArgumentException e) {
-                        request.setStatus(EmergencyRequest.RequestStatus.PENDING); // Default
-                    }
-                }
-            
-                // Use volunteer name from JOIN query, fallback to assigned_volunteer ID if name is null
-                String volunteerName = rs.getString("volunteer_name");
-                String assignedVolunteer = rs.getString("assigned_volunteer");
-                
-                if (volunteerName != null && !volunteerName.trim().isEmpty()) {
-                    request.setAssignedVolunteer(volunteerName);
-                } else if (assignedVolunteer != null && !assignedVolunteer.trim().isEmpty()) {
-                    request.setAssignedVolunteer(assignedVolunteer); // Fallback to ID if name not found
-                } else {
-                    request.setAssignedVolunteer(null);
-                }
-            
-                // Parse timestamps
-                java.sql.Timestamp createdTs = rs.getTimestamp("created_at");
-                if (createdTs != null) {
-                    request.setCreatedAt(createdTs.toLocalDateTime());
-                }
-            
-                java.sql.Timestamp updatedTs = rs.getTimestamp("updated_at");
-                if (updatedTs != null) {
-                    request.setUpdatedAt(updatedTs.toLocalDateTime());
-                }
-            
-                emergencyTable.getItems().add(request);                count++;
+                EmergencyRequest request = readEmergencyRequest(rs);
+                maxVersion[0] = Math.max(maxVersion[0], rs.getLong("row_version"));
+                // Rows read by the change query still need a cursor for the pager to trim at
+                requests.add(emergencyPager.track(rs, request));                count++;
             } catch (Exception e) {
                 System.err.println("Error processing emergency request row: " + e.getMessage());                e.printStackTrace();
                 // Continue to next row
@@ -758,6 +828,76 @@ public class EmergencyView {
         }
         
         System.out.println("Processed " + count + " emergency request records");
+        return requests;
+    }
+    
+    /**
+     * Builds an EmergencyRequest from the current ResultSet row
+     */
+    private EmergencyRequest readEmergencyRequest(java.sql.ResultSet rs) throws java.sql.SQLException {
+        EmergencyRequest request = new EmergencyRequest();
+        request.setRequestId(rs.getString("request_id"));
+        request.setRequesterId(rs.getString("requester_id"));
+    
+        // Parse emergency type
+        String typeStr = rs.getString("emergency_type");
+        if (typeStr != null) {
+            try {
+                request.setEmergencyType(EmergencyRequest.EmergencyType.valueOf(typeStr));
+            } catch (IllegalArgumentException e) {
+                request.setEmergencyType(EmergencyRequest.EmergencyType.MEDICAL); // Default
+            }
+        }
+    
+        // Parse priority
+        String priorityStr = rs.getString("priority");
+        if (priorityStr != null) {
+            try {
+                request.setPriority(EmergencyRequest.Priority.valueOf(priorityStr));
+            } catch (IllegalArgumentException e) {
+                request.setPriority(EmergencyRequest.Priority.MEDIUM); // Default
+            }
+        }
+    
+        request.setLocationLat(rs.getDouble("location_lat"));
+        request.setLocationLng(rs.getDouble("location_lng"));
+        request.setLocationName(rs.getString("location_name"));
+        request.setDescription(rs.getString("description"));
+        request.setPeopleCount(rs.getInt("people_count"));
+    
+        // Parse status
+        String statusStr = rs.getString("status");
+        if (statusStr != null) {
+            try {
+                request.setStatus(EmergencyRequest.RequestStatus.valueOf(statusStr));
+            } catch (IllegalArgumentException e) {
+                request.setStatus(EmergencyRequest.RequestStatus.PENDING); // Default
+            }
+        }
+    
+        // Use volunteer name from JOIN query, fallback to assigned_volunteer ID if name is null
+        String volunteerName = rs.getString("volunteer_name");
+        String assignedVolunteer = rs.getString("assigned_volunteer");
+        
+        if (volunteerName != null && !volunteerName.trim().isEmpty()) {
+            request.setAssignedVolunteer(volunteerName);
+        } else if (assignedVolunteer != null && !assignedVolunteer.trim().isEmpty()) {
+            request.setAssignedVolunteer(assignedVolunteer); // Fallback to ID if name not found
+        } else {
+            request.setAssignedVolunteer(null);
+        }
+    
+        // Parse timestamps
+        java.sql.Timestamp createdTs = rs.getTimestamp("created_at");
+        if (createdTs != null) {
+            request.setCreatedAt(createdTs.toLocalDateTime());
+        }
+    
+        java.sql.Timestamp updatedTs = rs.getTimestamp("updated_at");
+        if (updatedTs != null) {
+            request.setUpdatedAt(updatedTs.toLocalDateTime());
+        }
+        return request;
     }
     
     /**
@@ -773,6 +913,7 @@ public class EmergencyView {
             loadSOSData(sosTable);
             System.out.println("SOS data refreshed");
         }
+        loadClusterData();
         
         // Update emergency counts to refresh header indicators
         updateEmergencyCounts();
@@ -861,7 +1002,7 @@ public class EmergencyView {
         
         dialog.showAndWait().ifPresent(message -> {
             if (message != null && !message.isEmpty()) {
-                int volunteerCount = 0;
+                int[] volunteerCount = {0};
                 
                 // In a real app, this would actually send notifications to volunteers
                 // For now, we'll simulate it
@@ -869,13 +1010,13 @@ public class EmergencyView {
                     DatabaseManager dbManager = DatabaseManager.getInstance();
                     String countQuery = "SELECT COUNT(*) as count FROM users WHERE user_type = 'VOLUNTEER' AND status = 'ACTIVE'";
                     
-                    try (java.sql.ResultSet rs = dbManager.executeQuery(countQuery)) {
+                    dbManager.executeQueryWithCallback(countQuery, rs -> {
                         if (rs.next()) {
-                            volunteerCount = rs.getInt("count");
+                            volunteerCount[0] = rs.getInt("count");
                         }
-                    }
+                    });
                     
-                    String confirmMessage = "Notifications sent successfully to " + volunteerCount + " volunteers.";
+                    String confirmMessage = "Notifications sent successfully to " + volunteerCount[0] + " volunteers.";
                     showAlert(Alert.AlertType.INFORMATION, "Notifications Sent", confirmMessage);
                     
                 } catch (Exception e) {
@@ -1022,6 +1163,7 @@ public class EmergencyView {
                     request.getPeopleCount(),
                     request.getStatus().toString()
                 );                System.out.println("Emergency created successfully. Refreshing data...");
+                NetworkManager.getInstance().broadcastEmergency(request);
                 
                 // Notify all views that emergency data has changed
                 DataSyncManager.getInstance().notifyEmergencyDataChanged();
@@ -1287,6 +1429,25 @@ public class EmergencyView {
             addDetailRow(detailsGrid, row++, "Requester ID:", request.getRequesterId());
         }
         
+        // Possible duplicates of this incident reported nearby
+        List<DuplicateDetector.Match> duplicates =
+            DuplicateDetector.getInstance().findDuplicates(TriageQueue.Kind.EMERGENCY, request.getRequestId());
+        if (!duplicates.isEmpty()) {
+            StringBuilder text = new StringBuilder();
+            for (DuplicateDetector.Match match : duplicates.subList(0, Math.min(3, duplicates.size()))) {
+                if (text.length() > 0) {
+                    text.append("\n");
+                }
+                text.append(match.getKind() == TriageQueue.Kind.SOS ? "SOS " : "").append(match.getRecordId())
+                    .append(String.format(" (%.0f%% similar", match.getSimilarity() * 100));
+                if (!Double.isNaN(match.getDistanceKm())) {
+                    text.append(String.format(", %.1f km", match.getDistanceKm()));
+                }
+                text.append(", ").append(match.getMinutesApart()).append(" min apart)");
+            }
+            addDetailRow(detailsGrid, row++, "Possible Duplicates:", text.toString());
+        }
+        
         content.getChildren().add(detailsGrid);
         
         dialog.getDialogPane().setContent(content);
@@ -1360,43 +1521,25 @@ public class EmergencyView {
             volunteersList.getChildren().clear();
             
             DatabaseManager dbManager = DatabaseManager.getInstance();
-              // Get all approved volunteers with their assignment counts and check if already assigned to this emergency
-            String volunteersQuery = "SELECT u.user_id, u.name, u.email, " +
-                                   "COALESCE(u.location_name, u.location) as location, u.skills, " +
-                                   "COUNT(va.volunteer_id) as assignment_count, " +
-                                   "CASE WHEN va_current.volunteer_id IS NOT NULL THEN 1 ELSE 0 END as already_assigned " +
-                                   "FROM users u " +
-                                   "LEFT JOIN volunteer_assignments va ON u.user_id = va.volunteer_id " +
-                                   "AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
-                                   "LEFT JOIN volunteer_assignments va_current ON u.user_id = va_current.volunteer_id " +
-                                   "AND va_current.request_id = ? AND va_current.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
-                                   "WHERE u.user_type = 'VOLUNTEER' AND u.status IN ('ACTIVE', 'ASSIGNED') " +
-                                   "AND ((u.location IS NOT NULL AND u.location != '') OR (u.location_name IS NOT NULL AND u.location_name != '')) " +
-                                   "GROUP BY u.user_id, u.name, u.email, u.location_name, u.location, u.skills, va_current.volunteer_id " +
-                                   "ORDER BY assignment_count ASC, u.name ASC";
+            // Approved volunteers ranked by distance, skill and current load
+            VolunteerMatcher matcher = VolunteerMatcher.getInstance();
+            List<VolunteerMatcher.Candidate> candidates = matcher.topCandidates(
+                VolunteerMatcher.Target.forRecord("EMERGENCY", request.getRequestId()), null, matcher.size());
+            Set<String> assignedIds = loadAssignedVolunteerIds(dbManager,
+                "SELECT volunteer_id FROM volunteer_assignments WHERE request_id = ? AND status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS')",
+                request.getRequestId());
+            
+            for (VolunteerMatcher.Candidate candidate : candidates) {
+                HBox volunteerRow = createVolunteerAssignmentRow(candidate.getUserId(), candidate.getName(), describeLocation(candidate),
+                                                               candidate.getSkills(), candidate.getActiveAssignments(), request,
+                                                               assignedIds.contains(candidate.getUserId()));
+                volunteersList.getChildren().add(volunteerRow);
+            }
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(volunteersQuery, request.getRequestId())) {
-                boolean hasVolunteers = false;                while (rs.next()) {
-                    hasVolunteers = true;
-                    String volunteerId = rs.getString("user_id");
-                    String name = rs.getString("name");
-                    // Email not needed for display
-                    String location = rs.getString("location");  // Now uses COALESCE from query
-                    String skills = rs.getString("skills");
-                    int assignmentCount = rs.getInt("assignment_count");
-                    boolean alreadyAssigned = rs.getInt("already_assigned") == 1;
-                    
-                    // Create volunteer row - show location below name like skills
-                    HBox volunteerRow = createVolunteerAssignmentRow(volunteerId, name, location, skills, 
-                                                                   assignmentCount, request, alreadyAssigned);
-                    volunteersList.getChildren().add(volunteerRow);
-                }
-                
-                if (!hasVolunteers) {
-                    Label noVolunteersLabel = new Label("No volunteers are currently registered in the system.");
-                    noVolunteersLabel.setStyle("-fx-text-fill: #666666; -fx-font-style: italic;");
-                    volunteersList.getChildren().add(noVolunteersLabel);
-                }
+            if (candidates.isEmpty()) {
+                Label noVolunteersLabel = new Label("No volunteers are currently registered in the system.");
+                noVolunteersLabel.setStyle("-fx-text-fill: #666666; -fx-font-style: italic;");
+                volunteersList.getChildren().add(noVolunteersLabel);
             }
             
         } catch (Exception e) {
@@ -1483,12 +1626,14 @@ public class EmergencyView {
             String checkQuery = "SELECT COUNT(*) as count FROM volunteer_assignments " +
                               "WHERE volunteer_id = ? AND request_id = ? AND status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS')";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(checkQuery, volunteerId, requestId)) {
-                if (rs.next() && rs.getInt("count") > 0) {
-                    showAlert(Alert.AlertType.WARNING, "Already Assigned", 
-                            volunteerName + " is already assigned to this emergency.");
-                    return;
-                }
+            boolean[] alreadyAssigned = {false};
+            dbManager.executeQueryWithCallback(checkQuery, rs -> {
+                alreadyAssigned[0] = rs.next() && rs.getInt("count") > 0;
+            }, volunteerId, requestId);
+            if (alreadyAssigned[0]) {
+                showAlert(Alert.AlertType.WARNING, "Already Assigned", 
+                        volunteerName + " is already assigned to this emergency.");
+                return;
             }
               // Create assignment
             String assignmentId = "ASSIGN_" + System.currentTimeMillis();
@@ -1498,13 +1643,14 @@ public class EmergencyView {
             
             // Update emergency status and assigned volunteer field (handle multiple volunteers)
             String getExistingQuery = "SELECT assigned_volunteer FROM emergency_requests WHERE request_id = ?";
-            String currentAssigned = null;
+            String[] existing = {null};
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(getExistingQuery, requestId)) {
+            dbManager.executeQueryWithCallback(getExistingQuery, rs -> {
                 if (rs.next()) {
-                    currentAssigned = rs.getString("assigned_volunteer");
+                    existing[0] = rs.getString("assigned_volunteer");
                 }
-            }
+            }, requestId);
+            String currentAssigned = existing[0];
             
             String newAssignedValue;
             if (currentAssigned == null || currentAssigned.trim().isEmpty() || "None".equals(currentAssigned)) {
@@ -1516,6 +1662,8 @@ public class EmergencyView {
             }
               String updateEmergencyQuery = "UPDATE emergency_requests SET status = 'ASSIGNED', assigned_volunteer = ?, updated_at = CURRENT_TIMESTAMP WHERE request_id = ?";
             dbManager.executeUpdate(updateEmergencyQuery, newAssignedValue, requestId);
+            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+            DataSyncManager.getInstance().notifyVolunteerDataChanged();
               // Show success but don't disable button (allow multiple assignments)
             showAlert(Alert.AlertType.INFORMATION, "Assignment Successful", 
                     volunteerName + " has been assigned to this emergency.");
@@ -1565,21 +1713,25 @@ public class EmergencyView {
             String checkQuery = "SELECT COUNT(*) as count FROM volunteer_assignments " +
                               "WHERE volunteer_id = ? AND request_id = ? AND assignment_type = 'SOS' AND status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS')";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(checkQuery, volunteerId, sosId)) {
-                if (rs.next() && rs.getInt("count") > 0) {
-                    showAlert(Alert.AlertType.WARNING, "Already Assigned", 
-                            volunteerName + " is already assigned to this SOS alert.");
-                    return;
-                }
-            }            // Update SOS status and assigned volunteer field (handle multiple volunteers)
+            boolean[] alreadyAssigned = {false};
+            dbManager.executeQueryWithCallback(checkQuery, rs -> {
+                alreadyAssigned[0] = rs.next() && rs.getInt("count") > 0;
+            }, volunteerId, sosId);
+            if (alreadyAssigned[0]) {
+                showAlert(Alert.AlertType.WARNING, "Already Assigned", 
+                        volunteerName + " is already assigned to this SOS alert.");
+                return;
+            }
+            // Update SOS status and assigned volunteer field (handle multiple volunteers)
             String getExistingQuery = "SELECT assigned_volunteer FROM sos_alerts WHERE sos_id = ?";
-            String currentAssigned = null;
+            String[] existing = {null};
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(getExistingQuery, sosId)) {
+            dbManager.executeQueryWithCallback(getExistingQuery, rs -> {
                 if (rs.next()) {
-                    currentAssigned = rs.getString("assigned_volunteer");
+                    existing[0] = rs.getString("assigned_volunteer");
                 }
-            }
+            }, sosId);
+            String currentAssigned = existing[0];
             
             String newAssignedValue;
             if (currentAssigned == null || currentAssigned.trim().isEmpty() || "None".equals(currentAssigned)) {
@@ -1600,6 +1752,8 @@ public class EmergencyView {
             // Update volunteer assignment count
             String updateVolunteerQuery = "UPDATE users SET assignment_count = COALESCE(assignment_count, 0) + 1, " +
                                         "status = 'ASSIGNED' WHERE user_id = ?";            dbManager.executeUpdate(updateVolunteerQuery, volunteerId);
+            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+            DataSyncManager.getInstance().notifyVolunteerDataChanged();
               // Refresh SOS table
             loadSOSData(sosTable);
             
@@ -1787,6 +1941,98 @@ public class EmergencyView {
         content.getChildren().addAll(sosTitle, sosTable);
         return content;
     }
+    /**
+     * Active emergencies and SOS alerts grouped into clusters of reports from the same place and time
+     */
+    private VBox createClustersContent() {
+        VBox content = new VBox(15);
+        content.setPadding(new Insets(20));
+        
+        Text title = new Text("Incident Clusters");
+        title.setFont(Font.font("Arial", FontWeight.BOLD, 18));
+        title.setFill(Color.web(ThemeManager.PRIMARY_DARK));
+        
+        clusterSummary = new Label();
+        clusterSummary.setStyle("-fx-text-fill: #6c757d;");
+        
+        clusterTable = new TableView<>();
+        clusterTable.setPrefHeight(330);
+        clusterTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        clusterTable.setPlaceholder(new Label("No active emergencies or SOS alerts"));
+        clusterTable.getColumns().add(textColumn("Location", c -> c.getLocationName() != null ? c.getLocationName() : "Unknown"));
+        clusterTable.getColumns().add(textColumn("Top Priority", c -> c.getTopPriority()));
+        clusterTable.getColumns().add(textColumn("Reports", c -> c.getEmergencyCount() + " requests, " + c.getSosCount() + " SOS"));
+        clusterTable.getColumns().add(textColumn("People", c -> String.valueOf(c.getPeopleCount())));
+        clusterTable.getColumns().add(textColumn("Radius", c -> c.getSize() > 1 ? String.format("%.1f km", c.getRadiusKm()) : "-"));
+        clusterTable.getColumns().add(textColumn("First Report", c -> formatClusterTime(c.getFirstReportedMillis())));
+        clusterTable.getColumns().add(textColumn("Latest Report", c -> formatClusterTime(c.getLastReportedMillis())));
+        clusterTable.setRowFactory(table -> {
+            TableRow<IncidentClusterer.Cluster> row = new TableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) {
+                    showClusterDetails(row.getItem());
+                }
+            });
+            return row;
+        });
+        
+        loadClusterData();
+        
+        content.getChildren().addAll(title, clusterSummary, clusterTable);
+        return content;
+    }
+    
+    private void loadClusterData() {
+        if (clusterTable == null) {
+            return;
+        }
+        try {
+            List<IncidentClusterer.Cluster> clusters = IncidentClusterer.getInstance().getClusters();
+            int incidents = 0;
+            for (IncidentClusterer.Cluster cluster : clusters) {
+                incidents += cluster.getSize();
+            }
+            clusterTable.getItems().setAll(clusters);
+            clusterSummary.setText(incidents + " active reports in " + clusters.size() + " clusters " +
+                    "(reports within " + IncidentClusterer.EPS_KM + " km and " +
+                    IncidentClusterer.WINDOW_MILLIS / 3600000 + " hours of each other). Double-click a cluster for its reports.");
+        } catch (Exception e) {
+            System.err.println("Error loading incident clusters: " + e.getMessage());
+        }
+    }
+    
+    private String formatClusterTime(long millis) {
+        return java.time.Instant.ofEpochMilli(millis).atZone(java.time.ZoneId.systemDefault())
+                .format(java.time.format.DateTimeFormatter.ofPattern("MMM d, HH:mm"));
+    }
+    
+    /**
+     * Lists the reports in a cluster, most urgent first
+     */
+    private void showClusterDetails(IncidentClusterer.Cluster cluster) {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Incident Cluster");
+        dialog.setHeaderText(cluster.getSize() + " reports near " +
+                (cluster.getLocationName() != null ? cluster.getLocationName() : "an unknown location") +
+                (Double.isNaN(cluster.getCentroidLat()) ? "" : String.format(" (%.4f, %.4f)", cluster.getCentroidLat(), cluster.getCentroidLng())));
+        
+        TableView<TriageQueue.Item> table = new TableView<>();
+        table.setPrefSize(720, 360);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.getColumns().add(textColumn("Type", item -> item.getKind() == TriageQueue.Kind.SOS ? "SOS" : "Request"));
+        table.getColumns().add(textColumn("ID", item -> item.getRecordId()));
+        table.getColumns().add(textColumn("Priority", item -> item.getPriority()));
+        table.getColumns().add(textColumn("Status", item -> item.getStatus()));
+        table.getColumns().add(textColumn("People", item -> String.valueOf(item.getPeopleCount())));
+        table.getColumns().add(textColumn("Reported", item -> formatClusterTime(item.getCreatedAtMillis())));
+        table.getColumns().add(textColumn("Description", item -> item.getDescription()));
+        table.getItems().addAll(cluster.getMembers());
+        
+        dialog.getDialogPane().setContent(table);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.showAndWait();
+    }
+    
       /**
      * Loads SOS alerts data into the table
      */
@@ -1801,7 +2047,7 @@ public class EmergencyView {
             sosTable.getItems().clear();
                   
             // Execute query and populate table
-            try (java.sql.ResultSet rs = dbManager.executeQuery(sql)) {
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 while (rs.next()) {
                     Object[] row = new Object[] {
                         rs.getString("sos_id"),
@@ -1814,7 +2060,7 @@ public class EmergencyView {
                     };
                     sosTable.getItems().add(row);
                 }
-            }
+            });
             
             System.out.println("SOS data loaded successfully: " + sosTable.getItems().size() + " alerts");
         } catch (Exception e) {
@@ -1914,46 +2160,29 @@ public class EmergencyView {
         try {
             volunteersList.getChildren().clear();
             
-            DatabaseManager dbManager = DatabaseManager.getInstance();            // Get all approved volunteers with their assignment counts and check if already assigned to this SOS
-            String volunteersQuery = "SELECT u.user_id, u.name, u.email, " +
-                                   "COALESCE(u.location_name, u.location) as location, u.skills, " +
-                                   "COUNT(va.volunteer_id) as assignment_count, " +
-                                   "CASE WHEN va_current.volunteer_id IS NOT NULL THEN 1 ELSE 0 END as already_assigned " +
-                                   "FROM users u " +
-                                   "LEFT JOIN volunteer_assignments va ON u.user_id = va.volunteer_id " +
-                                   "AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
-                                   "LEFT JOIN volunteer_assignments va_current ON u.user_id = va_current.volunteer_id " +
-                                   "AND va_current.request_id = ? AND va_current.assignment_type = 'SOS' AND va_current.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
-                                   "WHERE u.user_type = 'VOLUNTEER' AND u.status IN ('ACTIVE', 'ASSIGNED') " +
-                                   "AND ((u.location IS NOT NULL AND u.location != '') OR (u.location_name IS NOT NULL AND u.location_name != '')) " +
-                                   "GROUP BY u.user_id, u.name, u.email, u.location_name, u.location, u.skills, va_current.volunteer_id " +
-                                   "ORDER BY assignment_count ASC, u.name ASC";
-              String sosId = alert[0].toString();
-            try (java.sql.ResultSet rs = dbManager.executeQuery(volunteersQuery, sosId)) {
-                boolean hasVolunteers = false;
-                int count = 0;
-                while (rs.next()) {
-                    hasVolunteers = true;
-                    count++;
-                    String volunteerId = rs.getString("user_id");
-                    String name = rs.getString("name");                    String location = rs.getString("location");
-                    String skills = rs.getString("skills");
-                    int assignmentCount = rs.getInt("assignment_count");
-                    boolean alreadyAssigned = rs.getInt("already_assigned") > 0;
-                    
-                    System.out.println("Found volunteer for SOS: " + name + " at " + location + " with " + assignmentCount + " assignments, already assigned: " + alreadyAssigned);
-                      // Create volunteer row for SOS assignment
-                    HBox volunteerRow = createVolunteerSOSAssignmentRow(volunteerId, name, location, 
-                                                                      skills, assignmentCount, alert, alreadyAssigned);
-                    volunteersList.getChildren().add(volunteerRow);
-                }
-                
-                System.out.println("Total volunteers found for SOS assignment: " + count);                if (!hasVolunteers) {
-                    Label noVolunteersLabel = new Label("No approved volunteers available for assignment.\nPlease ensure volunteers have location information.");
-                    noVolunteersLabel.setStyle("-fx-text-fill: #6c757d; -fx-font-style: italic; -fx-padding: 20;");
-                    volunteersList.getChildren().add(noVolunteersLabel);
-                    System.out.println("No volunteers found for SOS - adding 'no volunteers' message");
-                }
+            DatabaseManager dbManager = DatabaseManager.getInstance();
+            
+            // Approved volunteers ranked by distance, skill and current load
+            String sosId = alert[0].toString();
+            VolunteerMatcher matcher = VolunteerMatcher.getInstance();
+            List<VolunteerMatcher.Candidate> candidates = matcher.topCandidates(
+                VolunteerMatcher.Target.forRecord("SOS", sosId), null, matcher.size());
+            Set<String> assignedIds = loadAssignedVolunteerIds(dbManager,
+                "SELECT volunteer_id FROM volunteer_assignments WHERE request_id = ? AND assignment_type = 'SOS' AND status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS')",
+                sosId);
+            
+            for (VolunteerMatcher.Candidate candidate : candidates) {
+                HBox volunteerRow = createVolunteerSOSAssignmentRow(candidate.getUserId(), candidate.getName(), describeLocation(candidate),
+                                                                  candidate.getSkills(), candidate.getActiveAssignments(), alert,
+                                                                  assignedIds.contains(candidate.getUserId()));
+                volunteersList.getChildren().add(volunteerRow);
+            }
+            
+            System.out.println("Total volunteers found for SOS assignment: " + candidates.size());
+            if (candidates.isEmpty()) {
+                Label noVolunteersLabel = new Label("No approved volunteers available for assignment.\nPlease ensure volunteers have location information.");
+                noVolunteersLabel.setStyle("-fx-text-fill: #6c757d; -fx-font-style: italic; -fx-padding: 20;");
+                volunteersList.getChildren().add(noVolunteersLabel);
             }
         } catch (Exception e) {
             System.err.println("Error loading volunteers for SOS assignment: " + e.getMessage());
@@ -1964,6 +2193,25 @@ public class EmergencyView {
             volunteersList.getChildren().add(errorLabel);
         }
     }
+    
+    private Set<String> loadAssignedVolunteerIds(DatabaseManager dbManager, String sql, String recordId) throws java.sql.SQLException {
+        Set<String> assignedIds = new HashSet<>();
+        dbManager.executeQueryWithCallback(sql, rs -> {
+            while (rs.next()) {
+                assignedIds.add(rs.getString("volunteer_id"));
+            }
+        }, recordId);
+        return assignedIds;
+    }
+    
+    private String describeLocation(VolunteerMatcher.Candidate candidate) {
+        String location = candidate.getLocation();
+        if (Double.isNaN(candidate.getDistanceKm())) {
+            return location;
+        }
+        String distance = String.format("%.1f km away", candidate.getDistanceKm());
+        return location != null && !location.isEmpty() ? location + " (" + distance + ")" : distance;
+    }
       /**
      * Creates a volunteer row for SOS assignment
      */    private HBox createVolunteerSOSAssignmentRow(String volunteerId, String name, String location, 
@@ -2303,13 +2551,14 @@ public class EmergencyView {
      * This ensures two-way sync between tables and track assignments
      */
     public void syncTableAssignmentsToTrackAssignments() {
+        int[] synced = {0};
         try {
             DatabaseManager dbManager = DatabaseManager.getInstance();
             
             // Sync Emergency Requests
             String emergencyQuery = "SELECT request_id, assigned_volunteer FROM emergency_requests WHERE assigned_volunteer IS NOT NULL AND assigned_volunteer != '' AND assigned_volunteer != 'None'";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(emergencyQuery)) {
+            dbManager.executeQueryWithCallback(emergencyQuery, rs -> {
                 while (rs.next()) {
                     String requestId = rs.getString("request_id");
                     String assignedVolunteers = rs.getString("assigned_volunteer");
@@ -2317,36 +2566,39 @@ public class EmergencyView {
                     if (assignedVolunteers != null && !assignedVolunteers.trim().isEmpty()) {
                         String[] volunteerNames = assignedVolunteers.split(",");
                         
-                        for (String volunteerName : volunteerNames) {
-                            volunteerName = volunteerName.trim();
+                        for (String listedName : volunteerNames) {
+                            String volunteerName = listedName.trim();
                             
                             // Get volunteer ID from name
                             String getVolunteerIdQuery = "SELECT user_id FROM users WHERE name = ? AND user_type = 'VOLUNTEER'";
-                            try (java.sql.ResultSet volunteerRs = dbManager.executeQuery(getVolunteerIdQuery, volunteerName)) {
+                            dbManager.executeQueryWithCallback(getVolunteerIdQuery, volunteerRs -> {
                                 if (volunteerRs.next()) {
                                     String volunteerId = volunteerRs.getString("user_id");
                                     
                                     // Check if assignment already exists in volunteer_assignments
                                     String checkAssignmentQuery = "SELECT COUNT(*) as count FROM volunteer_assignments WHERE volunteer_id = ? AND request_id = ? AND assignment_type = 'EMERGENCY'";
-                                    try (java.sql.ResultSet checkRs = dbManager.executeQuery(checkAssignmentQuery, volunteerId, requestId)) {
+                                    dbManager.executeQueryWithCallback(checkAssignmentQuery, checkRs -> {
                                         if (checkRs.next() && checkRs.getInt("count") == 0) {
                                             // Create assignment record
                                             String assignmentId = "SYNC_" + System.currentTimeMillis() + "_" + volunteerId.substring(0, Math.min(4, volunteerId.length()));
                                             String insertQuery = "INSERT INTO volunteer_assignments (assignment_id, volunteer_id, request_id, assignment_type, status, assigned_at) VALUES (?, ?, ?, 'EMERGENCY', 'ASSIGNED', datetime('now'))";
-                                            dbManager.executeUpdate(insertQuery, assignmentId, volunteerId, requestId);
+                                            synced[0] += dbManager.executeUpdate(insertQuery, assignmentId, volunteerId, requestId);
                                             System.out.println("Synced emergency assignment: " + volunteerName + " -> " + requestId);
                                         }
-                                    }
+                                    }, volunteerId, requestId);
                                 }
-                            }
+                            }, volunteerName);
                         }
                     }
                 }
-            }
+            });
               } catch (Exception e) {
             System.err.println("Error syncing table assignments to track assignments: " + e.getMessage());
             e.printStackTrace();
         }
+        if (synced[0] > 0) {
+            DataSyncManager.getInstance().notifyVolunteerDataChanged();
+        }
     }
 
     /**
@@ -2354,6 +2606,7 @@ public class EmergencyView {
      * This ensures that assignments made via Quick Assignment are reflected in Emergency/SOS tables
      */
     public void syncTrackAssignmentsToTables() {
+        int[] synced = {0};
         try {
             DatabaseManager dbManager = DatabaseManager.getInstance();
             
@@ -2365,19 +2618,20 @@ public class EmergencyView {
                                              "AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
                                              "GROUP BY va.request_id";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(emergencyAssignmentsQuery)) {
+            dbManager.executeQueryWithCallback(emergencyAssignmentsQuery, rs -> {
                 while (rs.next()) {
                     String requestId = rs.getString("request_id");
                     String volunteerNames = rs.getString("volunteer_names");
                     
                     if (volunteerNames != null && !volunteerNames.trim().isEmpty()) {
                         // Update emergency_requests table
-                        String updateQuery = "UPDATE emergency_requests SET assigned_volunteer = ?, status = 'ASSIGNED' WHERE request_id = ?";
-                        dbManager.executeUpdate(updateQuery, volunteerNames, requestId);
+                        String updateQuery = "UPDATE emergency_requests SET assigned_volunteer = ?, status = 'ASSIGNED' WHERE request_id = ? " +
+                                           "AND (assigned_volunteer IS NOT ? OR status IS NOT 'ASSIGNED')";
+                        synced[0] += dbManager.executeUpdate(updateQuery, volunteerNames, requestId, volunteerNames);
                         System.out.println("Synced track assignment to emergency table: " + requestId + " -> " + volunteerNames);
                     }
                 }
-            }
+            });
             
             // Get all SOS assignments from volunteer_assignments
             String sosAssignmentsQuery = "SELECT va.request_id, GROUP_CONCAT(u.name, ', ') as volunteer_names " +
@@ -2387,23 +2641,28 @@ public class EmergencyView {
                                        "AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
                                        "GROUP BY va.request_id";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(sosAssignmentsQuery)) {
+            dbManager.executeQueryWithCallback(sosAssignmentsQuery, rs -> {
                 while (rs.next()) {
                     String sosId = rs.getString("request_id");
                     String volunteerNames = rs.getString("volunteer_names");
                     
                     if (volunteerNames != null && !volunteerNames.trim().isEmpty()) {
                         // Update sos_alerts table
-                        String updateQuery = "UPDATE sos_alerts SET assigned_volunteer = ?, status = 'ASSIGNED' WHERE sos_id = ?";
-                        dbManager.executeUpdate(updateQuery, volunteerNames, sosId);
+                        String updateQuery = "UPDATE sos_alerts SET assigned_volunteer = ?, status = 'ASSIGNED' WHERE sos_id = ? " +
+                                           "AND (assigned_volunteer IS NOT ? OR status IS NOT 'ASSIGNED')";
+                        synced[0] += dbManager.executeUpdate(updateQuery, volunteerNames, sosId, volunteerNames);
                         System.out.println("Synced track assignment to SOS table: " + sosId + " -> " + volunteerNames);
                     }
                 }
-            }
+            });
             
         } catch (Exception e) {            System.err.println("Error syncing track assignments to tables: " + e.getMessage());
             e.printStackTrace();
         }
+        // Only rows whose names or status actually changed were written
+        if (synced[0] > 0) {
+            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+        }
     }
     
     /**
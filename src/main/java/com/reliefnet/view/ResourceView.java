@@ -14,6 +14,8 @@ import com.reliefnet.model.Resource;
 import com.reliefnet.model.User;
 import com.reliefnet.util.ThemeManager;
 import com.reliefnet.util.DataSyncManager;
+import com.reliefnet.util.IncrementalTableModel;
+import com.reliefnet.util.KeysetPager;
 import com.reliefnet.database.DatabaseManager;
 
 /**
@@ -27,6 +29,9 @@ public class ResourceView {
     private TableView<Resource> distributedTable; // Add reference to distributed table
     private ObservableList<Resource> resourceList;
     private ObservableList<Resource> distributedResourcesList; // Add reference to distributed list
+    private IncrementalTableModel<Resource> availableModel;
+    private IncrementalTableModel<Resource> distributedModel;
+    private KeysetPager<Resource> distributedPager; // Distribution records grow without bound, so page them
     private Label totalResourcesLabel;
     private Label criticalResourcesLabel;
     private Label alertTextLabel;public VBox createResourceView(User user) {
@@ -37,6 +42,8 @@ public class ResourceView {
         
         // Initialize empty resource list first
         resourceList = FXCollections.observableArrayList();
+        availableModel = new IncrementalTableModel<>(resourceList, Resource::getResourceId,
+            resource -> "AVAILABLE".equalsIgnoreCase(resource.getStatus()));
         
         // Header section
         VBox header = createHeader();
@@ -324,88 +331,167 @@ public class ResourceView {
         distributedTable.getColumns().addAll(columns);
           // Filter and show only distributed resources
         distributedResourcesList = FXCollections.observableArrayList(); // Use instance variable
+        distributedModel = new IncrementalTableModel<>(distributedResourcesList, Resource::getResourceId,
+            resource -> "DISTRIBUTED".equalsIgnoreCase(resource.getStatus()));
+        distributedPager = new KeysetPager<>(distributedResourcesList, "SELECT * FROM resources",
+            "status = ?", new Object[] { "DISTRIBUTED" }, "updated_at", "id", true,
+            this::readResource, Resource::getResourceId);
+        distributedPager.bind(distributedTable);
         loadDistributedResources(distributedResourcesList);
         distributedTable.setItems(distributedResourcesList);
         
         container.getChildren().addAll(tableTitle, distributedTable);
         return container;    }
       private void loadResourceData() {
-        resourceList = FXCollections.observableArrayList();
-        
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            // Only load AVAILABLE resources for the available table
-            String sql = "SELECT * FROM resources WHERE status = 'AVAILABLE' ORDER BY created_at DESC";
-            
-            // Execute query and populate resource list
-            try (java.sql.ResultSet rs = dbManager.executeQuery(sql)) {
-                while (rs.next()) {
-                    Resource resource = new Resource();
-                    resource.setResourceId(rs.getString("resource_id"));
-                    resource.setName(rs.getString("name"));
-                    
-                    // Parse category
-                    String categoryStr = rs.getString("category");
-                    if (categoryStr != null) {
-                        try {
-                            Resource.ResourceCategory categoryEnum = Resource.ResourceCategory.valueOf(categoryStr);
-                            resource.setCategoryEnum(categoryEnum);
-                        } catch (IllegalArgumentException e) {
-                            resource.setCategory(categoryStr); // Use as string if enum doesn't match
-                        }
-                    }
-                    
-                    resource.setQuantity(rs.getInt("quantity"));
-                    resource.setUnit(rs.getString("unit"));
-                    resource.setLocationLat(rs.getDouble("location_lat"));
-                    resource.setLocationLng(rs.getDouble("location_lng"));
-                    resource.setLocation(rs.getString("location_name"));
-                    
-                    // Parse status
-                    String statusStr = rs.getString("status");
-                    if (statusStr != null) {
-                        try {
-                            Resource.ResourceStatus statusEnum = Resource.ResourceStatus.valueOf(statusStr.toUpperCase());
-                            resource.setStatusEnum(statusEnum);
-                        } catch (IllegalArgumentException e) {
-                            resource.setStatus(statusStr); // Use as string if enum doesn't match
-                        }
-                    }
-                    
-                    // Parse expiry date
-                    java.sql.Date expiryDate = rs.getDate("expiry_date");
-                    if (expiryDate != null) {
-                        resource.setExpiryDate(expiryDate.toLocalDate());
-                    }
-                    
-                    resource.setAllocatedTo(rs.getString("allocated_to"));
-                    resource.setNotes(rs.getString("notes"));
-                    
-                    // Parse timestamps
-                    java.sql.Timestamp createdTs = rs.getTimestamp("created_at");
-                    if (createdTs != null) {
-                        resource.setCreatedAt(createdTs.toLocalDateTime());
-                    }
-                    
-                    java.sql.Timestamp updatedTs = rs.getTimestamp("updated_at");
-                    if (updatedTs != null) {
-                        resource.setUpdatedAt(updatedTs.toLocalDateTime());
-                    }
-                    
-                    resourceList.add(resource);
-                }
-            }
-            
-            System.out.println("Resource data loaded successfully: " + resourceList.size() + " resources");
+            // Only AVAILABLE resources belong in the available table; after the first load
+            // just the rows changed since the last refresh are applied
+            int changed = refreshResourceModel(availableModel, null, "AVAILABLE", "created_at DESC");
+            System.out.println("Resource data loaded successfully: " + resourceList.size() + " resources (" + changed + " changed)");
             
         } catch (Exception e) {
             System.err.println("Error loading resource data: " + e.getMessage());
             e.printStackTrace();
-            // Initialize with empty list on error
-            resourceList = FXCollections.observableArrayList();
-        }          if (resourceTable != null) {
+            // Fall back to a full reload on the next refresh
+            availableModel.invalidate();
+        }          if (resourceTable != null && resourceTable.getItems() != resourceList) {
             resourceTable.setItems(resourceList);
         }
+    }
+    
+    /**
+     * Load resource rows with the given status into a model. The first call loads every matching
+     * row (or the newest page when a pager is given); later calls fetch only rows whose row_version
+     * moved, limited to the pager's window, and compare key sets only when the row count shows
+     * something was deleted. Returns the number of table rows that changed.
+     */
+    private int refreshResourceModel(IncrementalTableModel<Resource> model, KeysetPager<Resource> pager,
+                                     String status, String orderBy) throws java.sql.SQLException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        String window = pager != null ? pager.windowClause() : "1=1";
+        
+        if (!model.isLoaded()) {
+            long[] version = {0};
+            dbManager.executeQueryWithCallback("SELECT COALESCE(MAX(row_version), 0) FROM resources", rs -> {
+                if (rs.next()) {
+                    version[0] = rs.getLong(1);
+                }
+            });
+            if (pager != null) {
+                int loaded = pager.reload();
+                model.markLoaded(version[0]);
+                return loaded;
+            }
+            
+            java.util.List<Resource> rows = new java.util.ArrayList<>();
+            dbManager.executeQueryWithCallback("SELECT * FROM resources WHERE status = ? ORDER BY " + orderBy, rs -> {
+                while (rs.next()) {
+                    rows.add(readResource(rs));
+                }
+            }, status);
+            model.loadAll(rows, version[0]);
+            return rows.size();
+        }
+        
+        java.util.List<Object> params = new java.util.ArrayList<>();
+        params.add(model.getVersion());
+        if (pager != null) {
+            params.addAll(java.util.Arrays.asList(pager.windowParams()));
+        }
+        
+        java.util.List<Resource> rows = new java.util.ArrayList<>();
+        long[] maxVersion = { model.getVersion() };
+        dbManager.executeQueryWithCallback("SELECT * FROM resources WHERE row_version > ? AND " + window + " ORDER BY " + orderBy, rs -> {
+            while (rs.next()) {
+                Resource resource = readResource(rs);
+                rows.add(pager != null ? pager.track(rs, resource) : resource);
+                maxVersion[0] = Math.max(maxVersion[0], rs.getLong("row_version"));
+            }
+        }, params.toArray());
+        
+        int changed = model.applyChanges(rows, maxVersion[0]);
+        
+        java.util.List<Object> countParams = new java.util.ArrayList<>();
+        countParams.add(status);
+        if (pager != null) {
+            countParams.addAll(java.util.Arrays.asList(pager.windowParams()));
+        }
+        int[] total = {0};
+        dbManager.executeQueryWithCallback("SELECT COUNT(*) FROM resources WHERE status = ? AND " + window, rs -> {
+            if (rs.next()) {
+                total[0] = rs.getInt(1);
+            }
+        }, countParams.toArray());
+        boolean deleted = model.deletionsChanged(dbManager.getDeletionCount("resources"));
+        if (deleted || total[0] != model.getItems().size()) {
+            java.util.Set<String> liveIds = new java.util.HashSet<>();
+            dbManager.executeQueryWithCallback("SELECT resource_id FROM resources WHERE status = ? AND " + window, rs -> {
+                while (rs.next()) {
+                    liveIds.add(rs.getString("resource_id"));
+                }
+            }, countParams.toArray());
+            changed += model.retainKeys(liveIds);
+        }
+        return changed;
+    }
+    
+    /**
+     * Build a Resource from the current ResultSet row
+     */
+    private Resource readResource(java.sql.ResultSet rs) throws java.sql.SQLException {
+        Resource resource = new Resource();
+        resource.setResourceId(rs.getString("resource_id"));
+        resource.setName(rs.getString("name"));
+        
+        // Parse category
+        String categoryStr = rs.getString("category");
+        if (categoryStr != null) {
+            try {
+                Resource.ResourceCategory categoryEnum = Resource.ResourceCategory.valueOf(categoryStr);
+                resource.setCategoryEnum(categoryEnum);
+            } catch (IllegalArgumentException e) {
+                resource.setCategory(categoryStr); // Use as string if enum doesn't match
+            }
+        }
+        
+        resource.setQuantity(rs.getInt("quantity"));
+        resource.setUnit(rs.getString("unit"));
+        resource.setLocationLat(rs.getDouble("location_lat"));
+        resource.setLocationLng(rs.getDouble("location_lng"));
+        resource.setLocation(rs.getString("location_name"));
+        
+        // Parse status
+        String statusStr = rs.getString("status");
+        if (statusStr != null) {
+            try {
+                Resource.ResourceStatus statusEnum = Resource.ResourceStatus.valueOf(statusStr.toUpperCase());
+                resource.setStatusEnum(statusEnum);
+            } catch (IllegalArgumentException e) {
+                resource.setStatus(statusStr); // Use as string if enum doesn't match
+            }
+        }
+        
+        // Parse expiry date
+        java.sql.Date expiryDate = rs.getDate("expiry_date");
+        if (expiryDate != null) {
+            resource.setExpiryDate(expiryDate.toLocalDate());
+        }
+        
+        resource.setAllocatedTo(rs.getString("allocated_to"));
+        resource.setNotes(rs.getString("notes"));
+        
+        // Parse timestamps
+        java.sql.Timestamp createdTs = rs.getTimestamp("created_at");
+        if (createdTs != null) {
+            resource.setCreatedAt(createdTs.toLocalDateTime());
+        }
+        
+        java.sql.Timestamp updatedTs = rs.getTimestamp("updated_at");
+        if (updatedTs != null) {
+            resource.setUpdatedAt(updatedTs.toLocalDateTime());
+        }
+        
+        return resource;
     }      private void updateMetrics() {
         if (resourceList == null) {
             if (totalResourcesLabel != null) {
@@ -457,29 +543,11 @@ public class ResourceView {
      * Load distributed resources
      */    private void loadDistributedResources(ObservableList<Resource> distributedResources) {
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            String sql = "SELECT * FROM resources WHERE status = 'DISTRIBUTED' ORDER BY updated_at DESC";
-            
-            // Execute query and populate distributed resource list
-            try (java.sql.ResultSet rs = dbManager.executeQuery(sql)) {
-                while (rs.next()) {
-                    Resource resource = new Resource();
-                    resource.setResourceId(rs.getString("resource_id"));
-                    resource.setName(rs.getString("name"));
-                    resource.setCategory(rs.getString("category"));
-                    resource.setQuantity(rs.getInt("quantity")); // This now shows the distributed quantity
-                    resource.setUnit(rs.getString("unit"));
-                    resource.setLocation(rs.getString("location_name"));
-                    resource.setStatus(rs.getString("status"));
-                    resource.setAllocatedTo(rs.getString("allocated_to"));
-                    
-                    distributedResources.add(resource);
-                }
-            }
-            
+            refreshResourceModel(distributedModel, distributedPager, "DISTRIBUTED", "updated_at DESC");
         } catch (Exception e) {
             System.err.println("Error loading distributed resources: " + e.getMessage());
             e.printStackTrace();
+            distributedModel.invalidate();
         }
     }
     
@@ -1007,6 +1075,13 @@ public class ResourceView {
         dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
         dialog.showAndWait();
     }
+    /**
+     * Public method to refresh all data (called from MainController when the cached view is shown again)
+     */
+    public void refreshData() {
+        refreshAllTables();
+    }
+    
       /**
      * Refresh all tables and metrics - called by the refresh button
      */
@@ -1038,10 +1113,8 @@ public class ResourceView {
      */
     private void refreshDistributedTable() {
         try {
-            // Clear the existing distributed resources list
+            // Apply distributed resources changed since the last refresh
             if (distributedResourcesList != null) {
-                distributedResourcesList.clear();
-                // Reload distributed resources from database
                 loadDistributedResources(distributedResourcesList);
                 System.out.println("Distributed resources table refreshed with " + distributedResourcesList.size() + " items");
             }
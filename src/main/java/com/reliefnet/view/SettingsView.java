@@ -326,15 +326,19 @@ public class SettingsView {
                 
                 // Query to check if current password is correct
                 String checkSql = "SELECT COUNT(*) FROM users WHERE user_id = ? AND password = ?";
-                int count = 0;
+                int[] matches = {0};
                 
                 try {
-                    count = dbManager.executeQuery(checkSql, currentUser.getUserId(), currentPassword).getInt(1);
+                    dbManager.executeQueryWithCallback(checkSql, rs -> {
+                        if (rs.next()) {
+                            matches[0] = rs.getInt(1);
+                        }
+                    }, currentUser.getUserId(), currentPassword);
                 } catch (SQLException ex) {
                     throw new Exception("Failed to verify current password: " + ex.getMessage());
                 }
                 
-                if (count != 1) {
+                if (matches[0] != 1) {
                     // Current password is incorrect
                     Alert errorAlert = new Alert(Alert.AlertType.ERROR);
                     errorAlert.setTitle("Error");
@@ -638,10 +642,13 @@ public class SettingsView {
     private String getUserSetting(String userId, String key, String defaultValue) {
         try {
             String sql = "SELECT setting_value FROM settings WHERE setting_key = ? AND user_id = ?";
-            var result = dbManager.executeQuery(sql, key, userId);
-            if (result.next()) {
-                return result.getString("setting_value");
-            }
+            String[] value = {defaultValue};
+            dbManager.executeQueryWithCallback(sql, rs -> {
+                if (rs.next()) {
+                    value[0] = rs.getString("setting_value");
+                }
+            }, key, userId);
+            return value[0];
         } catch (SQLException e) {
             System.err.println("Error loading setting " + key + ": " + e.getMessage());
         }
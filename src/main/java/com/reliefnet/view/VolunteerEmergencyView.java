@@ -14,10 +14,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import com.reliefnet.util.ThemeManager;
 import com.reliefnet.util.DataSyncManager;
+import com.reliefnet.util.LocationGazetteer;
 import com.reliefnet.database.DatabaseManager;
+import com.reliefnet.database.LocationKeys;
+import com.reliefnet.database.SpatialIndex;
 import com.reliefnet.model.User;
 import com.reliefnet.model.EmergencyRequest;
 
@@ -37,6 +43,9 @@ public class VolunteerEmergencyView {
     private String volunteerLocation;
     private String volunteerDivision;
     private String volunteerDistrict;
+    private Integer volunteerDivisionId; // location key used by the "My Area" filter
+    private Double volunteerLat; // position used by the "Nearby" filter
+    private Double volunteerLng;
     
     // Store counts for display
     private int availableEmergencies = 0;
@@ -144,7 +153,7 @@ public class VolunteerEmergencyView {
         filterLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
         filterLabel.setStyle("-fx-text-fill: " + ThemeManager.PRIMARY_DARK + ";");
           locationFilterCombo = new ComboBox<>();
-        locationFilterCombo.getItems().addAll("My Area", "All Areas");
+        locationFilterCombo.getItems().addAll("Nearby", "My Area", "All Areas");
         locationFilterCombo.setValue("All Areas"); // Changed from "My Area" for testing
         locationFilterCombo.setPrefWidth(150);
         locationFilterCombo.setStyle("-fx-font-size: 12px;");
@@ -645,12 +654,19 @@ public class VolunteerEmergencyView {
     private void loadVolunteerLocation() {
         try {
             DatabaseManager dbManager = DatabaseManager.getInstance();
-            String sql = "SELECT location_name, location FROM users WHERE user_id = ?";
+            String sql = "SELECT location_name, location, location_lat, location_lng FROM users WHERE user_id = ?";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, currentVolunteer.getUserId())) {
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 if (rs.next()) {
                     String locationName = rs.getString("location_name");
                     String location = rs.getString("location");
+                    double lat = rs.getDouble("location_lat");
+                    boolean hasLat = !rs.wasNull();
+                    double lng = rs.getDouble("location_lng");
+                    if (hasLat && !rs.wasNull() && !(lat == 0 && lng == 0)) {
+                        volunteerLat = lat;
+                        volunteerLng = lng;
+                    }
                     
                     volunteerLocation = locationName != null ? locationName : location;
                     
@@ -659,7 +675,7 @@ public class VolunteerEmergencyView {
                         parseVolunteerLocation(volunteerLocation);
                     }
                 }
-            }
+            }, currentVolunteer.getUserId());
         } catch (Exception e) {
             System.err.println("Error loading volunteer location: " + e.getMessage());
         }
@@ -689,6 +705,11 @@ public class VolunteerEmergencyView {
             }
         }
         
+        volunteerDivisionId = LocationKeys.divisionIdOf(volunteerDivision);
+        if (volunteerDivisionId == null) {
+            volunteerDivisionId = LocationKeys.divisionIdOf(location);
+        }
+        
         System.out.println("Volunteer location parsed - District: " + volunteerDistrict + ", Division: " + volunteerDivision);
     }
     
@@ -699,67 +720,12 @@ public class VolunteerEmergencyView {
     private String[] getLocationInfo(String locationInput) {
         if (locationInput == null) return new String[]{null, null};
         
-        String normalized = locationInput.toLowerCase().trim();
-        
-        // Dhaka Division districts
-        if (normalized.contains("dhaka") || normalized.contains("gazipur") || normalized.contains("narayanganj") ||
-            normalized.contains("tangail") || normalized.contains("manikganj") || normalized.contains("munshiganj") ||
-            normalized.contains("faridpur") || normalized.contains("gopalganj") || normalized.contains("madaripur") ||
-            normalized.contains("rajbari") || normalized.contains("shariatpur") || normalized.contains("kishoreganj") ||
-            normalized.contains("netrokona")) {
-            return new String[]{locationInput, "Dhaka"};
-        }
-        
-        // Chittagong Division districts
-        if (normalized.contains("chittagong") || normalized.contains("chattogram") || normalized.contains("cox") ||
-            normalized.contains("feni") || normalized.contains("lakshmipur") || normalized.contains("comilla") ||
-            normalized.contains("noakhali") || normalized.contains("brahmanbaria") || normalized.contains("chandpur") ||
-            normalized.contains("rangamati") || normalized.contains("bandarban") || normalized.contains("khagrachhari")) {
-            return new String[]{locationInput, "Chittagong"};
-        }
-        
-        // Rajshahi Division districts
-        if (normalized.contains("rajshahi") || normalized.contains("bogura") || normalized.contains("pabna") ||
-            normalized.contains("sirajganj") || normalized.contains("natore") || normalized.contains("joypurhat") ||
-            normalized.contains("chapainawabganj") || normalized.contains("naogaon")) {
-            return new String[]{locationInput, "Rajshahi"};
-        }
-        
-        // Khulna Division districts
-        if (normalized.contains("khulna") || normalized.contains("jessore") || normalized.contains("jashore") ||
-            normalized.contains("narail") || normalized.contains("magura") || normalized.contains("jhenaidah") ||
-            normalized.contains("bagerhat") || normalized.contains("satkhira") || normalized.contains("kushtia") ||
-            normalized.contains("chuadanga") || normalized.contains("meherpur")) {
-            return new String[]{locationInput, "Khulna"};
-        }
-        
-        // Sylhet Division districts
-        if (normalized.contains("sylhet") || normalized.contains("moulvibazar") || normalized.contains("habiganj") ||
-            normalized.contains("sunamganj")) {
-            return new String[]{locationInput, "Sylhet"};
-        }
-        
-        // Barisal Division districts
-        if (normalized.contains("barisal") || normalized.contains("patuakhali") || normalized.contains("bhola") ||
-            normalized.contains("pirojpur") || normalized.contains("jhalokati") || normalized.contains("barguna")) {
-            return new String[]{locationInput, "Barisal"};
+        LocationGazetteer.Place place = LocationGazetteer.getInstance().resolve(locationInput);
+        if (place == null) {
+            return new String[]{locationInput, null};
         }
-        
-        // Rangpur Division districts
-        if (normalized.contains("rangpur") || normalized.contains("dinajpur") || normalized.contains("thakurgaon") ||
-            normalized.contains("panchagarh") || normalized.contains("nilphamari") || normalized.contains("lalmonirhat") ||
-            normalized.contains("kurigram") || normalized.contains("gaibandha")) {
-            return new String[]{locationInput, "Rangpur"};
-        }
-        
-        // Mymensingh Division districts
-        if (normalized.contains("mymensingh") || normalized.contains("jamalpur") || normalized.contains("sherpur") ||
-            normalized.contains("netrokona")) {
-            return new String[]{locationInput, "Mymensingh"};
-        }
-        
-        // If no match found, return as is
-        return new String[]{locationInput, null};
+        String district = place.getDistrict() != null ? place.getDistrict() : locationInput;
+        return new String[]{district, place.getDivision()};
     }    private void loadEmergencyData() {
         try {
             if (emergencyTable == null) return;
@@ -776,16 +742,11 @@ public class VolunteerEmergencyView {
                         "WHERE er.status IN ('PENDING', 'ASSIGNED', 'IN_PROGRESS') " +
                         "AND va.assignment_id IS NULL "; // Exclude tasks completed by current volunteer
             
-            // Add location filter placeholder (will be replaced in executeLocationFilteredQueryWithVolunteer)
-            if ("My Area".equals(locationFilterCombo.getValue()) && volunteerDivision != null) {
-                sql += "AND (er.location_name LIKE ? OR er.location_name LIKE ?) ";
-            }
+            sql += locationFilterClause("er", SpatialIndex.Layer.EMERGENCIES);
             
             sql += "ORDER BY er.priority DESC, er.created_at DESC";
             
-            try (ResultSet rs = executeLocationFilteredQueryWithVolunteer(dbManager, sql)) {
-                loadEmergencyRequestsFromResultSet(rs);
-            }
+            executeLocationFilteredQueryWithVolunteer(dbManager, sql, this::loadEmergencyRequestsFromResultSet);
             
         } catch (Exception e) {
             System.err.println("Error loading emergency data: " + e.getMessage());
@@ -805,19 +766,13 @@ public class VolunteerEmergencyView {
                         "WHERE sa.status IN ('PENDING', 'ACTIVE', 'ASSIGNED', 'RESPONDED') " +
                         "AND va.assignment_id IS NULL "; // Exclude SOS completed by current volunteer
             
-            // Add location filter placeholder (will be replaced in executeLocationFilteredQueryWithVolunteer)
-            if ("My Area".equals(locationFilterCombo.getValue()) && volunteerDivision != null) {
-                sql += "AND (sa.location_name LIKE ? OR sa.location_name LIKE ?) ";
-                System.out.println("Applying enhanced location filter for division: " + volunteerDivision);
-                System.out.println("Districts in division: " + String.join(", ", getDistrictsInDivision(volunteerDivision)));
-            } else {
-                System.out.println("Loading ALL areas (no location filter)");
-            }
+            sql += locationFilterClause("sa", SpatialIndex.Layer.SOS_ALERTS);
+            System.out.println("Location filter: " + locationFilterCombo.getValue());
             
             sql += "ORDER BY sa.urgency_level DESC, sa.created_at DESC";
             System.out.println("SQL Query: " + sql);
             
-            try (ResultSet rs = executeLocationFilteredQueryWithVolunteer(dbManager, sql)) {
+            executeLocationFilteredQueryWithVolunteer(dbManager, sql, rs -> {
                 int count = 0;
                 while (rs.next()) {
                     count++;
@@ -835,7 +790,7 @@ public class VolunteerEmergencyView {
                     sosTable.getItems().add(alertData);
                 }
                 System.out.println("Total SOS alerts loaded: " + count);
-            }
+            });
             
         } catch (Exception e) {
             System.err.println("Error loading SOS data: " + e.getMessage());
@@ -866,7 +821,7 @@ public class VolunteerEmergencyView {
                         "LEFT JOIN sos_alerts sa ON va.request_id = sa.sos_id AND va.assignment_type = 'SOS' " +
                         "WHERE va.volunteer_id = ? AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS', 'COMPLETED') " +
                         "ORDER BY va.assigned_at DESC";
-              try (ResultSet rs = dbManager.executeQuery(sql, currentVolunteer.getUserId())) {
+              dbManager.executeQueryWithCallback(sql, rs -> {
                 while (rs.next()) {
                     Object[] responseData = new Object[6];
                     responseData[0] = rs.getString("assignment_type");
@@ -893,94 +848,46 @@ public class VolunteerEmergencyView {
                     
                     myResponsesTable.getItems().add(responseData);
                 }
-            }
+            }, currentVolunteer.getUserId());
             
         } catch (Exception e) {
             System.err.println("Error loading my responses data: " + e.getMessage());
         }
-    }    private ResultSet executeLocationFilteredQueryWithVolunteer(DatabaseManager dbManager, String sql) throws SQLException {
-        if ("My Area".equals(locationFilterCombo.getValue()) && volunteerDivision != null) {
-            // Get all districts in the same division for comprehensive matching
-            String[] sameAreaDistricts = getDistrictsInDivision(volunteerDivision);
-            
-            // Build a more comprehensive SQL query that matches any district in the same division
-            String enhancedSql = sql.replace(
-                "AND (sa.location_name LIKE ? OR sa.location_name LIKE ?)", 
-                buildLocationFilterClause("sa.location_name", sameAreaDistricts.length)
-            ).replace(
-                "AND (er.location_name LIKE ? OR er.location_name LIKE ?)", 
-                buildLocationFilterClause("er.location_name", sameAreaDistricts.length)
-            );
-            
-            // Prepare parameters: volunteer_id + all district patterns
-            Object[] params = new Object[1 + sameAreaDistricts.length];
-            params[0] = currentVolunteer.getUserId();
-            for (int i = 0; i < sameAreaDistricts.length; i++) {
-                params[i + 1] = "%" + sameAreaDistricts[i] + "%";
-            }
-            
-            return dbManager.executeQuery(enhancedSql, params);
-        } else {
-            return dbManager.executeQuery(sql, currentVolunteer.getUserId());
-        }
+    }    /**
+     * "My Area" limits lists to the volunteer's division, matched on the indexed division_id key
+     */
+    private boolean isMyAreaFilterActive() {
+        return "My Area".equals(locationFilterCombo.getValue()) && volunteerDivisionId != null;
     }
     
     /**
-     * Builds a SQL WHERE clause for location filtering with multiple district patterns
+     * "Nearby" limits lists to the emergency alert radius around the volunteer's position, via the spatial index
      */
-    private String buildLocationFilterClause(String columnName, int districtCount) {
-        StringBuilder clause = new StringBuilder("AND (");
-        for (int i = 0; i < districtCount; i++) {
-            if (i > 0) clause.append(" OR ");
-            clause.append(columnName).append(" LIKE ?");
+    private boolean isNearbyFilterActive() {
+        return "Nearby".equals(locationFilterCombo.getValue()) && volunteerLat != null;
+    }
+    
+    private String locationFilterClause(String alias, SpatialIndex.Layer layer) {
+        if (isNearbyFilterActive()) {
+            return "AND " + SpatialIndex.withinFilter(layer, alias) + " ";
         }
-        clause.append(")");
-        return clause.toString();
+        if (isMyAreaFilterActive()) {
+            return "AND " + alias + ".division_id = ? ";
+        }
+        return "";
     }
     
-    /**
-     * Returns all districts within the same division
-     */
-    private String[] getDistrictsInDivision(String division) {
-        if (division == null) return new String[]{volunteerDistrict != null ? volunteerDistrict : ""};
-        
-        String divisionLower = division.toLowerCase().trim();
-        
-        switch (divisionLower) {
-            case "dhaka":
-                return new String[]{"dhaka", "gazipur", "narayanganj", "tangail", "manikganj", 
-                                  "munshiganj", "faridpur", "gopalganj", "madaripur", "rajbari", 
-                                  "shariatpur", "kishoreganj", "netrokona"};
-                
-            case "chittagong":
-            case "chattogram":
-                return new String[]{"chittagong", "chattogram", "cox", "feni", "lakshmipur", 
-                                  "comilla", "noakhali", "brahmanbaria", "chandpur", "rangamati", 
-                                  "bandarban", "khagrachhari"};
-                
-            case "rajshahi":
-                return new String[]{"rajshahi", "bogura", "pabna", "sirajganj", "natore", 
-                                  "joypurhat", "chapainawabganj", "naogaon"};
-                
-            case "khulna":
-                return new String[]{"khulna", "jessore", "jashore", "narail", "magura", 
-                                  "jhenaidah", "bagerhat", "satkhira", "kushtia", "chuadanga", "meherpur"};
-                
-            case "sylhet":
-                return new String[]{"sylhet", "moulvibazar", "habiganj", "sunamganj"};
-                
-            case "barisal":
-                return new String[]{"barisal", "patuakhali", "bhola", "pirojpur", "jhalokati", "barguna"};
-                
-            case "rangpur":
-                return new String[]{"rangpur", "dinajpur", "thakurgaon", "panchagarh", 
-                                  "nilphamari", "lalmonirhat", "kurigram", "gaibandha"};
-                
-            case "mymensingh":
-                return new String[]{"mymensingh", "jamalpur", "sherpur", "netrokona"};
-                
-            default:
-                return new String[]{volunteerDistrict != null ? volunteerDistrict : ""};
+    private void executeLocationFilteredQueryWithVolunteer(DatabaseManager dbManager, String sql,
+                                                           DatabaseManager.ResultSetCallback callback) throws SQLException {
+        if (isNearbyFilterActive()) {
+            List<Object> params = new ArrayList<>();
+            params.add(currentVolunteer.getUserId());
+            Collections.addAll(params, SpatialIndex.withinParams(volunteerLat, volunteerLng, SpatialIndex.getAlertRadiusKm()));
+            dbManager.executeQueryWithCallback(sql, callback, params.toArray());
+        } else if (isMyAreaFilterActive()) {
+            dbManager.executeQueryWithCallback(sql, callback, currentVolunteer.getUserId(), volunteerDivisionId);
+        } else {
+            dbManager.executeQueryWithCallback(sql, callback, currentVolunteer.getUserId());
         }
     }
     
@@ -1017,9 +924,11 @@ public class VolunteerEmergencyView {
                         "WHERE volunteer_id = ? AND request_id = ? AND assignment_type = 'EMERGENCY' " +
                         "AND status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS', 'COMPLETED')";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, currentVolunteer.getUserId(), requestId)) {
-                return rs.next() && rs.getInt("count") > 0;
-            }
+            boolean[] responded = {false};
+            dbManager.executeQueryWithCallback(sql, rs -> {
+                responded[0] = rs.next() && rs.getInt("count") > 0;
+            }, currentVolunteer.getUserId(), requestId);
+            return responded[0];
         } catch (Exception e) {
             return false;
         }
@@ -1032,9 +941,11 @@ public class VolunteerEmergencyView {
                         "WHERE volunteer_id = ? AND request_id = ? AND assignment_type = 'SOS' " +
                         "AND status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS', 'COMPLETED')";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, currentVolunteer.getUserId(), sosId)) {
-                return rs.next() && rs.getInt("count") > 0;
-            }
+            boolean[] responded = {false};
+            dbManager.executeQueryWithCallback(sql, rs -> {
+                responded[0] = rs.next() && rs.getInt("count") > 0;
+            }, currentVolunteer.getUserId(), sosId);
+            return responded[0];
         } catch (Exception e) {
             return false;
         }
@@ -1117,13 +1028,14 @@ public class VolunteerEmergencyView {
             
             // Update emergency assigned volunteer field
             String getExistingQuery = "SELECT assigned_volunteer FROM emergency_requests WHERE request_id = ?";
-            String currentAssigned = null;
+            String[] existing = {null};
             
-            try (ResultSet rs = dbManager.executeQuery(getExistingQuery, request.getRequestId())) {
+            dbManager.executeQueryWithCallback(getExistingQuery, rs -> {
                 if (rs.next()) {
-                    currentAssigned = rs.getString("assigned_volunteer");
+                    existing[0] = rs.getString("assigned_volunteer");
                 }
-            }
+            }, request.getRequestId());
+            String currentAssigned = existing[0];
             
             String newAssignedValue;
             if (currentAssigned == null || currentAssigned.trim().isEmpty() || "None".equals(currentAssigned)) {
@@ -1141,6 +1053,9 @@ public class VolunteerEmergencyView {
             showAlert(Alert.AlertType.INFORMATION, "Response Successful", 
                      "You have successfully responded to this emergency. It has been added to your assignments.");
             
+            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+            DataSyncManager.getInstance().notifyVolunteerDataChanged();
+            
             // Refresh data
             loadEmergencyData();
             loadMyResponsesData();
@@ -1241,13 +1156,14 @@ public class VolunteerEmergencyView {
             
             // Update SOS assigned volunteer field
             String getExistingQuery = "SELECT assigned_volunteer FROM sos_alerts WHERE sos_id = ?";
-            String currentAssigned = null;
+            String[] existing = {null};
             
-            try (ResultSet rs = dbManager.executeQuery(getExistingQuery, sosId)) {
+            dbManager.executeQueryWithCallback(getExistingQuery, rs -> {
                 if (rs.next()) {
-                    currentAssigned = rs.getString("assigned_volunteer");
+                    existing[0] = rs.getString("assigned_volunteer");
                 }
-            }
+            }, sosId);
+            String currentAssigned = existing[0];
             
             String newAssignedValue;
             if (currentAssigned == null || currentAssigned.trim().isEmpty() || "None".equals(currentAssigned)) {
@@ -1265,6 +1181,9 @@ public class VolunteerEmergencyView {
             showAlert(Alert.AlertType.INFORMATION, "Response Successful", 
                      "You have successfully responded to this SOS alert.");
             
+            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+            DataSyncManager.getInstance().notifyVolunteerDataChanged();
+            
             // Refresh data
             loadSOSData();
             loadMyResponsesData();
@@ -1406,6 +1325,9 @@ public class VolunteerEmergencyView {
             showAlert(Alert.AlertType.INFORMATION, "Status Updated", 
                      "Emergency status updated successfully.");
             
+            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+            DataSyncManager.getInstance().notifyVolunteerDataChanged();
+            
             // Refresh data
             loadEmergencyData();
             loadMyResponsesData();
@@ -1441,6 +1363,9 @@ public class VolunteerEmergencyView {
             showAlert(Alert.AlertType.INFORMATION, "Status Updated", 
                      "SOS alert status updated successfully.");
             
+            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+            DataSyncManager.getInstance().notifyVolunteerDataChanged();
+            
             // Refresh data
             loadSOSData();
             loadMyResponsesData();
@@ -1463,13 +1388,14 @@ public class VolunteerEmergencyView {
             
             // Get current assigned volunteers
             String selectSql = "SELECT assigned_volunteer FROM " + tableName + " WHERE " + idColumn + " = ?";
-            String currentAssigned = null;
+            String[] existing = {null};
             
-            try (ResultSet rs = dbManager.executeQuery(selectSql, requestId)) {
+            dbManager.executeQueryWithCallback(selectSql, rs -> {
                 if (rs.next()) {
-                    currentAssigned = rs.getString("assigned_volunteer");
+                    existing[0] = rs.getString("assigned_volunteer");
                 }
-            }
+            }, requestId);
+            String currentAssigned = existing[0];
             
             if (currentAssigned != null && !currentAssigned.trim().isEmpty()) {
                 // Remove current volunteer from the list
@@ -1567,6 +1493,9 @@ public class VolunteerEmergencyView {
             showAlert(Alert.AlertType.INFORMATION, "Response Updated", 
                      "Your response status has been updated successfully.");
             
+            DataSyncManager.getInstance().notifyEmergencyDataChanged();
+            DataSyncManager.getInstance().notifyVolunteerDataChanged();
+            
             // Refresh data
             loadMyResponsesData();
             updateCounts();
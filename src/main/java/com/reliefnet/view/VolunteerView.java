@@ -13,7 +13,9 @@ import javafx.collections.ObservableList;
 import com.reliefnet.model.User;
 import com.reliefnet.util.ThemeManager;
 import com.reliefnet.util.DataSyncManager;
-import com.reliefnet.util.LocationHierarchy;
+import com.reliefnet.util.IncrementalTableModel;
+import com.reliefnet.util.KeysetPager;
+import com.reliefnet.util.VolunteerMatcher;
 import com.reliefnet.database.DatabaseManager;
 import java.sql.ResultSet;
 import java.util.List;
@@ -26,11 +28,15 @@ import java.util.Arrays;
  * VolunteerView - Manages volunteer registration, tracking, and assignments
  */
 public class VolunteerView implements DataSyncManager.DataChangeListener {
+    
+    private static final int MAX_ASSIGNMENT_CANDIDATES = 25;
       private VBox mainContainer;
     private TableView<User> approvedVolunteersTable;
     private TableView<User> pendingVolunteersTable;
     private ObservableList<User> approvedVolunteersList;
-    private ObservableList<User> pendingVolunteersList;    private Label totalVolunteersLabel;
+    private ObservableList<User> pendingVolunteersList;
+    private IncrementalTableModel<User> approvedModel;
+    private IncrementalTableModel<User> pendingModel;    private Label totalVolunteersLabel;
     private Label activeVolunteersLabel;
     // Removed assignmentsLabel as Active Assignments card was removed
     private ComboBox<String> emergencyDropdown;
@@ -39,6 +45,8 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
     
     // Track Assignment fields
     private TableView<VolunteerAssignment> assignmentTable;
+    private KeysetPager<VolunteerAssignment> assignmentPager;
+    private TableView<VolunteerAssignment> assignmentPagerTable;
     private Label assignmentSummaryLabel;
       // New fields for charts    private PieChart skillChart;
     
@@ -47,8 +55,6 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
     private ComboBox<String> skillFilter;
     private ComboBox<String> statusFilter;
     private ComboBox<String> locationFilter;
-      // Flag to track if location map has been printed (for debugging)
-    private boolean mapPrintedFlag = false;
       
     public VBox createView() {
         mainContainer = new VBox(20);
@@ -229,6 +235,7 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
         
         // Initialize table and list
         approvedVolunteersList = FXCollections.observableArrayList();
+        approvedModel = new IncrementalTableModel<>(approvedVolunteersList, User::getUserId, VolunteerView::isApprovedVolunteer);
         approvedVolunteersTable = new TableView<>(approvedVolunteersList);
         approvedVolunteersTable.setPrefHeight(250);
         approvedVolunteersTable.setStyle("-fx-background-color: white; -fx-background-radius: 8;");
@@ -330,6 +337,8 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
         
         // Initialize table and list
         pendingVolunteersList = FXCollections.observableArrayList();
+        pendingModel = new IncrementalTableModel<>(pendingVolunteersList, User::getUserId,
+            volunteer -> "PENDING".equals(volunteer.getStatus()));
         pendingVolunteersTable = new TableView<>(pendingVolunteersList);
         pendingVolunteersTable.setPrefHeight(250);
         pendingVolunteersTable.setStyle("-fx-background-color: white; -fx-background-radius: 8;");
@@ -614,70 +623,100 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
         // Ensure location column exists
         ensureLocationColumn();
         
-        approvedVolunteersList.clear();
-        pendingVolunteersList.clear();
-        
         try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();            // Load approved volunteers (from authority or approved self-registered) - must have location (either field)
-            String approvedSql = "SELECT * FROM users WHERE user_type = 'VOLUNTEER' AND (status = 'ACTIVE' OR status = 'INACTIVE' OR status = 'ASSIGNED') AND ((location IS NOT NULL AND location != '') OR (location_name IS NOT NULL AND location_name != '')) ORDER BY created_at DESC";
+            DatabaseManager dbManager = DatabaseManager.getInstance();
+            // Approved volunteers (from authority or approved self-registered) must have a location (either field);
+            // pending volunteers are self-registered and waiting for approval
+            String approvedWhere = "user_type = 'VOLUNTEER' AND (status = 'ACTIVE' OR status = 'INACTIVE' OR status = 'ASSIGNED') AND ((location IS NOT NULL AND location != '') OR (location_name IS NOT NULL AND location_name != ''))";
+            String pendingWhere = "user_type = 'VOLUNTEER' AND status = 'PENDING'";
             
-            try (ResultSet rs = dbManager.executeQuery(approvedSql)) {
-                while (rs.next()) {
-                    User volunteer = new User();
-                    volunteer.setUserId(rs.getString("user_id"));
-                    volunteer.setName(rs.getString("name"));
-                    volunteer.setPhone(rs.getString("phone"));
-                    volunteer.setEmail(rs.getString("email"));
-                    // Try both location and location_name columns
-                    String location = rs.getString("location");
-                    if (location == null || location.trim().isEmpty()) {
-                        location = rs.getString("location_name");
-                    }
-                    volunteer.setLocation(location);
-                    volunteer.setStatus(rs.getString("status"));
-                    volunteer.setSkills(rs.getString("skills"));
-                    volunteer.setUserType(User.UserType.VOLUNTEER);
-                    
-                    approvedVolunteersList.add(volunteer);
-                }
-            }            // Load pending volunteers (self-registered, waiting for approval)
-            String pendingSql = "SELECT * FROM users WHERE user_type = 'VOLUNTEER' AND status = 'PENDING' ORDER BY created_at DESC";
+            int approvedChanged = refreshVolunteerModel(dbManager, approvedModel, approvedWhere);
+            int pendingChanged = refreshVolunteerModel(dbManager, pendingModel, pendingWhere);
             
-            System.out.println("DEBUG: Loading pending volunteers with SQL: " + pendingSql);
-            
-            try (ResultSet rs = dbManager.executeQuery(pendingSql)) {
-                int pendingCount = 0;
-                while (rs.next()) {
-                    pendingCount++;
-                    User volunteer = new User();
-                    volunteer.setUserId(rs.getString("user_id"));
-                    volunteer.setName(rs.getString("name"));
-                    volunteer.setPhone(rs.getString("phone"));
-                    volunteer.setEmail(rs.getString("email"));
-                    // Try both location and location_name columns
-                    String location = rs.getString("location");
-                    if (location == null || location.trim().isEmpty()) {
-                        location = rs.getString("location_name");
-                    }
-                    volunteer.setLocation(location);
-                    volunteer.setStatus(rs.getString("status"));
-                    volunteer.setSkills(rs.getString("skills"));
-                    volunteer.setUserType(User.UserType.VOLUNTEER);
-                    
-                    System.out.println("DEBUG: Found pending volunteer - ID: " + volunteer.getUserId() + 
-                                     ", Name: " + volunteer.getName() + 
-                                     ", Status: " + volunteer.getStatus());
-                    
-                    pendingVolunteersList.add(volunteer);
-                }
-                System.out.println("DEBUG: Total pending volunteers loaded: " + pendingCount);
-            }
+            System.out.println("DEBUG: Volunteers loaded - approved: " + approvedVolunteersList.size() + " (" + approvedChanged +
+                             " changed), pending: " + pendingVolunteersList.size() + " (" + pendingChanged + " changed)");
             
         } catch (Exception e) {
             System.err.println("Error loading volunteer data: " + e.getMessage());
             e.printStackTrace();
+            approvedModel.invalidate();
+            pendingModel.invalidate();
+        }
+    }
+    
+    /**
+     * Load volunteers matching a WHERE clause into a model. After the first full load only
+     * volunteers whose row_version moved are fetched; the model's filter decides whether each
+     * one stays in the list. Key sets are compared only when the row count shows a deletion.
+     */
+    private int refreshVolunteerModel(DatabaseManager dbManager, IncrementalTableModel<User> model, String where) throws java.sql.SQLException {
+        boolean fullLoad = !model.isLoaded();
+        String sql = fullLoad
+            ? "SELECT * FROM users WHERE " + where + " ORDER BY created_at DESC"
+            : "SELECT * FROM users WHERE user_type = 'VOLUNTEER' AND row_version > ? ORDER BY created_at DESC";
+        Object[] params = fullLoad ? new Object[0] : new Object[] { model.getVersion() };
+        
+        List<User> rows = new ArrayList<>();
+        long[] maxVersion = { model.getVersion() };
+        dbManager.executeQueryWithCallback(sql, rs -> {
+            while (rs.next()) {
+                rows.add(readVolunteer(rs));
+                maxVersion[0] = Math.max(maxVersion[0], rs.getLong("row_version"));
+            }
+        }, params);
+        
+        if (fullLoad) {
+            model.loadAll(rows, maxVersion[0]);
+            return rows.size();
+        }
+        
+        int changed = model.applyChanges(rows, maxVersion[0]);
+        
+        int[] total = {0};
+        dbManager.executeQueryWithCallback("SELECT COUNT(*) FROM users WHERE " + where, rs -> {
+            if (rs.next()) {
+                total[0] = rs.getInt(1);
+            }
+        });
+        boolean deleted = model.deletionsChanged(dbManager.getDeletionCount("users"));
+        if (deleted || total[0] != model.getItems().size()) {
+            Set<String> liveIds = new HashSet<>();
+            dbManager.executeQueryWithCallback("SELECT user_id FROM users WHERE " + where, rs -> {
+                while (rs.next()) {
+                    liveIds.add(rs.getString("user_id"));
+                }
+            });
+            changed += model.retainKeys(liveIds);
+        }
+        return changed;
+    }
+    
+    private User readVolunteer(ResultSet rs) throws java.sql.SQLException {
+        User volunteer = new User();
+        volunteer.setUserId(rs.getString("user_id"));
+        volunteer.setName(rs.getString("name"));
+        volunteer.setPhone(rs.getString("phone"));
+        volunteer.setEmail(rs.getString("email"));
+        // Try both location and location_name columns
+        String location = rs.getString("location");
+        if (location == null || location.trim().isEmpty()) {
+            location = rs.getString("location_name");
         }
-    }    private void updateMetrics() {
+        volunteer.setLocation(location);
+        volunteer.setStatus(rs.getString("status"));
+        volunteer.setSkills(rs.getString("skills"));
+        volunteer.setUserType(User.UserType.VOLUNTEER);
+        return volunteer;
+    }
+    
+    private static boolean isApprovedVolunteer(User volunteer) {
+        String status = volunteer.getStatus();
+        String location = volunteer.getLocation();
+        return ("ACTIVE".equals(status) || "INACTIVE".equals(status) || "ASSIGNED".equals(status))
+            && location != null && !location.isEmpty();
+    }
+    
+    private void updateMetrics() {
         try {
             // Count total approved volunteers only (exclude pending)
             int totalVolunteers = approvedVolunteersList.size();
@@ -714,7 +753,7 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
               // Load regular emergency requests - using correct column names
             String emergencySql = "SELECT request_id, emergency_type, description, priority, location_name, status FROM emergency_requests WHERE status IN ('PENDING', 'IN_PROGRESS') ORDER BY created_at DESC";
             
-            try (ResultSet rs = dbManager.executeQuery(emergencySql)) {
+            dbManager.executeQueryWithCallback(emergencySql, rs -> {
                 while (rs.next()) {
                     String requestId = rs.getString("request_id");
                     String emergencyType = rs.getString("emergency_type");
@@ -735,12 +774,12 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                         emergencyDropdown.getItems().add(displayText);
                     }
                 }
-            }
+            });
             
             // Load SOS alerts - using correct column names  
             String sosSql = "SELECT sos_id, description, location_name, urgency_level, status FROM sos_alerts WHERE status IN ('ACTIVE', 'PENDING', 'ASSIGNED') ORDER BY created_at DESC";
             
-            try (ResultSet rs = dbManager.executeQuery(sosSql)) {
+            dbManager.executeQueryWithCallback(sosSql, rs -> {
                 while (rs.next()) {
                     String sosId = rs.getString("sos_id");
                     String description = rs.getString("description");
@@ -760,7 +799,7 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                             location != null ? location : "Unknown Location");
                         emergencyDropdown.getItems().add(displayText);
                     }
-                }}
+                }});
             
             if (emergencyDropdown.getItems().isEmpty()) {
                 emergencyDropdown.getItems().add("No active emergencies or SOS alerts");
@@ -789,29 +828,30 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
             } else {
                 // Fallback for old format - try to extract from database
                 DatabaseManager dbManager = DatabaseManager.getInstance();
-                String locationName = null;
+                String[] found = {null};
                 
                 if (selectedEmergency.startsWith("REQUEST")) {
                     // Handle emergency requests
                     String emergencyDesc = selectedEmergency.substring(selectedEmergency.lastIndexOf(" - ") + 3);
                     String getLocationSql = "SELECT location_name FROM emergency_requests WHERE description = ? AND request_status IN ('PENDING', 'IN_PROGRESS') LIMIT 1";
                     
-                    try (ResultSet rs = dbManager.executeQuery(getLocationSql, emergencyDesc)) {
+                    dbManager.executeQueryWithCallback(getLocationSql, rs -> {
                         if (rs.next()) {
-                            locationName = rs.getString("location_name");
+                            found[0] = rs.getString("location_name");
                         }
-                    }
+                    }, emergencyDesc);
                 } else if (selectedEmergency.startsWith("SOS")) {
                     // Handle SOS alerts
                     String sosId = selectedEmergency.split(" - ")[0].replace("SOS Alert: ", "");
                     String getLocationSql = "SELECT location FROM sos_alerts WHERE sos_id = ? AND status IN ('ACTIVE', 'PENDING', 'ASSIGNED') LIMIT 1";
                     
-                    try (ResultSet rs = dbManager.executeQuery(getLocationSql, sosId)) {
+                    dbManager.executeQueryWithCallback(getLocationSql, rs -> {
                         if (rs.next()) {
-                            locationName = rs.getString("location");
+                            found[0] = rs.getString("location");
                         }
-                    }
+                    }, sosId);
                 }
+                String locationName = found[0];
                 
                 if (locationName != null && !locationName.trim().isEmpty()) {
                     locationField.setText(locationName);
@@ -1149,46 +1189,17 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                 noRecordLabel.setTextFill(Color.web("#e74c3c"));
                 volunteerList.getChildren().add(noRecordLabel);
                 return;
-            }// Get volunteers query with location hierarchy support - only approved volunteers
-            StringBuilder queryBuilder = new StringBuilder("SELECT * FROM users WHERE user_type = 'VOLUNTEER' AND status IN ('ACTIVE', 'ASSIGNED') AND ((location IS NOT NULL AND location != '') OR (location_name IS NOT NULL AND location_name != ''))");
-            List<String> params = new ArrayList<>();            if (location != null && !location.isEmpty()) {
-                // Add support for location hierarchy - include nearby locations
-                Set<String> locationVariants = getLocationVariants(location);
-                
-                // Debug - print locations we're searching for
-                System.out.println("DEBUG: Searching for volunteers in these locations: " + locationVariants);
-                
-                if (locationVariants.size() > 1) {
-                    queryBuilder.append(" AND (");
-                    int variantIndex = 0;
-                    for (String variant : locationVariants) {
-                        if (variantIndex > 0) queryBuilder.append(" OR ");
-                        // Use LIKE queries to match any location containing the division/district name
-                        queryBuilder.append("(location_name LIKE ? OR location LIKE ? OR location_name LIKE ? OR location LIKE ?)");
-                        // Add both exact and wildcard patterns
-                        params.add(variant); // Exact match
-                        params.add(variant); // Exact match
-                        params.add("%" + variant + "%"); // Contains match
-                        params.add("%" + variant + "%"); // Contains match
-                        variantIndex++;
-                    }
-                    queryBuilder.append(")");
-                } else {
-                    // Use LIKE queries for single location as well
-                    queryBuilder.append(" AND (location_name LIKE ? OR location LIKE ? OR location_name LIKE ? OR location LIKE ?)");
-                    params.add(location); // Exact match
-                    params.add(location); // Exact match  
-                    params.add("%" + location + "%"); // Contains match
-                    params.add("%" + location + "%"); // Contains match
-                }
             }
             
-            if (requiredSkill != null && !requiredSkill.isEmpty() && !"Any".equals(requiredSkill)) {
-                queryBuilder.append(" AND (skills LIKE ? OR skills IS NULL)");
-                params.add("%" + requiredSkill + "%");
+            // Rank approved volunteers by distance, skill and current load
+            VolunteerMatcher.Target target = VolunteerMatcher.Target.forRecord(recordType, recordId);
+            if (target.getDivisionId() == null && location != null && !location.isEmpty()) {
+                target = VolunteerMatcher.Target.forLocation(location);
             }
+            List<VolunteerMatcher.Candidate> candidates =
+                VolunteerMatcher.getInstance().topCandidates(target, requiredSkill, MAX_ASSIGNMENT_CANDIDATES);
             
-            queryBuilder.append(" ORDER BY name ASC");            // Get already assigned volunteers for this record (emergency or SOS)
+            // Get already assigned volunteers for this record (emergency or SOS)
             String assignedVolunteersSql;
             if ("EMERGENCY".equals(recordType)) {
                 assignedVolunteersSql = "SELECT volunteer_id FROM volunteer_assignments WHERE request_id = ? AND status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS')";
@@ -1199,39 +1210,23 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
             
             System.out.println("Checking for existing assignments for " + recordType + ": " + recordId);
             
-            try (ResultSet rs = dbManager.executeQuery(assignedVolunteersSql, recordId)) {
+            dbManager.executeQueryWithCallback(assignedVolunteersSql, rs -> {
                 while (rs.next()) {
                     String assignedVolunteerId = rs.getString("volunteer_id");
                     assignedVolunteerIds.add(assignedVolunteerId);
                     System.out.println("Found existing assignment for volunteer: " + assignedVolunteerId);
                 }
-            }
+            }, recordId);
             
             System.out.println("Total volunteers already assigned: " + assignedVolunteerIds.size());
-              // Load volunteers
-            try (ResultSet rs = dbManager.executeQuery(queryBuilder.toString(), params.toArray())) {
-                int count = 0;
-                while (rs.next()) {
-                    String volunteerId = rs.getString("user_id");
-                    String volunteerName = rs.getString("name");
-                    String volunteerSkills = rs.getString("skills");
-                    String volunteerEmail = rs.getString("email");
-                    // Get location from either field
-                    String volunteerLocation = rs.getString("location");
-                    if (volunteerLocation == null || volunteerLocation.trim().isEmpty()) {
-                        volunteerLocation = rs.getString("location_name");
-                    }
-                      HBox volunteerRow = createVolunteerRow(volunteerId, volunteerName, volunteerSkills, volunteerEmail, volunteerLocation,
-                                                         assignedVolunteerIds.contains(volunteerId), recordId, recordType);
-                    volunteerList.getChildren().add(volunteerRow);
-                    count++;
-                }
-                
-                if (count == 0) {
-                    Label noVolunteersLabel = new Label("No volunteers found matching the criteria.");
-                    noVolunteersLabel.setTextFill(Color.web("#666666"));
-                    volunteerList.getChildren().add(noVolunteersLabel);
-                }
+            for (VolunteerMatcher.Candidate candidate : candidates) {
+                volunteerList.getChildren().add(createVolunteerRow(candidate, assignedVolunteerIds.contains(candidate.getUserId()), recordId, recordType));
+            }
+            
+            if (candidates.isEmpty()) {
+                Label noVolunteersLabel = new Label("No volunteers found matching the criteria.");
+                noVolunteersLabel.setTextFill(Color.web("#666666"));
+                volunteerList.getChildren().add(noVolunteersLabel);
             }
             
         } catch (Exception e) {
@@ -1240,32 +1235,19 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
             errorLabel.setTextFill(Color.web("#e74c3c"));
             volunteerList.getChildren().add(errorLabel);
         }
-    }    private HBox createVolunteerRow(String volunteerId, String name, String skills, String email, String location, boolean isAssigned, String recordId, String recordType) {
+    }    private HBox createVolunteerRow(VolunteerMatcher.Candidate candidate, boolean isAssigned, String recordId, String recordType) {
+        String volunteerId = candidate.getUserId();
+        String name = candidate.getName();
+        String skills = candidate.getSkills();
+        String email = candidate.getEmail();
+        String location = candidate.getLocation();
+        int assignmentCount = candidate.getActiveAssignments();
+        
         HBox row = new HBox(10);
         row.setPadding(new Insets(8));
         row.setAlignment(Pos.CENTER_LEFT);
         row.setStyle("-fx-background-color: #f8f9fa; -fx-background-radius: 6;");        VBox volunteerInfo = new VBox(2);
         
-        // Get assignment count
-        int assignmentCount = 0;
-        try {
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            String query = "SELECT COUNT(va.volunteer_id) as assignment_count " +
-                          "FROM users u " +
-                          "LEFT JOIN volunteer_assignments va ON u.user_id = va.volunteer_id " +
-                          "AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
-                          "WHERE u.user_id = ? " +
-                          "GROUP BY u.user_id";
-            
-            try (java.sql.ResultSet rs = dbManager.executeQuery(query, volunteerId)) {
-                if (rs.next()) {
-                    assignmentCount = rs.getInt("assignment_count");
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error getting assignment count: " + e.getMessage());
-        }
-        
         // Volunteer name with assignment count
         String displayName = name;
         if (assignmentCount > 0) {
@@ -1276,7 +1258,8 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
         nameLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, 12));
         
         // Location label below name
-        Label locationLabel = new Label("Location: " + (location != null && !location.isEmpty() ? location : "No location"));
+        String distance = Double.isNaN(candidate.getDistanceKm()) ? "" : String.format(" (%.1f km)", candidate.getDistanceKm());
+        Label locationLabel = new Label("Location: " + (location != null && !location.isEmpty() ? location : "No location") + distance);
         locationLabel.setFont(Font.font("Segoe UI", 10));
         locationLabel.setTextFill(Color.web("#666666"));
         
@@ -1325,12 +1308,13 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                 if ("EMERGENCY".equals(recordType)) {
                     // Get existing assigned volunteers
                     String getExistingSql = "SELECT assigned_volunteer FROM emergency_requests WHERE request_id = ?";
-                    String currentAssigned = null;
-                    try (ResultSet rs = dbManager.executeQuery(getExistingSql, recordId)) {
+                    String[] existing = {null};
+                    dbManager.executeQueryWithCallback(getExistingSql, rs -> {
                         if (rs.next()) {
-                            currentAssigned = rs.getString("assigned_volunteer");
+                            existing[0] = rs.getString("assigned_volunteer");
                         }
-                    }
+                    }, recordId);
+                    String currentAssigned = existing[0];
                     
                     // Update with new volunteer (append if others exist)
                     String newAssignedValue;
@@ -1349,12 +1333,13 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                 } else if ("SOS".equals(recordType)) {
                     // Get existing assigned volunteers
                     String getExistingSql = "SELECT assigned_volunteer FROM sos_alerts WHERE sos_id = ?";
-                    String currentAssigned = null;
-                    try (ResultSet rs = dbManager.executeQuery(getExistingSql, recordId)) {
+                    String[] existing = {null};
+                    dbManager.executeQueryWithCallback(getExistingSql, rs -> {
                         if (rs.next()) {
-                            currentAssigned = rs.getString("assigned_volunteer");
+                            existing[0] = rs.getString("assigned_volunteer");
                         }
-                    }
+                    }, recordId);
+                    String currentAssigned = existing[0];
                     
                     // Update with new volunteer (append if others exist)
                     String newAssignedValue;
@@ -1399,7 +1384,7 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
             // Sync Emergency Requests to volunteer_assignments
             String emergencyQuery = "SELECT request_id, assigned_volunteer FROM emergency_requests WHERE assigned_volunteer IS NOT NULL AND assigned_volunteer != '' AND assigned_volunteer != 'None'";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(emergencyQuery)) {
+            dbManager.executeQueryWithCallback(emergencyQuery, rs -> {
                 while (rs.next()) {
                     String requestId = rs.getString("request_id");
                     String assignedVolunteers = rs.getString("assigned_volunteer");
@@ -1412,31 +1397,31 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                             
                             // Get volunteer ID from name
                             String getVolunteerIdQuery = "SELECT user_id FROM users WHERE name = ? AND user_type = 'VOLUNTEER'";
-                            try (java.sql.ResultSet volunteerRs = dbManager.executeQuery(getVolunteerIdQuery, volunteerName)) {
+                            dbManager.executeQueryWithCallback(getVolunteerIdQuery, volunteerRs -> {
                                 if (volunteerRs.next()) {
                                     String volunteerId = volunteerRs.getString("user_id");
                                     
                                     // Check if assignment already exists
                                     String checkQuery = "SELECT COUNT(*) as count FROM volunteer_assignments WHERE volunteer_id = ? AND request_id = ? AND assignment_type = 'EMERGENCY'";
-                                    try (java.sql.ResultSet checkRs = dbManager.executeQuery(checkQuery, volunteerId, requestId)) {
+                                    dbManager.executeQueryWithCallback(checkQuery, checkRs -> {
                                         if (checkRs.next() && checkRs.getInt("count") == 0) {
                                             // Create assignment record
                                             String assignmentId = "SYNC_" + System.currentTimeMillis() + "_" + volunteerId.substring(0, Math.min(4, volunteerId.length()));
                                             String insertQuery = "INSERT INTO volunteer_assignments (assignment_id, volunteer_id, request_id, assignment_type, status, assigned_at) VALUES (?, ?, ?, 'EMERGENCY', 'ASSIGNED', datetime('now'))";
                                             dbManager.executeUpdate(insertQuery, assignmentId, volunteerId, requestId);
                                         }
-                                    }
+                                    }, volunteerId, requestId);
                                 }
-                            }
+                            }, volunteerName);
                         }
                     }
                 }
-            }
+            });
             
             // Sync SOS Alerts to volunteer_assignments  
             String sosQuery = "SELECT sos_id, assigned_volunteer FROM sos_alerts WHERE assigned_volunteer IS NOT NULL AND assigned_volunteer != '' AND assigned_volunteer != 'None'";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(sosQuery)) {
+            dbManager.executeQueryWithCallback(sosQuery, rs -> {
                 while (rs.next()) {
                     String sosId = rs.getString("sos_id");
                     String assignedVolunteers = rs.getString("assigned_volunteer");
@@ -1449,26 +1434,26 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                             
                             // Get volunteer ID from name
                             String getVolunteerIdQuery = "SELECT user_id FROM users WHERE name = ? AND user_type = 'VOLUNTEER'";
-                            try (java.sql.ResultSet volunteerRs = dbManager.executeQuery(getVolunteerIdQuery, volunteerName)) {
+                            dbManager.executeQueryWithCallback(getVolunteerIdQuery, volunteerRs -> {
                                 if (volunteerRs.next()) {
                                     String volunteerId = volunteerRs.getString("user_id");
                                     
                                     // Check if assignment already exists
                                     String checkQuery = "SELECT COUNT(*) as count FROM volunteer_assignments WHERE volunteer_id = ? AND request_id = ? AND assignment_type = 'SOS'";
-                                    try (java.sql.ResultSet checkRs = dbManager.executeQuery(checkQuery, volunteerId, sosId)) {
+                                    dbManager.executeQueryWithCallback(checkQuery, checkRs -> {
                                         if (checkRs.next() && checkRs.getInt("count") == 0) {
                                             // Create assignment record
                                             String assignmentId = "SOS_SYNC_" + System.currentTimeMillis() + "_" + volunteerId.substring(0, Math.min(4, volunteerId.length()));
                                             String insertQuery = "INSERT INTO volunteer_assignments (assignment_id, volunteer_id, request_id, assignment_type, status, assigned_at) VALUES (?, ?, ?, 'SOS', 'ASSIGNED', datetime('now'))";
                                             dbManager.executeUpdate(insertQuery, assignmentId, volunteerId, sosId);
                                         }
-                                    }
+                                    }, volunteerId, sosId);
                                 }
-                            }
+                            }, volunteerName);
                         }
                     }
                 }
-            }
+            });
               } catch (Exception e) {
             System.err.println("Error syncing assignments: " + e.getMessage());
         }
@@ -1485,7 +1470,7 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                                              "AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
                                              "GROUP BY va.request_id";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(emergencyAssignmentsQuery)) {
+            dbManager.executeQueryWithCallback(emergencyAssignmentsQuery, rs -> {
                 while (rs.next()) {
                     String requestId = rs.getString("request_id");
                     String volunteerNames = rs.getString("volunteer_names");
@@ -1495,7 +1480,7 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                         dbManager.executeUpdate(updateQuery, volunteerNames, requestId);
                     }
                 }
-            }
+            });
             
             // Get all SOS assignments from volunteer_assignments and sync to sos_alerts
             String sosAssignmentsQuery = "SELECT va.request_id, GROUP_CONCAT(u.name, ', ') as volunteer_names " +
@@ -1505,7 +1490,7 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                                        "AND va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') " +
                                        "GROUP BY va.request_id";
             
-            try (java.sql.ResultSet rs = dbManager.executeQuery(sosAssignmentsQuery)) {
+            dbManager.executeQueryWithCallback(sosAssignmentsQuery, rs -> {
                 while (rs.next()) {
                     String sosId = rs.getString("request_id");
                     String volunteerNames = rs.getString("volunteer_names");
@@ -1515,7 +1500,7 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                         dbManager.executeUpdate(updateQuery, volunteerNames, sosId);
                     }
                 }
-            }
+            });
             
         } catch (Exception e) {
             System.err.println("Error syncing track assignments to tables: " + e.getMessage());
@@ -1581,34 +1566,33 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
     
     private void loadAssignmentData(TableView<VolunteerAssignment> table) {
         try {
-            ObservableList<VolunteerAssignment> assignments = FXCollections.observableArrayList();
-            
-            DatabaseManager dbManager = DatabaseManager.getInstance();            String sql = """
-                SELECT va.assignment_id, va.volunteer_id, va.request_id, va.assignment_type, va.status, 
-                       date(va.assigned_at) as assigned_date,
-                       u.name as volunteer_name, u.location as volunteer_location,
-                       CASE 
-                         WHEN va.assignment_type = 'EMERGENCY' THEN er.description
-                         WHEN va.assignment_type = 'SOS' THEN 'SOS Alert: ' || sa.sos_id
-                         ELSE 'Unknown Assignment'
-                       END as emergency_description,                       CASE 
-                         WHEN va.assignment_type = 'EMERGENCY' THEN er.location_name
-                         WHEN va.assignment_type = 'SOS' THEN sa.location_name
-                         ELSE 'Unknown Location'
-                       END as emergency_location
-                FROM volunteer_assignments va
-                JOIN users u ON va.volunteer_id = u.user_id
-                LEFT JOIN emergency_requests er ON va.request_id = er.request_id AND va.assignment_type = 'EMERGENCY'
-                LEFT JOIN sos_alerts sa ON va.request_id = sa.sos_id AND va.assignment_type = 'SOS'
-                WHERE va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS', 'COMPLETED')
-                ORDER BY va.assigned_at DESC            """;
-            
-            System.out.println("Loading assignment data with query: " + sql);
-            
-            try (ResultSet rs = dbManager.executeQuery(sql)) {
-                int count = 0;
-                while (rs.next()) {
-                    count++;                    VolunteerAssignment assignment = new VolunteerAssignment(
+            // One pager per assignment table; rows are paged in newest first as the table scrolls
+            if (assignmentPager == null || assignmentPagerTable != table) {
+                ObservableList<VolunteerAssignment> assignments = FXCollections.observableArrayList();
+                String selectFrom = """
+                    SELECT va.id, va.assigned_at, va.assignment_id, va.volunteer_id, va.request_id, va.assignment_type, va.status, 
+                           date(va.assigned_at) as assigned_date,
+                           u.name as volunteer_name, u.location as volunteer_location,
+                           CASE 
+                             WHEN va.assignment_type = 'EMERGENCY' THEN er.description
+                             WHEN va.assignment_type = 'SOS' THEN 'SOS Alert: ' || sa.sos_id
+                             ELSE 'Unknown Assignment'
+                           END as emergency_description,
+                           CASE 
+                             WHEN va.assignment_type = 'EMERGENCY' THEN er.location_name
+                             WHEN va.assignment_type = 'SOS' THEN sa.location_name
+                             ELSE 'Unknown Location'
+                           END as emergency_location
+                    FROM volunteer_assignments va
+                    JOIN users u ON va.volunteer_id = u.user_id
+                    LEFT JOIN emergency_requests er ON va.request_id = er.request_id AND va.assignment_type = 'EMERGENCY'
+                    LEFT JOIN sos_alerts sa ON va.request_id = sa.sos_id AND va.assignment_type = 'SOS'
+                    """;
+                
+                assignmentPager = new KeysetPager<>(assignments, selectFrom,
+                    "va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS', 'COMPLETED')", null,
+                    "va.assigned_at", "va.id", true,
+                    rs -> new VolunteerAssignment(
                         rs.getString("assignment_id"),
                         rs.getString("volunteer_id"),
                         rs.getString("volunteer_name"),
@@ -1618,14 +1602,15 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                         rs.getString("assigned_date"),
                         rs.getString("assignment_type"),
                         rs.getString("request_id")
-                    );
-                    assignments.add(assignment);
-                    System.out.println("Loaded assignment: " + rs.getString("volunteer_name") + " -> " + rs.getString("emergency_description"));
-                }
-                System.out.println("Total assignments loaded: " + count);
+                    ),
+                    VolunteerAssignment::getAssignmentId);
+                assignmentPager.bind(table);
+                assignmentPagerTable = table;
+                table.setItems(assignments);
             }
             
-            table.setItems(assignments);
+            int count = assignmentPager.reload();
+            System.out.println("Assignments loaded: " + count + (assignmentPager.hasOlder() ? " (more on scroll)" : ""));
             
         } catch (Exception e) {
             System.err.println("Error loading assignment data: " + e.getMessage());
@@ -1634,16 +1619,27 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
     }
     
     private void updateAssignmentSummary(Label summaryLabel, TableView<VolunteerAssignment> table) {
-        int totalAssignments = table.getItems().size();
-        long activeAssignments = table.getItems().stream()
-            .filter(a -> "ASSIGNED".equals(a.getStatus()) || "ACCEPTED".equals(a.getStatus()) || "IN_PROGRESS".equals(a.getStatus()))
-            .count();
-        long completedAssignments = table.getItems().stream()
-            .filter(a -> "COMPLETED".equals(a.getStatus()))
-            .count();
+        // Count in the database - the table only holds the pages loaded so far
+        int[] counts = new int[3];
+        try {
+            String sql = "SELECT COUNT(*) as total, " +
+                        "SUM(CASE WHEN status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS') THEN 1 ELSE 0 END) as active, " +
+                        "SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END) as completed " +
+                        "FROM volunteer_assignments va JOIN users u ON va.volunteer_id = u.user_id " +
+                        "WHERE va.status IN ('ASSIGNED', 'ACCEPTED', 'IN_PROGRESS', 'COMPLETED')";
+            DatabaseManager.getInstance().executeQueryWithCallback(sql, rs -> {
+                if (rs.next()) {
+                    counts[0] = rs.getInt("total");
+                    counts[1] = rs.getInt("active");
+                    counts[2] = rs.getInt("completed");
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("Error counting assignments: " + e.getMessage());
+        }
             
         summaryLabel.setText(String.format("Total Assignments: %d | Active: %d | Completed: %d", 
-                                          totalAssignments, activeAssignments, completedAssignments));
+                                          counts[0], counts[1], counts[2]));
     }
     
     private void removeAssignment(VolunteerAssignment assignment, TableView<VolunteerAssignment> table) {
@@ -1927,21 +1923,26 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
                             "(LOWER(name) = LOWER(?) OR LOWER(email) = LOWER(?)) AND " +
                             "(status = 'ACTIVE' OR status = 'INACTIVE')";
             
-            try (ResultSet rs = dbManager.executeQuery(checkSql, name, email)) {
+            String[] matchedUserId = {null};
+            dbManager.executeQueryWithCallback(checkSql, rs -> {
                 if (rs.next()) {
-                    // Match found - update the existing record with login details
-                    String updateSql = "UPDATE users SET phone = ?, email = ?, skills = ?, " +
-                                     "status = 'ACTIVE', last_seen = CURRENT_TIMESTAMP WHERE user_id = ?";
-                    
-                    int rowsAffected = dbManager.executeUpdate(updateSql, 
-                        phone, email, skills, rs.getString("user_id"));
-                    
-                    if (rowsAffected > 0) {
-                        // Refresh data to show the updated volunteer
-                        loadVolunteerData();
-                        updateMetrics();
-                        return true; // Auto-approved
-                    }
+                    matchedUserId[0] = rs.getString("user_id");
+                }
+            }, name, email);
+            
+            if (matchedUserId[0] != null) {
+                // Match found - update the existing record with login details
+                String updateSql = "UPDATE users SET phone = ?, email = ?, skills = ?, " +
+                                 "status = 'ACTIVE', last_seen = CURRENT_TIMESTAMP WHERE user_id = ?";
+                
+                int rowsAffected = dbManager.executeUpdate(updateSql, 
+                    phone, email, skills, matchedUserId[0]);
+                
+                if (rowsAffected > 0) {
+                    // Refresh data to show the updated volunteer
+                    loadVolunteerData();
+                    updateMetrics();
+                    return true; // Auto-approved
                 }
             }
             
@@ -1979,11 +1980,13 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
             String sql = "SELECT COUNT(*) as count FROM users WHERE user_id = ? AND " +
                         "user_type = 'VOLUNTEER' AND (status = 'ACTIVE' OR status = 'INACTIVE')";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, userId)) {
+            boolean[] hasAccess = {false};
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 if (rs.next()) {
-                    return rs.getInt("count") > 0;
+                    hasAccess[0] = rs.getInt("count") > 0;
                 }
-            }
+            }, userId);
+            return hasAccess[0];
         } catch (Exception e) {
             System.err.println("Error checking volunteer access: " + e.getMessage());
         }
@@ -1999,11 +2002,13 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
             DatabaseManager dbManager = DatabaseManager.getInstance();
             String sql = "SELECT status FROM users WHERE user_id = ? AND user_type = 'VOLUNTEER'";
             
-            try (ResultSet rs = dbManager.executeQuery(sql, userId)) {
+            String[] status = {"UNKNOWN"};
+            dbManager.executeQueryWithCallback(sql, rs -> {
                 if (rs.next()) {
-                    return rs.getString("status");
+                    status[0] = rs.getString("status");
                 }
-            }
+            }, userId);
+            return status[0];
         } catch (Exception e) {
             System.err.println("Error getting volunteer status: " + e.getMessage());
         }
@@ -2030,101 +2035,14 @@ public class VolunteerView implements DataSyncManager.DataChangeListener {
             }        } catch (Exception e) {
             System.err.println("Error ensuring location column: " + e.getMessage());
         }
-    }    private Set<String> getLocationVariants(String location) {
-        Set<String> variants = new HashSet<>();
-        if (location == null || location.trim().isEmpty()) {
-            return variants;
-        }
-          // Print location hierarchy map for debugging (only once)
-        if (!mapPrintedFlag) {
-            LocationHierarchy.printLocationMap();
-            mapPrintedFlag = true;
-        }
-        
-        // Normalize the location name
-        String normalizedLocation = location.trim();
-        variants.add(normalizedLocation); // Always include the original location
-        
-        System.out.println("DEBUG: Finding variants for location: '" + normalizedLocation + "'");
-        
-        // Handle compound locations like "Old Dhaka", "Puran Dhaka", "Mirpur, Dhaka", etc.
-        String[] locationParts = normalizedLocation.split("[,;-]");
-        for (String part : locationParts) {
-            String trimmedPart = part.trim();
-            if (!trimmedPart.isEmpty()) {
-                variants.add(trimmedPart);
-                
-                // Check if this part contains any known division/district names
-                checkAndAddDivisionVariants(trimmedPart, variants);
-            }
-        }
-        
-        // Check the full location for division/district matches
-        checkAndAddDivisionVariants(normalizedLocation, variants);
-        
-        // Special case handling for common area names
-        addSpecialLocationVariants(normalizedLocation, variants);
-          System.out.println("DEBUG: Final location variants for '" + normalizedLocation + "': " + variants);
-        return variants;    
-    }
-    
-    private void checkAndAddDivisionVariants(String locationPart, Set<String> variants) {
-        // Check if this part is a district
-        String division = LocationHierarchy.getDivisionForDistrict(locationPart);
-        System.out.println("DEBUG: Division for " + locationPart + " is: " + division);
-        
-        if (!division.isEmpty() && !division.equals(locationPart)) {
-            // This is a district, add all districts from same division
-            List<String> districtsInSameDivision = LocationHierarchy.getDistrictsInDivision(division);
-            System.out.println("DEBUG: Districts in " + division + " division: " + districtsInSameDivision);
-            variants.addAll(districtsInSameDivision);
-            variants.add(division); // Also add the division itself
-        } else {
-            // This might be a division, add all districts in this division
-            List<String> districts = LocationHierarchy.getDistrictsInDivision(locationPart);
-            System.out.println("DEBUG: Districts in " + locationPart + " (as division): " + districts);
-            if (!districts.isEmpty()) {
-                variants.addAll(districts);
-            }
-        }
-        
-        // Also check if the location contains any division/district name
-        for (String div : Arrays.asList("Dhaka", "Chittagong", "Sylhet", "Khulna", "Rajshahi", "Barisal", "Rangpur", "Mymensingh")) {
-            if (locationPart.toLowerCase().contains(div.toLowerCase())) {
-                variants.add(div);
-                List<String> districts = LocationHierarchy.getDistrictsInDivision(div);
-                variants.addAll(districts);
-                System.out.println("DEBUG: Found division '" + div + "' in location, added districts: " + districts);
-            }
-        }
     }
     
-    private void addSpecialLocationVariants(String location, Set<String> variants) {
-        String lowerLocation = location.toLowerCase();
-        
-        // Special mappings for common areas
-        if (lowerLocation.contains("old dhaka") || lowerLocation.contains("puran dhaka") || 
-            lowerLocation.contains("old town") || lowerLocation.contains("gulshan") || 
-            lowerLocation.contains("dhanmondi") || lowerLocation.contains("mirpur") ||
-            lowerLocation.contains("uttara") || lowerLocation.contains("banani")) {
-            variants.add("Dhaka");
-            List<String> dhakaDistricts = LocationHierarchy.getDistrictsInDivision("Dhaka");
-            variants.addAll(dhakaDistricts);
-            System.out.println("DEBUG: Detected Dhaka area, added Dhaka division variants");
-        }
-        
-        if (lowerLocation.contains("feni")) {
-            variants.add("Chittagong");
-            List<String> chittagongDistricts = LocationHierarchy.getDistrictsInDivision("Chittagong");
-            variants.addAll(chittagongDistricts);
-            System.out.println("DEBUG: Feni detected, added Chittagong division variants");
-        }
-          if (lowerLocation.contains("tangail")) {
-            variants.add("Dhaka");
-            List<String> dhakaDistricts = LocationHierarchy.getDistrictsInDivision("Dhaka");
-            variants.addAll(dhakaDistricts);
-            System.out.println("DEBUG: Tangail detected, added Dhaka division variants");
-        }
+    /**
+     * Public method to refresh volunteer tables and metrics (called from MainController)
+     */
+    public void refreshData() {
+        loadVolunteerData();
+        updateMetrics();
     }
 
     // DataChangeListener implementation